@@ -0,0 +1,77 @@
+package accessories;
+
+/**
+ * Name, column and method of an index of a table, as kept in the catalog,
+ * the constraint of the column the index enforces if any and the false
+ * positive rate of a Bloom filter.
+ */
+public class IndexDefinition {
+
+	public static final String PRIMARY_KEY = "PRIMARY KEY";
+	public static final String UNIQUE = "UNIQUE";
+
+	private String name;
+	private String columnName;
+	private String method;
+	private String constraint;
+	private double falsePositiveRate;
+
+	public IndexDefinition(String name, String columnName, String method) {
+		this(name, columnName, method, null);
+	}
+
+	public IndexDefinition(String name, String columnName, String method, String constraint) {
+		this(name, columnName, method, constraint, 0);
+	}
+
+	public IndexDefinition(String name, String columnName, String method, String constraint,
+			double falsePositiveRate) {
+		this.name = name;
+		this.columnName = columnName;
+		this.method = method;
+		this.constraint = constraint;
+		this.falsePositiveRate = falsePositiveRate;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getColumnName() {
+		return columnName;
+	}
+
+	public String getMethod() {
+		return method;
+	}
+
+	public String getConstraint() {
+		return constraint;
+	}
+
+	/**
+	 * Zero for indexes that are not Bloom filters.
+	 */
+	public double getFalsePositiveRate() {
+		return falsePositiveRate;
+	}
+
+	/**
+	 * Whether no two rows may have the same value in the column, nulls
+	 * excepted.
+	 */
+	public boolean isUnique() {
+		return constraint != null;
+	}
+
+	public boolean isPrimaryKey() {
+		return PRIMARY_KEY.equals(constraint);
+	}
+
+	@Override
+	public String toString() {
+		return new String("Name: " + getName() + ", Column: " + getColumnName() + ", Method: " + getMethod()
+				+ (isUnique() ? ", Constraint: " + getConstraint() : "")
+				+ (falsePositiveRate != 0 ? ", False positive rate: " + falsePositiveRate : "") + "\n");
+	}
+}
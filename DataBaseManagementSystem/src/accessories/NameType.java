@@ -5,6 +5,7 @@ public class NameType {
 
 	private String columnName;
 	private StaticData.DataTypes dataType;
+	private String constraint;
 	
 	public NameType(String columnName, StaticData.DataTypes dataType) {
 		this.columnName = modifyName(columnName);
@@ -18,6 +19,17 @@ public class NameType {
 	public StaticData.DataTypes getColumnType() {
 		return dataType;
 	}
+
+	/**
+	 * IndexDefinition.PRIMARY_KEY, IndexDefinition.UNIQUE or null.
+	 */
+	public String getConstraint() {
+		return constraint;
+	}
+
+	public void setConstraint(String constraint) {
+		this.constraint = constraint;
+	}
 	
 	public int getColumnTypeInteger() {
 		switch (dataType) {
@@ -47,6 +59,7 @@ public class NameType {
 	@Override
 	public String toString() {
 		return new String ("ColumnName: " + getColumnName() 
-				+ ", Type: " + getColumnType().name() + "\n");
+				+ ", Type: " + getColumnType().name()
+				+ (constraint == null ? "" : ", Constraint: " + constraint) + "\n");
 	}
 }
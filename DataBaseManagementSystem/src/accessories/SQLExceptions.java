@@ -200,6 +200,50 @@ public class SQLExceptions {
 		throw new SQLException(logtoFile("File canot be written."));
 	}
 
+	public static void invalidLimit() throws SQLException {
+		throw new SQLException(logtoFile("LIMIT and OFFSET take a non negative integer."));
+	}
+
+	public static void invalidProperty(String name) throws SQLException {
+		throw new SQLException(logtoFile("Invalid value of property " + name + "."));
+	}
+
+	public static void interrupted() throws SQLException {
+		throw new SQLException(logtoFile("Statement was interrupted."));
+	}
+
+	public static void existingIndex() throws SQLException {
+		throw new SQLException(logtoFile("Existing Index."));
+	}
+
+	public static void unfoundIndex() throws SQLException {
+		throw new SQLException(logtoFile("index does not exist"));
+	}
+
+	public static void unknownIndexMethod(String method) throws SQLException {
+		throw new SQLException(logtoFile("Unknown index method " + method + "."));
+	}
+
+	public static void invalidFalsePositiveRate() throws SQLException {
+		throw new SQLException(logtoFile("False positive rate must lie between 0 and 1."));
+	}
+
+	public static void multiplePrimaryKeys() throws SQLException {
+		throw new SQLException(logtoFile("A table can have only one primary key."));
+	}
+
+	public static void duplicateKey(String indexName) throws SQLException {
+		throw new SQLException(logtoFile("Duplicate value violates the unique index " + indexName + "."));
+	}
+
+	public static void constraintIndex() throws SQLException {
+		throw new SQLException(logtoFile("Index enforces a constraint of the table."));
+	}
+
+	public static void damagedIndexFile(String fileName) throws SQLException {
+		throw new SQLException(logtoFile("Index file " + fileName + " is damaged, the catalog can not be rebuilt."));
+	}
+
 	private static String logtoFile(String string) {
 		Log4j.getInstance().error(string);
 		return string;
@@ -6,13 +6,13 @@ public final class StaticData {
 	
 	public static enum DataTypes {VARCHAR, INT, FLOAT, DATE};
 	public static enum CommandsTypes {SELECT, INSERT, DELETE, CREATE, DROP, ALTER, USE, UPDATE, UNION};
-	public static enum DataBaseTable {DATABASE, TABLE};
+	public static enum DataBaseTable {DATABASE, TABLE, INDEX};
 	public static enum AlterEnum {ADD, DROP};
 	public static enum BooleanValues {AND, OR, NOT, OTHER};
 	public static enum Order {ASC, DESC};
 	public static enum AttributeWords {NumberOfColumns, NumberOfRows, Column, Type,
 		Rows, RowNumber, Null, yes, ColumnTypes, ColumnNames, Details, Data, TableName};
-	public static enum FileType {XML, JSON, PB};
+	public static enum FileType {XML, JSON, PB, COLUMNAR};
 
 	private StaticData () {
 		
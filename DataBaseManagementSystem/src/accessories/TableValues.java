@@ -2,6 +2,7 @@ package accessories;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.List;
 
 public class TableValues {
 
@@ -9,6 +10,7 @@ public class TableValues {
 	private ArrayList<Integer> columnTypes;
 	private ArrayList<String> columnNames;
 	private ArrayList<ArrayList<Object>> rows;
+	private List<ArrayList<Object>> resultRows;
 	private int numCols, numRows;
 
 	public TableValues(String tableName, ArrayList<Integer> colTypes, ArrayList<String> colNames,
@@ -21,6 +23,15 @@ public class TableValues {
 		this.numRows = numRows;
 	}
 
+	public TableValues copy() {
+		ArrayList<ArrayList<Object>> rowsCopy = new ArrayList<ArrayList<Object>>(rows.size());
+		for (ArrayList<Object> row : rows) {
+			rowsCopy.add(new ArrayList<Object>(row));
+		}
+		return new TableValues(tableName, new ArrayList<Integer>(columnTypes),
+				new ArrayList<String>(columnNames), rowsCopy, numCols, numRows);
+	}
+
 	public Object getValue(int row, int col) {
 		return this.rows.get(row).get(col);
 	}
@@ -102,6 +113,18 @@ public class TableValues {
 		this.rows = rows;
 	}
 
+	/**
+	 * Rows handed to the result set, the rows themselves unless an operator
+	 * left them on disk to be read while the result is consumed.
+	 */
+	public List<ArrayList<Object>> getResultRows() {
+		return resultRows == null ? rows : resultRows;
+	}
+
+	public void setResultRows(List<ArrayList<Object>> resultRows) {
+		this.resultRows = resultRows;
+	}
+
 	public int getNumCols() {
 		return numCols;
 	}
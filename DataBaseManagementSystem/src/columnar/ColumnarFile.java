@@ -0,0 +1,219 @@
+package columnar;
+
+import java.io.File;
+import java.sql.SQLException;
+import java.util.ArrayList;
+
+import fileManipulator.FileManipulation;
+import fileManipulator.IFile;
+import fileManipulator.IFileReader;
+import fileManipulator.IFileWriter;
+import fileManipulator.IFilter;
+import fileManipulator.IRowSink;
+import accessories.IndexDefinition;
+import accessories.TableValues;
+
+public class ColumnarFile extends FileManipulation implements IFile {
+	
+	private static ColumnarFile instance;
+	private IFileReader reader;
+	private IFileWriter writer;
+	private String columnarString;
+	private String columnarExtension;
+	
+	private ColumnarFile() {
+		super();
+		reader = ColumnarReader.getInstance();
+		writer = ColumnarWriter.getInstance();
+		columnarString = new String("_COL");
+		columnarExtension = new String(".col");
+	}
+	
+	public static ColumnarFile getInstance() {
+		if (instance == null) {
+			instance = new ColumnarFile();
+		} 
+		return instance;
+	}
+	@Override
+	public void setPath (String directoryPath,
+			String dataBaseName, String random) throws SQLException {
+		super.setPath(directoryPath, dataBaseName, random, columnarString, columnarExtension);
+	}
+	
+	
+	@Override
+	public void createDataBaseFile(String name) throws SQLException {
+		super.createDataBaseFile(name + columnarString);
+	}
+
+	@Override
+	public void checkDataBaseExistance(String name) throws SQLException {
+		super.checkDataBaseExistance(name + columnarString);
+	}
+
+	@Override
+	public void deleteDatabase(String dataBaseName) throws SQLException {
+		super.deleteDatabase(dataBaseName + columnarString);
+	}
+
+	@Override
+	public void deleteTable(String dataBaseName, String tableName)
+			throws SQLException {
+		super.deleteTable(dataBaseName + columnarString, tableName);
+	}
+
+	@Override
+	public File GetTableFileToUpdate(String databaseName, String tableName)
+			throws SQLException {
+		return super.GetTableFileToUpdate(databaseName + columnarString, tableName, columnarExtension);
+	}
+
+	@Override
+	public File GetTableFileToView(String databaseName, String tableName)
+			throws SQLException {
+		return super.GetTableFileToView(databaseName + columnarString, tableName, columnarExtension);
+	}
+
+	@Override
+	public File GetDataBaseFolder(String databaseName) throws SQLException {
+		return super.GetDataBaseFolder(databaseName + columnarString);
+	}
+
+	@Override
+	public ArrayList<String> GetDataBaseNames() throws SQLException {
+		return super.GetDataBaseNames(columnarString);
+	}
+
+	@Override
+	public ArrayList<File> GetTableSegmentsToView(String databaseName, String tableName)
+			throws SQLException {
+		return super.GetTableSegmentsToView(databaseName + columnarString, tableName, columnarExtension);
+	}
+
+	@Override
+	public File createTableSegmentFile(String databaseName, String tableName)
+			throws SQLException {
+		return super.createTableSegmentFile(databaseName + columnarString, tableName, columnarExtension);
+	}
+
+	@Override
+	public void deleteTableSegments(String databaseName, String tableName)
+			throws SQLException {
+		super.deleteTableSegments(databaseName + columnarString, tableName, columnarExtension);
+	}
+
+	@Override
+	public ArrayList<IndexDefinition> GetTableIndexes(String databaseName, String tableName)
+			throws SQLException {
+		return super.GetTableIndexes(databaseName + columnarString, tableName);
+	}
+
+	@Override
+	public File GetTableIndexFile(String databaseName, String tableName, String indexName)
+			throws SQLException {
+		return super.GetTableIndexFile(databaseName + columnarString, tableName, indexName);
+	}
+
+	@Override
+	public void addTableIndex(String databaseName, String tableName, IndexDefinition index)
+			throws SQLException {
+		super.addTableIndex(databaseName + columnarString, tableName, index);
+	}
+
+	@Override
+	public void removeTableIndex(String databaseName, String tableName, String indexName)
+			throws SQLException {
+		super.removeTableIndex(databaseName + columnarString, tableName, indexName);
+	}
+
+	@Override
+	public File createTemporaryFile() throws SQLException {
+		return super.createTemporaryFile();
+	}
+
+	@Override
+	public boolean hasTable(String databaseName, String tableName) {
+		return super.hasTable(databaseName + columnarString, tableName);
+	}
+
+	@Override
+	public TableValues GetTableSchema(String databaseName, String tableName)
+			throws SQLException {
+		return super.GetTableSchema(databaseName + columnarString, tableName);
+	}
+
+	@Override
+	public void updateCatalog(String databaseName, TableValues table)
+			throws SQLException {
+		super.updateCatalog(databaseName + columnarString, table);
+	}
+
+	@Override
+	public void saveCatalog() throws SQLException {
+		super.saveCatalog();
+	}
+
+	@Override
+	public void refreshCatalog(String databaseName) throws SQLException {
+		super.refreshCatalog(databaseName + columnarString);
+	}
+
+	@Override
+	public File GetDTDFileToUpdate(String databaseName, String tableName)
+			throws SQLException {
+		return null;
+	}
+
+	@Override
+	public void createDTD(File file, TableValues table) throws SQLException {
+	}
+
+	@Override
+	public void write(TableValues source, File fileToUpdate) throws SQLException {
+		writer.write(source, fileToUpdate);
+	}
+
+	@Override
+	public boolean canAppend(File tableFile) throws SQLException {
+		return false;
+	}
+
+	@Override
+	public byte[] encodeRows(TableValues data) throws SQLException {
+		return null;
+	}
+
+	@Override
+	public boolean isOutdated(File tableFile) throws SQLException {
+		return false;
+	}
+
+	@Override
+	public TableValues read(File source) throws SQLException {
+		return reader.read(source);
+	}
+
+	@Override
+	public TableValues read(File source, ArrayList<String> columns, IFilter filter) throws SQLException {
+		return reader.read(source, columns, filter);
+	}
+
+	@Override
+	public TableValues read(File source, ArrayList<String> columns, IFilter filter, IRowSink sink)
+			throws SQLException {
+		return reader.read(source, columns, filter, sink);
+	}
+
+	@Override
+	public File createTableFile(String databaseName, String tableName)
+			throws SQLException {
+		return super.createTableFile(databaseName + columnarString, tableName, columnarExtension);
+	}
+
+	@Override
+	public File createNewDTDFile(String databaseName, String tableName)
+			throws SQLException {
+		return null;
+	}
+}
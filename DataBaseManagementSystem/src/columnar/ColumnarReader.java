@@ -0,0 +1,332 @@
+package columnar;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import accessories.SQLExceptions;
+import accessories.TableValues;
+import fileManipulator.IFileReader;
+import fileManipulator.IFilter;
+import fileManipulator.IRowSink;
+import fileManipulator.Projection;
+import fileManipulator.RowFilter;
+import index.ZoneMap;
+
+public class ColumnarReader implements IFileReader {
+
+	private static ColumnarReader instance;
+	private static int chunkSize = 1 << 16;
+	private static int windowSize = 1 << 14;
+
+	private ColumnarReader() {
+
+	}
+
+	public static ColumnarReader getInstance() {
+		if (instance == null) {
+			instance = new ColumnarReader();
+		}
+		return instance;
+	}
+
+	@Override
+	public TableValues read(File source) throws SQLException {
+		return read(source, null, null);
+	}
+
+	@Override
+	public TableValues read(File source, ArrayList<String> columns, IFilter filter) throws SQLException {
+		return read(source, columns, filter, null);
+	}
+
+	/**
+	 * Every column is stored on its own, columns that are not wanted are not
+	 * touched at all. The rows are decoded a chunk at a time, the filter
+	 * columns first and the other columns only for the rows that passed. The
+	 * cells of blocks the zone map of the file rules out are stepped over
+	 * without being decoded. Every column is read through its own cursor of
+	 * positional reads on one channel, which is closed before returning so
+	 * that the file can be replaced right after.
+	 */
+	@Override
+	public TableValues read(File source, ArrayList<String> columns, IFilter filter, IRowSink sink)
+			throws SQLException {
+		TableValues tableValues = null;
+		try {
+			FileChannel channel = FileChannel.open(source.toPath(), StandardOpenOption.READ);
+			try {
+				tableValues = read(source, channel, columns, filter, sink);
+			} finally {
+				channel.close();
+			}
+		} catch (NoSuchFileException e) {
+			SQLExceptions.fileNotFound();
+		} catch (IOException e) {
+			SQLExceptions.canNotReadFile();
+		}
+		return tableValues;
+	}
+
+	private TableValues read(File source, FileChannel channel, ArrayList<String> columns, IFilter filter,
+			IRowSink sink) throws IOException, SQLException {
+		Cursor header = new Cursor(channel, 0);
+		if (header.getInt() != ColumnarWriter.MAGIC || header.getInt() != ColumnarWriter.VERSION) {
+			SQLExceptions.canNotParseFile();
+		}
+		String tableName = header.getString();
+		int numCols = header.getInt();
+		int numRows = header.getInt();
+		if (numCols < 0 || numRows < 0) {
+			SQLExceptions.canNotParseFile();
+		}
+		ArrayList<String> colNames = new ArrayList<String>();
+		ArrayList<Integer> colTypes = new ArrayList<Integer>();
+		for (int i = 0; i < numCols; i++) {
+			colNames.add(header.getString());
+			colTypes.add(header.getInt());
+		}
+		long[] offsets = new long[numCols];
+		for (int i = 0; i < numCols; i++) {
+			offsets[i] = header.getLong();
+		}
+		int[] projection = Projection.getColumns(colNames, columns);
+		colNames = Projection.select(colNames, projection);
+		colTypes = Projection.select(colTypes, projection);
+		RowFilter rowFilter = RowFilter.create(filter, colNames);
+		byte[][] bitmaps = new byte[projection.length][];
+		Cursor[] cursors = new Cursor[projection.length];
+		for (int j = 0; j < projection.length; j++) {
+			cursors[j] = new Cursor(channel, offsets[projection[j]]);
+			bitmaps[j] = new byte[ColumnarWriter.getBitmapSize(numRows)];
+			cursors[j].get(bitmaps[j]);
+		}
+		boolean[] candidates = rowFilter == null ? null : getCandidates(source, filter, numRows);
+		boolean[] selected = rowFilter == null ? null : new boolean[numRows];
+		ArrayList<ArrayList<Object>> rows = new ArrayList<ArrayList<Object>>(sink == null ? numRows : 0);
+		Object[][] values = new Object[projection.length][];
+		Object[] row = new Object[projection.length];
+		for (int from = 0; from < numRows; from += chunkSize) {
+			int count = Math.min(chunkSize, numRows - from);
+			Arrays.fill(values, null);
+			if (rowFilter != null) {
+				for (int cell : rowFilter.getCells()) {
+					values[cell] = readColumn(cursors[cell], colTypes.get(cell), bitmaps[cell], from, count,
+							candidates);
+				}
+				for (int i = 0; i < count; i++) {
+					if (candidates != null && !candidates[from + i]) {
+						continue;
+					}
+					for (int cell : rowFilter.getCells()) {
+						row[cell] = values[cell][i];
+					}
+					selected[from + i] = rowFilter.test(row);
+				}
+			}
+			for (int j = 0; j < projection.length; j++) {
+				if (values[j] == null) {
+					values[j] = readColumn(cursors[j], colTypes.get(j), bitmaps[j], from, count, selected);
+				}
+			}
+			for (int i = 0; i < count; i++) {
+				if (selected != null && !selected[from + i]) {
+					continue;
+				}
+				ArrayList<Object> output = new ArrayList<Object>(projection.length);
+				for (int j = 0; j < projection.length; j++) {
+					output.add(values[j][i]);
+				}
+				if (sink == null) {
+					rows.add(output);
+				} else {
+					sink.add(output);
+				}
+			}
+		}
+		return new TableValues(tableName, colTypes, colNames, rows, projection.length, rows.size());
+	}
+
+	/**
+	 * Returns the rows of the blocks that may pass the filter, null when the
+	 * file has no zone map that describes it.
+	 */
+	private boolean[] getCandidates(File source, IFilter filter, int numRows) {
+		ZoneMap zones = ZoneMap.read(source);
+		if (zones == null || zones.getNumRows() != numRows) {
+			return null;
+		}
+		boolean[] candidates = new boolean[numRows];
+		for (int block = 0; block < zones.getNumBlocks(); block++) {
+			if (filter.mayMatch(zones, block)) {
+				int from = block * ZoneMap.BLOCK_SIZE;
+				Arrays.fill(candidates, from, from + zones.getBlockRows(block), true);
+			}
+		}
+		return candidates;
+	}
+
+	/**
+	 * Reads the cells of rows [from, from + count) of the column, which
+	 * continue at its cursor. Cells of the rows that are not selected are
+	 * stepped over and left null, every row is selected when selected is
+	 * null.
+	 */
+	private Object[] readColumn(Cursor cursor, int type, byte[] bitmap, int from, int count, boolean[] selected)
+			throws IOException, SQLException {
+		Object[] values = new Object[count];
+		for (int k = 0; k < count; k++) {
+			int i = from + k;
+			boolean isNull = (bitmap[i >> 3] & (1 << (i & 7))) != 0;
+			if (selected != null && !selected[i]) {
+				skipValue(cursor, type);
+				continue;
+			}
+			switch (type) {
+			case Types.INTEGER:
+				int integer = cursor.getInt();
+				values[k] = isNull ? null : Integer.valueOf(integer);
+				break;
+			case Types.FLOAT:
+				float real = cursor.getFloat();
+				values[k] = isNull ? null : Float.valueOf(real);
+				break;
+			case Types.DATE:
+				int epochDay = cursor.getInt();
+				values[k] = isNull ? null : Date.valueOf(LocalDate.ofEpochDay(epochDay));
+				break;
+			case Types.VARCHAR:
+				String string = cursor.getString();
+				values[k] = isNull ? null : string;
+				break;
+			default:
+				SQLExceptions.unsupportedDataType();
+			}
+		}
+		return values;
+	}
+
+	private void skipValue(Cursor cursor, int type) throws IOException, SQLException {
+		switch (type) {
+		case Types.INTEGER:
+		case Types.FLOAT:
+		case Types.DATE:
+			cursor.skip(4);
+			break;
+		case Types.VARCHAR:
+			cursor.skip(cursor.getLength());
+			break;
+		default:
+			SQLExceptions.unsupportedDataType();
+		}
+	}
+
+	/**
+	 * Reads on from a position of the file through a window that is filled
+	 * with positional reads, so that the cursors of all the columns share one
+	 * channel and positions are not limited to 2 GB. Reading past the end of
+	 * the file fails as a file that can not be parsed.
+	 */
+	private static class Cursor {
+		private FileChannel channel;
+		private ByteBuffer window;
+		private long start;
+
+		private Cursor(FileChannel channel, long position) {
+			this.channel = channel;
+			window = ByteBuffer.allocate(windowSize);
+			window.limit(0);
+			start = position;
+		}
+
+		private int getInt() throws IOException, SQLException {
+			require(4);
+			return window.getInt();
+		}
+
+		private long getLong() throws IOException, SQLException {
+			require(8);
+			return window.getLong();
+		}
+
+		private float getFloat() throws IOException, SQLException {
+			require(4);
+			return window.getFloat();
+		}
+
+		private int getLength() throws IOException, SQLException {
+			int length = getInt();
+			if (length < 0) {
+				SQLExceptions.canNotParseFile();
+			}
+			return length;
+		}
+
+		private String getString() throws IOException, SQLException {
+			byte[] bytes = new byte[getLength()];
+			get(bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+
+		/**
+		 * Fills bytes, reading what the window does not hold straight from
+		 * the channel.
+		 */
+		private void get(byte[] bytes) throws IOException, SQLException {
+			if (bytes.length <= window.capacity()) {
+				require(bytes.length);
+				window.get(bytes);
+				return;
+			}
+			long position = start + window.position();
+			int held = window.remaining();
+			window.get(bytes, 0, held);
+			ByteBuffer rest = ByteBuffer.wrap(bytes, held, bytes.length - held);
+			while (rest.hasRemaining()) {
+				if (channel.read(rest, position + rest.position()) < 0) {
+					SQLExceptions.canNotParseFile();
+				}
+			}
+			start = position + bytes.length;
+			window.clear();
+			window.limit(0);
+		}
+
+		private void skip(int bytes) {
+			if (bytes <= window.remaining()) {
+				window.position(window.position() + bytes);
+				return;
+			}
+			start += window.position() + bytes;
+			window.clear();
+			window.limit(0);
+		}
+
+		/**
+		 * Makes the window hold at least the next bytes of the file.
+		 */
+		private void require(int bytes) throws IOException, SQLException {
+			if (window.remaining() >= bytes) {
+				return;
+			}
+			start += window.position();
+			window.compact();
+			while (window.position() < bytes) {
+				if (channel.read(window, start + window.position()) < 0) {
+					SQLExceptions.canNotParseFile();
+				}
+			}
+			window.flip();
+		}
+	}
+}
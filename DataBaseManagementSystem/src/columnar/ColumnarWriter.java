@@ -0,0 +1,174 @@
+package columnar;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+
+import accessories.SQLExceptions;
+import accessories.TableValues;
+import fileManipulator.IFileWriter;
+
+/**
+ * Writes a table column by column:
+ * header (magic, version, table name, numCols, numRows, column names and
+ * types, offset of every column chunk) followed by one chunk per column made
+ * of a null bitmap and the values, fixed width INT/FLOAT/DATE (epoch day)
+ * and length prefixed UTF-8 VARCHAR.
+ */
+public class ColumnarWriter implements IFileWriter {
+
+	static final int MAGIC = 0x434F4C31;
+	static final int VERSION = 1;
+
+	private static ColumnarWriter instance;
+
+	private ColumnarWriter() {
+
+	}
+
+	public static ColumnarWriter getInstance() {
+		if (instance == null) {
+			instance = new ColumnarWriter();
+		}
+		return instance;
+	}
+
+	@Override
+	public void write(TableValues data, File fileToUpdate) throws SQLException {
+		int numCols = data.getNumCols();
+		int numRows = data.getNumRows();
+		ArrayList<byte[][]> strings = new ArrayList<byte[][]>();
+		long[] offsets = new long[numCols];
+		long offset = getHeaderSize(data);
+		for (int i = 0; i < numCols; i++) {
+			byte[][] encoded = encodeStrings(data, i);
+			strings.add(encoded);
+			offsets[i] = offset;
+			offset += getChunkSize(data.getType(i), numRows, encoded);
+		}
+		try {
+			DataOutputStream write = new DataOutputStream(
+					new BufferedOutputStream(new FileOutputStream(fileToUpdate), 1 << 16));
+			writeHeader(write, data, offsets);
+			for (int i = 0; i < numCols; i++) {
+				writeNullBitmap(write, data, i);
+				writeValues(write, data, i, strings.get(i));
+			}
+			write.close();
+		} catch (FileNotFoundException e) {
+			SQLExceptions.fileNotFound();
+		} catch (IOException e) {
+			SQLExceptions.canNotWriteFile();
+		}
+	}
+
+	private long getHeaderSize(TableValues data) {
+		long size = 4 + 4 + 4 + utf8(data.getTableName()).length + 4 + 4;
+		for (int i = 0; i < data.getNumCols(); i++) {
+			size += 4 + utf8(data.getName(i)).length + 4 + 8;
+		}
+		return size;
+	}
+
+	private long getChunkSize(int type, int numRows, byte[][] encoded) throws SQLException {
+		long size = getBitmapSize(numRows);
+		switch (type) {
+		case Types.INTEGER:
+		case Types.FLOAT:
+		case Types.DATE:
+			return size + 4L * numRows;
+		case Types.VARCHAR:
+			for (byte[] bytes : encoded) {
+				size += 4 + (bytes == null ? 0 : bytes.length);
+			}
+			return size;
+		default:
+			SQLExceptions.unsupportedDataType();
+		}
+		return size;
+	}
+
+	static int getBitmapSize(int numRows) {
+		return (numRows + 7) / 8;
+	}
+
+	private void writeHeader(DataOutputStream write, TableValues data, long[] offsets) throws IOException {
+		write.writeInt(MAGIC);
+		write.writeInt(VERSION);
+		writeString(write, utf8(data.getTableName()));
+		write.writeInt(data.getNumCols());
+		write.writeInt(data.getNumRows());
+		for (int i = 0; i < data.getNumCols(); i++) {
+			writeString(write, utf8(data.getName(i)));
+			write.writeInt(data.getType(i));
+		}
+		for (long offset : offsets) {
+			write.writeLong(offset);
+		}
+	}
+
+	private void writeNullBitmap(DataOutputStream write, TableValues data, int col) throws IOException {
+		byte[] bitmap = new byte[getBitmapSize(data.getNumRows())];
+		for (int i = 0; i < data.getNumRows(); i++) {
+			if (data.getValue(i, col) == null) {
+				bitmap[i >> 3] |= 1 << (i & 7);
+			}
+		}
+		write.write(bitmap);
+	}
+
+	private void writeValues(DataOutputStream write, TableValues data, int col, byte[][] strings)
+			throws IOException {
+		int type = data.getType(col);
+		for (int i = 0; i < data.getNumRows(); i++) {
+			Object value = data.getValue(i, col);
+			switch (type) {
+			case Types.INTEGER:
+				write.writeInt(value == null ? 0 : (Integer) value);
+				break;
+			case Types.FLOAT:
+				write.writeFloat(value == null ? 0 : (Float) value);
+				break;
+			case Types.DATE:
+				write.writeInt(value == null ? 0 : (int) ((Date) value).toLocalDate().toEpochDay());
+				break;
+			case Types.VARCHAR:
+				writeString(write, strings[i]);
+				break;
+			}
+		}
+	}
+
+	private byte[][] encodeStrings(TableValues data, int col) {
+		if (data.getType(col) != Types.VARCHAR) {
+			return null;
+		}
+		byte[][] encoded = new byte[data.getNumRows()][];
+		for (int i = 0; i < data.getNumRows(); i++) {
+			Object value = data.getValue(i, col);
+			encoded[i] = value == null ? null : utf8((String) value);
+		}
+		return encoded;
+	}
+
+	private void writeString(DataOutputStream write, byte[] bytes) throws IOException {
+		if (bytes == null) {
+			write.writeInt(0);
+		} else {
+			write.writeInt(bytes.length);
+			write.write(bytes);
+		}
+	}
+
+	private byte[] utf8(String string) {
+		return string.getBytes(StandardCharsets.UTF_8);
+	}
+}
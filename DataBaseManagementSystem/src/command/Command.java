@@ -201,6 +201,36 @@ public abstract class Command implements ICommand{
 		return false;
 	}
 
+	@Override
+	public void setLimit(int limit) {
+		// TODO Auto-generated method stub
+		
+	}
+
+	@Override
+	public int getLimit() {
+		// TODO Auto-generated method stub
+		return -1;
+	}
+
+	@Override
+	public void setOffset(int offset) {
+		// TODO Auto-generated method stub
+		
+	}
+
+	@Override
+	public int getOffset() {
+		// TODO Auto-generated method stub
+		return 0;
+	}
+
+	@Override
+	public boolean isLimited() {
+		// TODO Auto-generated method stub
+		return false;
+	}
+
 	@Override
 	public boolean isAllSelected() {
 		// TODO Auto-generated method stub
@@ -219,6 +249,42 @@ public abstract class Command implements ICommand{
 		return null;
 	}
 
+	@Override
+	public void setIndexName(String name) {
+		// TODO Auto-generated method stub
+		
+	}
+
+	@Override
+	public String getIndexName() {
+		// TODO Auto-generated method stub
+		return null;
+	}
+
+	@Override
+	public void setIndexMethod(String method) {
+		// TODO Auto-generated method stub
+		
+	}
+
+	@Override
+	public String getIndexMethod() {
+		// TODO Auto-generated method stub
+		return null;
+	}
+
+	@Override
+	public void setFalsePositiveRate(double falsePositiveRate) {
+		// TODO Auto-generated method stub
+		
+	}
+
+	@Override
+	public double getFalsePositiveRate() {
+		// TODO Auto-generated method stub
+		return 0;
+	}
+
 	@Override
 	public void setNameType(NameType nameType) {
 		// TODO Auto-generated method stub
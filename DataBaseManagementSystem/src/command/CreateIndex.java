@@ -0,0 +1,75 @@
+package command;
+
+public class CreateIndex extends CreateDrop {
+
+	private String tableName;
+	private String indexName;
+	private String columnName;
+	private String indexMethod;
+	private double falsePositiveRate;
+
+	public CreateIndex() {
+		tableName = new String();
+		indexName = new String();
+		columnName = new String();
+		indexMethod = null;
+		falsePositiveRate = 0;
+	}
+
+	@Override
+	public void setTableName(String name) {
+		this.tableName = modifyName(name);
+	}
+
+	@Override
+	public String getTableName() {
+		return tableName;
+	}
+
+	@Override
+	public void setIndexName(String name) {
+		this.indexName = modifyName(name);
+	}
+
+	@Override
+	public String getIndexName() {
+		return indexName;
+	}
+
+	@Override
+	public void setColumnName(String name) {
+		this.columnName = modifyName(name);
+	}
+
+	@Override
+	public String getColumnName() {
+		return columnName;
+	}
+
+	@Override
+	public void setIndexMethod(String method) {
+		this.indexMethod = method.toUpperCase();
+	}
+
+	@Override
+	public String getIndexMethod() {
+		return indexMethod;
+	}
+
+	@Override
+	public void setFalsePositiveRate(double falsePositiveRate) {
+		this.falsePositiveRate = falsePositiveRate;
+	}
+
+	@Override
+	public double getFalsePositiveRate() {
+		return falsePositiveRate;
+	}
+
+	@Override
+	public String toString() {
+		return new String(super.toString() + "IndexName: " + getIndexName() + "\n" + "TableName: " + getTableName()
+				+ "\n" + "ColumnName: " + getColumnName() + "\n" + "IndexMethod: " + getIndexMethod() + "\n"
+				+ "FalsePositiveRate: " + getFalsePositiveRate() + "\n");
+	}
+}
@@ -0,0 +1,38 @@
+package command;
+
+public class DropIndex extends CreateDrop {
+
+	private String tableName;
+	private String indexName;
+
+	public DropIndex() {
+		tableName = new String();
+		indexName = new String();
+	}
+
+	@Override
+	public void setTableName(String name) {
+		this.tableName = modifyName(name);
+	}
+
+	@Override
+	public String getTableName() {
+		return tableName;
+	}
+
+	@Override
+	public void setIndexName(String name) {
+		this.indexName = modifyName(name);
+	}
+
+	@Override
+	public String getIndexName() {
+		return indexName;
+	}
+
+	@Override
+	public String toString() {
+		return new String(super.toString() + "IndexName: " + getIndexName() + "\n" + "TableName: " + getTableName()
+				+ "\n");
+	}
+}
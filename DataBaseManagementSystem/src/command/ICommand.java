@@ -61,18 +61,61 @@ public interface ICommand {
 	
 	/**
 	 * Sets the column name.
-	 * Alter drop column
+	 * Alter drop column, Create index
 	 * @param name the new column name
 	 */
 	void setColumnName(String name);
 
 	/**
 	 * Gets the column name.
-	 * Alter drop column
+	 * Alter drop column, Create index
 	 * @return the column name
 	 */
 	String getColumnName();	
 
+	/**
+	 * Sets the index name.
+	 * Create index, Drop index
+	 * @param name the new index name
+	 */
+	void setIndexName(String name);
+
+	/**
+	 * Gets the index name.
+	 * Create index, Drop index
+	 * @return the index name
+	 */
+	String getIndexName();
+
+	/**
+	 * Sets the index method, null for the default one.
+	 * Create index
+	 * @param method the new index method
+	 */
+	void setIndexMethod(String method);
+
+	/**
+	 * Gets the index method.
+	 * Create index
+	 * @return the index method
+	 */
+	String getIndexMethod();
+
+	/**
+	 * Sets the false positive rate of a Bloom filter, zero for the default
+	 * one.
+	 * Create index
+	 * @param falsePositiveRate the new false positive rate
+	 */
+	void setFalsePositiveRate(double falsePositiveRate);
+
+	/**
+	 * Gets the false positive rate of a Bloom filter.
+	 * Create index
+	 * @return the false positive rate
+	 */
+	double getFalsePositiveRate();
+
 	/**
 	 * Sets the data base table type.
 	 * Create, Drop
@@ -262,6 +305,41 @@ public interface ICommand {
 	 */
 	boolean isOrdered();
 	
+	/**
+	 * Sets the most rows returned, -1 for no limit.
+	 * Select, Union
+	 * @param limit the new limit
+	 */
+	void setLimit(int limit);
+
+	/**
+	 * Gets the most rows returned.
+	 * Select, Union
+	 * @return the limit
+	 */
+	int getLimit();
+
+	/**
+	 * Sets the number of rows skipped before the first one returned.
+	 * Select, Union
+	 * @param offset the new offset
+	 */
+	void setOffset(int offset);
+
+	/**
+	 * Gets the number of rows skipped.
+	 * Select, Union
+	 * @return the offset
+	 */
+	int getOffset();
+
+	/**
+	 * Checks if is limited.
+	 * Select, Union
+	 * @return true, if is limited
+	 */
+	boolean isLimited();
+
 	/**
 	 * Checks if is all selected.
 	 * Select
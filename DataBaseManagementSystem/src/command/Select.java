@@ -10,12 +10,16 @@ public class Select extends Where {
 	private boolean distinct;
 	private ArrayList<String> columnNames;
 	private ArrayList<NameOrder> forOrdering;
+	private int limit;
+	private int offset;
 
 	public Select() {
 		super();
 		distinct = false;
 		columnNames = new ArrayList<String>();
 		forOrdering = new ArrayList<NameOrder>();
+		limit = -1;
+		offset = 0;
 	}
 	
 	@Override	
@@ -68,6 +72,31 @@ public class Select extends Where {
 		}
 	}
 
+	@Override
+	public void setLimit(int limit) {
+		this.limit = limit;
+	}
+
+	@Override
+	public int getLimit() {
+		return limit;
+	}
+
+	@Override
+	public void setOffset(int offset) {
+		this.offset = offset;
+	}
+
+	@Override
+	public int getOffset() {
+		return offset;
+	}
+
+	@Override
+	public boolean isLimited() {
+		return limit != -1 || offset != 0;
+	}
+
 	@Override
 	public boolean isAllSelected() {
 		if(columnNames.isEmpty()) {
@@ -86,7 +115,8 @@ public class Select extends Where {
 		String string1 = new String("Distinct: " + distinct + "\n");
 		String string2 = new String("ColumnNames: " + checkColumnNamesExistance() + "\n");
 		String string3 = new String(checkForOrderingExistance());
-		return string1 + string2 + string3;
+		String string4 = new String(checkLimitExistance());
+		return string1 + string2 + string3 + string4;
 	}
 	
 	private ArrayList<String> checkColumnNamesExistance() {
@@ -102,5 +132,12 @@ public class Select extends Where {
 		}
 		return new String("ForOrdering:\n" + forOrdering);
 	}
+
+	private String checkLimitExistance() {
+		if (!isLimited()) {
+			return new String();
+		}
+		return new String("\nLimit: " + limit + " Offset: " + offset);
+	}
 }
  
\ No newline at end of file
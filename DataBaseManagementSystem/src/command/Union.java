@@ -6,11 +6,15 @@ public class Union extends Command{
 	private ICommand select1;
 	private ICommand select2;
 	private boolean distinct;
+	private int limit;
+	private int offset;
 	
 	public Union() {
 		select1 = new Select();
 		select2 = new Select();
 		distinct = true;
+		limit = -1;
+		offset = 0;
 	}
 	
 	@Override
@@ -43,9 +47,35 @@ public class Union extends Command{
 		return distinct;
 	}
 
+	@Override
+	public void setLimit(int limit) {
+		this.limit = limit;
+	}
+
+	@Override
+	public int getLimit() {
+		return limit;
+	}
+
+	@Override
+	public void setOffset(int offset) {
+		this.offset = offset;
+	}
+
+	@Override
+	public int getOffset() {
+		return offset;
+	}
+
+	@Override
+	public boolean isLimited() {
+		return limit != -1 || offset != 0;
+	}
+
 	@Override
 	public String toString() {
 		return new String(super.toString() + "Distinct: " + isDistinct() + "\n" 
+					    + "Limit: " + limit + " Offset: " + offset + "\n"
 					    + "SelectOne:\n" + select1 + "SelectTwo:\n" + select2);
 	}
 
@@ -3,6 +3,7 @@ package controller;
 import jDBC.ResultSetMetaData;
 
 import java.sql.SQLException;
+import java.util.Properties;
 
 import log4j.Log4j;
 import parser.Statements;
@@ -12,15 +13,20 @@ import accessories.StaticData.FileType;
 import accessories.TableValues;
 import command.ICommand;
 import dBMS.DBMS;
+import dBMS.helper.OrderBy;
 
 public class Controller implements IController{
 
 	DBMS dBMS;
 	Statements parser;
+	int parallelism;
+	int sortRunSize;
 
 	public Controller() {
 		dBMS = DBMS.getInstance();
 		parser = Statements.getInstance();
+		parallelism = 1;
+		sortRunSize = OrderBy.DEFAULT_RUN_SIZE;
 	}
 
 	@Override
@@ -36,20 +42,37 @@ public class Controller implements IController{
 		case "pbdb": 
 			dBMS.setPathProtocol(FileType.PB, path, directory, random);
 			break;
+		case "coldb":
+			dBMS.setPathProtocol(FileType.COLUMNAR, path, directory, random);
+			break;
 		default:
 			SQLExceptions.undefinedProtocol();
 		}
 	}
 
+	@Override
+	public void configure(Properties info) throws SQLException {
+		parallelism = dBMS.getParallelism(info);
+		sortRunSize = dBMS.getSortRunSize(info);
+	}
+
 	@Override
 	public ResultSetMetaData excuteSelectSql(String sql) throws SQLException {
+		return excuteSelectSql(sql, 0);
+	}
+
+	@Override
+	public ResultSetMetaData excuteSelectSql(String sql, int maxRows) throws SQLException {
 		dBMS.clear();
 		ICommand command = parser.Check(sql);
 		parserLog();
-		dBMS.take(command);
+		if (maxRows > 0 && (command.getLimit() == -1 || command.getLimit() > maxRows)) {
+			command.setLimit(maxRows);
+		}
+		dBMS.take(command, parallelism, sortRunSize);
 		executeLog();
 		TableValues tableData = dBMS.getResult();
-		return new ResultSetMetaData(tableData.getRows(), tableData.getcolNames(), tableData.getColTypes(), tableData.getTableName());
+		return new ResultSetMetaData(tableData.getResultRows(), tableData.getcolNames(), tableData.getColTypes(), tableData.getTableName());
 	}
 
 	@Override
@@ -64,11 +87,17 @@ public class Controller implements IController{
 		dBMS.clear();
 		ICommand command = parser.Check(sql);
 		parserLog();
-		dBMS.take(command);
+		dBMS.take(command, parallelism, sortRunSize);
 		executeLog();
 		return dBMS.getUpdateCount();
 	}
 
+	@Override
+	public void close() throws SQLException {
+		dBMS.flush();
+		logtoFile("Tables are written back.");
+	}
+
 	private void parserLog() {
 		logtoFile("Command is parsed successfully.");
 	}
@@ -3,6 +3,7 @@ package controller;
 import jDBC.ResultSetMetaData;
 
 import java.sql.SQLException;
+import java.util.Properties;
 
 import accessories.StaticData.CommandsTypes;
 
@@ -28,6 +29,9 @@ public interface IController {
 	// }
 	public ResultSetMetaData excuteSelectSql(String sql)throws SQLException;
 
+	// same with at most maxRows rows returned, 0 for no limit (Statement.setMaxRows)
+	public ResultSetMetaData excuteSelectSql(String sql, int maxRows)throws SQLException;
+
 	// return select,update,insert,delete,drop,create,use,....
 	public CommandsTypes getFirstIdentifier(String sql)throws SQLException;
 	
@@ -50,7 +54,17 @@ public interface IController {
 	// if there's directory i think you should overwrite it :D 
 	// if there's no directory in this path create it and make it your current directory 
 	// any command is done on dbms object for this thread is done on this directory 
-	// protocol is xmldb or jasondb 
+	// protocol is xmldb, jsondb, pbdb or coldb 
 	public void makeDir(String path,String directory,String random,String protocol) throws SQLException;
 
+	// apply the tuning properties given to the driver with the path, unknown
+	// names are ignored
+	// sortRunSize >>> rows sorted in memory at a time by ORDER BY
+	// parallelism >>> workers that scan for the statements of this connection
+	public void configure(Properties info) throws SQLException;
+
+	// write every table changed since it was read back to its file
+	// called when the connection is closed
+	public void close() throws SQLException;
+
 }
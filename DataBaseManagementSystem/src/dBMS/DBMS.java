@@ -4,13 +4,17 @@ import jSON.JSONFile;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Properties;
 
 import protocolBuffer.PBFile;
+import columnar.ColumnarFile;
 import xML.XMLFile;
 import accessories.SQLExceptions;
 import accessories.StaticData;
 import accessories.TableValues;
 import command.ICommand;
+import dBMS.helper.Morsels;
+import dBMS.helper.OrderBy;
 import fileManipulator.IFile;
 
 public class DBMS {
@@ -19,13 +23,16 @@ public class DBMS {
 	private IFile file;
 	private DataBase dataBase;
 	private Table table;
+	private TableCache tableCache;
 
 	int updateCount;
 	TableValues result;
+	private int sortRunSize;
 	
 	private DBMS() {
 		table = Table.getInstance();
 		dataBase = DataBase.getInstance();
+		tableCache = TableCache.getInstance();
 	}
 	
 	public static DBMS getInstance() {
@@ -37,10 +44,49 @@ public class DBMS {
 
 	public void setPathProtocol(StaticData.FileType protocol, String directoryPath,
 			String directoryName, String random) throws SQLException {
+		flush();
+		tableCache.clear();
 		setFileType(protocol);
 		file.setPath(directoryPath, directoryName, random);
 		table.setFile(file);
 		dataBase.setFile(file);
+		tableCache.setFile(file);
+		tableCache.recover();
+	}
+
+	/**
+	 * Returns the number of rows that ORDER BY of a connection with the given
+	 * properties sorts in memory at a time.
+	 */
+	public int getSortRunSize(Properties info) throws SQLException {
+		String runSize = info == null ? null : info.getProperty("sortRunSize");
+		return runSize == null ? OrderBy.DEFAULT_RUN_SIZE : getPositiveInt("sortRunSize", runSize);
+	}
+
+	/**
+	 * Returns the number of workers that statements of a connection with the
+	 * given properties scan with, one when parallelism is not set.
+	 */
+	public int getParallelism(Properties info) throws SQLException {
+		String parallelism = info == null ? null : info.getProperty("parallelism");
+		return parallelism == null ? 1 : getPositiveInt("parallelism", parallelism);
+	}
+
+	private int getPositiveInt(String name, String value) throws SQLException {
+		int number = 0;
+		try {
+			number = Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			SQLExceptions.invalidProperty(name);
+		}
+		if (number <= 0) {
+			SQLExceptions.invalidProperty(name);
+		}
+		return number;
+	}
+
+	public void flush() throws SQLException {
+		tableCache.flush();
 	}
 
 	private void setFileType(StaticData.FileType protocol) throws SQLException {
@@ -54,6 +100,9 @@ public class DBMS {
 		case PB:
 			file = PBFile.getInstance();
 			break;
+		case COLUMNAR:
+			file = ColumnarFile.getInstance();
+			break;
 		default:
 			SQLExceptions.undefinedProtocol();
 			break;
@@ -74,7 +123,21 @@ public class DBMS {
 		return result;
 	}
 
-	public void take(ICommand command) throws SQLException {
+	/**
+	 * Statements run one at a time, a statement that changed a table then
+	 * waits for its log records outside the lock so that statements of other
+	 * connections share the same log write.
+	 */
+	public void take(ICommand command, int parallelism, int sortRunSize) throws SQLException {
+		synchronized (this) {
+			Morsels.getInstance().setParallelism(parallelism);
+			this.sortRunSize = sortRunSize;
+			execute(command);
+		}
+		tableCache.commit();
+	}
+
+	private void execute(ICommand command) throws SQLException {
 		switch (command.getCommandType()) {
 		case CREATE:
 			switchOnCreate(command);
@@ -106,6 +169,15 @@ public class DBMS {
 		default:
 			SQLExceptions.throwUnknownCommand();
 		}
+		switch (command.getCommandType()) {
+		case CREATE:
+		case ALTER:
+		case DROP:
+			flush();
+			break;
+		default:
+			break;
+		}
 	}
 
 	private void switchOnCreate(ICommand command) throws SQLException {
@@ -116,6 +188,9 @@ public class DBMS {
 		case TABLE:
 			createTable(command);			
 			break;
+		case INDEX:
+			createIndex(command);
+			break;
 		}
 	}
 	
@@ -127,6 +202,9 @@ public class DBMS {
 		case TABLE:
 			dropTable(command);			
 			break;
+		case INDEX:
+			dropIndex(command);
+			break;
 		}
 	}
 	
@@ -166,6 +244,16 @@ public class DBMS {
 		result = null;
 	}
 
+	private void createIndex(ICommand command) throws SQLException {
+		updateCount = table.createIndex(command);
+		result = null;
+	}
+
+	private void dropIndex(ICommand command) throws SQLException {
+		updateCount = table.dropIndex(command);
+		result = null;
+	}
+
 	private void insert(ICommand command) throws SQLException {
 		updateCount = table.insert(command);
 		result = null;
@@ -183,7 +271,7 @@ public class DBMS {
 	}
 	
 	private void select(ICommand command) throws SQLException {
-		result = table.select(command);
+		result = table.select(command, sortRunSize);
 		updateCount = -1;
 	}
 
@@ -27,11 +27,13 @@ public class DataBase {
 	}
 
 	public int createDataBase(ICommand command) throws SQLException {
+		TableCache.getInstance().removeDataBase(command.getDataBaseName());
 		file.createDataBaseFile(command.getDataBaseName());
 		return 0;
 	}
 
 	public int dropDataBase(ICommand command) throws SQLException {
+		TableCache.getInstance().removeDataBase(command.getDataBaseName());
 		file.deleteDatabase(command.getDataBaseName());
 		return 0;
 	}
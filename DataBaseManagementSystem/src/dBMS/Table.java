@@ -6,9 +6,11 @@ import accessories.SQLExceptions;
 import accessories.TableValues;
 import command.ICommand;
 import dBMS.helper.Alter;
+import dBMS.helper.CreateDropIndex;
 import dBMS.helper.CreateDropTable;
 import dBMS.helper.Delete;
 import dBMS.helper.Insert;
+import dBMS.helper.Limit;
 import dBMS.helper.OrderBy;
 import dBMS.helper.Select;
 import dBMS.helper.Union;
@@ -64,6 +66,18 @@ public class Table {
 		return 0;
 	}
 	
+	public int createIndex(ICommand command) throws SQLException {
+		checkDB();
+		CreateDropIndex.getInstance().createIndex(command, file, dataBaseName);
+		return 0;
+	}
+
+	public int dropIndex(ICommand command) throws SQLException {
+		checkDB();
+		CreateDropIndex.getInstance().dropIndex(command, file, dataBaseName);
+		return 0;
+	}
+	
 	public int alterAdd(ICommand command) throws SQLException {
 		checkDB();
 		Alter.getInstance().alterAdd(command, file, dataBaseName);
@@ -94,11 +108,28 @@ public class Table {
 		return deletedRows;
 	}
 	
-	public TableValues select(ICommand command) throws SQLException {
+	/**
+	 * Rows to be ordered go from the scan straight into the sort, unless they
+	 * have to be made distinct first.
+	 */
+	public TableValues select(ICommand command, int sortRunSize) throws SQLException {
 		checkDB();
+		if (command.isOrdered() && !command.isDistinct()) {
+			OrderBy.Sorter sorter = OrderBy.getInstance().sorter(command,
+					Select.getInstance().getResultSchema(command, dataBaseName), file, sortRunSize);
+			try {
+				Select.getInstance().select(command, dataBaseName, sorter);
+			} catch (SQLException e) {
+				sorter.discard();
+				throw e;
+			}
+			return sorter.finish();
+		}
 		TableValues tableValues = Select.getInstance().select(command, file, dataBaseName);
 		if (command.isOrdered()) {
-			tableValues = OrderBy.getInstance().order(command, tableValues);
+			tableValues = OrderBy.getInstance().order(command, tableValues, file, sortRunSize);
+		} else {
+			tableValues = Limit.getInstance().limit(command, tableValues);
 		}
 		return tableValues;
 	}
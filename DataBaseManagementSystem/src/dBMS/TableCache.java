@@ -0,0 +1,1089 @@
+package dBMS;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import accessories.IndexDefinition;
+import accessories.SQLExceptions;
+import accessories.TableValues;
+import dBMS.WriteAheadLog.Record;
+import fileManipulator.IFile;
+import fileManipulator.IFilter;
+import fileManipulator.IRowSink;
+import fileManipulator.Projection;
+import index.IIndex;
+import index.BloomFilter;
+import index.IndexFile;
+import index.ZoneMap;
+import log4j.Log4j;
+
+/**
+ * Keeps decoded tables resident between statements so that a hot table is
+ * parsed once instead of once per statement. Tables are keyed by database and
+ * table name, evicted in least recently used order once the estimated size of
+ * all resident tables exceeds the byte budget, and written back to disk only
+ * when they are dirty. Rows that were only appended since the table was
+ * last written go to a new segment file next to the table file instead of
+ * rewriting the whole table, and readers merge the segments back in.
+ *
+ * Changes to resident tables are recorded in the write-ahead log of their
+ * database first, table files are replaced by writing a temporary file and
+ * renaming it over the old one, and a background checkpoint writes every
+ * changed table back and empties the logs.
+ *
+ * The indexes of a resident table are kept in step with its rows and written
+ * next to it whenever it is written. Their files carry a stamp of the table
+ * files they were written with, an index whose stamp does not match, after
+ * a crash between the two writes for instance, is built again from the rows.
+ * Indexes that enforce a PRIMARY KEY or UNIQUE column are looked up before
+ * a change is logged and the change is refused when it would repeat a value.
+ *
+ * Every table file and segment is written with the zone map of its rows, so
+ * a scan of a table that is not resident can pass over a file none of whose
+ * blocks can hold a row it wants. A resident table keeps a zone map of all
+ * its rows in step with them, built again after rows are deleted.
+ *
+ * Columns with a Bloom filter get a filter in every table file and segment,
+ * and the scan also passes over a file whose filters show it holds no value
+ * an equality of the condition asks for. Rows appended to such a table go
+ * to a segment of their own rather than to the end of the table file, so
+ * that each segment keeps its own filter.
+ */
+public class TableCache {
+
+	private static TableCache instance;
+	private static long defaultByteBudget = 64L * 1024 * 1024;
+	private static int rowOverhead = 40;
+	private static int cellOverhead = 16;
+	private static int maxSegments = 16;
+	private static long checkpointPeriod = 5;
+	private static String temporaryString = ".tmp";
+
+	private IFile file;
+	private LinkedHashMap<String, CachedTable> tables;
+	private long byteBudget;
+	private long usedBytes;
+	private HashMap<String, WriteAheadLog> logs;
+	private ScheduledExecutorService checkpointer;
+	private SQLException checkpointFailure;
+
+	private TableCache() {
+		tables = new LinkedHashMap<String, CachedTable>(16, 0.75f, true);
+		byteBudget = defaultByteBudget;
+		usedBytes = 0;
+		logs = new HashMap<String, WriteAheadLog>();
+		checkpointer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "checkpoint");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		checkpointer.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				checkpoint();
+			}
+		}, checkpointPeriod, checkpointPeriod, TimeUnit.SECONDS);
+	}
+
+	public static TableCache getInstance() {
+		if (instance == null) {
+			instance = new TableCache();
+		}
+		return instance;
+	}
+
+	public synchronized void setFile(IFile file) {
+		this.file = file;
+	}
+
+	public synchronized void setByteBudget(long byteBudget) throws SQLException {
+		this.byteBudget = byteBudget;
+		evict();
+	}
+
+	public synchronized long getByteBudget() {
+		return byteBudget;
+	}
+
+	public synchronized long getUsedBytes() {
+		return usedBytes;
+	}
+
+	/**
+	 * Returns a private copy of the table that the caller is free to modify.
+	 */
+	public synchronized TableValues read(String dataBaseName, String tableName) throws SQLException {
+		return getTable(dataBaseName, tableName).tableValues.copy();
+	}
+
+	/**
+	 * Returns the resident table itself, the caller must not modify it.
+	 */
+	public synchronized TableValues view(String dataBaseName, String tableName) throws SQLException {
+		return getTable(dataBaseName, tableName).tableValues;
+	}
+
+	/**
+	 * Returns the given columns of the rows that pass the filter, all columns
+	 * when columns is null and all rows when filter is null, and the caller
+	 * must not modify it. A resident table is returned whole so the caller
+	 * still has to apply the filter, otherwise only the wanted columns and
+	 * rows are read from disk and the result is not kept in the cache.
+	 */
+	public synchronized TableValues scan(String dataBaseName, String tableName, ArrayList<String> columns,
+			IFilter filter) throws SQLException {
+		if ((columns == null && filter == null) || tables.containsKey(getKey(dataBaseName, tableName))) {
+			return view(dataBaseName, tableName);
+		}
+		return readFiles(dataBaseName, tableName, columns, filter, null);
+	}
+
+	/**
+	 * Like scan, but the rows of a table that is not resident are handed to
+	 * sink as they are read, even when every column and row is wanted, and
+	 * null is returned. A resident table is returned whole as by scan.
+	 */
+	public synchronized TableValues scan(String dataBaseName, String tableName, ArrayList<String> columns,
+			IFilter filter, IRowSink sink) throws SQLException {
+		if (tables.containsKey(getKey(dataBaseName, tableName))) {
+			return view(dataBaseName, tableName);
+		}
+		readFiles(dataBaseName, tableName, columns, filter, sink);
+		return null;
+	}
+
+	/**
+	 * Reads the table file and its segments, skipping the files that can not
+	 * hold a row the filter wants.
+	 */
+	private TableValues readFiles(String dataBaseName, String tableName, ArrayList<String> columns, IFilter filter,
+			IRowSink sink) throws SQLException {
+		File tableFile = file.GetTableFileToView(dataBaseName, tableName);
+		TableValues tableValues = null;
+		if (!mayMatch(tableFile, filter) || !mayContain(tableFile, filter)) {
+			tableValues = getProjectedSchema(dataBaseName, tableName, columns);
+		}
+		if (tableValues == null) {
+			tableValues = file.read(tableFile, columns, filter, sink);
+		}
+		for (File segment : file.GetTableSegmentsToView(dataBaseName, tableName)) {
+			if (!mayMatch(segment, filter) || !mayContain(segment, filter)) {
+				continue;
+			}
+			for (ArrayList<Object> row : file.read(segment, columns, filter, sink).getRows()) {
+				tableValues.addRow(row);
+			}
+		}
+		return tableValues;
+	}
+
+	/**
+	 * Returns false when the zone map of the table file shows none of its
+	 * rows pass the filter.
+	 */
+	private boolean mayMatch(File tableFile, IFilter filter) {
+		if (filter == null) {
+			return true;
+		}
+		ZoneMap zones = ZoneMap.read(tableFile);
+		if (zones == null) {
+			return true;
+		}
+		for (int block = 0; block < zones.getNumBlocks(); block++) {
+			if (filter.mayMatch(zones, block)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns false when the Bloom filters of the table file show it holds
+	 * none of the rows the filter wants.
+	 */
+	private boolean mayContain(File tableFile, IFilter filter) {
+		if (filter == null) {
+			return true;
+		}
+		ArrayList<BloomFilter> blooms = BloomFilter.read(tableFile);
+		return blooms == null || filter.mayContain(blooms);
+	}
+
+	/**
+	 * Returns the given columns of the table without any rows, null when
+	 * the catalog does not know them.
+	 */
+	private TableValues getProjectedSchema(String dataBaseName, String tableName, ArrayList<String> columns)
+			throws SQLException {
+		TableValues schema = file.GetTableSchema(dataBaseName, tableName);
+		if (schema == null) {
+			return null;
+		}
+		int[] projection = Projection.getColumns(schema.getcolNames(), columns);
+		return new TableValues(schema.getTableName(), Projection.select(schema.getColTypes(), projection),
+				Projection.select(schema.getcolNames(), projection), new ArrayList<ArrayList<Object>>(),
+				projection.length, 0);
+	}
+
+	/**
+	 * Replaces the resident table, the disk copy is updated on eviction or flush.
+	 * The change is not logged, callers flush right after it. Indexes are
+	 * built again, those on columns the table no longer has are dropped.
+	 */
+	public synchronized void write(String dataBaseName, String tableName, TableValues tableValues)
+			throws SQLException {
+		String key = getKey(dataBaseName, tableName);
+		CachedTable cached = tables.remove(key);
+		if (cached != null) {
+			usedBytes -= cached.bytes;
+		}
+		CachedTable replaced = new CachedTable(dataBaseName, tableName, tableValues, true);
+		loadIndexes(replaced, false);
+		put(key, replaced);
+		evict();
+	}
+
+	/**
+	 * Returns the column names and types of the table without any rows.
+	 */
+	public synchronized TableValues getSchema(String dataBaseName, String tableName) throws SQLException {
+		if (!tables.containsKey(getKey(dataBaseName, tableName))) {
+			TableValues schema = file.GetTableSchema(dataBaseName, tableName);
+			if (schema != null) {
+				return schema;
+			}
+		}
+		TableValues tableValues = getTable(dataBaseName, tableName).tableValues;
+		return new TableValues(tableValues.getTableName(), new ArrayList<Integer>(tableValues.getColTypes()),
+				new ArrayList<String>(tableValues.getcolNames()), new ArrayList<ArrayList<Object>>(),
+				tableValues.getNumCols(), 0);
+	}
+
+	/**
+	 * Returns the indexes of the table, loading it when it has any.
+	 */
+	public synchronized ArrayList<IIndex> getIndexes(String dataBaseName, String tableName) throws SQLException {
+		if (file.GetTableIndexes(dataBaseName, tableName).size()
+				== getBloomDefinitions(dataBaseName, tableName).size()) {
+			return new ArrayList<IIndex>();
+		}
+		return getTable(dataBaseName, tableName).indexes;
+	}
+
+	/**
+	 * Returns the zone map of the rows of the resident table, null when the
+	 * table is not resident.
+	 */
+	public synchronized ZoneMap getZoneMap(String dataBaseName, String tableName) throws SQLException {
+		CachedTable cached = tables.get(getKey(dataBaseName, tableName));
+		return cached == null ? null : getZones(cached);
+	}
+
+	/**
+	 * Adds an index on a column of the table built from its rows. The file
+	 * of the index is written with its definition before the catalog records
+	 * it, so that a rebuilt catalog still finds it, and with its entries when
+	 * the table is written. A Bloom filter is added by writing the table
+	 * again as a single file with the filters of its columns.
+	 */
+	public synchronized void createIndex(String dataBaseName, String tableName, IndexDefinition definition)
+			throws SQLException {
+		CachedTable cached = getTable(dataBaseName, tableName);
+		for (IndexDefinition existing : file.GetTableIndexes(dataBaseName, tableName)) {
+			if (existing.getName().equals(definition.getName())) {
+				SQLExceptions.existingIndex();
+			}
+		}
+		int column = cached.tableValues.getcolNames().indexOf(definition.getColumnName());
+		if (column == -1) {
+			SQLExceptions.unknownColName();
+		}
+		File target = file.GetTableIndexFile(dataBaseName, tableName, definition.getName());
+		File temporary = new File(target.getPath() + temporaryString);
+		IndexFile.writeDefinition(definition, cached.tableValues.getType(column), temporary);
+		replace(temporary, target);
+		if (definition.getMethod().equals(IndexFile.BLOOM)) {
+			file.addTableIndex(dataBaseName, tableName, definition);
+			cached.dirty = true;
+			return;
+		}
+		IIndex index = IndexFile.create(definition, cached.tableValues.getType(column));
+		index.build(cached.tableValues.getRows(), column);
+		file.addTableIndex(dataBaseName, tableName, definition);
+		cached.indexes.add(index);
+		cached.indexesDirty = true;
+	}
+
+	public synchronized void dropIndex(String dataBaseName, String tableName, String indexName)
+			throws SQLException {
+		boolean found = false;
+		boolean constraint = false;
+		for (IndexDefinition definition : file.GetTableIndexes(dataBaseName, tableName)) {
+			if (definition.getName().equals(indexName)) {
+				found = true;
+				constraint = definition.isUnique();
+			}
+		}
+		if (!found) {
+			SQLExceptions.unfoundIndex();
+		}
+		if (constraint) {
+			SQLExceptions.constraintIndex();
+		}
+		CachedTable cached = tables.get(getKey(dataBaseName, tableName));
+		if (cached != null) {
+			Iterator<IIndex> iterator = cached.indexes.iterator();
+			while (iterator.hasNext()) {
+				if (iterator.next().getDefinition().getName().equals(indexName)) {
+					iterator.remove();
+				}
+			}
+		}
+		file.removeTableIndex(dataBaseName, tableName, indexName);
+	}
+
+	/**
+	 * Adds rows to the end of the resident table without copying it. A table
+	 * that is not resident and has no index to keep gets them as a new
+	 * segment without being read.
+	 */
+	public synchronized void append(String dataBaseName, String tableName, ArrayList<ArrayList<Object>> rows)
+			throws SQLException {
+		if (!tables.containsKey(getKey(dataBaseName, tableName)) && appendSegment(dataBaseName, tableName, rows)) {
+			return;
+		}
+		CachedTable cached = getTable(dataBaseName, tableName);
+		checkUnique(cached, rows);
+		getLog(dataBaseName).append(Record.insert(tableName, rows));
+		applyAppend(cached, rows);
+		evict();
+	}
+
+	/**
+	 * Sets the given columns of the rows at positions to values.
+	 */
+	public synchronized void update(String dataBaseName, String tableName, int[] positions, int[] columns,
+			ArrayList<Object> values) throws SQLException {
+		CachedTable cached = getTable(dataBaseName, tableName);
+		checkUnique(cached, positions, columns, values);
+		getLog(dataBaseName).append(Record.update(tableName, positions, columns, values));
+		applyUpdate(cached, positions, columns, values);
+		evict();
+	}
+
+	/**
+	 * Removes the rows at positions, which are in ascending order.
+	 */
+	public synchronized void delete(String dataBaseName, String tableName, int[] positions) throws SQLException {
+		CachedTable cached = getTable(dataBaseName, tableName);
+		getLog(dataBaseName).append(Record.delete(tableName, positions));
+		applyDelete(cached, positions);
+	}
+
+	/**
+	 * Waits until the logged changes of every statement so far are on disk,
+	 * then reports a failed background checkpoint once.
+	 */
+	public void commit() throws SQLException {
+		ArrayList<WriteAheadLog> toCommit;
+		synchronized (this) {
+			toCommit = new ArrayList<WriteAheadLog>(logs.values());
+		}
+		for (WriteAheadLog log : toCommit) {
+			log.commit(log.getAppendedLsn());
+		}
+		SQLException failure;
+		synchronized (this) {
+			failure = checkpointFailure;
+			checkpointFailure = null;
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	public synchronized void remove(String dataBaseName, String tableName) {
+		CachedTable cached = tables.remove(getKey(dataBaseName, tableName));
+		if (cached != null) {
+			usedBytes -= cached.bytes;
+		}
+	}
+
+	public synchronized void removeDataBase(String dataBaseName) {
+		Iterator<CachedTable> iterator = tables.values().iterator();
+		while (iterator.hasNext()) {
+			CachedTable cached = iterator.next();
+			if (cached.dataBaseName.equals(dataBaseName)) {
+				usedBytes -= cached.bytes;
+				iterator.remove();
+			}
+		}
+		WriteAheadLog log = logs.remove(dataBaseName);
+		if (log != null) {
+			log.close();
+		}
+	}
+
+	/**
+	 * Checkpoint, writes every changed table back and empties the logs.
+	 */
+	public synchronized void flush() throws SQLException {
+		for (CachedTable cached : tables.values()) {
+			writeBack(cached);
+		}
+		if (file != null) {
+			file.saveCatalog();
+		}
+		for (WriteAheadLog log : logs.values()) {
+			log.truncate();
+		}
+		checkpointFailure = null;
+	}
+
+	/**
+	 * Background checkpoint. A failure is logged and kept until a later
+	 * checkpoint succeeds or the next commit reports it, since the logs keep
+	 * growing until the tables can be written.
+	 */
+	private synchronized void checkpoint() {
+		try {
+			flush();
+		} catch (SQLException e) {
+			Log4j.getInstance().error("Checkpoint failed: " + e.getMessage());
+			checkpointFailure = e;
+		} catch (RuntimeException e) {
+			Log4j.getInstance().error("Checkpoint failed: " + e);
+			checkpointFailure = new SQLException(e);
+		}
+	}
+
+	public synchronized void clear() {
+		tables.clear();
+		usedBytes = 0;
+		for (WriteAheadLog log : logs.values()) {
+			log.close();
+		}
+		logs.clear();
+	}
+
+	/**
+	 * Replays the logs left by a process that stopped before its last
+	 * checkpoint. A table write that was logged but not finished is finished
+	 * first, then every change the table files do not contain yet is applied
+	 * again and the result is checkpointed.
+	 */
+	public synchronized void recover() throws SQLException {
+		for (String dataBaseName : file.GetDataBaseNames()) {
+			File dataBaseFolder = file.GetDataBaseFolder(dataBaseName);
+			ArrayList<Record> records = WriteAheadLog.readRecords(WriteAheadLog.getLogFile(dataBaseFolder));
+			if (!records.isEmpty()) {
+				file.refreshCatalog(dataBaseName);
+			}
+			HashMap<String, Record> lastFlush = new HashMap<String, Record>();
+			HashMap<String, Record> previousFlush = new HashMap<String, Record>();
+			for (Record record : records) {
+				if (record.type == WriteAheadLog.FLUSH) {
+					previousFlush.put(record.tableName, lastFlush.put(record.tableName, record));
+				}
+			}
+			for (Map.Entry<String, Record> flushed : lastFlush.entrySet()) {
+				if (!finishFlush(dataBaseName, dataBaseFolder, flushed.getValue())) {
+					flushed.setValue(previousFlush.get(flushed.getKey()));
+				}
+			}
+			deleteTemporaryFiles(dataBaseFolder);
+			if (!records.isEmpty()) {
+				file.refreshCatalog(dataBaseName);
+			}
+			for (Record record : records) {
+				Record flushed = lastFlush.get(record.tableName);
+				if (record.type == WriteAheadLog.FLUSH || (flushed != null && record.lsn < flushed.lsn)
+						|| !file.hasTable(dataBaseName, record.tableName)) {
+					continue;
+				}
+				redo(getTable(dataBaseName, record.tableName), record);
+			}
+			if (!records.isEmpty()) {
+				getLog(dataBaseName);
+			}
+		}
+		flush();
+	}
+
+	/**
+	 * Completes the last logged table write, returns false when it was rows
+	 * added at the end of the file that did not all reach the disk, those are
+	 * cut off and the table file is as it was before that write.
+	 */
+	private boolean finishFlush(String dataBaseName, File dataBaseFolder, Record record) throws SQLException {
+		if (!file.hasTable(dataBaseName, record.tableName)) {
+			return true;
+		}
+		File tableFolder = new File(dataBaseFolder, record.tableName);
+		if (record.isAppend()) {
+			File tableFile = new File(tableFolder, record.files.get(0));
+			boolean complete = tableFile.length() >= record.toLength;
+			truncate(tableFile, complete ? record.toLength : record.fromLength);
+			return complete;
+		}
+		for (int i = 0; i + 1 < record.files.size(); i += 2) {
+			File temporary = new File(tableFolder, record.files.get(i));
+			if (temporary.exists()) {
+				replace(temporary, new File(tableFolder, record.files.get(i + 1)));
+			}
+		}
+		if (record.rewrite) {
+			file.deleteTableSegments(dataBaseName, record.tableName);
+		}
+		return true;
+	}
+
+	private void deleteTemporaryFiles(File dataBaseFolder) {
+		for (File tableFolder : dataBaseFolder.listFiles()) {
+			File[] contents = tableFolder.listFiles();
+			if (contents == null) {
+				continue;
+			}
+			for (File content : contents) {
+				if (content.getName().endsWith(temporaryString)) {
+					content.delete();
+				}
+			}
+		}
+	}
+
+	private void redo(CachedTable cached, Record record) {
+		switch (record.type) {
+		case WriteAheadLog.INSERT:
+			applyAppend(cached, record.rows);
+			break;
+		case WriteAheadLog.UPDATE:
+			applyUpdate(cached, record.positions, record.columns, record.values);
+			break;
+		case WriteAheadLog.DELETE:
+			applyDelete(cached, record.positions);
+			break;
+		}
+	}
+
+	private void applyAppend(CachedTable cached, ArrayList<ArrayList<Object>> rows) {
+		int[] indexColumns = getIndexColumns(cached);
+		for (ArrayList<Object> row : rows) {
+			int position = cached.tableValues.getRows().size();
+			cached.tableValues.getRows().add(row);
+			for (int i = 0; i < indexColumns.length; i++) {
+				cached.indexes.get(i).insert(row.get(indexColumns[i]), position);
+			}
+			if (cached.zones != null) {
+				cached.zones.add(row);
+			}
+			resize(cached, estimateBytes(row));
+		}
+		cached.tableValues.setNumRows(cached.tableValues.getRows().size());
+	}
+
+	private void applyUpdate(CachedTable cached, int[] positions, int[] columns, ArrayList<Object> values) {
+		int[] indexColumns = getIndexColumns(cached);
+		int[] changed = new int[indexColumns.length];
+		for (int i = 0; i < indexColumns.length; i++) {
+			changed[i] = -1;
+			for (int j = 0; j < columns.length; j++) {
+				if (columns[j] == indexColumns[i]) {
+					changed[i] = j;
+				}
+			}
+		}
+		for (int position : positions) {
+			ArrayList<Object> row = cached.tableValues.getRow(position);
+			for (int i = 0; i < changed.length; i++) {
+				if (changed[i] != -1) {
+					cached.indexes.get(i).remove(row.get(indexColumns[i]), position);
+					cached.indexes.get(i).insert(values.get(changed[i]), position);
+				}
+			}
+			long before = estimateBytes(row);
+			for (int i = 0; i < columns.length; i++) {
+				if (cached.zones != null) {
+					cached.zones.update(position, columns[i], row.get(columns[i]), values.get(i));
+				}
+				row.set(columns[i], values.get(i));
+			}
+			resize(cached, estimateBytes(row) - before);
+		}
+		cached.dirty = true;
+	}
+
+	/**
+	 * Moves every kept row down over the deleted ones in one pass and cuts
+	 * the tail.
+	 */
+	private void applyDelete(CachedTable cached, int[] positions) {
+		if (positions.length == 0) {
+			return;
+		}
+		ArrayList<ArrayList<Object>> rows = cached.tableValues.getRows();
+		int next = 0;
+		int kept = positions[0];
+		for (int i = positions[0]; i < rows.size(); i++) {
+			if (next < positions.length && positions[next] == i) {
+				resize(cached, -estimateBytes(rows.get(i)));
+				next++;
+			} else {
+				rows.set(kept++, rows.get(i));
+			}
+		}
+		rows.subList(kept, rows.size()).clear();
+		cached.tableValues.setNumRows(kept);
+		for (IIndex index : cached.indexes) {
+			index.delete(positions);
+		}
+		cached.zones = null;
+		cached.dirty = true;
+	}
+
+	/**
+	 * Rejects rows whose values would repeat a value of a unique column,
+	 * among themselves or in the table. The keys of all the rows are first
+	 * told apart in a set and every distinct key is then looked up once in
+	 * the index of the column.
+	 */
+	private void checkUnique(CachedTable cached, ArrayList<ArrayList<Object>> rows) throws SQLException {
+		int[] indexColumns = getIndexColumns(cached);
+		for (int i = 0; i < indexColumns.length; i++) {
+			IIndex index = cached.indexes.get(i);
+			if (!index.getDefinition().isUnique()) {
+				continue;
+			}
+			HashSet<Object> keys = new HashSet<Object>();
+			for (ArrayList<Object> row : rows) {
+				Object key = row.get(indexColumns[i]);
+				if (key == null) {
+					checkNullKey(index);
+				} else if (!keys.add(key)) {
+					SQLExceptions.duplicateKey(index.getDefinition().getName());
+				}
+			}
+			for (Object key : keys) {
+				if (index.find(key).length != 0) {
+					SQLExceptions.duplicateKey(index.getDefinition().getName());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Rejects setting a unique column of more than one row to the same value
+	 * or of one row to the value of another row.
+	 */
+	private void checkUnique(CachedTable cached, int[] positions, int[] columns, ArrayList<Object> values)
+			throws SQLException {
+		if (positions.length == 0) {
+			return;
+		}
+		int[] indexColumns = getIndexColumns(cached);
+		for (int i = 0; i < indexColumns.length; i++) {
+			IIndex index = cached.indexes.get(i);
+			if (!index.getDefinition().isUnique()) {
+				continue;
+			}
+			for (int j = 0; j < columns.length; j++) {
+				if (columns[j] != indexColumns[i]) {
+					continue;
+				}
+				Object key = values.get(j);
+				if (key == null) {
+					checkNullKey(index);
+					continue;
+				}
+				int[] found = index.find(key);
+				if (positions.length > 1 || found.length > 1
+						|| (found.length == 1 && found[0] != positions[0])) {
+					SQLExceptions.duplicateKey(index.getDefinition().getName());
+				}
+			}
+		}
+	}
+
+	private void checkNullKey(IIndex index) throws SQLException {
+		if (index.getDefinition().isPrimaryKey()) {
+			SQLExceptions.throwNull();
+		}
+	}
+
+	private ArrayList<IndexDefinition> getBloomDefinitions(String dataBaseName, String tableName)
+			throws SQLException {
+		ArrayList<IndexDefinition> definitions = new ArrayList<IndexDefinition>();
+		for (IndexDefinition definition : file.GetTableIndexes(dataBaseName, tableName)) {
+			if (definition.getMethod().equals(IndexFile.BLOOM)) {
+				definitions.add(definition);
+			}
+		}
+		return definitions;
+	}
+
+	/**
+	 * Writes the zone map and the Bloom filters of the rows of tableFile.
+	 */
+	private void writeSummaries(File tableFile, TableValues data, ZoneMap zones,
+			ArrayList<IndexDefinition> blooms) throws SQLException {
+		ZoneMap.write(zones, tableFile);
+		if (!blooms.isEmpty()) {
+			BloomFilter.write(BloomFilter.build(data, blooms), tableFile);
+		}
+	}
+
+	private ZoneMap getZones(CachedTable cached) throws SQLException {
+		if (cached.zones == null) {
+			cached.zones = ZoneMap.build(cached.tableValues);
+		}
+		return cached.zones;
+	}
+
+	private int[] getIndexColumns(CachedTable cached) {
+		int[] indexColumns = new int[cached.indexes.size()];
+		for (int i = 0; i < indexColumns.length; i++) {
+			indexColumns[i] = cached.tableValues.getcolNames().indexOf(
+					cached.indexes.get(i).getDefinition().getColumnName());
+		}
+		return indexColumns;
+	}
+
+	private void resize(CachedTable cached, long bytes) {
+		cached.bytes += bytes;
+		usedBytes += bytes;
+	}
+
+	private WriteAheadLog getLog(String dataBaseName) throws SQLException {
+		WriteAheadLog log = logs.get(dataBaseName);
+		if (log == null) {
+			log = new WriteAheadLog(file.GetDataBaseFolder(dataBaseName));
+			logs.put(dataBaseName, log);
+		}
+		return log;
+	}
+
+	/**
+	 * Writes rows as a new segment of a table that is not resident, returns
+	 * false without writing when the table has indexes other than Bloom
+	 * filters, as many segments as it may have or a file to rewrite. Tables
+	 * whose files take less than their share of the budget are loaded
+	 * instead, so that a run of inserts into them does not write a segment
+	 * for each.
+	 */
+	private boolean appendSegment(String dataBaseName, String tableName, ArrayList<ArrayList<Object>> rows)
+			throws SQLException {
+		ArrayList<IndexDefinition> blooms = getBloomDefinitions(dataBaseName, tableName);
+		if (file.GetTableIndexes(dataBaseName, tableName).size() != blooms.size()) {
+			return false;
+		}
+		File tableFile = file.GetTableFileToView(dataBaseName, tableName);
+		ArrayList<File> segments = file.GetTableSegmentsToView(dataBaseName, tableName);
+		long length = tableFile.length();
+		for (File segment : segments) {
+			length += segment.length();
+		}
+		if (length < byteBudget / maxSegments || segments.size() >= maxSegments || file.isOutdated(tableFile)) {
+			return false;
+		}
+		TableValues schema = file.GetTableSchema(dataBaseName, tableName);
+		if (schema == null) {
+			return false;
+		}
+		TableValues segment = new TableValues(schema.getTableName(), schema.getColTypes(), schema.getcolNames(),
+				rows, schema.getNumCols(), rows.size());
+		File segmentFile = file.createTableSegmentFile(dataBaseName, tableName);
+		write(dataBaseName, tableName, segment, segmentFile, false);
+		writeSummaries(segmentFile, segment, ZoneMap.build(segment), blooms);
+		return true;
+	}
+
+	private CachedTable getTable(String dataBaseName, String tableName) throws SQLException {
+		String key = getKey(dataBaseName, tableName);
+		CachedTable cached = tables.get(key);
+		if (cached == null) {
+			File tableFile = file.GetTableFileToView(dataBaseName, tableName);
+			TableValues tableValues = file.read(tableFile);
+			ArrayList<File> segments = file.GetTableSegmentsToView(dataBaseName, tableName);
+			for (File segment : segments) {
+				for (ArrayList<Object> row : file.read(segment).getRows()) {
+					tableValues.addRow(row);
+				}
+			}
+			cached = new CachedTable(dataBaseName, tableName, tableValues, file.isOutdated(tableFile));
+			cached.segments = segments.size();
+			file.updateCatalog(dataBaseName, tableValues);
+			loadIndexes(cached, true);
+			put(key, cached);
+			evict();
+		}
+		return cached;
+	}
+
+	/**
+	 * Reads the index files of the table when read is set and their stamp
+	 * matches the table files, and builds the other indexes from the rows.
+	 */
+	private void loadIndexes(CachedTable cached, boolean read) throws SQLException {
+		TableValues tableValues = cached.tableValues;
+		long stamp = read ? getStamp(cached) : 0;
+		for (IndexDefinition definition : file.GetTableIndexes(cached.dataBaseName, cached.tableName)) {
+			int column = tableValues.getcolNames().indexOf(definition.getColumnName());
+			if (column == -1) {
+				file.removeTableIndex(cached.dataBaseName, cached.tableName, definition.getName());
+				continue;
+			} else if (definition.getMethod().equals(IndexFile.BLOOM)) {
+				continue;
+			}
+			IIndex index = IndexFile.create(definition, tableValues.getType(column));
+			if (!read || !IndexFile.read(index,
+					file.GetTableIndexFile(cached.dataBaseName, cached.tableName, definition.getName()), stamp)) {
+				index.build(tableValues.getRows(), column);
+				cached.indexesDirty = true;
+			}
+			cached.indexes.add(index);
+		}
+	}
+
+	private void writeIndexes(CachedTable cached) throws SQLException {
+		if (!cached.indexes.isEmpty()) {
+			long stamp = getStamp(cached);
+			for (IIndex index : cached.indexes) {
+				File target = file.GetTableIndexFile(cached.dataBaseName, cached.tableName,
+						index.getDefinition().getName());
+				File temporary = new File(target.getPath() + temporaryString);
+				IndexFile.write(index, temporary, stamp);
+				replace(temporary, target);
+			}
+		}
+		cached.indexesDirty = false;
+	}
+
+	/**
+	 * Mixes the row count with the length and modification time of the
+	 * table file and its segments.
+	 */
+	private long getStamp(CachedTable cached) throws SQLException {
+		ArrayList<File> tableFiles = file.GetTableSegmentsToView(cached.dataBaseName, cached.tableName);
+		tableFiles.add(0, file.GetTableFileToView(cached.dataBaseName, cached.tableName));
+		long stamp = cached.tableValues.getNumRows();
+		for (File tableFile : tableFiles) {
+			stamp = 31 * (31 * stamp + tableFile.length()) + tableFile.lastModified();
+		}
+		return stamp;
+	}
+
+	private void put(String key, CachedTable cached) {
+		tables.put(key, cached);
+		usedBytes += cached.bytes;
+	}
+
+	private void evict() throws SQLException {
+		Iterator<Map.Entry<String, CachedTable>> iterator = tables.entrySet().iterator();
+		while (usedBytes > byteBudget && tables.size() > 1 && iterator.hasNext()) {
+			CachedTable eldest = iterator.next().getValue();
+			writeBack(eldest);
+			usedBytes -= eldest.bytes;
+			iterator.remove();
+		}
+	}
+
+	private void writeBack(CachedTable cached) throws SQLException {
+		TableValues tableValues = cached.tableValues;
+		boolean appended = tableValues.getNumRows() > cached.persistedRows;
+		boolean rewrite = cached.dirty || (appended && cached.segments >= maxSegments);
+		ArrayList<IndexDefinition> blooms = rewrite || appended
+				? getBloomDefinitions(cached.dataBaseName, cached.tableName) : new ArrayList<IndexDefinition>();
+		if (rewrite) {
+			File tableFile = file.GetTableFileToUpdate(cached.dataBaseName, cached.tableName);
+			write(cached.dataBaseName, cached.tableName, tableValues, tableFile, true);
+			file.deleteTableSegments(cached.dataBaseName, cached.tableName);
+			cached.segments = 0;
+			cached.zones = null;
+			writeSummaries(tableFile, tableValues, getZones(cached), blooms);
+		} else if (appended) {
+			ArrayList<ArrayList<Object>> rows = new ArrayList<ArrayList<Object>>(
+					tableValues.getRows().subList(cached.persistedRows, tableValues.getNumRows()));
+			TableValues segment = new TableValues(tableValues.getTableName(), tableValues.getColTypes(),
+					tableValues.getcolNames(), rows, tableValues.getNumCols(), rows.size());
+			File tableFile = file.GetTableFileToUpdate(cached.dataBaseName, cached.tableName);
+			if (cached.segments == 0 && blooms.isEmpty() && file.canAppend(tableFile)) {
+				append(cached, segment, tableFile);
+				ZoneMap.write(getZones(cached), tableFile);
+			} else {
+				File segmentFile = file.createTableSegmentFile(cached.dataBaseName, cached.tableName);
+				write(cached.dataBaseName, cached.tableName, segment, segmentFile, false);
+				writeSummaries(segmentFile, segment, ZoneMap.build(segment), blooms);
+				cached.segments++;
+			}
+		}
+		if (rewrite || appended) {
+			file.updateCatalog(cached.dataBaseName, tableValues);
+		}
+		if (rewrite || appended || cached.indexesDirty) {
+			writeIndexes(cached);
+		}
+		cached.persistedRows = tableValues.getNumRows();
+		cached.dirty = false;
+	}
+
+	/**
+	 * Writes data next to target, logs the rename and then renames it over
+	 * target, so a crash leaves either the old or the new file.
+	 */
+	private void write(String dataBaseName, String tableName, TableValues data, File target, boolean rewrite)
+			throws SQLException {
+		ZoneMap.delete(target);
+		BloomFilter.delete(target);
+		File temporary = new File(target.getPath() + temporaryString);
+		file.write(data, temporary);
+		sync(temporary);
+		ArrayList<String> files = new ArrayList<String>();
+		files.add(temporary.getName());
+		files.add(target.getName());
+		WriteAheadLog log = getLog(dataBaseName);
+		log.commit(log.append(Record.flush(tableName, files, rewrite)));
+		replace(temporary, target);
+	}
+
+	/**
+	 * Adds rows at the end of target, logging the old and new length first.
+	 */
+	private void append(CachedTable cached, TableValues data, File target) throws SQLException {
+		byte[] rows = file.encodeRows(data);
+		ZoneMap.delete(target);
+		BloomFilter.delete(target);
+		long length = target.length();
+		WriteAheadLog log = getLog(cached.dataBaseName);
+		log.commit(log.append(Record.append(cached.tableName, target.getName(), length, length + rows.length)));
+		try {
+			FileChannel channel = FileChannel.open(target.toPath(), StandardOpenOption.WRITE);
+			try {
+				ByteBuffer buffer = ByteBuffer.wrap(rows);
+				while (buffer.hasRemaining()) {
+					channel.write(buffer, length + buffer.position());
+				}
+				channel.force(false);
+			} finally {
+				channel.close();
+			}
+		} catch (IOException e) {
+			SQLExceptions.canNotWriteFile();
+		}
+	}
+
+	private static void truncate(File tableFile, long length) throws SQLException {
+		if (!tableFile.exists() || tableFile.length() == length) {
+			return;
+		}
+		try {
+			FileChannel channel = FileChannel.open(tableFile.toPath(), StandardOpenOption.WRITE);
+			try {
+				channel.truncate(length);
+				channel.force(false);
+			} finally {
+				channel.close();
+			}
+		} catch (IOException e) {
+			SQLExceptions.canNotWriteFile();
+		}
+	}
+
+	private static void sync(File written) throws SQLException {
+		try {
+			FileChannel channel = FileChannel.open(written.toPath(), StandardOpenOption.WRITE);
+			try {
+				channel.force(true);
+			} finally {
+				channel.close();
+			}
+		} catch (IOException e) {
+			SQLExceptions.canNotWriteFile();
+		}
+	}
+
+	private static void replace(File temporary, File target) throws SQLException {
+		try {
+			Files.move(temporary.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			SQLExceptions.canNotWriteFile();
+		}
+	}
+
+	private String getKey(String dataBaseName, String tableName) {
+		return dataBaseName + "." + tableName;
+	}
+
+	private static long estimateBytes(TableValues tableValues) {
+		long bytes = 0;
+		for (ArrayList<Object> row : tableValues.getRows()) {
+			bytes += estimateBytes(row);
+		}
+		return bytes;
+	}
+
+	private static long estimateBytes(ArrayList<Object> row) {
+		long bytes = rowOverhead;
+		for (Object value : row) {
+			bytes += estimateBytes(value);
+		}
+		return bytes;
+	}
+
+	private static long estimateBytes(Object value) {
+		if (value == null) {
+			return 4;
+		} else if (value instanceof String) {
+			return cellOverhead + 24 + 2 * ((String) value).length();
+		} else if (value instanceof Date) {
+			return cellOverhead + 24;
+		}
+		return cellOverhead + 4;
+	}
+
+	private static class CachedTable {
+		private String dataBaseName;
+		private String tableName;
+		private TableValues tableValues;
+		private boolean dirty;
+		private long bytes;
+		private int persistedRows;
+		private int segments;
+		private ArrayList<IIndex> indexes;
+		private boolean indexesDirty;
+		private ZoneMap zones;
+
+		private CachedTable(String dataBaseName, String tableName, TableValues tableValues, boolean dirty) {
+			this.dataBaseName = dataBaseName;
+			this.tableName = tableName;
+			this.tableValues = tableValues;
+			this.dirty = dirty;
+			this.bytes = estimateBytes(tableValues);
+			this.persistedRows = dirty ? 0 : tableValues.getNumRows();
+			this.segments = 0;
+			this.indexes = new ArrayList<IIndex>();
+			this.indexesDirty = false;
+			this.zones = null;
+		}
+	}
+}
@@ -0,0 +1,371 @@
+package dBMS;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.BufferedInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.zip.CRC32;
+
+import accessories.SQLExceptions;
+import dataTypesController.RowCodec;
+
+/**
+ * Redo log of one database. Every INSERT, UPDATE and DELETE appends a record
+ * of its effect on the resident table before the statement returns, and the
+ * statement is durable once {@link #commit(long)} returns. Commits that
+ * arrive while another thread is writing the log wait for it and are written
+ * together with a single fsync.
+ *
+ * A FLUSH record is written before a table file is replaced, it names the
+ * temporary files that are about to be renamed over the table files so that
+ * recovery can finish the rename and skip the records the table file already
+ * contains. Rows added at the end of a table file are logged the same way
+ * with the old and new file length, so a partly written tail can be cut off.
+ */
+public class WriteAheadLog {
+
+	public static final byte INSERT = 1;
+	public static final byte UPDATE = 2;
+	public static final byte DELETE = 3;
+	public static final byte FLUSH = 4;
+
+	private static String logName = "wal.log";
+
+	private File logFile;
+	private FileChannel channel;
+	private ByteArrayOutputStream pending;
+	private long appendedLsn;
+	private long durableLsn;
+	private boolean flushing;
+
+	public WriteAheadLog(File dataBaseFolder) throws SQLException {
+		logFile = getLogFile(dataBaseFolder);
+		pending = new ByteArrayOutputStream();
+		try {
+			channel = FileChannel.open(logFile.toPath(), StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		} catch (IOException e) {
+			SQLExceptions.canNotWriteFile();
+		}
+		appendedLsn = 0;
+		durableLsn = 0;
+		flushing = false;
+	}
+
+	public static File getLogFile(File dataBaseFolder) {
+		return new File(dataBaseFolder, logName);
+	}
+
+	public synchronized long append(Record record) throws SQLException {
+		record.lsn = ++appendedLsn;
+		try {
+			byte[] body = record.encode();
+			CRC32 crc = new CRC32();
+			crc.update(body);
+			DataOutputStream out = new DataOutputStream(pending);
+			out.writeInt(body.length);
+			out.writeInt((int) crc.getValue());
+			out.write(body);
+		} catch (IOException e) {
+			SQLExceptions.canNotWriteFile();
+		}
+		return record.lsn;
+	}
+
+	public synchronized long getAppendedLsn() {
+		return appendedLsn;
+	}
+
+	/**
+	 * Waits until every record up to lsn is on disk. The first waiting thread
+	 * writes and syncs everything appended so far, the others wait for it.
+	 */
+	public void commit(long lsn) throws SQLException {
+		byte[] batch;
+		long batchLsn;
+		synchronized (this) {
+			while (flushing && durableLsn < lsn) {
+				waitForFlush();
+			}
+			if (durableLsn >= lsn) {
+				return;
+			}
+			flushing = true;
+			batch = pending.toByteArray();
+			pending.reset();
+			batchLsn = appendedLsn;
+		}
+		boolean written = false;
+		try {
+			ByteBuffer buffer = ByteBuffer.wrap(batch);
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(false);
+			written = true;
+		} catch (IOException e) {
+			SQLExceptions.canNotWriteFile();
+		} finally {
+			synchronized (this) {
+				flushing = false;
+				if (written) {
+					durableLsn = batchLsn;
+				}
+				notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Drops every record, called once all tables are written back.
+	 */
+	public synchronized void truncate() throws SQLException {
+		while (flushing) {
+			waitForFlush();
+		}
+		try {
+			if (channel.size() > 0) {
+				channel.truncate(0);
+				channel.force(false);
+			}
+		} catch (IOException e) {
+			SQLExceptions.canNotWriteFile();
+		}
+		pending.reset();
+		durableLsn = appendedLsn;
+	}
+
+	/**
+	 * Closes the log of a database that is dropped or no longer used, records
+	 * that are not on disk yet are dropped with it.
+	 */
+	public synchronized void close() {
+		while (flushing) {
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+		pending.reset();
+		durableLsn = appendedLsn;
+		notifyAll();
+		try {
+			channel.close();
+		} catch (IOException e) {
+		}
+	}
+
+	private void waitForFlush() throws SQLException {
+		try {
+			wait();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			SQLExceptions.canNotWriteFile();
+		}
+	}
+
+	/**
+	 * Reads the records of a log, stopping at the first incomplete or corrupt
+	 * one that a crash in the middle of a write may have left behind.
+	 */
+	public static ArrayList<Record> readRecords(File logFile) throws SQLException {
+		ArrayList<Record> records = new ArrayList<Record>();
+		if (!logFile.exists()) {
+			return records;
+		}
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(logFile)));
+			try {
+				while (true) {
+					int length = in.readInt();
+					int checksum = in.readInt();
+					if (length < 0) {
+						break;
+					}
+					byte[] body = new byte[length];
+					in.readFully(body);
+					CRC32 crc = new CRC32();
+					crc.update(body);
+					if ((int) crc.getValue() != checksum) {
+						break;
+					}
+					records.add(Record.decode(body));
+				}
+			} catch (EOFException e) {
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			SQLExceptions.canNotReadFile();
+		}
+		return records;
+	}
+
+	public static class Record {
+		public long lsn;
+		public byte type;
+		public String tableName;
+		public ArrayList<ArrayList<Object>> rows;
+		public int[] positions;
+		public int[] columns;
+		public ArrayList<Object> values;
+		public ArrayList<String> files;
+		public boolean rewrite;
+		public long fromLength;
+		public long toLength;
+
+		private Record(byte type, String tableName) {
+			this.type = type;
+			this.tableName = tableName;
+			this.fromLength = -1;
+			this.toLength = -1;
+		}
+
+		public static Record insert(String tableName, ArrayList<ArrayList<Object>> rows) {
+			Record record = new Record(INSERT, tableName);
+			record.rows = rows;
+			return record;
+		}
+
+		public static Record update(String tableName, int[] positions, int[] columns, ArrayList<Object> values) {
+			Record record = new Record(UPDATE, tableName);
+			record.positions = positions;
+			record.columns = columns;
+			record.values = values;
+			return record;
+		}
+
+		public static Record delete(String tableName, int[] positions) {
+			Record record = new Record(DELETE, tableName);
+			record.positions = positions;
+			return record;
+		}
+
+		/**
+		 * files holds pairs of temporary file name and table file name inside
+		 * the table folder, rewrite tells that the segments are dropped.
+		 */
+		public static Record flush(String tableName, ArrayList<String> files, boolean rewrite) {
+			Record record = new Record(FLUSH, tableName);
+			record.files = files;
+			record.rewrite = rewrite;
+			return record;
+		}
+
+		/**
+		 * Rows added at the end of a table file that grows from fromLength to
+		 * toLength bytes.
+		 */
+		public static Record append(String tableName, String fileName, long fromLength, long toLength) {
+			ArrayList<String> files = new ArrayList<String>();
+			files.add(fileName);
+			Record record = flush(tableName, files, false);
+			record.fromLength = fromLength;
+			record.toLength = toLength;
+			return record;
+		}
+
+		public boolean isAppend() {
+			return type == FLUSH && fromLength >= 0;
+		}
+
+		private byte[] encode() throws IOException {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeLong(lsn);
+			out.writeByte(type);
+			out.writeUTF(tableName);
+			switch (type) {
+			case INSERT:
+				out.writeInt(rows.size());
+				for (ArrayList<Object> row : rows) {
+					RowCodec.writeRow(out, row);
+				}
+				break;
+			case UPDATE:
+				writeInts(out, positions);
+				writeInts(out, columns);
+				RowCodec.writeRow(out, values);
+				break;
+			case DELETE:
+				writeInts(out, positions);
+				break;
+			case FLUSH:
+				out.writeBoolean(rewrite);
+				out.writeInt(files.size());
+				for (String name : files) {
+					out.writeUTF(name);
+				}
+				out.writeLong(fromLength);
+				out.writeLong(toLength);
+				break;
+			}
+			out.flush();
+			return bytes.toByteArray();
+		}
+
+		private static Record decode(byte[] body) throws IOException {
+			DataInputStream in = new DataInputStream(new java.io.ByteArrayInputStream(body));
+			long lsn = in.readLong();
+			Record record = new Record(in.readByte(), null);
+			record.lsn = lsn;
+			record.tableName = in.readUTF();
+			switch (record.type) {
+			case INSERT:
+				int numRows = in.readInt();
+				record.rows = new ArrayList<ArrayList<Object>>(numRows);
+				for (int i = 0; i < numRows; i++) {
+					record.rows.add(RowCodec.readRow(in));
+				}
+				break;
+			case UPDATE:
+				record.positions = readInts(in);
+				record.columns = readInts(in);
+				record.values = RowCodec.readRow(in);
+				break;
+			case DELETE:
+				record.positions = readInts(in);
+				break;
+			case FLUSH:
+				record.rewrite = in.readBoolean();
+				int numFiles = in.readInt();
+				record.files = new ArrayList<String>(numFiles);
+				for (int i = 0; i < numFiles; i++) {
+					record.files.add(in.readUTF());
+				}
+				record.fromLength = in.readLong();
+				record.toLength = in.readLong();
+				break;
+			default:
+				throw new IOException("Unknown log record");
+			}
+			return record;
+		}
+
+		private static void writeInts(DataOutputStream out, int[] ints) throws IOException {
+			out.writeInt(ints.length);
+			for (int value : ints) {
+				out.writeInt(value);
+			}
+		}
+
+		private static int[] readInts(DataInputStream in) throws IOException {
+			int[] ints = new int[in.readInt()];
+			for (int i = 0; i < ints.length; i++) {
+				ints[i] = in.readInt();
+			}
+			return ints;
+		}
+	}
+}
@@ -5,6 +5,7 @@ import java.sql.SQLException;
 import accessories.TableValues;
 
 import command.ICommand;
+import dBMS.TableCache;
 
 import fileManipulator.IFile;
 
@@ -24,16 +25,16 @@ public class Alter {
 	}
 	
 	public void alterAdd(ICommand command, IFile file, String dataBaseName) throws SQLException {
-		TableValues tableValues = file.read(file.GetTableFileToView(dataBaseName, command.getTableName()));
+		TableValues tableValues = TableCache.getInstance().read(dataBaseName, command.getTableName());
 		tableValues.addColumn(command.getNameType().getColumnName(), command.getNameTypeInteger());
-		file.write(tableValues, file.GetTableFileToUpdate(dataBaseName, command.getTableName()));
+		TableCache.getInstance().write(dataBaseName, command.getTableName(), tableValues);
 		file.createDTD(file.GetDTDFileToUpdate(dataBaseName, command.getTableName()), tableValues);
 	}
 	
 	public void alterDrop(ICommand command, IFile file, String dataBaseName) throws SQLException {
-		TableValues tableValues = file.read(file.GetTableFileToView(dataBaseName, command.getTableName()));
+		TableValues tableValues = TableCache.getInstance().read(dataBaseName, command.getTableName());
 		tableValues.removeColumn(command.getColumnName());
-		file.write(tableValues, file.GetTableFileToUpdate(dataBaseName, command.getTableName()));
+		TableCache.getInstance().write(dataBaseName, command.getTableName(), tableValues);
 		file.createDTD(file.GetDTDFileToUpdate(dataBaseName, command.getTableName()), tableValues);
 	}
 }
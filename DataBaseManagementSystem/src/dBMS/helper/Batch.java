@@ -0,0 +1,87 @@
+package dBMS.helper;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import accessories.TableValues;
+
+/**
+ * A run of at most SIZE consecutive rows of a table. A column is unboxed
+ * into its vector the first time an operator asks for it, and the vectors
+ * are reused from one batch to the next. Operators pass the rows of a
+ * batch that are still wanted as a selection bitmap of WORDS words.
+ */
+public class Batch {
+
+	public static final int SIZE = 1024;
+	static final int WORDS = SIZE / 64;
+
+	private List<ArrayList<Object>> rows;
+	private int[] types;
+	private ColumnVector[] vectors;
+	private boolean[] loaded;
+	private int from;
+	private int size;
+
+	public Batch(TableValues table) {
+		rows = table.getRows();
+		types = new int[table.getNumCols()];
+		for (int i = 0; i < types.length; i++) {
+			types[i] = table.getType(i);
+		}
+		vectors = new ColumnVector[types.length];
+		loaded = new boolean[types.length];
+	}
+
+	/**
+	 * Moves to the rows [from, from + size), size is at most SIZE.
+	 */
+	public void load(int from, int size) {
+		this.from = from;
+		this.size = size;
+		Arrays.fill(loaded, false);
+	}
+
+	public int getFrom() {
+		return from;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	ColumnVector getVector(int column) throws SQLException {
+		if (!loaded[column]) {
+			if (vectors[column] == null) {
+				vectors[column] = new ColumnVector(types[column]);
+			}
+			vectors[column].load(rows, from, size, column);
+			loaded[column] = true;
+		}
+		return vectors[column];
+	}
+
+	/**
+	 * Selects every row of the batch.
+	 */
+	void selectAll(long[] selection) {
+		Arrays.fill(selection, -1L);
+		clearTail(selection);
+	}
+
+	/**
+	 * Clears the bits past the last row of the batch.
+	 */
+	void clearTail(long[] selection) {
+		for (int word = 0; word < WORDS; word++) {
+			int first = word << 6;
+			if (first >= size) {
+				selection[word] = 0;
+			} else if (size - first < 64) {
+				selection[word] &= (1L << (size - first)) - 1;
+			}
+		}
+	}
+}
@@ -0,0 +1,128 @@
+package dBMS.helper;
+
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import accessories.SQLExceptions;
+
+/**
+ * Cells of one column for a batch of rows, unboxed into an array of the
+ * column type with a bitmap of the null cells. INTEGER cells are kept in
+ * ints, FLOAT cells in floats, DATE cells as epoch milliseconds in longs
+ * and VARCHAR cells as codes in ints into a dictionary of the distinct
+ * strings of the batch. The arrays hold garbage at the null cells.
+ */
+public class ColumnVector {
+
+	private int type;
+	private int size;
+	long[] nulls;
+	int[] ints;
+	float[] floats;
+	long[] longs;
+	String[] dictionary;
+	int dictionarySize;
+	private HashMap<String, Integer> codes;
+
+	ColumnVector(int type) throws SQLException {
+		this.type = type;
+		nulls = new long[Batch.WORDS];
+		switch (type) {
+		case Types.INTEGER:
+			ints = new int[Batch.SIZE];
+			break;
+		case Types.FLOAT:
+			floats = new float[Batch.SIZE];
+			break;
+		case Types.DATE:
+			longs = new long[Batch.SIZE];
+			break;
+		case Types.VARCHAR:
+			ints = new int[Batch.SIZE];
+			dictionary = new String[Batch.SIZE];
+			codes = new HashMap<String, Integer>();
+			break;
+		default:
+			SQLExceptions.unsupportedDataType();
+		}
+	}
+
+	int getType() {
+		return type;
+	}
+
+	int getSize() {
+		return size;
+	}
+
+	boolean isNull(int index) {
+		return (nulls[index >>> 6] & (1L << index)) != 0;
+	}
+
+	/**
+	 * Unboxes the cells of the column in rows [from, from + size).
+	 */
+	void load(List<ArrayList<Object>> rows, int from, int size, int column) {
+		this.size = size;
+		Arrays.fill(nulls, 0L);
+		switch (type) {
+		case Types.INTEGER:
+			for (int i = 0; i < size; i++) {
+				Object value = rows.get(from + i).get(column);
+				if (value == null) {
+					nulls[i >>> 6] |= 1L << i;
+				} else {
+					ints[i] = (Integer) value;
+				}
+			}
+			break;
+		case Types.FLOAT:
+			for (int i = 0; i < size; i++) {
+				Object value = rows.get(from + i).get(column);
+				if (value == null) {
+					nulls[i >>> 6] |= 1L << i;
+				} else {
+					floats[i] = (Float) value;
+				}
+			}
+			break;
+		case Types.DATE:
+			for (int i = 0; i < size; i++) {
+				Object value = rows.get(from + i).get(column);
+				if (value == null) {
+					nulls[i >>> 6] |= 1L << i;
+				} else {
+					longs[i] = ((Date) value).getTime();
+				}
+			}
+			break;
+		default:
+			codes.clear();
+			dictionarySize = 0;
+			for (int i = 0; i < size; i++) {
+				Object value = rows.get(from + i).get(column);
+				if (value == null) {
+					nulls[i >>> 6] |= 1L << i;
+				} else {
+					ints[i] = encode((String) value);
+				}
+			}
+			break;
+		}
+	}
+
+	private int encode(String value) {
+		Integer code = codes.get(value);
+		if (code == null) {
+			code = dictionarySize;
+			dictionary[dictionarySize++] = value;
+			codes.put(value, code);
+		}
+		return code;
+	}
+}
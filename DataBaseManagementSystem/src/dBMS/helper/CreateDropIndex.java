@@ -0,0 +1,46 @@
+package dBMS.helper;
+
+import java.sql.SQLException;
+
+import accessories.IndexDefinition;
+import command.ICommand;
+import dBMS.TableCache;
+import fileManipulator.IFile;
+import index.BloomFilter;
+import index.IndexFile;
+
+public class CreateDropIndex {
+
+	private static CreateDropIndex instance;
+
+	private CreateDropIndex() {
+
+	}
+
+	public static CreateDropIndex getInstance() {
+		if (instance == null) {
+			instance = new CreateDropIndex();
+		}
+		return instance;
+	}
+
+	/**
+	 * Indexes are B+trees unless another method is given, Bloom filters
+	 * have the default false positive rate unless another one is given.
+	 */
+	public void createIndex(ICommand command, IFile file, String dataBaseName) throws SQLException {
+		String method = command.getIndexMethod() == null ? IndexFile.BTREE : command.getIndexMethod();
+		double falsePositiveRate = 0;
+		if (method.equals(IndexFile.BLOOM)) {
+			falsePositiveRate = command.getFalsePositiveRate() == 0 ? BloomFilter.DEFAULT_FALSE_POSITIVE_RATE
+					: command.getFalsePositiveRate();
+		}
+		TableCache.getInstance().createIndex(dataBaseName, command.getTableName(),
+				new IndexDefinition(command.getIndexName(), command.getColumnName(), method, null,
+						falsePositiveRate));
+	}
+
+	public void dropIndex(ICommand command, IFile file, String dataBaseName) throws SQLException {
+		TableCache.getInstance().dropIndex(dataBaseName, command.getTableName(), command.getIndexName());
+	}
+}
@@ -3,13 +3,19 @@ package dBMS.helper;
 import java.sql.SQLException;
 import java.util.ArrayList;
 
+import accessories.IndexDefinition;
+import accessories.NameType;
 import accessories.TableValues;
 import command.ICommand;
+import dBMS.TableCache;
 import fileManipulator.IFile;
+import index.IndexFile;
 
 public class CreateDropTable {
 	
 	private static CreateDropTable instance;
+	private static String primaryKeySuffix = "_pkey";
+	private static String uniqueSuffix = "_key";
 	
 	private CreateDropTable() {
 		
@@ -27,11 +33,31 @@ public class CreateDropTable {
 				command.getTableName(), command.getColumnTypeIntegers(), 
 				command.getColumnNames(), new ArrayList<ArrayList<Object>> (),
 				command.getColumnNames().size(), 0);
+		TableCache.getInstance().remove(dataBaseName, command.getTableName());
 		file.write(tableValues, file.createTableFile(dataBaseName, command.getTableName()));
+		file.updateCatalog(dataBaseName, tableValues);
 		file.createDTD(file.createNewDTDFile(dataBaseName, command.getTableName()), tableValues);
+		createConstraints(command, dataBaseName);
+	}
+
+	/**
+	 * Every PRIMARY KEY or UNIQUE column gets a B+tree index that enforces it,
+	 * named after the column.
+	 */
+	private void createConstraints(ICommand command, String dataBaseName) throws SQLException {
+		for (NameType nameType : command.getColumnNameTypes()) {
+			String constraint = nameType.getConstraint();
+			if (constraint != null) {
+				String suffix = constraint.equals(IndexDefinition.PRIMARY_KEY) ? primaryKeySuffix : uniqueSuffix;
+				TableCache.getInstance().createIndex(dataBaseName, command.getTableName(),
+						new IndexDefinition(nameType.getColumnName() + suffix, nameType.getColumnName(),
+								IndexFile.BTREE, constraint));
+			}
+		}
 	}
 	
 	public void dropTable(ICommand command, IFile file, String dataBaseName) throws SQLException {
+		TableCache.getInstance().remove(dataBaseName, command.getTableName());
 		file.deleteTable(dataBaseName, command.getTableName());
 	}
 }
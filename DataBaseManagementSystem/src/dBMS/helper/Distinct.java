@@ -0,0 +1,289 @@
+package dBMS.helper;
+
+import java.sql.Date;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+import accessories.TableValues;
+import dataTypesController.Comparators;
+import fileManipulator.IFile;
+
+/**
+ * Removes duplicate rows keeping the first of each, in input order. Rows
+ * are kept in a hash set while its estimated size stays within the byte
+ * budget. Past that the set and the rest of the input are split by hash
+ * into partitions on disk, every partition is deduplicated on its own,
+ * splitting again if it is still too large, and the partitions are merged
+ * back by input position.
+ */
+public class Distinct {
+
+	private static Distinct instance;
+	private static long defaultByteBudget = 32L * 1024 * 1024;
+	private static int partitionBits = 4;
+	private static int maxDepth = 3;
+	private static int rowOverhead = 56;
+	private static int cellOverhead = 16;
+
+	private long byteBudget;
+	private int[] types;
+	private IFile file;
+
+	private Distinct() {
+		byteBudget = defaultByteBudget;
+	}
+
+	public static Distinct getInstance() {
+		if (instance == null) {
+			instance = new Distinct();
+		}
+		return instance;
+	}
+
+	public void setByteBudget(long byteBudget) {
+		this.byteBudget = byteBudget;
+	}
+
+	public long getByteBudget() {
+		return byteBudget;
+	}
+
+	/**
+	 * Rows of tableValues may be released while it runs, the result replaces
+	 * them.
+	 */
+	public TableValues distinct(TableValues tableValues, IFile file) throws SQLException {
+		this.file = file;
+		types = new int[tableValues.getNumCols()];
+		for (int i = 0; i < types.length; i++) {
+			types[i] = tableValues.getType(i);
+		}
+		ArrayList<ArrayList<Object>> rows = tableValues.getRows();
+		RowSet set = new RowSet();
+		ArrayList<ArrayList<Object>> result = null;
+		for (int i = 0; i < rows.size(); i++) {
+			ArrayList<Object> row = rows.get(i);
+			set.add(row, hash(row), i);
+			if (set.bytes > byteBudget && i + 1 < rows.size()) {
+				result = spill(set, rows, i + 1);
+				break;
+			}
+		}
+		if (result == null) {
+			result = set.rows;
+		}
+		tableValues.setRows(result);
+		tableValues.setNumRows(result.size());
+		this.file = null;
+		return tableValues;
+	}
+
+	private ArrayList<ArrayList<Object>> spill(RowSet set, ArrayList<ArrayList<Object>> rows, int from)
+			throws SQLException {
+		RunFile[] partitions = createPartitions();
+		for (int i = 0; i < set.size; i++) {
+			partitions[getPartition(set.hashes[i], 0)].write(set.positions[i], set.rows.get(i));
+		}
+		set.clear();
+		for (int i = from; i < rows.size(); i++) {
+			ArrayList<Object> row = rows.get(i);
+			rows.set(i, null);
+			partitions[getPartition(hash(row), 0)].write(i, row);
+		}
+		ArrayList<RunFile> outputs = new ArrayList<RunFile>();
+		for (RunFile partition : partitions) {
+			distinct(partition, 1, outputs);
+		}
+		return merge(outputs, rows.size());
+	}
+
+	/**
+	 * Deduplicates a partition into one or more runs sorted by position.
+	 */
+	private void distinct(RunFile partition, int depth, ArrayList<RunFile> outputs) throws SQLException {
+		partition.rewind();
+		RowSet set = new RowSet();
+		RunFile[] partitions = null;
+		while (partition.next()) {
+			ArrayList<Object> row = partition.getRow();
+			int hash = hash(row);
+			if (partitions != null) {
+				partitions[getPartition(hash, depth)].write(partition.getPosition(), row);
+				continue;
+			}
+			set.add(row, hash, partition.getPosition());
+			if (set.bytes > byteBudget && depth < maxDepth) {
+				partitions = createPartitions();
+				for (int i = 0; i < set.size; i++) {
+					partitions[getPartition(set.hashes[i], depth)].write(set.positions[i], set.rows.get(i));
+				}
+				set.clear();
+			}
+		}
+		partition.delete();
+		if (partitions != null) {
+			for (RunFile subPartition : partitions) {
+				distinct(subPartition, depth + 1, outputs);
+			}
+		} else if (set.size > 0) {
+			RunFile output = new RunFile(file);
+			for (int i = 0; i < set.size; i++) {
+				output.write(set.positions[i], set.rows.get(i));
+			}
+			output.rewind();
+			outputs.add(output);
+		}
+	}
+
+	private ArrayList<ArrayList<Object>> merge(ArrayList<RunFile> runs, int numRows) throws SQLException {
+		int capacity = 0;
+		PriorityQueue<RunFile> queue = new PriorityQueue<RunFile>(Math.max(1, runs.size()),
+				new Comparator<RunFile>() {
+					@Override
+					public int compare(RunFile run1, RunFile run2) {
+						return Integer.compare(run1.getPosition(), run2.getPosition());
+					}
+				});
+		for (RunFile run : runs) {
+			capacity += run.getCount();
+			if (run.next()) {
+				queue.add(run);
+			}
+		}
+		ArrayList<ArrayList<Object>> rows = new ArrayList<ArrayList<Object>>(Math.min(capacity, numRows));
+		while (!queue.isEmpty()) {
+			RunFile run = queue.poll();
+			rows.add(run.getRow());
+			if (run.next()) {
+				queue.add(run);
+			}
+		}
+		for (RunFile run : runs) {
+			run.delete();
+		}
+		return rows;
+	}
+
+	private RunFile[] createPartitions() throws SQLException {
+		RunFile[] partitions = new RunFile[1 << partitionBits];
+		for (int i = 0; i < partitions.length; i++) {
+			partitions[i] = new RunFile(file);
+		}
+		return partitions;
+	}
+
+	/**
+	 * Partitions take the high bits of the hash, a level at a time, and the
+	 * hash set the low bits.
+	 */
+	private int getPartition(int hash, int depth) {
+		return (hash >>> (32 - partitionBits * (depth + 1))) & ((1 << partitionBits) - 1);
+	}
+
+	private int hash(ArrayList<Object> row) throws SQLException {
+		int hash = 1;
+		for (int i = 0; i < types.length; i++) {
+			hash = 31 * hash + Comparators.getInstance().hash(row.get(i), types[i]);
+		}
+		hash ^= hash >>> 16;
+		hash *= 0x85ebca6b;
+		hash ^= hash >>> 13;
+		hash *= 0xc2b2ae35;
+		return hash ^ (hash >>> 16);
+	}
+
+	private boolean equal(ArrayList<Object> row1, ArrayList<Object> row2) throws SQLException {
+		for (int i = 0; i < types.length; i++) {
+			if (!Comparators.getInstance().equal(row1.get(i), row2.get(i), types[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static long estimateBytes(ArrayList<Object> row) {
+		long bytes = rowOverhead;
+		for (Object value : row) {
+			if (value instanceof String) {
+				bytes += cellOverhead + 24 + 2 * ((String) value).length();
+			} else if (value instanceof Date) {
+				bytes += cellOverhead + 24;
+			} else if (value != null) {
+				bytes += cellOverhead + 4;
+			} else {
+				bytes += 4;
+			}
+		}
+		return bytes;
+	}
+
+	/**
+	 * Open addressing set of the distinct rows seen so far, slots hold the
+	 * index of the row plus one.
+	 */
+	private class RowSet {
+		private int[] slots;
+		private int[] hashes;
+		private int[] positions;
+		private ArrayList<ArrayList<Object>> rows;
+		private int size;
+		private long bytes;
+
+		private RowSet() {
+			clear();
+		}
+
+		private void clear() {
+			slots = new int[16];
+			hashes = new int[8];
+			positions = new int[8];
+			rows = new ArrayList<ArrayList<Object>>();
+			size = 0;
+			bytes = 0;
+		}
+
+		/**
+		 * Returns false when an equal row is already in the set.
+		 */
+		private boolean add(ArrayList<Object> row, int hash, int position) throws SQLException {
+			int mask = slots.length - 1;
+			int slot = hash & mask;
+			while (slots[slot] != 0) {
+				int index = slots[slot] - 1;
+				if (hashes[index] == hash && equal(rows.get(index), row)) {
+					return false;
+				}
+				slot = (slot + 1) & mask;
+			}
+			if (size == hashes.length) {
+				hashes = Arrays.copyOf(hashes, size * 2);
+				positions = Arrays.copyOf(positions, size * 2);
+			}
+			hashes[size] = hash;
+			positions[size] = position;
+			rows.add(row);
+			size++;
+			slots[slot] = size;
+			bytes += estimateBytes(row) + 12;
+			if (size * 2 > slots.length) {
+				rehash();
+			}
+			return true;
+		}
+
+		private void rehash() {
+			slots = new int[slots.length * 2];
+			int mask = slots.length - 1;
+			for (int i = 0; i < size; i++) {
+				int slot = hashes[i] & mask;
+				while (slots[slot] != 0) {
+					slot = (slot + 1) & mask;
+				}
+				slots[slot] = i + 1;
+			}
+		}
+	}
+}
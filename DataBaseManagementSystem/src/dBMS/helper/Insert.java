@@ -6,6 +6,7 @@ import java.util.ArrayList;
 import accessories.SQLExceptions;
 import accessories.TableValues;
 import command.ICommand;
+import dBMS.TableCache;
 import dataTypesController.DataTypeController;
 import fileManipulator.IFile;
 
@@ -26,9 +27,9 @@ public class Insert {
 	}
 	
 	public void insert(ICommand command, IFile file, String dataBaseName) throws SQLException {
-	    tableValues = file.read(file.GetTableFileToView(dataBaseName, command.getTableName()));
+		tableValues = TableCache.getInstance().getSchema(dataBaseName, command.getTableName());
 		addRow(command);
-		file.write(tableValues, file.GetTableFileToUpdate(dataBaseName, command.getTableName()));
+		TableCache.getInstance().append(dataBaseName, command.getTableName(), tableValues.getRows());
 	}
 	
 	private void addRow(ICommand command) throws SQLException {
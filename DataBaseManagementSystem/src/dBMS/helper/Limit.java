@@ -0,0 +1,62 @@
+package dBMS.helper;
+
+import java.util.ArrayList;
+
+import accessories.TableValues;
+import command.ICommand;
+
+/**
+ * Keeps the rows of a result that LIMIT and OFFSET select.
+ */
+public class Limit {
+
+	private static Limit instance;
+
+	private Limit() {
+
+	}
+
+	public static Limit getInstance() {
+		if (instance == null) {
+			instance = new Limit();
+		}
+		return instance;
+	}
+
+	public TableValues limit(ICommand command, TableValues tableValues) {
+		if (!command.isLimited()) {
+			return tableValues;
+		}
+		ArrayList<ArrayList<Object>> rows = tableValues.getRows();
+		int from = Math.min(command.getOffset(), rows.size());
+		int to = (int) Math.min(getEnd(command), rows.size());
+		if (from != 0 || to != rows.size()) {
+			tableValues.setRows(new ArrayList<ArrayList<Object>>(rows.subList(from, to)));
+		}
+		tableValues.setNumRows(tableValues.getRows().size());
+		return tableValues;
+	}
+
+	/**
+	 * Returns the number of rows up to the last one returned, offset
+	 * included.
+	 */
+	public long getEnd(ICommand command) {
+		if (command.getLimit() == -1) {
+			return Long.MAX_VALUE;
+		}
+		return (long) command.getOffset() + command.getLimit();
+	}
+
+	/**
+	 * Returns the number of matching rows after which a scan can stop, or -1
+	 * when every row is needed because the rows are sorted or deduplicated
+	 * before the limit applies.
+	 */
+	public int getScanLimit(ICommand command) {
+		if (!command.isLimited() || command.getLimit() == -1 || command.isOrdered() || command.isDistinct()) {
+			return -1;
+		}
+		return (int) Math.min(getEnd(command), Integer.MAX_VALUE);
+	}
+}
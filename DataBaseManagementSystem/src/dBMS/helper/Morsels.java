@@ -0,0 +1,133 @@
+package dBMS.helper;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import accessories.SQLExceptions;
+
+/**
+ * Splits the rows of a table into morsels of consecutive batches. With a
+ * parallelism above one, that many workers of a pool take the next morsel
+ * from a shared counter until none is left, so a worker that is slowed
+ * down simply takes fewer morsels. Tasks write their results by morsel
+ * number and callers merge them in morsel order, which keeps row order.
+ */
+public class Morsels {
+
+	private static Morsels instance;
+	private static int morselSize = 16 * Batch.SIZE;
+
+	private int parallelism;
+	private ForkJoinPool pool;
+
+	private Morsels() {
+		parallelism = 1;
+	}
+
+	public static Morsels getInstance() {
+		if (instance == null) {
+			instance = new Morsels();
+		}
+		return instance;
+	}
+
+	/**
+	 * Number of workers of the statements run afterwards, one runs every
+	 * morsel on the calling thread.
+	 */
+	public synchronized void setParallelism(int parallelism) {
+		if (parallelism != this.parallelism && pool != null) {
+			pool.shutdown();
+			pool = null;
+		}
+		this.parallelism = parallelism;
+	}
+
+	public synchronized int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Morsels start at multiples of the morsel size, which is a multiple of
+	 * 64 so that every morsel owns whole words of a row bitset.
+	 */
+	public int getCount(int numRows) {
+		return (numRows + morselSize - 1) / morselSize;
+	}
+
+	/**
+	 * Runs the task on every morsel of numRows rows and returns once all are
+	 * done, throwing the first exception of any of them.
+	 */
+	public void run(int numRows, final MorselTask task) throws SQLException {
+		final int count = getCount(numRows);
+		final int rows = numRows;
+		ForkJoinPool workers = getPool(count);
+		if (workers == null) {
+			for (int morsel = 0; morsel < count; morsel++) {
+				task.run(morsel, morsel * morselSize, Math.min(rows, (morsel + 1) * morselSize));
+			}
+			return;
+		}
+		final AtomicInteger next = new AtomicInteger();
+		final AtomicReference<SQLException> failure = new AtomicReference<SQLException>();
+		ArrayList<Future<?>> futures = new ArrayList<Future<?>>();
+		for (int i = 0; i < Math.min(parallelism, count); i++) {
+			futures.add(workers.submit(new Runnable() {
+				@Override
+				public void run() {
+					int morsel;
+					while (failure.get() == null && (morsel = next.getAndIncrement()) < count) {
+						try {
+							task.run(morsel, morsel * morselSize, Math.min(rows, (morsel + 1) * morselSize));
+						} catch (SQLException e) {
+							failure.compareAndSet(null, e);
+						}
+					}
+				}
+			}));
+		}
+		for (Future<?> future : futures) {
+			try {
+				future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				SQLExceptions.interrupted();
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof Error) {
+					throw (Error) e.getCause();
+				}
+				throw (RuntimeException) e.getCause();
+			}
+		}
+		if (failure.get() != null) {
+			throw failure.get();
+		}
+	}
+
+	/**
+	 * Returns null when the morsels are run on the calling thread.
+	 */
+	private synchronized ForkJoinPool getPool(int count) {
+		if (parallelism == 1 || count < 2) {
+			return null;
+		}
+		if (pool == null) {
+			pool = new ForkJoinPool(parallelism);
+		}
+		return pool;
+	}
+
+	public interface MorselTask {
+
+		/**
+		 * Processes the rows [from, to) of the given morsel.
+		 */
+		void run(int morsel, int from, int to) throws SQLException;
+	}
+}
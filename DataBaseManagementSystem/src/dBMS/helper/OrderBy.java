@@ -1,7 +1,14 @@
 package dBMS.helper;
 
 import java.sql.SQLException;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import accessories.NameOrder;
 import accessories.SQLExceptions;
@@ -9,84 +16,521 @@ import accessories.TableValues;
 import accessories.StaticData.Order;
 import command.ICommand;
 import dataTypesController.Comparators;
+import fileManipulator.IFile;
+import fileManipulator.IRowSink;
 
+/**
+ * Sorts rows on the ORDER BY columns. The key columns and their comparators
+ * are resolved once, the key values are unboxed a batch at a time into
+ * arrays of longs that order like the values, and an array of row indexes
+ * is merge sorted on them, so rows with equal keys keep their order.
+ * Large inputs are sorted in parallel, every half of the array in its own
+ * task. Inputs of more rows than the run size are sorted a run at a time
+ * into temporary files, which are merged while the result is read. Under a
+ * LIMIT only the rows up to the last one returned are kept, in a bounded
+ * heap.
+ */
 public class OrderBy {
-	
+
 	private static OrderBy instance;
+	private static int insertionThreshold = 16;
+	private static int parallelThreshold = 1 << 16;
+	private static int parallelLeaf = 1 << 13;
 	private TableValues tableValues;
-	
+	private int[] keyColumns;
+	private boolean[] descending;
+	private ArrayList<Comparator<Object>> comparators;
+	private long[][] keys;
+	private int keysFrom;
+
+	public static final int DEFAULT_RUN_SIZE = 1 << 19;
+
 	private OrderBy() {
-		
+
 	}
-	
+
 	public static OrderBy getInstance() {
 		if (instance == null) {
 			instance = new OrderBy();
 		}
 		return instance;
 	}
-	
+
 	public TableValues order(ICommand command, TableValues tableValues) throws SQLException {
 		this.tableValues = tableValues;
-		checkSelectedColumns(command.getForOrdering());
-		sort(command);
+		resolveKeys(command.getForOrdering());
+		ArrayList<ArrayList<Object>> rows = tableValues.getRows();
+		tableValues.setRows(reorder(rows, sort(rows, 0, rows.size())));
+		keys = null;
 		return this.tableValues;
 	}
 
-	private void checkSelectedColumns(ArrayList<NameOrder> nameOrders) throws SQLException {
+	/**
+	 * Also applies the LIMIT of the command. Sorts the rows on disk when
+	 * there are more than runSize, the number of rows sorted in memory at a
+	 * time, the result is then read through getResultRows of the returned
+	 * table.
+	 */
+	public TableValues order(ICommand command, TableValues tableValues, IFile file, int runSize)
+			throws SQLException {
+		ArrayList<ArrayList<Object>> rows = tableValues.getRows();
+		tableValues.setRows(new ArrayList<ArrayList<Object>>());
+		Sorter sorter = sorter(command, tableValues, file, runSize);
+		try {
+			for (int i = 0; i < rows.size(); i++) {
+				sorter.add(rows.get(i));
+				rows.set(i, null);
+			}
+		} catch (SQLException e) {
+			sorter.discard();
+			throw e;
+		}
+		return sorter.finish();
+	}
+
+	/**
+	 * Returns a sink that sorts the rows of result handed to it, result gives
+	 * the columns and its rows are replaced.
+	 */
+	public Sorter sorter(ICommand command, TableValues result, IFile file, int runSize) throws SQLException {
+		return new Sorter(command, result, file, runSize);
+	}
+
+	/**
+	 * Sorts rows as they come without holding more than about runSize of
+	 * them. Every runSize rows are sorted and written to a run file, and the
+	 * runs are merged while the result is read. Under a LIMIT whose last row
+	 * is within the run size only the rows that can still be returned are
+	 * kept instead, the buffer is cut down to them whenever it fills.
+	 */
+	public class Sorter implements IRowSink {
+
+		private ICommand command;
+		private TableValues result;
+		private IFile file;
+		private int runSize;
+		private long end;
+		private boolean top;
+		private int capacity;
+		private ArrayList<ArrayList<Object>> rows;
+		private ArrayList<RunFile> runs;
+		private int position;
+
+		private Sorter(ICommand command, TableValues result, IFile file, int runSize) throws SQLException {
+			this.command = command;
+			this.result = result;
+			this.file = file;
+			this.runSize = runSize;
+			end = Limit.getInstance().getEnd(command);
+			top = end <= runSize;
+			capacity = top ? (int) Math.max(runSize, 2 * end) : runSize;
+			rows = new ArrayList<ArrayList<Object>>();
+			runs = new ArrayList<RunFile>();
+			position = 0;
+			use();
+		}
+
+		@Override
+		public void add(ArrayList<Object> row) throws SQLException {
+			rows.add(row);
+			if (rows.size() >= capacity) {
+				use();
+				if (top) {
+					rows = top(rows, (int) end);
+				} else {
+					writeRun();
+				}
+			}
+		}
+
+		/**
+		 * Returns the sorted rows between the offset and the limit.
+		 */
+		public TableValues finish() throws SQLException {
+			use();
+			if (runs.isEmpty()) {
+				if (top && end < rows.size()) {
+					result.setRows(top(rows, (int) end));
+				} else {
+					result.setRows(rows);
+					order(command, result);
+				}
+				result.setNumRows(result.getRows().size());
+				rows = null;
+				return Limit.getInstance().limit(command, result);
+			}
+			try {
+				if (!rows.isEmpty()) {
+					writeRun();
+				}
+			} catch (SQLException e) {
+				discard();
+				throw e;
+			}
+			SortedRuns sorted = new SortedRuns(runs, new RowOrder(keyColumns, descending, comparators), runSize);
+			if (command.isLimited()) {
+				sorted.limit(command.getOffset(), end);
+			}
+			result.setRows(new ArrayList<ArrayList<Object>>());
+			result.setResultRows(sorted);
+			result.setNumRows(sorted.size());
+			return result;
+		}
+
+		/**
+		 * Deletes the runs written so far.
+		 */
+		public void discard() {
+			for (RunFile run : runs) {
+				run.delete();
+			}
+			runs.clear();
+			rows = null;
+		}
+
+		/**
+		 * Points the sort at the rows and keys of this sorter.
+		 */
+		private void use() throws SQLException {
+			tableValues = result;
+			resolveKeys(command.getForOrdering());
+		}
+
+		private void writeRun() throws SQLException {
+			result.setRows(rows);
+			result.setNumRows(rows.size());
+			int[] permutation = sort(rows, 0, rows.size());
+			keys = null;
+			RunFile run = new RunFile(file);
+			runs.add(run);
+			for (int index : permutation) {
+				run.write(position + index, rows.get(index));
+			}
+			position += rows.size();
+			rows = new ArrayList<ArrayList<Object>>();
+			result.setRows(rows);
+		}
+	}
+
+	/**
+	 * Returns the first count rows in order. A heap holds the smallest rows
+	 * seen so far with the largest on top, and a later row only replaces it
+	 * when it is smaller, so equal rows keep their input order.
+	 */
+	private ArrayList<ArrayList<Object>> top(ArrayList<ArrayList<Object>> rows, int count) {
+		RowOrder order = new RowOrder(keyColumns, descending, comparators);
+		int[] heap = new int[count];
+		int size = 0;
+		for (int i = 0; i < rows.size(); i++) {
+			if (size < count) {
+				heap[size] = i;
+				siftUp(rows, order, heap, size++);
+			} else if (count > 0 && order.compare(rows.get(i), rows.get(heap[0])) < 0) {
+				heap[0] = i;
+				siftDown(rows, order, heap, size);
+			}
+		}
+		ArrayList<ArrayList<Object>> sorted = new ArrayList<ArrayList<Object>>(size);
+		for (int i = 0; i < size; i++) {
+			sorted.add(null);
+		}
+		while (size > 0) {
+			sorted.set(size - 1, rows.get(heap[0]));
+			heap[0] = heap[--size];
+			siftDown(rows, order, heap, size);
+		}
+		return sorted;
+	}
+
+	private void siftUp(ArrayList<ArrayList<Object>> rows, RowOrder order, int[] heap, int index) {
+		int value = heap[index];
+		while (index > 0) {
+			int parent = (index - 1) >>> 1;
+			if (compareRows(rows, order, heap[parent], value) >= 0) {
+				break;
+			}
+			heap[index] = heap[parent];
+			index = parent;
+		}
+		heap[index] = value;
+	}
+
+	private void siftDown(ArrayList<ArrayList<Object>> rows, RowOrder order, int[] heap, int size) {
+		int index = 0;
+		if (size == 0) {
+			return;
+		}
+		int value = heap[0];
+		while (true) {
+			int child = 2 * index + 1;
+			if (child >= size) {
+				break;
+			}
+			if (child + 1 < size && compareRows(rows, order, heap[child + 1], heap[child]) > 0) {
+				child++;
+			}
+			if (compareRows(rows, order, heap[child], value) <= 0) {
+				break;
+			}
+			heap[index] = heap[child];
+			index = child;
+		}
+		heap[index] = value;
+	}
+
+	/**
+	 * Orders on the keys and then on the input position.
+	 */
+	private int compareRows(ArrayList<ArrayList<Object>> rows, RowOrder order, int index1, int index2) {
+		int compare = order.compare(rows.get(index1), rows.get(index2));
+		return compare != 0 ? compare : Integer.compare(index1, index2);
+	}
+
+	private void resolveKeys(ArrayList<NameOrder> nameOrders) throws SQLException {
+		keyColumns = new int[nameOrders.size()];
+		descending = new boolean[nameOrders.size()];
+		comparators = new ArrayList<Comparator<Object>>(nameOrders.size());
 		for (int i=0; i<nameOrders.size(); i++) {
 			int index = tableValues.getcolNames().indexOf(nameOrders.get(i).getColumnName());
 			if (index == -1) {
 				SQLExceptions.unknownColName();
 			}
+			keyColumns[i] = index;
+			descending[i] = nameOrders.get(i).getOrder() == Order.DESC;
+			comparators.add(Comparators.getInstance().getComparator(tableValues.getType(index)));
 		}
 	}
 
-	private void sort(ICommand command) throws SQLException {
-		for (int i = 0; i < tableValues.getNumRows(); i++) {
-			boolean flag = false;
-			for (int j = 0; j < tableValues.getNumRows() - 1 - i; j++) {
-				if (compare2rows(j, j+1, command.getForOrdering(), 0)) {
-					flag = true;
-					tableValues.swap2rows(j, j + 1);
+	/**
+	 * Returns the indexes of the rows in [from, to) in sorted order.
+	 */
+	private int[] sort(ArrayList<ArrayList<Object>> rows, int from, int to) throws SQLException {
+		int numRows = to - from;
+		keys = getKeys(from, to);
+		keysFrom = from;
+		int[] permutation = new int[numRows];
+		for (int i = 0; i < numRows; i++) {
+			permutation[i] = from + i;
+		}
+		int[] buffer = new int[numRows];
+		if (numRows >= parallelThreshold && Runtime.getRuntime().availableProcessors() > 1) {
+			ForkJoinPool.commonPool().invoke(new SortTask(permutation, buffer, 0, numRows));
+		} else {
+			mergeSort(permutation, buffer, 0, numRows);
+		}
+		return permutation;
+	}
+
+	/**
+	 * Returns the keys of the rows in [from, to). Nulls become the smallest
+	 * long, floats their bits flipped to order as signed integers, dates
+	 * their epoch milliseconds and strings their rank among the distinct
+	 * strings of the key.
+	 */
+	private long[][] getKeys(int from, int to) throws SQLException {
+		long[][] keys = new long[keyColumns.length][to - from];
+		Batch batch = new Batch(tableValues);
+		ArrayList<HashMap<String, Integer>> ids = new ArrayList<HashMap<String, Integer>>();
+		for (int k = 0; k < keyColumns.length; k++) {
+			ids.add(new HashMap<String, Integer>());
+		}
+		for (int start = from; start < to; start += Batch.SIZE) {
+			batch.load(start, Math.min(Batch.SIZE, to - start));
+			for (int k = 0; k < keyColumns.length; k++) {
+				ColumnVector vector = batch.getVector(keyColumns[k]);
+				long[] key = keys[k];
+				int offset = start - from;
+				int size = batch.getSize();
+				switch (vector.getType()) {
+				case Types.INTEGER:
+					for (int i = 0; i < size; i++) {
+						key[offset + i] = vector.ints[i];
+					}
+					break;
+				case Types.FLOAT:
+					for (int i = 0; i < size; i++) {
+						int bits = Float.floatToIntBits(vector.floats[i]);
+						key[offset + i] = bits ^ ((bits >> 31) & 0x7fffffff);
+					}
+					break;
+				case Types.DATE:
+					System.arraycopy(vector.longs, 0, key, offset, size);
+					break;
+				default:
+					HashMap<String, Integer> keyIds = ids.get(k);
+					int[] batchIds = new int[vector.dictionarySize];
+					for (int code = 0; code < batchIds.length; code++) {
+						Integer id = keyIds.get(vector.dictionary[code]);
+						if (id == null) {
+							id = keyIds.size();
+							keyIds.put(vector.dictionary[code], id);
+						}
+						batchIds[code] = id;
+					}
+					for (int i = 0; i < size; i++) {
+						key[offset + i] = batchIds[vector.ints[i]];
+					}
+					break;
+				}
+				for (int i = 0; i < size; i++) {
+					if (vector.isNull(i)) {
+						key[offset + i] = Long.MIN_VALUE;
+					}
 				}
 			}
-			if (!flag) {
-				break;
+		}
+		for (int k = 0; k < keyColumns.length; k++) {
+			if (!ids.get(k).isEmpty()) {
+				rank(keys[k], ids.get(k));
 			}
 		}
+		return keys;
 	}
 
-	private boolean compare2rows(int index1, int index2, ArrayList<NameOrder> nameOrders, int compareIndex) throws SQLException {
-		if (compareIndex == nameOrders.size()) {
-			return false;
+	/**
+	 * Replaces the string ids in key with the ranks of their strings.
+	 */
+	private void rank(long[] key, HashMap<String, Integer> ids) {
+		String[] strings = new String[ids.size()];
+		for (Map.Entry<String, Integer> entry : ids.entrySet()) {
+			strings[entry.getValue()] = entry.getKey();
 		}
-		int getIndexColumnCompare = tableValues.getcolNames().indexOf(nameOrders.get(compareIndex).getColumnName());
-		Object object1 = tableValues.getValue(index1, getIndexColumnCompare);
-		Object object2 = tableValues.getValue(index2, getIndexColumnCompare);
-		int type = tableValues.getType(getIndexColumnCompare);
-		int compare = Comparators.getInstance().compare(object1, object2, type);
-		if (compare == 0) {
-			return compare2rows(index1, index2, nameOrders, compareIndex + 1);
-		} else {
-			return orderSwitch(nameOrders.get(compareIndex).getOrder(), compare);
+		int[] ranks = new int[strings.length];
+		String[] sorted = strings.clone();
+		Arrays.sort(sorted);
+		HashMap<String, Integer> positions = new HashMap<String, Integer>(2 * sorted.length);
+		for (int i = 0; i < sorted.length; i++) {
+			positions.put(sorted[i], i);
+		}
+		for (int id = 0; id < strings.length; id++) {
+			ranks[id] = positions.get(strings[id]);
+		}
+		for (int i = 0; i < key.length; i++) {
+			if (key[i] != Long.MIN_VALUE) {
+				key[i] = ranks[(int) key[i]];
+			}
 		}
 	}
 
-	private boolean orderSwitch(Order order, int compare) {
-		switch (order) {
-		case ASC:
-			if (compare > 0) {
-				return true;
+	private ArrayList<ArrayList<Object>> reorder(ArrayList<ArrayList<Object>> rows, int[] permutation) {
+		ArrayList<ArrayList<Object>> sorted = new ArrayList<ArrayList<Object>>(permutation.length);
+		for (int index : permutation) {
+			sorted.add(rows.get(index));
+		}
+		return sorted;
+	}
+
+	private void mergeSort(int[] permutation, int[] buffer, int from, int to) {
+		if (to - from <= insertionThreshold) {
+			insertionSort(permutation, from, to);
+			return;
+		}
+		int middle = (from + to) >>> 1;
+		mergeSort(permutation, buffer, from, middle);
+		mergeSort(permutation, buffer, middle, to);
+		merge(permutation, buffer, from, middle, to);
+	}
+
+	private void insertionSort(int[] permutation, int from, int to) {
+		for (int i = from + 1; i < to; i++) {
+			int index = permutation[i];
+			int j = i - 1;
+			while (j >= from && compare(permutation[j], index) > 0) {
+				permutation[j + 1] = permutation[j];
+				j--;
 			}
-			break;
-		case DESC:
-			if (compare < 0) {
-				return true;
+			permutation[j + 1] = index;
+		}
+	}
+
+	/**
+	 * Merges the sorted ranges [from, middle) and [middle, to), taking from
+	 * the left one on ties.
+	 */
+	private void merge(int[] permutation, int[] buffer, int from, int middle, int to) {
+		if (compare(permutation[middle - 1], permutation[middle]) <= 0) {
+			return;
+		}
+		System.arraycopy(permutation, from, buffer, from, middle - from);
+		int left = from;
+		int right = middle;
+		int next = from;
+		while (left < middle && right < to) {
+			if (compare(permutation[right], buffer[left]) < 0) {
+				permutation[next++] = permutation[right++];
+			} else {
+				permutation[next++] = buffer[left++];
+			}
+		}
+		while (left < middle) {
+			permutation[next++] = buffer[left++];
+		}
+	}
+
+	private int compare(int index1, int index2) {
+		index1 -= keysFrom;
+		index2 -= keysFrom;
+		for (int k = 0; k < keys.length; k++) {
+			int compare = Long.compare(keys[k][index1], keys[k][index2]);
+			if (compare != 0) {
+				return descending[k] ? -compare : compare;
+			}
+		}
+		return 0;
+	}
+
+	private class SortTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+		private int[] permutation;
+		private int[] buffer;
+		private int from;
+		private int to;
+
+		private SortTask(int[] permutation, int[] buffer, int from, int to) {
+			this.permutation = permutation;
+			this.buffer = buffer;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= parallelLeaf) {
+				mergeSort(permutation, buffer, from, to);
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new SortTask(permutation, buffer, from, middle), new SortTask(permutation, buffer, middle, to));
+			merge(permutation, buffer, from, middle, to);
+		}
+	}
+
+	/**
+	 * Order of whole rows on the keys, used to merge the runs after the keys
+	 * of the last run are gone.
+	 */
+	private static class RowOrder implements Comparator<ArrayList<Object>> {
+
+		private int[] keyColumns;
+		private boolean[] descending;
+		private ArrayList<Comparator<Object>> comparators;
+
+		private RowOrder(int[] keyColumns, boolean[] descending, ArrayList<Comparator<Object>> comparators) {
+			this.keyColumns = keyColumns;
+			this.descending = descending;
+			this.comparators = comparators;
+		}
+
+		@Override
+		public int compare(ArrayList<Object> row1, ArrayList<Object> row2) {
+			for (int k = 0; k < keyColumns.length; k++) {
+				int compare = comparators.get(k).compare(row1.get(keyColumns[k]), row2.get(keyColumns[k]));
+				if (compare != 0) {
+					return descending[k] ? -compare : compare;
+				}
 			}
-			break;
+			return 0;
 		}
-		return false;
 	}
-	
 }
@@ -0,0 +1,357 @@
+package dBMS.helper;
+
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import index.BloomFilter;
+import index.ZoneMap;
+
+/**
+ * WHERE condition compiled for one statement. Columns and operators are
+ * resolved when the tree is built, so testing a row only reads its cells.
+ * A whole batch is tested at once on the unboxed column vectors, giving a
+ * bitmap of the rows that pass, and a block of rows whose zone map shows
+ * none of them can pass is not tested at all. Bloom filters of a file rule
+ * out the files that hold no value an equality asks for.
+ */
+public abstract class Predicate {
+
+	static final int EQUAL = 0;
+	static final int NOT_EQUAL = 1;
+	static final int LESS = 2;
+	static final int GREATER = 3;
+	static final int LESS_EQUAL = 4;
+	static final int GREATER_EQUAL = 5;
+
+	public abstract boolean test(ArrayList<Object> row);
+
+	/**
+	 * Sets bit i of selection when row i of the batch passes and clears the
+	 * others.
+	 */
+	public abstract void select(Batch batch, long[] selection) throws SQLException;
+
+	/**
+	 * Returns false when no row of block can pass going by its zone map.
+	 * Columns gives the column of the zone map for every column of the
+	 * condition, -1 for one it does not have.
+	 */
+	public boolean mayMatch(ZoneMap zones, int block, int[] columns) {
+		return true;
+	}
+
+	/**
+	 * Returns false when no row of a file can pass going by its Bloom
+	 * filters, which hold the filter of every column of the condition that
+	 * has one and null for the others.
+	 */
+	public boolean mayContain(BloomFilter[] blooms) {
+		return true;
+	}
+
+	/**
+	 * Adds the conditions that all have to hold for this one to hold.
+	 */
+	void getConjuncts(ArrayList<Predicate> conjuncts) {
+		conjuncts.add(this);
+	}
+
+	static class True extends Predicate {
+
+		@Override
+		public boolean test(ArrayList<Object> row) {
+			return true;
+		}
+
+		@Override
+		public void select(Batch batch, long[] selection) {
+			batch.selectAll(selection);
+		}
+	}
+
+	static class Not extends Predicate {
+
+		private Predicate operand;
+
+		Not(Predicate operand) {
+			this.operand = operand;
+		}
+
+		@Override
+		public boolean test(ArrayList<Object> row) {
+			return !operand.test(row);
+		}
+
+		@Override
+		public void select(Batch batch, long[] selection) throws SQLException {
+			operand.select(batch, selection);
+			for (int word = 0; word < selection.length; word++) {
+				selection[word] = ~selection[word];
+			}
+			batch.clearTail(selection);
+		}
+	}
+
+	static class And extends Predicate {
+
+		private Predicate left;
+		private Predicate right;
+
+		And(Predicate left, Predicate right) {
+			this.left = left;
+			this.right = right;
+		}
+
+		@Override
+		public boolean test(ArrayList<Object> row) {
+			return left.test(row) && right.test(row);
+		}
+
+		@Override
+		public void select(Batch batch, long[] selection) throws SQLException {
+			left.select(batch, selection);
+			if (isEmpty(selection)) {
+				return;
+			}
+			long[] other = new long[selection.length];
+			right.select(batch, other);
+			for (int word = 0; word < selection.length; word++) {
+				selection[word] &= other[word];
+			}
+		}
+
+		@Override
+		public boolean mayMatch(ZoneMap zones, int block, int[] columns) {
+			return left.mayMatch(zones, block, columns) && right.mayMatch(zones, block, columns);
+		}
+
+		@Override
+		public boolean mayContain(BloomFilter[] blooms) {
+			return left.mayContain(blooms) && right.mayContain(blooms);
+		}
+
+		@Override
+		void getConjuncts(ArrayList<Predicate> conjuncts) {
+			left.getConjuncts(conjuncts);
+			right.getConjuncts(conjuncts);
+		}
+	}
+
+	static class Or extends Predicate {
+
+		private Predicate left;
+		private Predicate right;
+
+		Or(Predicate left, Predicate right) {
+			this.left = left;
+			this.right = right;
+		}
+
+		@Override
+		public boolean test(ArrayList<Object> row) {
+			return left.test(row) || right.test(row);
+		}
+
+		@Override
+		public void select(Batch batch, long[] selection) throws SQLException {
+			left.select(batch, selection);
+			long[] other = new long[selection.length];
+			right.select(batch, other);
+			for (int word = 0; word < selection.length; word++) {
+				selection[word] |= other[word];
+			}
+		}
+
+		@Override
+		public boolean mayMatch(ZoneMap zones, int block, int[] columns) {
+			return left.mayMatch(zones, block, columns) || right.mayMatch(zones, block, columns);
+		}
+
+		@Override
+		public boolean mayContain(BloomFilter[] blooms) {
+			return left.mayContain(blooms) || right.mayContain(blooms);
+		}
+	}
+
+	/**
+	 * Compares a column with a constant. A null cell is less than any
+	 * constant and a null constant less than any cell.
+	 */
+	static class Compare extends Predicate {
+
+		private int column;
+		private int operator;
+		private Object constant;
+		private Comparator<Object> comparator;
+
+		Compare(int column, int operator, Object constant, Comparator<Object> comparator) {
+			this.column = column;
+			this.operator = operator;
+			this.constant = constant;
+			this.comparator = comparator;
+		}
+
+		int getColumn() {
+			return column;
+		}
+
+		int getOperator() {
+			return operator;
+		}
+
+		Object getConstant() {
+			return constant;
+		}
+
+		@Override
+		public boolean test(ArrayList<Object> row) {
+			Object value = row.get(column);
+			if (value == null) {
+				return matches(-1);
+			} else if (constant == null) {
+				return matches(1);
+			}
+			return matches(comparator.compare(value, constant));
+		}
+
+		/**
+		 * The typed loops look the outcome of every sign of the comparison up
+		 * instead of switching on the operator per cell, and a VARCHAR
+		 * constant is compared once per distinct string of the batch.
+		 */
+		@Override
+		public void select(Batch batch, long[] selection) throws SQLException {
+			ColumnVector vector = batch.getVector(column);
+			boolean[] outcomes = { matches(-1), matches(0), matches(1) };
+			int size = batch.getSize();
+			Arrays.fill(selection, 0L);
+			if (constant == null) {
+				if (outcomes[2]) {
+					batch.selectAll(selection);
+				}
+			} else {
+				switch (vector.getType()) {
+				case Types.INTEGER:
+					int integer = (Integer) constant;
+					int[] ints = vector.ints;
+					for (int i = 0; i < size; i++) {
+						if (outcomes[Integer.signum(Integer.compare(ints[i], integer)) + 1]) {
+							selection[i >>> 6] |= 1L << i;
+						}
+					}
+					break;
+				case Types.FLOAT:
+					float real = (Float) constant;
+					float[] floats = vector.floats;
+					for (int i = 0; i < size; i++) {
+						if (outcomes[Integer.signum(Float.compare(floats[i], real)) + 1]) {
+							selection[i >>> 6] |= 1L << i;
+						}
+					}
+					break;
+				case Types.DATE:
+					long time = ((Date) constant).getTime();
+					long[] longs = vector.longs;
+					for (int i = 0; i < size; i++) {
+						if (outcomes[Integer.signum(Long.compare(longs[i], time)) + 1]) {
+							selection[i >>> 6] |= 1L << i;
+						}
+					}
+					break;
+				default:
+					boolean[] byCode = new boolean[vector.dictionarySize];
+					for (int code = 0; code < byCode.length; code++) {
+						byCode[code] = outcomes[Integer.signum(comparator.compare(vector.dictionary[code], constant)) + 1];
+					}
+					int[] codes = vector.ints;
+					for (int i = 0; i < size; i++) {
+						if (byCode[codes[i]]) {
+							selection[i >>> 6] |= 1L << i;
+						}
+					}
+					break;
+				}
+			}
+			long[] nulls = vector.nulls;
+			for (int word = 0; word < selection.length; word++) {
+				selection[word] = (selection[word] & ~nulls[word]) | (outcomes[0] ? nulls[word] : 0L);
+			}
+		}
+
+		/**
+		 * The cells of the block that are not null lie between its smallest
+		 * and largest value, so they compare with the constant with every
+		 * sign from that of the smallest to that of the largest.
+		 */
+		@Override
+		public boolean mayMatch(ZoneMap zones, int block, int[] columns) {
+			int zone = columns[column];
+			if (zone == -1) {
+				return true;
+			}
+			int nulls = zones.getNullCount(block, zone);
+			if (nulls != 0 && matches(-1)) {
+				return true;
+			}
+			if (nulls == zones.getBlockRows(block)) {
+				return false;
+			}
+			Object min = zones.getMin(block, zone);
+			if (min == null) {
+				return true;
+			} else if (constant == null) {
+				return matches(1);
+			}
+			int low = Integer.signum(comparator.compare(min, constant));
+			int high = Integer.signum(comparator.compare(zones.getMax(block, zone), constant));
+			for (int sign = low; sign <= high; sign++) {
+				if (matches(sign)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * Only an equality with a value can be ruled out, a null cell or
+		 * constant never equals anything.
+		 */
+		@Override
+		public boolean mayContain(BloomFilter[] blooms) {
+			if (operator != EQUAL || constant == null || blooms[column] == null) {
+				return true;
+			}
+			return blooms[column].mightContain(constant);
+		}
+
+		private boolean matches(int compare) {
+			switch (operator) {
+			case EQUAL:
+				return compare == 0;
+			case NOT_EQUAL:
+				return compare != 0;
+			case LESS:
+				return compare < 0;
+			case GREATER:
+				return compare > 0;
+			case LESS_EQUAL:
+				return compare <= 0;
+			default:
+				return compare >= 0;
+			}
+		}
+	}
+
+	private static boolean isEmpty(long[] selection) {
+		for (long word : selection) {
+			if (word != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,128 @@
+package dBMS.helper;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+
+import accessories.SQLExceptions;
+import dataTypesController.RowCodec;
+import fileManipulator.IFile;
+
+/**
+ * Temporary file of rows for operators whose working set does not fit in
+ * memory. Every row is stored with its position in the input, rows are
+ * written once and then read back in the order they were written, as many
+ * times as needed.
+ */
+public class RunFile {
+
+	private static int bufferSize = 1 << 16;
+
+	private File file;
+	private int count;
+	private DataOutputStream out;
+	private DataInputStream in;
+	private int remaining;
+	private int position;
+	private ArrayList<Object> row;
+
+	public RunFile(IFile fileManipulator) throws SQLException {
+		file = fileManipulator.createTemporaryFile();
+		count = 0;
+		try {
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), bufferSize));
+		} catch (IOException e) {
+			SQLExceptions.canNotWriteFile();
+		}
+	}
+
+	public void write(int position, ArrayList<Object> row) throws SQLException {
+		try {
+			out.writeInt(position);
+			RowCodec.writeRow(out, row);
+		} catch (IOException e) {
+			SQLExceptions.canNotWriteFile();
+		}
+		count++;
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * Ends writing, the next call to next returns the first row.
+	 */
+	public void rewind() throws SQLException {
+		try {
+			if (out != null) {
+				out.close();
+				out = null;
+			}
+			if (in != null) {
+				in.close();
+			}
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), bufferSize));
+		} catch (IOException e) {
+			SQLExceptions.canNotReadFile();
+		}
+		remaining = count;
+	}
+
+	/**
+	 * Moves to the next row, returns false after the last one.
+	 */
+	public boolean next() throws SQLException {
+		if (remaining == 0) {
+			close();
+			return false;
+		}
+		try {
+			position = in.readInt();
+			row = RowCodec.readRow(in);
+		} catch (IOException e) {
+			SQLExceptions.canNotReadFile();
+		}
+		remaining--;
+		return true;
+	}
+
+	public int getPosition() {
+		return position;
+	}
+
+	public ArrayList<Object> getRow() {
+		return row;
+	}
+
+	public void delete() {
+		try {
+			if (out != null) {
+				out.close();
+				out = null;
+			}
+		} catch (IOException e) {
+		}
+		close();
+		row = null;
+		remaining = 0;
+		file.delete();
+	}
+
+	private void close() {
+		try {
+			if (in != null) {
+				in.close();
+				in = null;
+			}
+		} catch (IOException e) {
+		}
+	}
+}
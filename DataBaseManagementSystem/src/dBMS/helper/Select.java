@@ -2,11 +2,15 @@ package dBMS.helper;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 
 import command.ICommand;
-import dataTypesController.Comparators;
-import dataTypesController.DataTypeController;
+import dBMS.TableCache;
 import fileManipulator.IFile;
+import fileManipulator.IFilter;
+import fileManipulator.IRowSink;
+import index.IIndex;
+import index.ZoneMap;
 import accessories.NameOperatorValue;
 import accessories.SQLExceptions;
 import accessories.TableValues;
@@ -27,117 +31,235 @@ public class Select {
 		return instance;
 	}
 
+	/**
+	 * Copies the selected columns of the matching rows, stopping at the last
+	 * row a LIMIT without ORDER BY or DISTINCT can return. When the table is
+	 * not resident only the selected and WHERE columns are read, and the
+	 * readers drop the rows that fail the WHERE condition before converting
+	 * their other cells. Rows of a resident table are tested here. A table
+	 * with indexes is made resident, and when one of them answers part of the
+	 * WHERE condition only the rows it finds are tested, otherwise blocks of
+	 * a resident table that its zone map rules out are skipped.
+	 */
 	public TableValues select(ICommand command, IFile file, String dataBaseName) throws SQLException {
-		tableValues = file.read(file.GetTableFileToView(dataBaseName, command.getTableName()));
-		selectHelper(command);
-		if (!command.isAllSelected()) {
-			arrangeColumns(command.getColumnNames());			
-		}
+		ArrayList<String> outputs = getOutputs(command);
+		TableCache tableCache = TableCache.getInstance();
+		ArrayList<IIndex> indexes = command.isWhere() ? tableCache.getIndexes(dataBaseName, command.getTableName())
+				: new ArrayList<IIndex>();
+		IFilter filter = Where.getInstance().getFilter(command,
+				tableCache.getSchema(dataBaseName, command.getTableName()));
+		TableValues table = tableCache.scan(dataBaseName, command.getTableName(),
+				getScanColumns(command, outputs), filter);
+		int[] columns = getColumns(table, outputs);
+		tableValues = getResult(table, columns);
+		selectRows(command, dataBaseName, table, columns, indexes, null);
+		tableValues.setNumRows(tableValues.getRows().size());
 		if (command.isDistinct()) {
-			removeSimilarities();
+			tableValues = Distinct.getInstance().distinct(tableValues, file);
 		}
 		return tableValues;
 	}
 
-	private void selectHelper(ICommand command) throws SQLException {
-		checkColsValid(command.getColumnNames());
-		ArrayList<Integer> notToBeAffected = new ArrayList<Integer>();
-		if (command.isWhere()) {
-			ArrayList<Object> whereObjects = getObjectAfterWhere(command.getNameOperatorValues());
-			notToBeAffected = Where.getInstance().where(whereObjects, command, tableValues);
+	/**
+	 * Hands the selected columns of the matching rows to sink one at a time
+	 * instead of collecting them, ignoring LIMIT and DISTINCT. The rows of a
+	 * table that is not resident go from the reader through the WHERE
+	 * condition to sink without being kept, whole rows included.
+	 */
+	public void select(ICommand command, String dataBaseName, final IRowSink sink) throws SQLException {
+		ArrayList<String> outputs = getOutputs(command);
+		TableCache tableCache = TableCache.getInstance();
+		ArrayList<IIndex> indexes = command.isWhere() ? tableCache.getIndexes(dataBaseName, command.getTableName())
+				: new ArrayList<IIndex>();
+		TableValues schema = tableCache.getSchema(dataBaseName, command.getTableName());
+		IFilter filter = Where.getInstance().getFilter(command, schema);
+		ArrayList<String> scanColumns = getScanColumns(command, outputs);
+		if (scanColumns == null) {
+			scanColumns = new ArrayList<String>(schema.getcolNames());
+		}
+		TableValues scanned = getResult(schema, getColumns(schema, scanColumns));
+		final Predicate predicate = Where.getInstance().compile(command, scanned);
+		final int[] columns = getColumns(scanned, outputs);
+		TableValues table = tableCache.scan(dataBaseName, command.getTableName(), scanColumns, filter,
+				new IRowSink() {
+					@Override
+					public void add(ArrayList<Object> row) throws SQLException {
+						if (predicate.test(row)) {
+							sink.add(project(row, columns));
+						}
+					}
+				});
+		if (table != null) {
+			selectRows(command, dataBaseName, table, getColumns(table, outputs), indexes, sink);
 		}
-		selectOthers(notToBeAffected, command.getColumnNames());
 	}
-	
-	private ArrayList<Object> convertToObjects(ArrayList<String> colNames, ArrayList<String> rowValues)
-			throws SQLException {
-		ArrayList<Object> row = new ArrayList<>();
-		checkColsValid(colNames);
-		for (int i = 0; i < colNames.size(); i ++) {
-			int index = tableValues.getcolNames().indexOf(colNames.get(i));
-			row.add(DataTypeController.convertData(tableValues.getColTypes().get(index), rowValues.get(i)));
-		}
-		return row;
+
+	/**
+	 * Returns the columns select returns for the command, with no rows.
+	 */
+	public TableValues getResultSchema(ICommand command, String dataBaseName) throws SQLException {
+		TableValues schema = TableCache.getInstance().getSchema(dataBaseName, command.getTableName());
+		return getResult(schema, getColumns(schema, getOutputs(command)));
 	}
 
-	private void checkColsValid(ArrayList<String> colMatching) throws SQLException {
-		for (int i = 0; i < colMatching.size(); i++) {
-			if (!tableValues.getcolNames().contains(colMatching.get(i))) {
-				SQLExceptions.unknownColName();
-			}
+	private TableValues getResult(TableValues table, int[] columns) {
+		ArrayList<Integer> colTypes = new ArrayList<Integer>(columns.length);
+		ArrayList<String> colNames = new ArrayList<String>(columns.length);
+		for (int column : columns) {
+			colTypes.add(table.getType(column));
+			colNames.add(table.getName(column));
 		}
+		return new TableValues(table.getTableName(), colTypes, colNames,
+				new ArrayList<ArrayList<Object>>(), columns.length, 0);
 	}
-	
-	private ArrayList<Object> getObjectAfterWhere(
-			ArrayList<NameOperatorValue> nameOperatorValues) throws SQLException {
-		ArrayList<String> colNames = new ArrayList<String>();
-		ArrayList<String> rowValues = new ArrayList<String>();
-		for (int i=0; i < nameOperatorValues.size(); i++) {
-			colNames.add(nameOperatorValues.get(i).getName());
-			rowValues.add(nameOperatorValues.get(i).getValue());
-		}
-		return convertToObjects(colNames, rowValues);
+
+	/**
+	 * Selects from a resident or read table, into the result or into sink
+	 * when it is not null.
+	 */
+	private void selectRows(ICommand command, String dataBaseName, TableValues table, int[] columns,
+			ArrayList<IIndex> indexes, IRowSink sink) throws SQLException {
+		Predicate predicate = Where.getInstance().compile(command, table);
+		int[] candidates = Where.getInstance().getCandidates(predicate, table, indexes);
+		if (candidates == null) {
+			ZoneMap zones = command.isWhere()
+					? TableCache.getInstance().getZoneMap(dataBaseName, command.getTableName()) : null;
+			selectRows(command, table, predicate, columns, zones, Where.getInstance().getZoneColumns(zones, table),
+					sink);
+		} else {
+			int maxRows = sink == null ? Limit.getInstance().getScanLimit(command) : -1;
+			selectRows(table, predicate, columns, candidates, sink == null ? collect(tableValues.getRows()) : sink,
+					maxRows);
+		}
 	}
-	
-	private void selectOthers(ArrayList<Integer> notToBeAffected, ArrayList<String> colNames) throws SQLException {
-		if (!colNames.isEmpty()) {
-			for (int i=0; i < tableValues.getNumCols(); i++) {
-				if (!colNames.contains(tableValues.getcolNames().get(i))) {
-					tableValues.removeColumn(tableValues.getcolNames().get(i));
-					i --;
-				}
+
+	/**
+	 * Returns the selected column names without repeats, null when every
+	 * column is selected.
+	 */
+	private ArrayList<String> getOutputs(ICommand command) {
+		if (command.isAllSelected() || command.getColumnNames().isEmpty()) {
+			return null;
+		}
+		return new ArrayList<String>(new LinkedHashSet<String>(command.getColumnNames()));
+	}
+
+	private ArrayList<String> getScanColumns(ICommand command, ArrayList<String> outputs) {
+		if (outputs == null) {
+			return null;
+		}
+		LinkedHashSet<String> columns = new LinkedHashSet<String>(outputs);
+		if (command.isWhere()) {
+			for (NameOperatorValue nameOperatorValue : command.getNameOperatorValues()) {
+				columns.add(nameOperatorValue.getName());
 			}
 		}
-		ArrayList <Boolean> booleans = castNotToBeAffected(notToBeAffected);
-		for (int i=0; i < tableValues.getNumRows(); i ++) {
-			if (booleans.get(i)) {
-				tableValues.removeRow(i);
-				booleans.remove(i);
-				i --;
+		return new ArrayList<String>(columns);
+	}
+
+	private int[] getColumns(TableValues table, ArrayList<String> outputs) throws SQLException {
+		if (outputs == null) {
+			int[] columns = new int[table.getNumCols()];
+			for (int i = 0; i < columns.length; i++) {
+				columns[i] = i;
+			}
+			return columns;
+		}
+		int[] columns = new int[outputs.size()];
+		for (int i = 0; i < columns.length; i++) {
+			columns[i] = table.getcolNames().indexOf(outputs.get(i));
+			if (columns[i] == -1) {
+				SQLExceptions.unknownColName();
 			}
 		}
+		return columns;
 	}
 
-	private ArrayList<Boolean> castNotToBeAffected(ArrayList<Integer> notTobeAffected) {
-		ArrayList <Boolean> booleans = new ArrayList<Boolean>();
-		for (int i = 0; i < tableValues.getNumRows(); i++) {
-			if (notTobeAffected.contains(i)) {
-				booleans.add(true);
-			} else {
-				booleans.add(false);
+	/**
+	 * Tests the rows a batch at a time and projects the selected rows of
+	 * every batch. Without a row limit the morsels are selected on their own
+	 * and their rows appended in morsel order, rows for a sink are selected
+	 * in order on this thread.
+	 */
+	private void selectRows(ICommand command, final TableValues table, final Predicate predicate,
+			final int[] columns, final ZoneMap zones, final int[] zoneColumns, IRowSink sink) throws SQLException {
+		int numRows = table.getNumRows();
+		if (sink != null) {
+			selectRows(table, predicate, columns, zones, zoneColumns, 0, numRows, sink, -1);
+			return;
+		}
+		int maxRows = Limit.getInstance().getScanLimit(command);
+		ArrayList<ArrayList<Object>> rows = tableValues.getRows();
+		if (maxRows != -1) {
+			selectRows(table, predicate, columns, zones, zoneColumns, 0, numRows, collect(rows), maxRows);
+		} else {
+			final ArrayList<ArrayList<ArrayList<Object>>> parts = new ArrayList<ArrayList<ArrayList<Object>>>();
+			for (int i = 0; i < Morsels.getInstance().getCount(numRows); i++) {
+				parts.add(null);
+			}
+			Morsels.getInstance().run(numRows, new Morsels.MorselTask() {
+				@Override
+				public void run(int morsel, int from, int to) throws SQLException {
+					ArrayList<ArrayList<Object>> part = new ArrayList<ArrayList<Object>>();
+					selectRows(table, predicate, columns, zones, zoneColumns, from, to, collect(part), -1);
+					parts.set(morsel, part);
+				}
+			});
+			for (ArrayList<ArrayList<Object>> part : parts) {
+				rows.addAll(part);
 			}
 		}
-		return booleans;
 	}
-	
-	private void arrangeColumns(ArrayList<String> colNames) {
-		for (int i=0; i<colNames.size(); i++) {
-			int index = tableValues.getcolNames().indexOf(colNames.get(i));
-			tableValues.swap2columns(index, i);
+
+	private void selectRows(TableValues table, Predicate predicate, int[] columns, int[] candidates, IRowSink out,
+			int maxRows) throws SQLException {
+		int count = 0;
+		for (int i = 0; i < candidates.length && count != maxRows; i++) {
+			ArrayList<Object> row = table.getRow(candidates[i]);
+			if (predicate.test(row)) {
+				out.add(project(row, columns));
+				count++;
+			}
 		}
 	}
-	
-	private void removeSimilarities() throws SQLException {
-		for (int i = 0; i < tableValues.getNumRows(); i++) {
-			for (int j = i + 1; j < tableValues.getNumRows(); j++) {
-				if (isSimilar(i, j)) {
-					tableValues.removeRow(j);
-					j -- ;
+
+	private void selectRows(TableValues table, Predicate predicate, int[] columns, ZoneMap zones,
+			int[] zoneColumns, int start, int end, IRowSink out, int maxRows) throws SQLException {
+		long[] selection = new long[Batch.WORDS];
+		Batch batch = new Batch(table);
+		int count = 0;
+		for (int from = start; from < end && count != maxRows; from += Batch.SIZE) {
+			if (!Where.getInstance().mayMatch(predicate, zones, zoneColumns, from, Math.min(Batch.SIZE, end - from))) {
+				continue;
+			}
+			batch.load(from, Math.min(Batch.SIZE, end - from));
+			predicate.select(batch, selection);
+			for (int word = 0; word < Batch.WORDS && count != maxRows; word++) {
+				long bits = selection[word];
+				while (bits != 0 && count != maxRows) {
+					ArrayList<Object> row = table.getRow(from + (word << 6) + Long.numberOfTrailingZeros(bits));
+					bits &= bits - 1;
+					out.add(project(row, columns));
+					count++;
 				}
 			}
 		}
 	}
 
-	private boolean isSimilar(int index1, int index2) throws SQLException {
-		for (int i=0; i < tableValues.getNumCols(); i++) {
-			Object object1 = tableValues.getValue(index1, i);
-			Object object2 = tableValues.getValue(index2, i);
-			int type = tableValues.getType(i);
-			int compare = Comparators.getInstance().compare(object1, object2, type);
-			if (compare != 0) {
-				return false;
-			}
+	private static ArrayList<Object> project(ArrayList<Object> row, int[] columns) {
+		ArrayList<Object> output = new ArrayList<Object>(columns.length);
+		for (int column : columns) {
+			output.add(row.get(column));
 		}
-		return true;
+		return output;
+	}
+
+	private static IRowSink collect(final ArrayList<ArrayList<Object>> rows) {
+		return new IRowSink() {
+			@Override
+			public void add(ArrayList<Object> row) {
+				rows.add(row);
+			}
+		};
 	}
 }
@@ -0,0 +1,118 @@
+package dBMS.helper;
+
+import java.io.Closeable;
+import java.sql.SQLException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * Rows of sorted runs on disk merged into one sorted list while they are
+ * read. Only a window of the merged rows is kept in memory, reading a row
+ * before the window merges the runs again from their start. Rows with equal
+ * keys come in the order of their positions in the input.
+ */
+public class SortedRuns extends AbstractList<ArrayList<Object>> implements Closeable {
+
+	private ArrayList<RunFile> runs;
+	private Comparator<ArrayList<Object>> order;
+	private int size;
+	private int first;
+	private int windowSize;
+	private PriorityQueue<RunFile> queue;
+	private ArrayList<ArrayList<Object>> window;
+	private int windowStart;
+
+	public SortedRuns(ArrayList<RunFile> runs, Comparator<ArrayList<Object>> order, int windowSize) {
+		this.runs = runs;
+		this.order = order;
+		this.windowSize = Math.max(1, windowSize);
+		size = 0;
+		for (RunFile run : runs) {
+			size += run.getCount();
+		}
+		first = 0;
+		window = new ArrayList<ArrayList<Object>>();
+		windowStart = 0;
+	}
+
+	/**
+	 * Keeps only the merged rows from offset up to end.
+	 */
+	public void limit(int offset, long end) {
+		int total = first + size;
+		first = Math.min(offset, total);
+		size = (int) Math.min(end, total) - first;
+		size = Math.max(size, 0);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public ArrayList<Object> get(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		index += first;
+		try {
+			if (queue == null || index < windowStart) {
+				restart();
+			}
+			while (windowStart + window.size() <= index) {
+				advance();
+			}
+		} catch (SQLException e) {
+			throw new IllegalStateException(e.getMessage(), e);
+		}
+		return window.get(index - windowStart);
+	}
+
+	/**
+	 * Deletes the runs, the rows can not be read afterwards.
+	 */
+	@Override
+	public void close() {
+		for (RunFile run : runs) {
+			run.delete();
+		}
+		runs.clear();
+		queue = null;
+		window.clear();
+		size = 0;
+	}
+
+	private void restart() throws SQLException {
+		queue = new PriorityQueue<RunFile>(Math.max(1, runs.size()), new Comparator<RunFile>() {
+			@Override
+			public int compare(RunFile run1, RunFile run2) {
+				int compare = order.compare(run1.getRow(), run2.getRow());
+				return compare != 0 ? compare : Integer.compare(run1.getPosition(), run2.getPosition());
+			}
+		});
+		for (RunFile run : runs) {
+			run.rewind();
+			if (run.next()) {
+				queue.add(run);
+			}
+		}
+		window.clear();
+		windowStart = 0;
+	}
+
+	private void advance() throws SQLException {
+		if (window.size() == windowSize) {
+			int drop = windowSize / 2 + 1;
+			window = new ArrayList<ArrayList<Object>>(window.subList(drop, window.size()));
+			windowStart += drop;
+		}
+		RunFile run = queue.poll();
+		window.add(run.getRow());
+		if (run.next()) {
+			queue.add(run);
+		}
+	}
+}
@@ -7,7 +7,6 @@ import accessories.NameOrder;
 import accessories.SQLExceptions;
 import accessories.TableValues;
 import command.ICommand;
-import dataTypesController.Comparators;
 import fileManipulator.IFile;
 
 public class Union {
@@ -36,9 +35,9 @@ public class Union {
 			tableValues1 = OrderBy.getInstance().order(command.getSelectOne(), tableValues1);
 		}
 		if (command.isDistinct()) {
-			removeSimilarities();
+			tableValues1 = Distinct.getInstance().distinct(tableValues1, file);
 		}
-		return tableValues1;
+		return Limit.getInstance().limit(command, tableValues1);
 	}
 	
 	private void modifyTables() throws SQLException {
@@ -65,30 +64,6 @@ public class Union {
 		}
 	}
 	
-	private void removeSimilarities() throws SQLException {
-		for (int i = 0; i < tableValues1.getNumRows(); i++) {
-			for (int j = i + 1; j < tableValues1.getNumRows(); j++) {
-				if (isSimilar(i, j)) {
-					tableValues1.removeRow(j);
-					j -- ;
-				}
-			}
-		}
-	}
-
-	private boolean isSimilar(int index1, int index2) throws SQLException {
-		for (int i=0; i < tableValues1.getNumCols(); i++) {
-			Object object1 = tableValues1.getValue(index1, i);
-			Object object2 = tableValues1.getValue(index2, i);
-			int type = tableValues1.getType(i);
-			int compare = Comparators.getInstance().compare(object1, object2, type);
-			if (compare != 0) {
-				return false;
-			}
-		}
-		return true;
-	}
-	
 	private ArrayList<NameOrder> checkColumnsPresentInSecond(ArrayList<NameOrder> forOrdering) {
 		for (int i = 0; i < forOrdering.size(); i++) {
 			if (tableValues2.getcolNames().contains(forOrdering.get(i).getColumnName())) {
@@ -3,11 +3,11 @@ package dBMS.helper;
 import java.sql.SQLException;
 import java.util.ArrayList;
 
-import accessories.NameOperatorValue;
 import accessories.SQLExceptions;
 import accessories.TableValues;
 
 import command.ICommand;
+import dBMS.TableCache;
 
 import dataTypesController.DataTypeController;
 import fileManipulator.IFile;
@@ -29,21 +29,26 @@ public class Update {
 	}
 	
 	public int update(ICommand command, IFile file, String dataBaseName) throws SQLException {
-		tableValues = file.read(file.GetTableFileToView(dataBaseName, command.getTableName()));
-		int updatedRows = updateHelper(command);
-		file.write(tableValues, file.GetTableFileToUpdate(dataBaseName, command.getTableName()));
-		return updatedRows;
+		tableValues = TableCache.getInstance().view(dataBaseName, command.getTableName());
+		ArrayList<Object> setObjects = convertToObjects(command.getColumnNames(), command.getRowValues());
+		int[] positions = getAffected(command, dataBaseName);
+		TableCache.getInstance().update(dataBaseName, command.getTableName(), positions,
+				getColumns(command.getColumnNames()), setObjects);
+		return positions.length;
 	}
 
-	private int updateHelper(ICommand command) throws SQLException {
-		ArrayList<Object> setObjects = convertToObjects(command.getColumnNames(), command.getRowValues());
-		ArrayList<Integer> notToBeAffected = new ArrayList<Integer>();
-		if (command.isWhere()) {
-			ArrayList<Object> whereObjects = getObjectAfterWhere(command.getNameOperatorValues());
-			notToBeAffected = Where.getInstance().where(whereObjects, command, tableValues);
+	private int[] getAffected(ICommand command, String dataBaseName) throws SQLException {
+		return Where.getInstance().where(command, tableValues,
+				TableCache.getInstance().getIndexes(dataBaseName, command.getTableName()),
+				TableCache.getInstance().getZoneMap(dataBaseName, command.getTableName()));
+	}
+
+	private int[] getColumns(ArrayList<String> colNames) {
+		int[] columns = new int[colNames.size()];
+		for (int i = 0; i < colNames.size(); i++) {
+			columns[i] = tableValues.getcolNames().indexOf(colNames.get(i));
 		}
-		updateOthers(notToBeAffected, setObjects, command.getColumnNames());
-		return tableValues.getNumRows() - notToBeAffected.size();
+		return columns;
 	}
 	
 	private ArrayList<Object> convertToObjects(ArrayList<String> colNames, ArrayList<String> rowValues)
@@ -64,26 +69,4 @@ public class Update {
 			}
 		}
 	}
-	
-	private ArrayList<Object> getObjectAfterWhere(
-			ArrayList<NameOperatorValue> nameOperatorValues) throws SQLException {
-		ArrayList<String> colNames = new ArrayList<String>();
-		ArrayList<String> rowValues = new ArrayList<String>();
-		for (int i=0; i < nameOperatorValues.size(); i++) {
-			colNames.add(nameOperatorValues.get(i).getName());
-			rowValues.add(nameOperatorValues.get(i).getValue());
-		}
-		return convertToObjects(colNames, rowValues);
-	}
-	
-	private void updateOthers(ArrayList<Integer> notToBeAffected, ArrayList<Object> setObjects, ArrayList<String> colNames) {
-		for (int i=0; i < tableValues.getNumRows(); i ++) {
-			if (!notToBeAffected.contains(i)) {
-				for (int j = 0; j < colNames.size(); j ++) {
-					tableValues.setValue(i,
-							tableValues.getcolNames().indexOf(colNames.get(j)), setObjects.get(j));
-				}
-			}
-		}
-	}
 }
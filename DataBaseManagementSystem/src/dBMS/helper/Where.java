@@ -2,6 +2,8 @@ package dBMS.helper;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Stack;
 
 import accessories.NameOperatorValue;
@@ -13,97 +15,328 @@ import command.ICommand;
 
 import dataTypesController.Comparators;
 import dataTypesController.DataTypeController;
+import fileManipulator.IFilter;
+import index.BloomFilter;
+import index.IIndex;
+import index.ZoneMap;
 
 public class Where {
-	
+
 	private static Where instance;
-	private ArrayList<BooleanValues> postfix;
-	
+
 	private Where() {
-		
+
 	}
-	
+
 	public static Where getInstance() {
 		if (instance == null) {
 			instance = new Where();
 		}
 		return instance;
 	}
-	
-	public ArrayList<Integer> where(ArrayList<Object> whereObjects, ICommand command, TableValues tableValues) throws SQLException {
-		postfix = new ArrayList<BooleanValues>(command.getBooleanValues());
-		ArrayList<Integer> notAffected = new ArrayList<Integer>();
-		for (int i = 0; i < tableValues.getNumRows(); i++) {
-			if (!getBoolean(tableValues.getcolNames(), tableValues.getRow(i), command, whereObjects)) {
-				notAffected.add(i);
+
+	/**
+	 * Returns the positions of the matching rows in ascending order. When an
+	 * index answers part of the condition only the rows it returns are
+	 * tested. Otherwise the condition is evaluated a batch at a time into a
+	 * bitset, every morsel filling its own words, so that the positions array
+	 * is allocated once at its final size. Batches the zone map of the
+	 * table rules out, when it has one, are not loaded.
+	 */
+	public int[] where(ICommand command, TableValues tableValues, ArrayList<IIndex> indexes, ZoneMap zones)
+			throws SQLException {
+		Predicate predicate = compile(command, tableValues);
+		int[] candidates = getCandidates(predicate, tableValues, indexes);
+		if (candidates == null) {
+			return where(predicate, tableValues, zones);
+		}
+		int count = 0;
+		for (int position : candidates) {
+			if (predicate.test(tableValues.getRow(position))) {
+				candidates[count++] = position;
+			}
+		}
+		return Arrays.copyOf(candidates, count);
+	}
+
+	/**
+	 * Returns the positions, in ascending order, of the rows an index finds
+	 * for the comparisons of a column with a constant that have to hold for
+	 * the whole condition to hold, null when no index applies. The rows
+	 * still have to be tested against the whole condition. An equality is
+	 * looked up on any index, bounds on one column are merged into a range
+	 * on an ordered index, and the index that finds the fewest rows is used,
+	 * a hash index when it finds as few as an ordered one.
+	 */
+	public int[] getCandidates(Predicate predicate, TableValues tableValues, ArrayList<IIndex> indexes)
+			throws SQLException {
+		if (indexes.isEmpty()) {
+			return null;
+		}
+		ArrayList<Predicate> conjuncts = new ArrayList<Predicate>();
+		predicate.getConjuncts(conjuncts);
+		int[] candidates = null;
+		for (IIndex index : indexes) {
+			int column = tableValues.getcolNames().indexOf(index.getDefinition().getColumnName());
+			if (column == -1) {
+				continue;
+			}
+			int[] found = find(index, column, conjuncts);
+			if (found != null && (candidates == null || found.length < candidates.length
+					|| (found.length == candidates.length && !index.isOrdered()))) {
+				candidates = found;
+			}
+		}
+		if (candidates != null) {
+			Arrays.sort(candidates);
+		}
+		return candidates;
+	}
+
+	private int[] find(IIndex index, int column, ArrayList<Predicate> conjuncts) throws SQLException {
+		Comparator<Object> comparator = Comparators.getInstance().getComparator(index.getType());
+		Object low = null;
+		Object high = null;
+		boolean lowInclusive = true;
+		boolean highInclusive = true;
+		for (Predicate conjunct : conjuncts) {
+			if (!(conjunct instanceof Predicate.Compare)) {
+				continue;
+			}
+			Predicate.Compare compare = (Predicate.Compare) conjunct;
+			Object constant = compare.getConstant();
+			if (compare.getColumn() != column || constant == null) {
+				continue;
+			}
+			switch (compare.getOperator()) {
+			case Predicate.EQUAL:
+				return index.find(constant);
+			case Predicate.LESS:
+			case Predicate.LESS_EQUAL:
+				boolean inclusive = compare.getOperator() == Predicate.LESS_EQUAL;
+				int tighter = high == null ? -1 : comparator.compare(constant, high);
+				if (tighter < 0 || (tighter == 0 && !inclusive)) {
+					high = constant;
+					highInclusive = inclusive;
+				}
+				break;
+			case Predicate.GREATER:
+			case Predicate.GREATER_EQUAL:
+				inclusive = compare.getOperator() == Predicate.GREATER_EQUAL;
+				tighter = low == null ? 1 : comparator.compare(constant, low);
+				if (tighter > 0 || (tighter == 0 && !inclusive)) {
+					low = constant;
+					lowInclusive = inclusive;
+				}
+				break;
+			default:
+				break;
+			}
+		}
+		if ((low == null && high == null) || !index.isOrdered()) {
+			return null;
+		}
+		return index.find(low, lowInclusive, high, highInclusive);
+	}
+
+	private int[] where(final Predicate predicate, final TableValues tableValues, final ZoneMap zones)
+			throws SQLException {
+		int numRows = tableValues.getNumRows();
+		final int[] zoneColumns = getZoneColumns(zones, tableValues);
+		final long[] selected = new long[(numRows + 63) >>> 6];
+		final int[] counts = new int[Morsels.getInstance().getCount(numRows)];
+		Morsels.getInstance().run(numRows, new Morsels.MorselTask() {
+			@Override
+			public void run(int morsel, int from, int to) throws SQLException {
+				long[] selection = new long[Batch.WORDS];
+				Batch batch = new Batch(tableValues);
+				for (int start = from; start < to; start += Batch.SIZE) {
+					if (!mayMatch(predicate, zones, zoneColumns, start, Math.min(Batch.SIZE, to - start))) {
+						continue;
+					}
+					batch.load(start, Math.min(Batch.SIZE, to - start));
+					predicate.select(batch, selection);
+					for (int word = 0; word << 6 < batch.getSize(); word++) {
+						selected[(start >>> 6) + word] = selection[word];
+						counts[morsel] += Long.bitCount(selection[word]);
+					}
+				}
 			}
+		});
+		int count = 0;
+		for (int morselCount : counts) {
+			count += morselCount;
 		}
-		return notAffected;
+		int[] positions = new int[count];
+		for (int word = 0, j = 0; word < selected.length; word++) {
+			long bits = selected[word];
+			while (bits != 0) {
+				positions[j++] = (word << 6) + Long.numberOfTrailingZeros(bits);
+				bits &= bits - 1;
+			}
+		}
+		return positions;
 	}
 
-	private boolean getBoolean(ArrayList<String> colNames, ArrayList<Object> row,
-			ICommand commnd, ArrayList<Object> whereObjects) throws SQLException {
-		ArrayList<NameOperatorValue> nameOperatorValues = commnd.getNameOperatorValues();
-		ArrayList<Boolean> booleans = new ArrayList<Boolean>();
-		for (int i = 0; i < whereObjects.size(); i++) {
-			int compare = Comparators.getInstance().compare(
-					row.get(colNames.indexOf(nameOperatorValues.get(i).getName())),
-					whereObjects.get(i), DataTypeController.getType(whereObjects.get(i)));
-			booleans.add(nameOperatorValues.get(i).check(compare));
-		}
-		return Execution(booleans);
+	/**
+	 * Returns the column of the zone map for every column of the table, null
+	 * when the zone map is not that of the rows of the table.
+	 */
+	int[] getZoneColumns(ZoneMap zones, TableValues tableValues) {
+		if (zones == null || zones.getNumRows() != tableValues.getNumRows()) {
+			return null;
+		}
+		return zones.getColumns(tableValues.getcolNames());
+	}
+
+	/**
+	 * Returns false when no row in [from, from + size) can pass going by the
+	 * zone map, true when there is none.
+	 */
+	boolean mayMatch(Predicate predicate, ZoneMap zones, int[] zoneColumns, int from, int size) {
+		if (zoneColumns == null) {
+			return true;
+		}
+		for (int block = from / ZoneMap.BLOCK_SIZE; block <= (from + size - 1) / ZoneMap.BLOCK_SIZE; block++) {
+			if (predicate.mayMatch(zones, block, zoneColumns)) {
+				return true;
+			}
+		}
+		return false;
 	}
-	
-	
-	private boolean Execution(ArrayList<Boolean> booleans) throws SQLException {
-		Stack<Boolean> values = new Stack<Boolean>();
+
+	/**
+	 * Builds the condition of the command over the columns of the table from
+	 * its postfix form, a command without WHERE matches every row.
+	 */
+	public Predicate compile(ICommand command, TableValues tableValues) throws SQLException {
+		if (!command.isWhere()) {
+			return new Predicate.True();
+		}
+		ArrayList<NameOperatorValue> nameOperatorValues = command.getNameOperatorValues();
+		Stack<Predicate> operands = new Stack<Predicate>();
 		int index = 0;
-		for (BooleanValues booleanValue : postfix) {
+		for (BooleanValues booleanValue : command.getBooleanValues()) {
 			switch (booleanValue) {
 			case NOT:
-				notExecution(values);
+				checkOperands(operands, 1);
+				operands.push(new Predicate.Not(operands.pop()));
 				break;
 			case AND:
-				andExecution(values);
+				checkOperands(operands, 2);
+				Predicate right = operands.pop();
+				operands.push(new Predicate.And(operands.pop(), right));
 				break;
 			case OR:
-				orExecution(values);
+				checkOperands(operands, 2);
+				right = operands.pop();
+				operands.push(new Predicate.Or(operands.pop(), right));
 				break;
 			case OTHER:
-				values.push(booleans.get(index));
+				if (index == nameOperatorValues.size()) {
+					SQLExceptions.throwUnknownCommand();
+				}
+				operands.push(compare(nameOperatorValues.get(index), tableValues));
 				index++;
 				break;
 			}
 		}
-		if (values.size() > 1) {
+		if (operands.size() != 1) {
 			SQLExceptions.throwUnknownCommand();
 		}
-		return values.pop();
+		return operands.pop();
 	}
 
-	private void notExecution(Stack<Boolean> values) throws SQLException {
-		if (values.size() < 1) {
-			SQLExceptions.throwUnknownCommand();
+	/**
+	 * Returns the condition of the command for readers to apply while they
+	 * decode, null for a command without WHERE. It reads only the columns
+	 * named in the condition and is compiled against their types in the
+	 * schema. It also tells from the zone map and the Bloom filters of a
+	 * file whether any row of the file can pass.
+	 */
+	public IFilter getFilter(ICommand command, TableValues schema) throws SQLException {
+		if (!command.isWhere()) {
+			return null;
+		}
+		final ArrayList<String> colNames = new ArrayList<String>();
+		final ArrayList<Integer> colTypes = new ArrayList<Integer>();
+		for (NameOperatorValue nameOperatorValue : command.getNameOperatorValues()) {
+			String name = nameOperatorValue.getName();
+			int column = schema.getcolNames().indexOf(name);
+			if (column == -1) {
+				SQLExceptions.unknownColName();
+			}
+			if (!colNames.contains(name)) {
+				colNames.add(name);
+				colTypes.add(schema.getType(column));
+			}
 		}
-		boolean temp = values.pop();
-		values.push(!temp);
+		final Predicate predicate = compile(command, new TableValues(schema.getTableName(), colTypes, colNames,
+				new ArrayList<ArrayList<Object>>(), colNames.size(), 0));
+		return new IFilter() {
+			@Override
+			public ArrayList<String> getColumns() {
+				return colNames;
+			}
+
+			@Override
+			public boolean test(ArrayList<Object> values) {
+				return predicate.test(values);
+			}
+
+			@Override
+			public boolean mayMatch(ZoneMap zones, int block) {
+				return predicate.mayMatch(zones, block, zones.getColumns(colNames));
+			}
+
+			@Override
+			public boolean mayContain(ArrayList<BloomFilter> blooms) {
+				BloomFilter[] byColumn = new BloomFilter[colNames.size()];
+				for (BloomFilter bloom : blooms) {
+					int column = colNames.indexOf(bloom.getColumnName());
+					if (column != -1 && bloom.getType() == colTypes.get(column)) {
+						byColumn[column] = bloom;
+					}
+				}
+				return predicate.mayContain(byColumn);
+			}
+		};
 	}
-	
-	private void andExecution(Stack<Boolean> values) throws SQLException {
-		if (values.size() < 2) {
-			SQLExceptions.throwUnknownCommand();
+
+	private Predicate compare(NameOperatorValue nameOperatorValue, TableValues tableValues) throws SQLException {
+		int column = tableValues.getcolNames().indexOf(nameOperatorValue.getName());
+		if (column == -1) {
+			SQLExceptions.unknownColName();
+		}
+		int type = tableValues.getType(column);
+		Object constant = DataTypeController.convertData(type, nameOperatorValue.getValue());
+		return new Predicate.Compare(column, getOperator(nameOperatorValue.getOperator()), constant,
+				Comparators.getInstance().getComparator(type));
+	}
+
+	private int getOperator(String operator) throws SQLException {
+		switch (operator) {
+		case "=":
+			return Predicate.EQUAL;
+		case "!=":
+			return Predicate.NOT_EQUAL;
+		case "<":
+			return Predicate.LESS;
+		case ">":
+			return Predicate.GREATER;
+		case "<=":
+			return Predicate.LESS_EQUAL;
+		case ">=":
+			return Predicate.GREATER_EQUAL;
+		default:
+			SQLExceptions.unknownOperator();
 		}
-		boolean temp1 = values.pop();
-		boolean temp2 = values.pop();
-		values.push(temp1 && temp2);
+		return -1;
 	}
-	
-	private void orExecution(Stack<Boolean> values) throws SQLException {
-		if (values.size() < 2) {
+
+	private void checkOperands(Stack<Predicate> operands, int needed) throws SQLException {
+		if (operands.size() < needed) {
 			SQLExceptions.throwUnknownCommand();
 		}
-		boolean temp1 = values.pop();
-		boolean temp2 = values.pop();
-		values.push(temp1 || temp2);
 	}
 }
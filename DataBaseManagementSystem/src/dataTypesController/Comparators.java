@@ -3,6 +3,7 @@ package dataTypesController;
 import java.sql.Date;
 import java.sql.SQLException;
 import java.sql.Types;
+import java.util.Comparator;
 
 import accessories.SQLExceptions;
 
@@ -39,4 +40,87 @@ public class Comparators {
 		}
 		return type;
 	}
+
+	/**
+	 * Equality for grouping rows, unlike compare two nulls are equal.
+	 */
+	public boolean equal(Object object1, Object object2, int type) throws SQLException {
+		if (object1 == null || object2 == null) {
+			return object1 == object2;
+		}
+		return compare(object1, object2, type) == 0;
+	}
+
+	/**
+	 * Hash consistent with equal.
+	 */
+	public int hash(Object object, int type) throws SQLException {
+		if (object == null) {
+			return 0;
+		} else if (type == Types.DATE) {
+			return Long.hashCode(((Date) object).getTime());
+		} else if (type == Types.FLOAT) {
+			return Float.floatToIntBits((Float) object);
+		} else if (type == Types.VARCHAR) {
+			return ((String) object).hashCode();
+		} else if (type == Types.INTEGER) {
+			return (Integer) object;
+		} else {
+			SQLExceptions.unsupportedDataType();
+		}
+		return 0;
+	}
+
+	/**
+	 * Comparator of the values of a column of the given type, nulls come
+	 * first and are equal to each other.
+	 */
+	public Comparator<Object> getComparator(int type) throws SQLException {
+		switch (type) {
+		case Types.DATE:
+			return new NullsFirst() {
+				@Override
+				protected int compareValues(Object object1, Object object2) {
+					return ((Date) object1).compareTo((Date) object2);
+				}
+			};
+		case Types.FLOAT:
+			return new NullsFirst() {
+				@Override
+				protected int compareValues(Object object1, Object object2) {
+					return Float.compare((Float) object1, (Float) object2);
+				}
+			};
+		case Types.VARCHAR:
+			return new NullsFirst() {
+				@Override
+				protected int compareValues(Object object1, Object object2) {
+					return ((String) object1).compareTo((String) object2);
+				}
+			};
+		case Types.INTEGER:
+			return new NullsFirst() {
+				@Override
+				protected int compareValues(Object object1, Object object2) {
+					return Integer.compare((Integer) object1, (Integer) object2);
+				}
+			};
+		default:
+			SQLExceptions.unsupportedDataType();
+		}
+		return null;
+	}
+
+	private static abstract class NullsFirst implements Comparator<Object> {
+
+		@Override
+		public int compare(Object object1, Object object2) {
+			if (object1 == null || object2 == null) {
+				return object1 == null ? (object2 == null ? 0 : -1) : 1;
+			}
+			return compareValues(object1, object2);
+		}
+
+		protected abstract int compareValues(Object object1, Object object2);
+	}
 }
@@ -0,0 +1,82 @@
+package dataTypesController;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+
+/**
+ * Binary form of a row for the log and for temporary files, every value is
+ * a tag byte followed by the value, dates are stored as epoch days and
+ * strings as their length and UTF-8 bytes.
+ */
+public class RowCodec {
+
+	private static final byte NULL = 0;
+	private static final byte INTEGER = 1;
+	private static final byte FLOAT = 2;
+	private static final byte DATE = 3;
+	private static final byte VARCHAR = 4;
+
+	private RowCodec() {
+	}
+
+	public static void writeRow(DataOutputStream out, ArrayList<Object> row) throws IOException {
+		out.writeInt(row.size());
+		for (Object value : row) {
+			if (value == null) {
+				out.writeByte(NULL);
+			} else if (value instanceof Integer) {
+				out.writeByte(INTEGER);
+				out.writeInt((Integer) value);
+			} else if (value instanceof Float) {
+				out.writeByte(FLOAT);
+				out.writeFloat((Float) value);
+			} else if (value instanceof Date) {
+				out.writeByte(DATE);
+				out.writeLong(((Date) value).toLocalDate().toEpochDay());
+			} else {
+				byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+				out.writeByte(VARCHAR);
+				out.writeInt(bytes.length);
+				out.write(bytes);
+			}
+		}
+	}
+
+	public static ArrayList<Object> readRow(DataInputStream in) throws IOException {
+		int size = in.readInt();
+		ArrayList<Object> row = new ArrayList<Object>(size);
+		for (int i = 0; i < size; i++) {
+			switch (in.readByte()) {
+			case NULL:
+				row.add(null);
+				break;
+			case INTEGER:
+				row.add(in.readInt());
+				break;
+			case FLOAT:
+				row.add(in.readFloat());
+				break;
+			case DATE:
+				row.add(Date.valueOf(LocalDate.ofEpochDay(in.readLong())));
+				break;
+			case VARCHAR:
+				int length = in.readInt();
+				if (length < 0) {
+					throw new IOException("Damaged row.");
+				}
+				byte[] bytes = new byte[length];
+				in.readFully(bytes);
+				row.add(new String(bytes, StandardCharsets.UTF_8));
+				break;
+			default:
+				throw new IOException("Damaged row.");
+			}
+		}
+		return row;
+	}
+}
@@ -0,0 +1,446 @@
+package fileManipulator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import accessories.IndexDefinition;
+import accessories.SQLExceptions;
+import accessories.TableValues;
+import index.IndexFile;
+
+/**
+ * Databases of one file type, their tables and for every table the number
+ * of segment files, the columns, the row count and the indexes with the
+ * constraints they enforce, kept in memory so that finding a table does not
+ * list directories. The catalog is loaded once from a file next to the
+ * database folders and saved by renaming a temporary file over it.
+ * Databases and tables are added after their folders are created and
+ * removed before their folders are deleted, a folder the catalog does not
+ * know is left over from a crash and is overwritten by the next create. A
+ * missing or damaged catalog file is rebuilt from the folders, with unknown
+ * columns and row counts until the tables are read and with the indexes
+ * whose definitions head their index files. A damaged index file fails the
+ * rebuild, since the constraint it may enforce would be lost.
+ */
+class Catalog {
+
+	private static int version = 1;
+	private static String catalogString = "catalog";
+	private static String temporaryString = ".tmp";
+	private static String segmentString = ".seg";
+	private static String indexString = ".idx";
+
+	private File programFile;
+	private File catalogFile;
+	private String suffix;
+	private String extension;
+	private LinkedHashMap<String, LinkedHashMap<String, Entry>> dataBases;
+	private boolean dirty;
+
+	Catalog(File programFile, String suffix, String extension) throws SQLException {
+		this.programFile = programFile;
+		this.catalogFile = new File(programFile, catalogString + suffix);
+		this.suffix = suffix;
+		this.extension = extension;
+		dataBases = new LinkedHashMap<String, LinkedHashMap<String, Entry>>();
+		dirty = false;
+		if (!load()) {
+			rebuild();
+		}
+	}
+
+	synchronized boolean hasDataBase(String dataBaseName) {
+		return dataBases.containsKey(dataBaseName);
+	}
+
+	synchronized ArrayList<String> getDataBaseNames() {
+		return new ArrayList<String>(dataBases.keySet());
+	}
+
+	synchronized void addDataBase(String dataBaseName) throws SQLException {
+		dataBases.put(dataBaseName, new LinkedHashMap<String, Entry>());
+		dirty = true;
+		save();
+	}
+
+	synchronized void removeDataBase(String dataBaseName) throws SQLException {
+		if (dataBases.remove(dataBaseName) != null) {
+			dirty = true;
+			save();
+		}
+	}
+
+	synchronized boolean hasTable(String dataBaseName, String tableName) {
+		LinkedHashMap<String, Entry> tables = dataBases.get(dataBaseName);
+		return tables != null && tables.containsKey(tableName);
+	}
+
+	/**
+	 * Records the columns and row count of the table, a new table is saved at
+	 * once and other changes on the next save.
+	 */
+	synchronized void updateTable(String dataBaseName, TableValues table) throws SQLException {
+		LinkedHashMap<String, Entry> tables = dataBases.get(dataBaseName);
+		if (tables == null) {
+			SQLExceptions.unfoundDataBase();
+		}
+		Entry entry = tables.get(table.getTableName());
+		if (entry == null) {
+			entry = new Entry();
+			tables.put(table.getTableName(), entry);
+			entry.update(table);
+			dirty = true;
+			save();
+		} else if (entry.update(table)) {
+			dirty = true;
+		}
+	}
+
+	synchronized void removeTable(String dataBaseName, String tableName) throws SQLException {
+		LinkedHashMap<String, Entry> tables = dataBases.get(dataBaseName);
+		if (tables != null && tables.remove(tableName) != null) {
+			dirty = true;
+			save();
+		}
+	}
+
+	/**
+	 * Returns the columns of the table without rows, or null when they are
+	 * not known yet.
+	 */
+	synchronized TableValues getSchema(String dataBaseName, String tableName) {
+		Entry entry = getEntry(dataBaseName, tableName);
+		if (entry == null || entry.numRows < 0) {
+			return null;
+		}
+		return new TableValues(tableName, new ArrayList<Integer>(entry.colTypes),
+				new ArrayList<String>(entry.colNames), new ArrayList<ArrayList<Object>>(),
+				entry.colNames.size(), 0);
+	}
+
+	synchronized int getSegments(String dataBaseName, String tableName) {
+		Entry entry = getEntry(dataBaseName, tableName);
+		return entry == null ? 0 : entry.segments;
+	}
+
+	/**
+	 * Reserves the number of the next segment of the table.
+	 */
+	synchronized int addSegment(String dataBaseName, String tableName) {
+		Entry entry = getEntry(dataBaseName, tableName);
+		dirty = true;
+		return ++entry.segments;
+	}
+
+	synchronized void clearSegments(String dataBaseName, String tableName) {
+		Entry entry = getEntry(dataBaseName, tableName);
+		if (entry != null && entry.segments != 0) {
+			entry.segments = 0;
+			dirty = true;
+		}
+	}
+
+	synchronized ArrayList<IndexDefinition> getIndexes(String dataBaseName, String tableName) {
+		Entry entry = getEntry(dataBaseName, tableName);
+		return entry == null ? new ArrayList<IndexDefinition>() : new ArrayList<IndexDefinition>(entry.indexes);
+	}
+
+	synchronized void addIndex(String dataBaseName, String tableName, IndexDefinition index) throws SQLException {
+		Entry entry = getEntry(dataBaseName, tableName);
+		if (entry == null) {
+			SQLExceptions.unfoundTable();
+		}
+		entry.indexes.add(index);
+		dirty = true;
+		save();
+	}
+
+	synchronized void removeIndex(String dataBaseName, String tableName, String indexName) throws SQLException {
+		Entry entry = getEntry(dataBaseName, tableName);
+		if (entry == null) {
+			return;
+		}
+		for (int i = 0; i < entry.indexes.size(); i++) {
+			if (entry.indexes.get(i).getName().equals(indexName)) {
+				entry.indexes.remove(i);
+				dirty = true;
+				save();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Reads the segments of the tables of the database from their folders
+	 * again, used after a crash that may have left the catalog behind them.
+	 * Tables are not added, a folder the catalog does not know has no
+	 * committed rows.
+	 */
+	synchronized void refresh(String dataBaseName) throws SQLException {
+		LinkedHashMap<String, Entry> tables = dataBases.get(dataBaseName);
+		if (tables == null) {
+			return;
+		}
+		for (String tableName : tables.keySet()) {
+			File tableFolder = new File(programFile, dataBaseName + File.separator + tableName);
+			int segments = scanSegments(tableFolder, tableName);
+			if (segments != tables.get(tableName).segments) {
+				tables.get(tableName).segments = segments;
+				dirty = true;
+			}
+		}
+		save();
+	}
+
+	/**
+	 * Writes the catalog if it changed since it was last written.
+	 */
+	synchronized void save() throws SQLException {
+		if (!dirty) {
+			return;
+		}
+		File temporary = new File(catalogFile.getPath() + temporaryString);
+		try {
+			FileOutputStream output = new FileOutputStream(temporary);
+			try {
+				CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(output), new CRC32());
+				DataOutputStream data = new DataOutputStream(checked);
+				write(data);
+				data.flush();
+				data.writeLong(checked.getChecksum().getValue());
+				data.flush();
+				output.getFD().sync();
+			} finally {
+				output.close();
+			}
+			Files.move(temporary.toPath(), catalogFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			SQLExceptions.canNotWriteFile();
+		}
+		syncFolder();
+		dirty = false;
+	}
+
+	/**
+	 * Makes the rename durable where the platform allows opening a folder.
+	 */
+	private void syncFolder() {
+		try {
+			FileChannel channel = FileChannel.open(programFile.toPath(), StandardOpenOption.READ);
+			try {
+				channel.force(true);
+			} finally {
+				channel.close();
+			}
+		} catch (IOException e) {
+		}
+	}
+
+	private Entry getEntry(String dataBaseName, String tableName) {
+		LinkedHashMap<String, Entry> tables = dataBases.get(dataBaseName);
+		return tables == null ? null : tables.get(tableName);
+	}
+
+	private void write(DataOutputStream data) throws IOException {
+		data.writeInt(version);
+		data.writeInt(dataBases.size());
+		for (String dataBaseName : dataBases.keySet()) {
+			LinkedHashMap<String, Entry> tables = dataBases.get(dataBaseName);
+			data.writeUTF(dataBaseName);
+			data.writeInt(tables.size());
+			for (String tableName : tables.keySet()) {
+				Entry entry = tables.get(tableName);
+				data.writeUTF(tableName);
+				data.writeInt(entry.segments);
+				data.writeInt(entry.numRows);
+				data.writeInt(entry.colNames.size());
+				for (int i = 0; i < entry.colNames.size(); i++) {
+					data.writeUTF(entry.colNames.get(i));
+					data.writeInt(entry.colTypes.get(i));
+				}
+				data.writeInt(entry.indexes.size());
+				for (IndexDefinition index : entry.indexes) {
+					data.writeUTF(index.getName());
+					data.writeUTF(index.getColumnName());
+					data.writeUTF(index.getMethod());
+					data.writeUTF(index.getConstraint() == null ? "" : index.getConstraint());
+					data.writeDouble(index.getFalsePositiveRate());
+				}
+			}
+		}
+	}
+
+	private boolean load() {
+		if (!catalogFile.exists()) {
+			return false;
+		}
+		try {
+			CheckedInputStream checked = new CheckedInputStream(
+					new BufferedInputStream(new FileInputStream(catalogFile)), new CRC32());
+			DataInputStream data = new DataInputStream(checked);
+			try {
+				if (data.readInt() != version) {
+					return false;
+				}
+				int numDataBases = data.readInt();
+				for (int i = 0; i < numDataBases; i++) {
+					String dataBaseName = data.readUTF();
+					LinkedHashMap<String, Entry> tables = new LinkedHashMap<String, Entry>();
+					int numTables = data.readInt();
+					for (int j = 0; j < numTables; j++) {
+						String tableName = data.readUTF();
+						Entry entry = new Entry();
+						entry.segments = data.readInt();
+						entry.numRows = data.readInt();
+						int numCols = data.readInt();
+						for (int k = 0; k < numCols; k++) {
+							entry.colNames.add(data.readUTF());
+							entry.colTypes.add(data.readInt());
+						}
+						int numIndexes = data.readInt();
+						for (int k = 0; k < numIndexes; k++) {
+							String name = data.readUTF();
+							String columnName = data.readUTF();
+							String method = data.readUTF();
+							String constraint = data.readUTF();
+							entry.indexes.add(new IndexDefinition(name, columnName, method,
+									constraint.isEmpty() ? null : constraint, data.readDouble()));
+						}
+						tables.put(tableName, entry);
+					}
+					dataBases.put(dataBaseName, tables);
+				}
+				long checksum = checked.getChecksum().getValue();
+				if (data.readLong() != checksum) {
+					dataBases.clear();
+					return false;
+				}
+			} finally {
+				data.close();
+			}
+		} catch (IOException e) {
+			dataBases.clear();
+			return false;
+		}
+		return true;
+	}
+
+	private void rebuild() throws SQLException {
+		File[] folders = programFile.listFiles();
+		if (folders != null) {
+			for (File folder : folders) {
+				if (folder.isDirectory() && folder.getName().endsWith(suffix)) {
+					dataBases.put(folder.getName(), scanDataBase(folder));
+				}
+			}
+		}
+		dirty = true;
+		save();
+	}
+
+	private LinkedHashMap<String, Entry> scanDataBase(File dataBaseFolder) throws SQLException {
+		LinkedHashMap<String, Entry> tables = new LinkedHashMap<String, Entry>();
+		File[] tableFolders = dataBaseFolder.listFiles();
+		if (tableFolders == null) {
+			return tables;
+		}
+		for (File tableFolder : tableFolders) {
+			String tableName = tableFolder.getName();
+			if (!tableFolder.isDirectory() || !new File(tableFolder, tableName + extension).isFile()) {
+				continue;
+			}
+			Entry entry = new Entry();
+			entry.segments = scanSegments(tableFolder, tableName);
+			entry.indexes = scanIndexes(tableFolder);
+			tables.put(tableName, entry);
+		}
+		return tables;
+	}
+
+	private ArrayList<IndexDefinition> scanIndexes(File tableFolder) throws SQLException {
+		ArrayList<IndexDefinition> indexes = new ArrayList<IndexDefinition>();
+		String[] names = tableFolder.list();
+		if (names == null) {
+			return indexes;
+		}
+		Arrays.sort(names);
+		for (String name : names) {
+			if (!name.endsWith(indexString)) {
+				continue;
+			}
+			IndexDefinition index = IndexFile.readDefinition(new File(tableFolder, name));
+			if (index == null || !name.equals(index.getName() + indexString)) {
+				SQLExceptions.damagedIndexFile(name);
+			}
+			indexes.add(index);
+		}
+		return indexes;
+	}
+
+	private int scanSegments(File tableFolder, String tableName) {
+		int last = 0;
+		String prefix = tableName + segmentString;
+		String[] names = tableFolder.list();
+		if (names == null) {
+			return last;
+		}
+		for (String name : names) {
+			if (name.startsWith(prefix) && name.endsWith(extension)) {
+				try {
+					int number = Integer.parseInt(name.substring(prefix.length(), name.length() - extension.length()));
+					last = Math.max(last, number);
+				} catch (NumberFormatException e) {
+				}
+			}
+		}
+		return last;
+	}
+
+	private static class Entry {
+		private int segments;
+		private int numRows;
+		private ArrayList<String> colNames;
+		private ArrayList<Integer> colTypes;
+		private ArrayList<IndexDefinition> indexes;
+
+		private Entry() {
+			segments = 0;
+			numRows = -1;
+			colNames = new ArrayList<String>();
+			colTypes = new ArrayList<Integer>();
+			indexes = new ArrayList<IndexDefinition>();
+		}
+
+		/**
+		 * Returns true when anything changed.
+		 */
+		private boolean update(TableValues table) {
+			if (numRows == table.getNumRows() && colNames.equals(table.getcolNames())
+					&& colTypes.equals(table.getColTypes())) {
+				return false;
+			}
+			numRows = table.getNumRows();
+			colNames = new ArrayList<String>(table.getcolNames());
+			colTypes = new ArrayList<Integer>(table.getColTypes());
+			return true;
+		}
+	}
+}
@@ -2,56 +2,51 @@ package fileManipulator;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.sql.SQLException;
 import java.util.ArrayList;
 
+import accessories.IndexDefinition;
 import accessories.SQLExceptions;
 import accessories.TableValues;
+import index.BloomFilter;
+import index.ZoneMap;
 
 public abstract class FileManipulation {
 
 	private File programFile;
+	private Catalog catalog;
+	private String segmentString = ".seg";
+	private String indexString = ".idx";
+	private String temporaryFolder;
+	private String temporaryString = ".tmp";
 	
 	protected FileManipulation() {
 		
 	}
 
-	protected void setPath(String directoryPath , String directoryName , String random) throws SQLException {
+	protected void setPath(String directoryPath , String directoryName , String random,
+			String suffix, String extension) throws SQLException {
 		File upper = new File(directoryPath);
 		if(!upper.exists())
 			SQLExceptions.pathError();
 		else{
-			File[] level1 = upper.listFiles();
-			for (File f1 : level1) {
-				if (f1.getName().equals(directoryName)) {
-					File[] level2 = f1.listFiles();
-					for(File f2 : level2){
-						if(f2.getName().equals(random)){
-							return;
-						}
-					}
-					File f2 = new File(f1.getAbsolutePath() + File.separator + random);
-					f2.mkdirs();
-					this.programFile = f2;
-					return;
-				}
-			}
-			File f1 = new File(directoryPath + File.separator + directoryName);
-			f1.mkdirs();
-			File f2 = new File(f1.getAbsolutePath() + File.separator + random);
+			File f2 = new File(upper.getAbsolutePath() + File.separator + directoryName + File.separator + random);
 			f2.mkdirs();
 			programFile = f2;
+			temporaryFolder = suffix.substring(1) + ".temp";
+			deleteDir(new File(programFile.getPath() + File.separator + temporaryFolder));
+			catalog = new Catalog(programFile, suffix, extension);
 		}
 	}
 	
 	protected void createDataBaseFile(String name) throws SQLException {	
-		File found = getFile(name, programFile);
-		if (found != null) {
-			deleteDir(found);
-		}
+		catalog.removeDataBase(name);
 		File newFile = new File(programFile.getPath() + File.separator + name);
+		deleteDir(newFile);
 		newFile.mkdirs();
+		catalog.addDataBase(name);
 //		int overwrite = 0;
 //		if (found != null) {
 //			overwrite = JOptionPane.showConfirmDialog(
@@ -71,43 +66,24 @@ public abstract class FileManipulation {
 	}
 	
 	protected void checkDataBaseExistance(String name) throws SQLException {
-		File database = getFile(name, programFile);
-		if (database == null) {
+		if (!catalog.hasDataBase(name)) {
 			SQLExceptions.unfoundDataBase();
 		}
 	}
 
-	private File getFile(String name, File continer) throws SQLException {
-		File[] data = continer.listFiles();
-		for (File db : data) {
-			if (db.getName().equals(name)) {
-				return db;
-			}
-		}
-		return null;
-	}
-
 	protected void deleteDatabase(String dataBaseName) throws SQLException {
-		File databaseFile = getFile(dataBaseName, programFile);
-		if (databaseFile != null) {
-			deleteDir(databaseFile);
+		if (catalog.hasDataBase(dataBaseName)) {
+			catalog.removeDataBase(dataBaseName);
+			deleteDir(new File(programFile.getPath() + File.separator + dataBaseName));
 		} else {
 			SQLExceptions.unfoundDataBase();			
 		}
 	}
 	
 	protected void deleteTable(String dataBaseName, String tableName) throws SQLException {
-		File databaseFile = getFile(dataBaseName, programFile);
-		if (databaseFile != null) {
-			File tableFile = getFile(tableName, databaseFile);
-			if (tableFile != null) {
-				deleteDir(tableFile);
-			} else {
-				SQLExceptions.unfoundTable();				
-			}
-		} else {
-			SQLExceptions.unfoundDataBase();			
-		}
+		File tableFolder = getTableFolder(dataBaseName, tableName);
+		catalog.removeTable(dataBaseName, tableName);
+		deleteDir(tableFolder);
 	}
 	
 	private void deleteDir(File file) {
@@ -120,99 +96,172 @@ public abstract class FileManipulation {
 		file.delete();
 	}
 	
+	/**
+	 * The table is added to the catalog by updateCatalog once its file is
+	 * written.
+	 */
 	protected File createTableFile(String databaseName, String tableName, String extension) throws SQLException {
-		File database = getFile(databaseName, programFile);
-		if (database == null) {
+		if (!catalog.hasDataBase(databaseName)) {
 			SQLExceptions.fileNotFound();
 		}
-		File[] tableFiles = database.listFiles();
-		for (File tableFile : tableFiles) {
-			if (tableFile.getName().equals(tableName)) {
-				SQLExceptions.throwExistingTable();
-			}
+		if (catalog.hasTable(databaseName, tableName)) {
+			SQLExceptions.throwExistingTable();
 		}
-		File tableFolder = new File(database.getPath() + File.separator + tableName);
+		File tableFolder = new File(programFile.getPath() + File.separator + databaseName + File.separator + tableName);
+		deleteDir(tableFolder);
 		tableFolder.mkdirs();
 		String path = tableFolder.getPath() + File.separator + tableName + extension;
 		return new File(path);
 	}
 
 	protected File GetDTDFileToUpdate(String databaseName, String tableName) throws SQLException {
-		File database = getFile(databaseName, programFile);
-		if (database == null) {
-			SQLExceptions.unfoundFile();	
-		}
-		File tableFolder = getFile(tableName, database);
-		if (tableFolder != null) {
-			File table = getFile(tableName + ".dtd", tableFolder);
-			if (table != null) {
-				deleteDir(table);
-				String path = tableFolder.getPath() + File.separator + tableName + ".dtd";
-				File temp = new File(path);
-				return temp;
-			} else {
-				SQLExceptions.unfoundTable();				
-			}
-		} else {
-			SQLExceptions.unfoundTable();			
-		}
-		return null;
+		return CreatNewDTDFile(databaseName, tableName);
 	}
 	
 	protected File CreatNewDTDFile(String databaseName, String tableName) throws SQLException {
-		File database = getFile(databaseName, programFile);
-		if (database == null) {
+		if (!catalog.hasDataBase(databaseName)) {
 			SQLExceptions.unfoundFile();
 		}
-		File tableFolder = getFile(tableName, database);
-		if (tableFolder != null) {
-			File table = getFile(tableName + ".dtd", tableFolder);
-			if (table != null) {
-				deleteDir(table);
-			}
-			String path = tableFolder.getPath() + File.separator + tableName + ".dtd";
-			return new File(path);
-		} else {
-			SQLExceptions.unfoundTable();			
-		}
-		return null;
+		File tableFolder = getTableFolder(databaseName, tableName);
+		File table = new File(tableFolder.getPath() + File.separator + tableName + ".dtd");
+		table.delete();
+		return table;
 	}
 	
  	protected File GetTableFileToUpdate(String databaseName, String tableName, String extension) throws SQLException {
-		File database = getFile(databaseName, programFile);
-		if (database == null) {
+		if (!catalog.hasDataBase(databaseName)) {
 			SQLExceptions.unfoundFile();	
 		}
-		File tableFolder = getFile(tableName, database);
-		if (tableFolder != null) {
-			File table = getFile(tableName + extension, tableFolder);
-			if (table != null) {
-				deleteDir(table);
-				String path = tableFolder.getPath() + File.separator + tableName + extension;
-				File temp = new File(path);
-				return temp;
-			} else {
-				SQLExceptions.unfoundTable();				
-			}
-		} else {
-			SQLExceptions.unfoundTable();			
-		}
-		return null;
+		return new File(getTableFolder(databaseName, tableName).getPath() + File.separator + tableName + extension);
 	}
 	
 	protected File GetTableFileToView(String databaseName, String tableName, String extension) throws SQLException{
-		File databaseFile = getFile(databaseName, programFile);
-		if (databaseFile != null) {
-			File tableFile = getFile(tableName, databaseFile);
-			if (tableFile != null) {
-				return getFile(tableName + extension, tableFile);
-			} else {
-				SQLExceptions.unfoundTable();
+		return new File(getTableFolder(databaseName, tableName).getPath() + File.separator + tableName + extension);
+	}
+
+	protected File GetDataBaseFolder(String databaseName) throws SQLException {
+		if (!catalog.hasDataBase(databaseName)) {
+			SQLExceptions.unfoundDataBase();
+		}
+		return new File(programFile.getPath() + File.separator + databaseName);
+	}
+
+	protected ArrayList<String> GetDataBaseNames(String suffix) {
+		ArrayList<String> names = new ArrayList<String>();
+		for (String name : catalog.getDataBaseNames()) {
+			names.add(name.substring(0, name.length() - suffix.length()));
+		}
+		return names;
+	}
+
+	/**
+	 * A segment whose number was handed out but whose write did not finish
+	 * is skipped.
+	 */
+	protected ArrayList<File> GetTableSegmentsToView(String databaseName, String tableName, String extension) throws SQLException {
+		File tableFolder = getTableFolder(databaseName, tableName);
+		ArrayList<File> segments = new ArrayList<File>();
+		int numSegments = catalog.getSegments(databaseName, tableName);
+		for (int i = 1; i <= numSegments; i++) {
+			File segment = new File(tableFolder.getPath() + File.separator + tableName + segmentString + i + extension);
+			if (segment.exists()) {
+				segments.add(segment);
 			}
-		} else {
-			SQLExceptions.unfoundDataBase();			
 		}
-		return null;
+		return segments;
+	}
+
+	protected File createTableSegmentFile(String databaseName, String tableName, String extension) throws SQLException {
+		File tableFolder = getTableFolder(databaseName, tableName);
+		int next = catalog.addSegment(databaseName, tableName);
+		return new File(tableFolder.getPath() + File.separator + tableName + segmentString + next + extension);
+	}
+
+	protected void deleteTableSegments(String databaseName, String tableName, String extension) throws SQLException {
+		for (File segment : GetTableSegmentsToView(databaseName, tableName, extension)) {
+			ZoneMap.delete(segment);
+			BloomFilter.delete(segment);
+			segment.delete();
+		}
+		catalog.clearSegments(databaseName, tableName);
+	}
+
+	protected ArrayList<IndexDefinition> GetTableIndexes(String databaseName, String tableName) throws SQLException {
+		getTableFolder(databaseName, tableName);
+		return catalog.getIndexes(databaseName, tableName);
+	}
+
+	protected File GetTableIndexFile(String databaseName, String tableName, String indexName) throws SQLException {
+		return getIndexFile(databaseName, tableName, indexName);
+	}
+
+	/**
+	 * The index file is written by the caller with the definition before the
+	 * index is added, so that a catalog rebuilt from the folders finds it.
+	 */
+	protected void addTableIndex(String databaseName, String tableName, IndexDefinition index) throws SQLException {
+		getTableFolder(databaseName, tableName);
+		catalog.addIndex(databaseName, tableName, index);
+	}
+
+	/**
+	 * The file goes first, so that a catalog rebuilt from the folders does not
+	 * bring the index back.
+	 */
+	protected void removeTableIndex(String databaseName, String tableName, String indexName) throws SQLException {
+		getIndexFile(databaseName, tableName, indexName).delete();
+		catalog.removeIndex(databaseName, tableName, indexName);
+	}
+
+	private File getIndexFile(String databaseName, String tableName, String indexName) throws SQLException {
+		return new File(getTableFolder(databaseName, tableName).getPath() + File.separator + indexName + indexString);
+	}
+
+	/**
+	 * Returns a new empty file for data that does not fit in memory, files
+	 * left by a previous process are deleted when the path is set.
+	 */
+	protected File createTemporaryFile() throws SQLException {
+		File folder = new File(programFile.getPath() + File.separator + temporaryFolder);
+		folder.mkdirs();
+		File temporary = null;
+		try {
+			temporary = File.createTempFile("run", temporaryString, folder);
+		} catch (IOException e) {
+			SQLExceptions.canNotWriteFile();
+		}
+		return temporary;
+	}
+
+	protected boolean hasTable(String databaseName, String tableName) {
+		return catalog.hasTable(databaseName, tableName);
+	}
+
+	protected void updateCatalog(String databaseName, TableValues table) throws SQLException {
+		catalog.updateTable(databaseName, table);
+	}
+
+	protected TableValues GetTableSchema(String databaseName, String tableName) throws SQLException {
+		getTableFolder(databaseName, tableName);
+		return catalog.getSchema(databaseName, tableName);
+	}
+
+	protected void saveCatalog() throws SQLException {
+		catalog.save();
+	}
+
+	protected void refreshCatalog(String databaseName) throws SQLException {
+		catalog.refresh(databaseName);
+	}
+
+	private File getTableFolder(String databaseName, String tableName) throws SQLException {
+		if (!catalog.hasDataBase(databaseName)) {
+			SQLExceptions.unfoundDataBase();
+		}
+		if (!catalog.hasTable(databaseName, tableName)) {
+			SQLExceptions.unfoundTable();
+		}
+		return new File(programFile.getPath() + File.separator + databaseName + File.separator + tableName);
 	}
 
 	protected void createDTD(File file, TableValues table) throws SQLException{
@@ -230,28 +279,32 @@ public abstract class FileManipulation {
 		for (int i = 0; i < colNames.size(); i++) {
 			writer.println("<!ELEMENT " + colNames.get(i) + " (#PCDATA)>");
 		}
+		writer.println("<!ATTLIST " + tableName + " NumberOfColumns CDATA #REQUIRED>");
+		writer.println("<!ATTLIST " + tableName + " NumberOfRows CDATA #REQUIRED>");
 		for (int i = 0; i < colNames.size(); i++) {
-			writer.println("<!ATTLIST " + tableName + " col" + (i + 1) + " CDATA #REQUIRED>");
+			writer.println("<!ATTLIST " + tableName + " Column" + (i + 1) + " CDATA #REQUIRED>");
 		}
 		for (int i = 0; i < colNames.size(); i++) {
-			writer.println("<!ATTLIST " + tableName + " colType" + (i + 1) + " CDATA #REQUIRED>");
+			writer.println("<!ATTLIST " + tableName + " Column" + (i + 1) + "Type CDATA #REQUIRED>");
 		}
-		writer.println("<!ATTLIST " + tableName + " nomOfCols CDATA #REQUIRED>");
-		writer.println("<!ATTLIST " + tableName + " nomOfRows CDATA #REQUIRED>");
-		writer.println("<!ATTLIST ID IDValue CDATA #REQUIRED>");
+		writer.println("<!ATTLIST Rows RowNumber CDATA #REQUIRED>");
 		writer.close();
 	}
 
 	private void writeHard(PrintWriter writer, String tableName, ArrayList<String> colNames) {
 		writer.print("");
-		writer.println("<!ELEMENT " + tableName + " (ID+)>");
-		writer.print("<!ELEMENT ID (");
+		writer.println("<!ELEMENT " + tableName + " (Rows*)>");
+		if (colNames.isEmpty()) {
+			writer.println("<!ELEMENT Rows EMPTY>");
+			return;
+		}
+		writer.print("<!ELEMENT Rows (");
 		for (int i = 0; i < colNames.size(); i++) {
 			writer.print(colNames.get(i));
 			if (i != colNames.size() - 1)
-				writer.print("+, ");
+				writer.print(", ");
 			else
-				writer.println("+)>");
+				writer.println(")>");
 		}
 	}
 	
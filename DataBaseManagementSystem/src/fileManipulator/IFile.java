@@ -2,7 +2,9 @@ package fileManipulator;
 
 import java.io.File;
 import java.sql.SQLException;
+import java.util.ArrayList;
 
+import accessories.IndexDefinition;
 import accessories.TableValues;
 
 public interface IFile {
@@ -23,6 +25,36 @@ public interface IFile {
 	
 	File GetDTDFileToUpdate(String databaseName, String tableName) throws SQLException;
 
+	File GetDataBaseFolder(String databaseName) throws SQLException;
+
+	ArrayList<String> GetDataBaseNames() throws SQLException;
+
+	ArrayList<File> GetTableSegmentsToView(String databaseName, String tableName) throws SQLException;
+
+	File createTableSegmentFile(String databaseName, String tableName) throws SQLException;
+
+	void deleteTableSegments(String databaseName, String tableName) throws SQLException;
+
+	ArrayList<IndexDefinition> GetTableIndexes(String databaseName, String tableName) throws SQLException;
+
+	File GetTableIndexFile(String databaseName, String tableName, String indexName) throws SQLException;
+
+	void addTableIndex(String databaseName, String tableName, IndexDefinition index) throws SQLException;
+
+	void removeTableIndex(String databaseName, String tableName, String indexName) throws SQLException;
+
+	File createTemporaryFile() throws SQLException;
+
+	boolean hasTable(String databaseName, String tableName);
+
+	TableValues GetTableSchema(String databaseName, String tableName) throws SQLException;
+
+	void updateCatalog(String databaseName, TableValues table) throws SQLException;
+
+	void saveCatalog() throws SQLException;
+
+	void refreshCatalog(String databaseName) throws SQLException;
+
 	File createTableFile(String databaseName, String tableName) throws SQLException;
 	
 	File createNewDTDFile(String databaseName, String tableName) throws SQLException;
@@ -30,6 +62,16 @@ public interface IFile {
 	void createDTD(File file , TableValues table) throws SQLException;
 
 	void write(TableValues data, File fileToUpdate) throws SQLException;
+
+	boolean canAppend(File tableFile) throws SQLException;
+
+	byte[] encodeRows(TableValues data) throws SQLException;
+
+	boolean isOutdated(File tableFile) throws SQLException;
 	
 	TableValues read(File source) throws SQLException;
+
+	TableValues read(File source, ArrayList<String> columns, IFilter filter) throws SQLException;
+
+	TableValues read(File source, ArrayList<String> columns, IFilter filter, IRowSink sink) throws SQLException;
 }
@@ -2,9 +2,18 @@ package fileManipulator;
 
 import java.io.File;
 import java.sql.SQLException;
+import java.util.ArrayList;
 
 import accessories.TableValues;
 
 public interface IFileReader {
 	TableValues read(File source) throws SQLException;
+
+	// decodes only the named columns, in that order, null for all of them, and
+	// only the rows that pass the filter when it is not null
+	TableValues read(File source, ArrayList<String> columns, IFilter filter) throws SQLException;
+
+	// the same, but the rows are handed to sink as they are decoded and the
+	// returned table has the columns and no rows
+	TableValues read(File source, ArrayList<String> columns, IFilter filter, IRowSink sink) throws SQLException;
 }
@@ -0,0 +1,36 @@
+package fileManipulator;
+
+import java.util.ArrayList;
+
+import index.BloomFilter;
+import index.ZoneMap;
+
+/**
+ * Condition on rows that a reader applies while it decodes them, so the
+ * other cells of a row that fails are never converted.
+ */
+public interface IFilter {
+
+	/**
+	 * Names of the columns the condition reads, they must be among the
+	 * columns the reader is asked for.
+	 */
+	ArrayList<String> getColumns();
+
+	/**
+	 * Values come in the order of getColumns.
+	 */
+	boolean test(ArrayList<Object> values);
+
+	/**
+	 * Returns false when no row of block can pass going by the zone map of
+	 * the file, so the reader can skip the block without decoding it.
+	 */
+	boolean mayMatch(ZoneMap zones, int block);
+
+	/**
+	 * Returns false when the Bloom filters of the file show it holds no row
+	 * that passes.
+	 */
+	boolean mayContain(ArrayList<BloomFilter> blooms);
+}
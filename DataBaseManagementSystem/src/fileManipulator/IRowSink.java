@@ -0,0 +1,13 @@
+package fileManipulator;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+
+/**
+ * Takes rows one at a time as a reader decodes them, so that a caller that
+ * only passes the rows on never holds all of them.
+ */
+public interface IRowSink {
+
+	void add(ArrayList<Object> row) throws SQLException;
+}
@@ -0,0 +1,62 @@
+package fileManipulator;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+
+import accessories.SQLExceptions;
+
+/**
+ * Resolves the columns a reader is asked to decode against the columns of
+ * the file, readers then build rows of only those columns in that order.
+ */
+public class Projection {
+
+	private Projection() {
+
+	}
+
+	/**
+	 * Returns the position in the file of every wanted column, all columns
+	 * when columns is null.
+	 */
+	public static int[] getColumns(ArrayList<String> colNames, ArrayList<String> columns) throws SQLException {
+		if (columns == null) {
+			int[] all = new int[colNames.size()];
+			for (int i = 0; i < all.length; i++) {
+				all[i] = i;
+			}
+			return all;
+		}
+		int[] positions = new int[columns.size()];
+		for (int i = 0; i < positions.length; i++) {
+			positions[i] = colNames.indexOf(columns.get(i));
+			if (positions[i] == -1) {
+				SQLExceptions.unknownColName();
+			}
+		}
+		return positions;
+	}
+
+	/**
+	 * Returns the output position of every column of the file, -1 for the
+	 * columns that are not wanted.
+	 */
+	public static int[] getOutputs(int numCols, int[] columns) {
+		int[] outputs = new int[numCols];
+		for (int i = 0; i < numCols; i++) {
+			outputs[i] = -1;
+		}
+		for (int i = 0; i < columns.length; i++) {
+			outputs[columns[i]] = i;
+		}
+		return outputs;
+	}
+
+	public static <T> ArrayList<T> select(ArrayList<T> values, int[] columns) {
+		ArrayList<T> selected = new ArrayList<T>(columns.length);
+		for (int column : columns) {
+			selected.add(values.get(column));
+		}
+		return selected;
+	}
+}
@@ -0,0 +1,84 @@
+package fileManipulator;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+
+import dataTypesController.DataTypeController;
+
+/**
+ * A filter resolved against the columns a reader outputs. Readers convert
+ * the cells of getCells first and the rest of the row only when test
+ * passes.
+ */
+public class RowFilter {
+
+	private IFilter filter;
+	private int[] cells;
+	private boolean[] tested;
+	private ArrayList<Object> values;
+
+	private RowFilter(IFilter filter, int[] cells, int numCols) {
+		this.filter = filter;
+		this.cells = cells;
+		tested = new boolean[numCols];
+		for (int cell : cells) {
+			tested[cell] = true;
+		}
+		values = new ArrayList<Object>(cells.length);
+	}
+
+	/**
+	 * Returns null when there is no filter, colNames are the output columns.
+	 */
+	public static RowFilter create(IFilter filter, ArrayList<String> colNames) throws SQLException {
+		if (filter == null) {
+			return null;
+		}
+		return new RowFilter(filter, Projection.getColumns(colNames, filter.getColumns()), colNames.size());
+	}
+
+	public int[] getCells() {
+		return cells;
+	}
+
+	/**
+	 * Returns true for the output columns test reads, they are already
+	 * converted once test has been called.
+	 */
+	public boolean isTested(int column) {
+		return tested[column];
+	}
+
+	/**
+	 * Converts a row of text cells in output order, returns null when it
+	 * fails the filter. rowFilter may be null.
+	 */
+	public static ArrayList<Object> convert(RowFilter rowFilter, String[] fields, ArrayList<Integer> colTypes)
+			throws SQLException {
+		Object[] cells = new Object[fields.length];
+		if (rowFilter != null) {
+			for (int cell : rowFilter.cells) {
+				cells[cell] = DataTypeController.convertData(colTypes.get(cell), fields[cell]);
+			}
+			if (!rowFilter.test(cells)) {
+				return null;
+			}
+		}
+		ArrayList<Object> row = new ArrayList<Object>(fields.length);
+		for (int j = 0; j < fields.length; j++) {
+			if (rowFilter == null || !rowFilter.tested[j]) {
+				cells[j] = DataTypeController.convertData(colTypes.get(j), fields[j]);
+			}
+			row.add(cells[j]);
+		}
+		return row;
+	}
+
+	public boolean test(Object[] row) {
+		values.clear();
+		for (int cell : cells) {
+			values.add(row[cell]);
+		}
+		return filter.test(values);
+	}
+}
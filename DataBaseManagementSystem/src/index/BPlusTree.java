@@ -0,0 +1,449 @@
+package index;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import accessories.IndexDefinition;
+import dataTypesController.Comparators;
+
+/**
+ * B+tree of the entries of a column ordered by value, nulls first, and then
+ * by position, so the rows of one value come in table order. Leaves are
+ * linked for range scans. Removing entries does not merge nodes, a leaf may
+ * stay empty until the tree is loaded again, which deleting rows does. On
+ * disk every node is a page, children before their parents and the root
+ * last, and the tree is read back whole with its table.
+ */
+public class BPlusTree implements IIndex {
+
+	private static int capacity = 64;
+	private static int fill = 48;
+	private static final byte LEAF = 0;
+	private static final byte INNER = 1;
+
+	private IndexDefinition definition;
+	private int type;
+	private Comparator<Object> comparator;
+	private Node root;
+	private Leaf first;
+	private int size;
+
+	public BPlusTree(IndexDefinition definition, int type) throws SQLException {
+		this.definition = definition;
+		this.type = type;
+		comparator = Comparators.getInstance().getComparator(type);
+		load(new Object[0], new int[0], 0);
+	}
+
+	@Override
+	public IndexDefinition getDefinition() {
+		return definition;
+	}
+
+	@Override
+	public int getType() {
+		return type;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Sorts the positions by value, the sort is stable so equal values keep
+	 * their positions in order, and loads the leaves bottom up.
+	 */
+	@Override
+	public void build(ArrayList<ArrayList<Object>> rows, int column) {
+		final Object[] values = new Object[rows.size()];
+		Integer[] order = new Integer[rows.size()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = rows.get(i).get(column);
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer position1, Integer position2) {
+				return comparator.compare(values[position1], values[position2]);
+			}
+		});
+		Object[] keys = new Object[order.length];
+		int[] positions = new int[order.length];
+		for (int i = 0; i < order.length; i++) {
+			positions[i] = order[i];
+			keys[i] = values[order[i]];
+		}
+		load(keys, positions, keys.length);
+	}
+
+	@Override
+	public void insert(Object key, int position) {
+		Split split = insert(root, key, position);
+		if (split != null) {
+			Inner inner = new Inner();
+			inner.children[0] = root;
+			inner.keys[0] = split.key;
+			inner.positions[0] = split.position;
+			inner.children[1] = split.right;
+			inner.size = 1;
+			root = inner;
+		}
+		size++;
+	}
+
+	@Override
+	public void remove(Object key, int position) {
+		Leaf leaf = findLeaf(key, position);
+		int index = upperBound(leaf.keys, leaf.positions, leaf.size, key, position - 1);
+		if (index < leaf.size && leaf.positions[index] == position
+				&& comparator.compare(leaf.keys[index], key) == 0) {
+			System.arraycopy(leaf.keys, index + 1, leaf.keys, index, leaf.size - index - 1);
+			System.arraycopy(leaf.positions, index + 1, leaf.positions, index, leaf.size - index - 1);
+			leaf.size--;
+			leaf.keys[leaf.size] = null;
+			size--;
+		}
+	}
+
+	/**
+	 * Moving the positions down keeps the entries in order, so the kept ones
+	 * are loaded again as they come from the leaves.
+	 */
+	@Override
+	public void delete(int[] deleted) {
+		if (deleted.length == 0) {
+			return;
+		}
+		Object[] keys = new Object[size];
+		int[] positions = new int[size];
+		int count = 0;
+		for (Leaf leaf = first; leaf != null; leaf = leaf.next) {
+			for (int i = 0; i < leaf.size; i++) {
+				int found = Arrays.binarySearch(deleted, leaf.positions[i]);
+				if (found < 0) {
+					keys[count] = leaf.keys[i];
+					positions[count++] = leaf.positions[i] + found + 1;
+				}
+			}
+		}
+		load(keys, positions, count);
+	}
+
+	@Override
+	public int[] find(Object key) {
+		if (key == null) {
+			return new int[0];
+		}
+		return find(key, true, key, true);
+	}
+
+	@Override
+	public boolean isOrdered() {
+		return true;
+	}
+
+	/**
+	 * Starts at the first entry past the low bound and follows the leaves
+	 * until the high bound.
+	 */
+	@Override
+	public int[] find(Object low, boolean lowInclusive, Object high, boolean highInclusive) {
+		Leaf leaf = first;
+		int index = 0;
+		if (low != null) {
+			int position = lowInclusive ? -1 : Integer.MAX_VALUE;
+			leaf = findLeaf(low, position);
+			index = upperBound(leaf.keys, leaf.positions, leaf.size, low, position);
+		}
+		int[] result = new int[16];
+		int count = 0;
+		for (; leaf != null; leaf = leaf.next, index = 0) {
+			for (; index < leaf.size; index++) {
+				if (high != null) {
+					int compare = comparator.compare(leaf.keys[index], high);
+					if (compare > 0 || (compare == 0 && !highInclusive)) {
+						return Arrays.copyOf(result, count);
+					}
+				}
+				if (count == result.length) {
+					result = Arrays.copyOf(result, count * 2);
+				}
+				result[count++] = leaf.positions[index];
+			}
+		}
+		return Arrays.copyOf(result, count);
+	}
+
+	@Override
+	public void writeTo(DataOutputStream out) throws IOException {
+		out.writeInt(size);
+		out.writeInt(countPages(root));
+		writePage(out, root, new int[1]);
+	}
+
+	@Override
+	public void readFrom(DataInputStream in) throws IOException {
+		int numEntries = in.readInt();
+		Node[] pages = new Node[in.readInt()];
+		Leaf last = null;
+		first = null;
+		for (int page = 0; page < pages.length; page++) {
+			byte kind = in.readByte();
+			int numKeys = in.readInt();
+			if (numKeys < 0 || numKeys > capacity) {
+				throw new IOException("Damaged index page.");
+			}
+			if (kind == LEAF) {
+				Leaf leaf = new Leaf();
+				for (int i = 0; i < numKeys; i++) {
+					leaf.keys[i] = IndexFile.readKey(in, type);
+					leaf.positions[i] = in.readInt();
+				}
+				leaf.size = numKeys;
+				if (last == null) {
+					first = leaf;
+				} else {
+					last.next = leaf;
+				}
+				last = leaf;
+				pages[page] = leaf;
+			} else {
+				Inner inner = new Inner();
+				for (int i = 0; i <= numKeys; i++) {
+					int child = in.readInt();
+					if (child < 0 || child >= page) {
+						throw new IOException("Damaged index page.");
+					}
+					inner.children[i] = pages[child];
+				}
+				for (int i = 0; i < numKeys; i++) {
+					inner.keys[i] = IndexFile.readKey(in, type);
+					inner.positions[i] = in.readInt();
+				}
+				inner.size = numKeys;
+				pages[page] = inner;
+			}
+		}
+		if (first == null) {
+			throw new IOException("Damaged index page.");
+		}
+		root = pages[pages.length - 1];
+		size = numEntries;
+	}
+
+	private Split insert(Node node, Object key, int position) {
+		if (node instanceof Leaf) {
+			Leaf leaf = (Leaf) node;
+			int index = upperBound(leaf.keys, leaf.positions, leaf.size, key, position);
+			System.arraycopy(leaf.keys, index, leaf.keys, index + 1, leaf.size - index);
+			System.arraycopy(leaf.positions, index, leaf.positions, index + 1, leaf.size - index);
+			leaf.keys[index] = key;
+			leaf.positions[index] = position;
+			leaf.size++;
+			return leaf.size > capacity ? split(leaf) : null;
+		}
+		Inner inner = (Inner) node;
+		int child = upperBound(inner.keys, inner.positions, inner.size, key, position);
+		Split split = insert(inner.children[child], key, position);
+		if (split == null) {
+			return null;
+		}
+		System.arraycopy(inner.keys, child, inner.keys, child + 1, inner.size - child);
+		System.arraycopy(inner.positions, child, inner.positions, child + 1, inner.size - child);
+		System.arraycopy(inner.children, child + 1, inner.children, child + 2, inner.size - child);
+		inner.keys[child] = split.key;
+		inner.positions[child] = split.position;
+		inner.children[child + 1] = split.right;
+		inner.size++;
+		return inner.size > capacity ? split(inner) : null;
+	}
+
+	private Split split(Leaf leaf) {
+		Leaf right = new Leaf();
+		int half = leaf.size / 2;
+		right.size = leaf.size - half;
+		System.arraycopy(leaf.keys, half, right.keys, 0, right.size);
+		System.arraycopy(leaf.positions, half, right.positions, 0, right.size);
+		Arrays.fill(leaf.keys, half, leaf.size, null);
+		leaf.size = half;
+		right.next = leaf.next;
+		leaf.next = right;
+		return new Split(right.keys[0], right.positions[0], right);
+	}
+
+	/**
+	 * The middle separator moves up to the parent.
+	 */
+	private Split split(Inner inner) {
+		Inner right = new Inner();
+		int middle = inner.size / 2;
+		right.size = inner.size - middle - 1;
+		System.arraycopy(inner.keys, middle + 1, right.keys, 0, right.size);
+		System.arraycopy(inner.positions, middle + 1, right.positions, 0, right.size);
+		System.arraycopy(inner.children, middle + 1, right.children, 0, right.size + 1);
+		Split split = new Split(inner.keys[middle], inner.positions[middle], right);
+		Arrays.fill(inner.keys, middle, inner.size, null);
+		Arrays.fill(inner.children, middle + 1, inner.size + 1, null);
+		inner.size = middle;
+		return split;
+	}
+
+	private Leaf findLeaf(Object key, int position) {
+		Node node = root;
+		while (node instanceof Inner) {
+			Inner inner = (Inner) node;
+			node = inner.children[upperBound(inner.keys, inner.positions, inner.size, key, position)];
+		}
+		return (Leaf) node;
+	}
+
+	/**
+	 * Returns the index of the first entry after key and position.
+	 */
+	private int upperBound(Object[] keys, int[] positions, int numKeys, Object key, int position) {
+		int low = 0;
+		int high = numKeys;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			int compare = comparator.compare(keys[middle], key);
+			if (compare < 0 || (compare == 0 && positions[middle] <= position)) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Spreads the entries evenly over leaves filled to about three quarters
+	 * and builds the levels above them the same way.
+	 */
+	private void load(Object[] keys, int[] positions, int count) {
+		int numLeaves = Math.max(1, (count + fill - 1) / fill);
+		ArrayList<Node> level = new ArrayList<Node>(numLeaves);
+		Leaf previous = null;
+		for (int i = 0; i < numLeaves; i++) {
+			int from = (int) ((long) count * i / numLeaves);
+			int to = (int) ((long) count * (i + 1) / numLeaves);
+			Leaf leaf = new Leaf();
+			System.arraycopy(keys, from, leaf.keys, 0, to - from);
+			System.arraycopy(positions, from, leaf.positions, 0, to - from);
+			leaf.size = to - from;
+			if (previous == null) {
+				first = leaf;
+			} else {
+				previous.next = leaf;
+			}
+			previous = leaf;
+			level.add(leaf);
+		}
+		while (level.size() > 1) {
+			int numParents = (level.size() + fill) / (fill + 1);
+			ArrayList<Node> parents = new ArrayList<Node>(numParents);
+			for (int i = 0; i < numParents; i++) {
+				int from = (int) ((long) level.size() * i / numParents);
+				int to = (int) ((long) level.size() * (i + 1) / numParents);
+				Inner inner = new Inner();
+				inner.children[0] = level.get(from);
+				for (int child = from + 1; child < to; child++) {
+					Leaf leftmost = getFirstLeaf(level.get(child));
+					inner.keys[inner.size] = leftmost.keys[0];
+					inner.positions[inner.size] = leftmost.positions[0];
+					inner.size++;
+					inner.children[inner.size] = level.get(child);
+				}
+				parents.add(inner);
+			}
+			level = parents;
+		}
+		root = level.get(0);
+		size = count;
+	}
+
+	private Leaf getFirstLeaf(Node node) {
+		while (node instanceof Inner) {
+			node = ((Inner) node).children[0];
+		}
+		return (Leaf) node;
+	}
+
+	private int countPages(Node node) {
+		if (node instanceof Leaf) {
+			return 1;
+		}
+		Inner inner = (Inner) node;
+		int count = 1;
+		for (int i = 0; i <= inner.size; i++) {
+			count += countPages(inner.children[i]);
+		}
+		return count;
+	}
+
+	/**
+	 * Writes the subtree of node after its children and returns its page
+	 * number, next holds the number of the next page.
+	 */
+	private int writePage(DataOutputStream out, Node node, int[] next) throws IOException {
+		if (node instanceof Leaf) {
+			Leaf leaf = (Leaf) node;
+			out.writeByte(LEAF);
+			out.writeInt(leaf.size);
+			for (int i = 0; i < leaf.size; i++) {
+				IndexFile.writeKey(out, leaf.keys[i], type);
+				out.writeInt(leaf.positions[i]);
+			}
+			return next[0]++;
+		}
+		Inner inner = (Inner) node;
+		int[] children = new int[inner.size + 1];
+		for (int i = 0; i <= inner.size; i++) {
+			children[i] = writePage(out, inner.children[i], next);
+		}
+		out.writeByte(INNER);
+		out.writeInt(inner.size);
+		for (int child : children) {
+			out.writeInt(child);
+		}
+		for (int i = 0; i < inner.size; i++) {
+			IndexFile.writeKey(out, inner.keys[i], type);
+			out.writeInt(inner.positions[i]);
+		}
+		return next[0]++;
+	}
+
+	private static abstract class Node {
+		protected Object[] keys = new Object[capacity + 1];
+		protected int[] positions = new int[capacity + 1];
+		protected int size;
+	}
+
+	private static class Leaf extends Node {
+		private Leaf next;
+	}
+
+	/**
+	 * Separator i is the first entry under child i + 1.
+	 */
+	private static class Inner extends Node {
+		private Node[] children = new Node[capacity + 2];
+	}
+
+	private static class Split {
+		private Object key;
+		private int position;
+		private Node right;
+
+		private Split(Object key, int position, Node right) {
+			this.key = key;
+			this.position = position;
+			this.right = right;
+		}
+	}
+}
@@ -0,0 +1,229 @@
+package index;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import accessories.IndexDefinition;
+import accessories.SQLExceptions;
+import accessories.TableValues;
+
+/**
+ * Bloom filter over the values of one column of one table file, telling
+ * that the file does not hold a value or that it may. It has as many bits
+ * and hash functions as the values of the file need for the false positive
+ * rate of its definition, and the bits of a value are picked by double
+ * hashing of its hash code. The filters of a table file are kept in a file
+ * next to it, stamped with the length and time of the table file and
+ * ending with a checksum like its zone map.
+ */
+public class BloomFilter {
+
+	public static final double DEFAULT_FALSE_POSITIVE_RATE = 0.01;
+
+	private static int magic = 0x424C4D31;
+	private static int bufferSize = 1 << 16;
+	private static String bloomString = ".bloom";
+	private static int maxHashes = 16;
+
+	private String columnName;
+	private int type;
+	private long[] bits;
+	private long numBits;
+	private int numHashes;
+
+	public BloomFilter(String columnName, int type, int numValues, double falsePositiveRate) {
+		this.columnName = columnName;
+		this.type = type;
+		double ln2 = Math.log(2);
+		long size = (long) Math.ceil(-Math.max(numValues, 1) * Math.log(falsePositiveRate) / (ln2 * ln2));
+		numBits = Math.max(64, Math.min(size, (long) Integer.MAX_VALUE * 64));
+		numHashes = (int) Math.max(1, Math.min(maxHashes, Math.round((double) numBits / Math.max(numValues, 1) * ln2)));
+		bits = new long[(int) ((numBits + 63) >>> 6)];
+	}
+
+	private BloomFilter(String columnName, int type, long[] bits, long numBits, int numHashes) {
+		this.columnName = columnName;
+		this.type = type;
+		this.bits = bits;
+		this.numBits = numBits;
+		this.numHashes = numHashes;
+	}
+
+	/**
+	 * Builds a filter over the values of every column with a definition.
+	 */
+	public static ArrayList<BloomFilter> build(TableValues data, ArrayList<IndexDefinition> definitions) {
+		ArrayList<BloomFilter> filters = new ArrayList<BloomFilter>();
+		for (IndexDefinition definition : definitions) {
+			int column = data.getcolNames().indexOf(definition.getColumnName());
+			if (column == -1) {
+				continue;
+			}
+			int numValues = 0;
+			for (ArrayList<Object> row : data.getRows()) {
+				if (row.get(column) != null) {
+					numValues++;
+				}
+			}
+			BloomFilter filter = new BloomFilter(definition.getColumnName(), data.getType(column), numValues,
+					definition.getFalsePositiveRate());
+			for (ArrayList<Object> row : data.getRows()) {
+				filter.add(row.get(column));
+			}
+			filters.add(filter);
+		}
+		return filters;
+	}
+
+	public String getColumnName() {
+		return columnName;
+	}
+
+	public int getType() {
+		return type;
+	}
+
+	/**
+	 * Nulls are not added.
+	 */
+	public void add(Object key) {
+		if (key == null) {
+			return;
+		}
+		long hash = mix(key.hashCode());
+		long step = mix(hash) | 1;
+		for (int i = 0; i < numHashes; i++) {
+			long bit = ((hash + i * step) & Long.MAX_VALUE) % numBits;
+			bits[(int) (bit >>> 6)] |= 1L << bit;
+		}
+	}
+
+	/**
+	 * Returns false when key was certainly never added.
+	 */
+	public boolean mightContain(Object key) {
+		if (key == null) {
+			return false;
+		}
+		long hash = mix(key.hashCode());
+		long step = mix(hash) | 1;
+		for (int i = 0; i < numHashes; i++) {
+			long bit = ((hash + i * step) & Long.MAX_VALUE) % numBits;
+			if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public static File getFile(File tableFile) {
+		return new File(tableFile.getPath() + bloomString);
+	}
+
+	/**
+	 * Removes the filters of tableFile, before the table file changes.
+	 */
+	public static void delete(File tableFile) {
+		getFile(tableFile).delete();
+	}
+
+	/**
+	 * Writes the filters of the rows tableFile was just written with.
+	 */
+	public static void write(ArrayList<BloomFilter> filters, File tableFile) throws SQLException {
+		try {
+			CheckedOutputStream checked = new CheckedOutputStream(
+					new BufferedOutputStream(new FileOutputStream(getFile(tableFile)), bufferSize), new CRC32());
+			DataOutputStream data = new DataOutputStream(checked);
+			try {
+				data.writeInt(magic);
+				data.writeLong(tableFile.length());
+				data.writeLong(tableFile.lastModified());
+				data.writeInt(filters.size());
+				for (BloomFilter filter : filters) {
+					data.writeUTF(filter.columnName);
+					data.writeInt(filter.type);
+					data.writeLong(filter.numBits);
+					data.writeInt(filter.numHashes);
+					for (long word : filter.bits) {
+						data.writeLong(word);
+					}
+				}
+				data.flush();
+				data.writeLong(checked.getChecksum().getValue());
+			} finally {
+				data.close();
+			}
+		} catch (IOException e) {
+			SQLExceptions.canNotWriteFile();
+		}
+	}
+
+	/**
+	 * Returns the filters of tableFile, null when it has none that can be
+	 * trusted.
+	 */
+	public static ArrayList<BloomFilter> read(File tableFile) {
+		File source = getFile(tableFile);
+		if (!source.isFile()) {
+			return null;
+		}
+		try {
+			CheckedInputStream checked = new CheckedInputStream(
+					new BufferedInputStream(new FileInputStream(source), bufferSize), new CRC32());
+			DataInputStream data = new DataInputStream(checked);
+			try {
+				if (data.readInt() != magic || data.readLong() != tableFile.length()
+						|| data.readLong() != tableFile.lastModified()) {
+					return null;
+				}
+				int numFilters = data.readInt();
+				ArrayList<BloomFilter> filters = new ArrayList<BloomFilter>();
+				for (int i = 0; i < numFilters; i++) {
+					String columnName = data.readUTF();
+					int type = data.readInt();
+					long numBits = data.readLong();
+					int numHashes = data.readInt();
+					if (numBits < 64 || numBits > (long) Integer.MAX_VALUE * 64 || numHashes < 1
+							|| numBits > source.length() * 8) {
+						throw new IOException("Damaged Bloom filter.");
+					}
+					long[] bits = new long[(int) ((numBits + 63) >>> 6)];
+					for (int word = 0; word < bits.length; word++) {
+						bits[word] = data.readLong();
+					}
+					filters.add(new BloomFilter(columnName, type, bits, numBits, numHashes));
+				}
+				long checksum = checked.getChecksum().getValue();
+				return data.readLong() == checksum ? filters : null;
+			} finally {
+				data.close();
+			}
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Spreads a hash code over 64 bits, the hash codes of the column types
+	 * agree with their comparators and do not change between runs.
+	 */
+	private static long mix(long hash) {
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		return hash ^ (hash >>> 33);
+	}
+}
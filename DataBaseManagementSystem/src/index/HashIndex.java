@@ -0,0 +1,306 @@
+package index;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+
+import accessories.IndexDefinition;
+import dataTypesController.Comparators;
+
+/**
+ * Extendible hash index, answering equality only. The directory has two to
+ * the global depth slots, the low bits of the hash of a value pick the slot
+ * and the slot the bucket, so a lookup reads one bucket. A full bucket is
+ * split on its next hash bit, doubling the directory when the bucket
+ * already uses all its bits. Entries that a split can not separate, the
+ * rows of one value, stay together in a bucket past its capacity. On disk
+ * every bucket is a page followed by the directory.
+ */
+public class HashIndex implements IIndex {
+
+	private static int capacity = 64;
+	private static int maxDepth = 20;
+
+	private IndexDefinition definition;
+	private int type;
+	private Comparator<Object> comparator;
+	private Bucket[] directory;
+	private int globalDepth;
+	private int size;
+
+	public HashIndex(IndexDefinition definition, int type) throws SQLException {
+		this.definition = definition;
+		this.type = type;
+		comparator = Comparators.getInstance().getComparator(type);
+		clear();
+	}
+
+	@Override
+	public IndexDefinition getDefinition() {
+		return definition;
+	}
+
+	@Override
+	public int getType() {
+		return type;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public void build(ArrayList<ArrayList<Object>> rows, int column) {
+		clear();
+		for (int i = 0; i < rows.size(); i++) {
+			insert(rows.get(i).get(column), i);
+		}
+	}
+
+	@Override
+	public void insert(Object key, int position) {
+		int hash = hash(key);
+		Bucket bucket = directory[hash & ((1 << globalDepth) - 1)];
+		bucket.add(hash, key, position);
+		size++;
+		while (bucket.size > capacity && canSplit(bucket)) {
+			split(bucket);
+			bucket = directory[hash & ((1 << globalDepth) - 1)];
+		}
+	}
+
+	@Override
+	public void remove(Object key, int position) {
+		int hash = hash(key);
+		Bucket bucket = directory[hash & ((1 << globalDepth) - 1)];
+		for (int i = 0; i < bucket.size; i++) {
+			if (bucket.positions[i] == position && bucket.hashes[i] == hash
+					&& comparator.compare(bucket.keys[i], key) == 0) {
+				bucket.removeAt(i);
+				size--;
+				return;
+			}
+		}
+	}
+
+	@Override
+	public void delete(int[] deleted) {
+		if (deleted.length == 0) {
+			return;
+		}
+		IdentityHashMap<Bucket, Bucket> visited = new IdentityHashMap<Bucket, Bucket>();
+		for (Bucket bucket : directory) {
+			if (visited.put(bucket, bucket) != null) {
+				continue;
+			}
+			int kept = 0;
+			for (int i = 0; i < bucket.size; i++) {
+				int found = Arrays.binarySearch(deleted, bucket.positions[i]);
+				if (found < 0) {
+					bucket.hashes[kept] = bucket.hashes[i];
+					bucket.keys[kept] = bucket.keys[i];
+					bucket.positions[kept++] = bucket.positions[i] + found + 1;
+				}
+			}
+			Arrays.fill(bucket.keys, kept, bucket.size, null);
+			size -= bucket.size - kept;
+			bucket.size = kept;
+		}
+	}
+
+	/**
+	 * Returns the positions in ascending order.
+	 */
+	@Override
+	public int[] find(Object key) {
+		if (key == null) {
+			return new int[0];
+		}
+		int hash = hash(key);
+		Bucket bucket = directory[hash & ((1 << globalDepth) - 1)];
+		int[] result = new int[bucket.size];
+		int count = 0;
+		for (int i = 0; i < bucket.size; i++) {
+			if (bucket.hashes[i] == hash && comparator.compare(bucket.keys[i], key) == 0) {
+				result[count++] = bucket.positions[i];
+			}
+		}
+		result = Arrays.copyOf(result, count);
+		Arrays.sort(result);
+		return result;
+	}
+
+	@Override
+	public boolean isOrdered() {
+		return false;
+	}
+
+	@Override
+	public int[] find(Object low, boolean lowInclusive, Object high, boolean highInclusive) {
+		return null;
+	}
+
+	@Override
+	public void writeTo(DataOutputStream out) throws IOException {
+		IdentityHashMap<Bucket, Integer> pages = new IdentityHashMap<Bucket, Integer>();
+		ArrayList<Bucket> buckets = new ArrayList<Bucket>();
+		for (Bucket bucket : directory) {
+			if (!pages.containsKey(bucket)) {
+				pages.put(bucket, buckets.size());
+				buckets.add(bucket);
+			}
+		}
+		out.writeInt(size);
+		out.writeInt(globalDepth);
+		out.writeInt(buckets.size());
+		for (Bucket bucket : buckets) {
+			out.writeInt(bucket.localDepth);
+			out.writeInt(bucket.size);
+			for (int i = 0; i < bucket.size; i++) {
+				IndexFile.writeKey(out, bucket.keys[i], type);
+				out.writeInt(bucket.positions[i]);
+			}
+		}
+		for (Bucket bucket : directory) {
+			out.writeInt(pages.get(bucket));
+		}
+	}
+
+	@Override
+	public void readFrom(DataInputStream in) throws IOException {
+		int numEntries = in.readInt();
+		int depth = in.readInt();
+		int numBuckets = in.readInt();
+		if (depth < 0 || depth > maxDepth || numBuckets < 1 || numBuckets > 1 << depth) {
+			throw new IOException("Damaged index page.");
+		}
+		Bucket[] buckets = new Bucket[numBuckets];
+		for (int page = 0; page < numBuckets; page++) {
+			int localDepth = in.readInt();
+			int numKeys = in.readInt();
+			if (localDepth < 0 || localDepth > depth || numKeys < 0) {
+				throw new IOException("Damaged index page.");
+			}
+			Bucket bucket = new Bucket(localDepth);
+			for (int i = 0; i < numKeys; i++) {
+				Object key = IndexFile.readKey(in, type);
+				bucket.add(hash(key), key, in.readInt());
+			}
+			buckets[page] = bucket;
+		}
+		Bucket[] slots = new Bucket[1 << depth];
+		for (int i = 0; i < slots.length; i++) {
+			int page = in.readInt();
+			if (page < 0 || page >= numBuckets) {
+				throw new IOException("Damaged index page.");
+			}
+			slots[i] = buckets[page];
+		}
+		directory = slots;
+		globalDepth = depth;
+		size = numEntries;
+	}
+
+	private void clear() {
+		directory = new Bucket[] { new Bucket(0) };
+		globalDepth = 0;
+		size = 0;
+	}
+
+	/**
+	 * A bucket whose entries all have the same hash can not be split.
+	 */
+	private boolean canSplit(Bucket bucket) {
+		if (bucket.localDepth == maxDepth) {
+			return false;
+		}
+		for (int i = 1; i < bucket.size; i++) {
+			if (bucket.hashes[i] != bucket.hashes[0]) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void split(Bucket bucket) {
+		if (bucket.localDepth == globalDepth) {
+			directory = Arrays.copyOf(directory, directory.length * 2);
+			System.arraycopy(directory, 0, directory, directory.length / 2, directory.length / 2);
+			globalDepth++;
+		}
+		int bit = 1 << bucket.localDepth;
+		bucket.localDepth++;
+		Bucket sibling = new Bucket(bucket.localDepth);
+		int kept = 0;
+		for (int i = 0; i < bucket.size; i++) {
+			if ((bucket.hashes[i] & bit) != 0) {
+				sibling.add(bucket.hashes[i], bucket.keys[i], bucket.positions[i]);
+			} else {
+				bucket.hashes[kept] = bucket.hashes[i];
+				bucket.keys[kept] = bucket.keys[i];
+				bucket.positions[kept++] = bucket.positions[i];
+			}
+		}
+		Arrays.fill(bucket.keys, kept, bucket.size, null);
+		bucket.size = kept;
+		for (int i = 0; i < directory.length; i++) {
+			if (directory[i] == bucket && (i & bit) != 0) {
+				directory[i] = sibling;
+			}
+		}
+	}
+
+	/**
+	 * Hash of the value spread over the low bits, the hash codes of the
+	 * column types agree with their comparators.
+	 */
+	private static int hash(Object key) {
+		int hash = key == null ? 0 : key.hashCode();
+		hash ^= hash >>> 16;
+		hash *= 0x85ebca6b;
+		hash ^= hash >>> 13;
+		hash *= 0xc2b2ae35;
+		return hash ^ (hash >>> 16);
+	}
+
+	private static class Bucket {
+		private int localDepth;
+		private int[] hashes;
+		private Object[] keys;
+		private int[] positions;
+		private int size;
+
+		private Bucket(int localDepth) {
+			this.localDepth = localDepth;
+			hashes = new int[8];
+			keys = new Object[8];
+			positions = new int[8];
+			size = 0;
+		}
+
+		private void add(int hash, Object key, int position) {
+			if (size == hashes.length) {
+				hashes = Arrays.copyOf(hashes, size * 2);
+				keys = Arrays.copyOf(keys, size * 2);
+				positions = Arrays.copyOf(positions, size * 2);
+			}
+			hashes[size] = hash;
+			keys[size] = key;
+			positions[size++] = position;
+		}
+
+		private void removeAt(int index) {
+			size--;
+			hashes[index] = hashes[size];
+			keys[index] = keys[size];
+			positions[index] = positions[size];
+			keys[size] = null;
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package index;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import accessories.IndexDefinition;
+
+/**
+ * Index of the values of one column of a table. Every entry is a value and
+ * the position of its row, the table keeps the positions in step as rows are
+ * added, changed and deleted.
+ */
+public interface IIndex {
+
+	IndexDefinition getDefinition();
+
+	int getType();
+
+	int size();
+
+	/**
+	 * Replaces the entries with the values of column in rows.
+	 */
+	void build(ArrayList<ArrayList<Object>> rows, int column);
+
+	void insert(Object key, int position);
+
+	void remove(Object key, int position);
+
+	/**
+	 * Removes the entries of the rows at positions, which are in ascending
+	 * order, and moves the positions after them down.
+	 */
+	void delete(int[] positions);
+
+	/**
+	 * Returns the positions of the rows whose value equals key in ascending
+	 * order, none for a null key.
+	 */
+	int[] find(Object key);
+
+	/**
+	 * Whether find can also answer ranges.
+	 */
+	boolean isOrdered();
+
+	/**
+	 * Returns the positions of the rows whose value lies between low and
+	 * high, null when the index is not ordered. A null bound leaves that end
+	 * open, nulls sort before every value so an open low end includes them.
+	 */
+	int[] find(Object low, boolean lowInclusive, Object high, boolean highInclusive);
+
+	void writeTo(DataOutputStream out) throws IOException;
+
+	void readFrom(DataInputStream in) throws IOException;
+}
@@ -0,0 +1,253 @@
+package index;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import accessories.IndexDefinition;
+import accessories.SQLExceptions;
+
+/**
+ * Creates indexes by method and stores them in their files. A file starts
+ * with the whole definition of the index and the type of its column, so
+ * that the catalog can be rebuilt from the files, then the entries with a
+ * stamp of the table files they were written with, and ends with a
+ * checksum. A Bloom filter, and an index that was not written with its
+ * table yet, has a file with the definition only. An index whose file is
+ * missing, damaged, without entries or stamped for other table files has to
+ * be built again from the rows.
+ */
+public class IndexFile {
+
+	public static final String BTREE = "BTREE";
+	public static final String HASH = "HASH";
+	public static final String BLOOM = "BLOOM";
+
+	private static int magic = 0x49445833;
+	private static int bufferSize = 1 << 16;
+	private static final byte NULL = 0;
+	private static final byte VALUE = 1;
+
+	private IndexFile() {
+
+	}
+
+	public static IIndex create(IndexDefinition definition, int type) throws SQLException {
+		switch (definition.getMethod()) {
+		case BTREE:
+			return new BPlusTree(definition, type);
+		case HASH:
+			return new HashIndex(definition, type);
+		default:
+			SQLExceptions.unknownIndexMethod(definition.getMethod());
+		}
+		return null;
+	}
+
+	/**
+	 * Writes the index and forces it to the disk.
+	 */
+	public static void write(IIndex index, File target, long stamp) throws SQLException {
+		write(index.getDefinition(), index.getType(), index, target, stamp);
+	}
+
+	/**
+	 * Writes the definition of an index on a column of type without entries
+	 * and forces it to the disk.
+	 */
+	public static void writeDefinition(IndexDefinition definition, int type, File target) throws SQLException {
+		write(definition, type, null, target, 0);
+	}
+
+	/**
+	 * Returns the definition in the file, null when the file is damaged.
+	 */
+	public static IndexDefinition readDefinition(File source) {
+		if (!isIntact(source)) {
+			return null;
+		}
+		try {
+			DataInputStream data = new DataInputStream(new BufferedInputStream(new FileInputStream(source)));
+			try {
+				return data.readInt() == magic ? readDefinition(data) : null;
+			} finally {
+				data.close();
+			}
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	private static void write(IndexDefinition definition, int type, IIndex index, File target, long stamp)
+			throws SQLException {
+		try {
+			FileOutputStream output = new FileOutputStream(target);
+			try {
+				CheckedOutputStream checked = new CheckedOutputStream(
+						new BufferedOutputStream(output, bufferSize), new CRC32());
+				DataOutputStream data = new DataOutputStream(checked);
+				data.writeInt(magic);
+				writeDefinition(data, definition);
+				data.writeInt(type);
+				data.writeBoolean(index != null);
+				if (index != null) {
+					data.writeLong(stamp);
+					index.writeTo(data);
+				}
+				data.flush();
+				data.writeLong(checked.getChecksum().getValue());
+				data.flush();
+				output.getFD().sync();
+			} finally {
+				output.close();
+			}
+		} catch (IOException e) {
+			SQLExceptions.canNotWriteFile();
+		}
+	}
+
+	/**
+	 * Loads the entries of index from source, returns false when the file
+	 * can not be used.
+	 */
+	public static boolean read(IIndex index, File source, long stamp) {
+		if (!source.isFile()) {
+			return false;
+		}
+		try {
+			CheckedInputStream checked = new CheckedInputStream(
+					new BufferedInputStream(new FileInputStream(source), bufferSize), new CRC32());
+			DataInputStream data = new DataInputStream(checked);
+			try {
+				if (data.readInt() != magic || !isSame(readDefinition(data), index.getDefinition())
+						|| data.readInt() != index.getType() || !data.readBoolean() || data.readLong() != stamp) {
+					return false;
+				}
+				index.readFrom(data);
+				long checksum = checked.getChecksum().getValue();
+				if (data.readLong() != checksum) {
+					return false;
+				}
+			} finally {
+				data.close();
+			}
+		} catch (IOException e) {
+			return false;
+		}
+		return true;
+	}
+
+	private static void writeDefinition(DataOutputStream out, IndexDefinition definition) throws IOException {
+		out.writeUTF(definition.getName());
+		out.writeUTF(definition.getColumnName());
+		out.writeUTF(definition.getMethod());
+		out.writeUTF(definition.getConstraint() == null ? "" : definition.getConstraint());
+		out.writeDouble(definition.getFalsePositiveRate());
+	}
+
+	private static IndexDefinition readDefinition(DataInputStream in) throws IOException {
+		String name = in.readUTF();
+		String columnName = in.readUTF();
+		String method = in.readUTF();
+		String constraint = in.readUTF();
+		return new IndexDefinition(name, columnName, method, constraint.isEmpty() ? null : constraint,
+				in.readDouble());
+	}
+
+	private static boolean isSame(IndexDefinition read, IndexDefinition definition) {
+		return read.getName().equals(definition.getName()) && read.getColumnName().equals(definition.getColumnName())
+				&& read.getMethod().equals(definition.getMethod())
+				&& String.valueOf(read.getConstraint()).equals(String.valueOf(definition.getConstraint()))
+				&& read.getFalsePositiveRate() == definition.getFalsePositiveRate();
+	}
+
+	/**
+	 * Tells whether the checksum at the end of the file matches the bytes
+	 * before it.
+	 */
+	private static boolean isIntact(File source) {
+		long remaining = source.length() - 8;
+		if (remaining < 0) {
+			return false;
+		}
+		try {
+			CheckedInputStream checked = new CheckedInputStream(
+					new BufferedInputStream(new FileInputStream(source), bufferSize), new CRC32());
+			DataInputStream data = new DataInputStream(checked);
+			try {
+				byte[] buffer = new byte[bufferSize];
+				while (remaining > 0) {
+					int read = data.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+					if (read < 0) {
+						return false;
+					}
+					remaining -= read;
+				}
+				long checksum = checked.getChecksum().getValue();
+				return data.readLong() == checksum;
+			} finally {
+				data.close();
+			}
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	static void writeKey(DataOutputStream out, Object key, int type) throws IOException {
+		if (key == null) {
+			out.writeByte(NULL);
+			return;
+		}
+		out.writeByte(VALUE);
+		switch (type) {
+		case Types.INTEGER:
+			out.writeInt((Integer) key);
+			break;
+		case Types.FLOAT:
+			out.writeFloat((Float) key);
+			break;
+		case Types.DATE:
+			out.writeLong(((Date) key).getTime());
+			break;
+		default:
+			byte[] bytes = ((String) key).getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+			break;
+		}
+	}
+
+	static Object readKey(DataInputStream in, int type) throws IOException {
+		if (in.readByte() == NULL) {
+			return null;
+		}
+		switch (type) {
+		case Types.INTEGER:
+			return in.readInt();
+		case Types.FLOAT:
+			return in.readFloat();
+		case Types.DATE:
+			return new Date(in.readLong());
+		default:
+			int length = in.readInt();
+			if (length < 0) {
+				throw new IOException("Damaged key.");
+			}
+			byte[] bytes = new byte[length];
+			in.readFully(bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+	}
+}
@@ -0,0 +1,262 @@
+package index;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import accessories.SQLExceptions;
+import accessories.TableValues;
+import dataTypesController.Comparators;
+
+/**
+ * Smallest and largest value and number of nulls of every column in every
+ * block of BLOCK_SIZE consecutive rows, so that a block none of whose rows
+ * can pass a condition is skipped without reading them. The values only
+ * have to enclose those of the rows, an update widens them and they are
+ * tightened again when the rows are written. A table file keeps the zone
+ * map of its rows in a file next to it, stamped with the length and time of
+ * the table file it describes and ending with a checksum, any other zone
+ * map file is ignored.
+ */
+public class ZoneMap {
+
+	public static final int BLOCK_SIZE = 1024;
+
+	private static int magic = 0x5A4F4E32;
+	private static int bufferSize = 1 << 16;
+	private static String zoneString = ".zone";
+
+	private ArrayList<String> colNames;
+	private ArrayList<Integer> colTypes;
+	private ArrayList<Comparator<Object>> comparators;
+	private ArrayList<Object[]> mins;
+	private ArrayList<Object[]> maxs;
+	private ArrayList<int[]> nullCounts;
+	private int numRows;
+
+	public ZoneMap(ArrayList<String> colNames, ArrayList<Integer> colTypes) throws SQLException {
+		this.colNames = new ArrayList<String>(colNames);
+		this.colTypes = new ArrayList<Integer>(colTypes);
+		comparators = new ArrayList<Comparator<Object>>();
+		for (int type : colTypes) {
+			comparators.add(Comparators.getInstance().getComparator(type));
+		}
+		mins = new ArrayList<Object[]>();
+		maxs = new ArrayList<Object[]>();
+		nullCounts = new ArrayList<int[]>();
+		numRows = 0;
+	}
+
+	public static ZoneMap build(TableValues table) throws SQLException {
+		ZoneMap zones = new ZoneMap(table.getcolNames(), table.getColTypes());
+		for (ArrayList<Object> row : table.getRows()) {
+			zones.add(row);
+		}
+		return zones;
+	}
+
+	/**
+	 * Adds a row after the last one.
+	 */
+	public void add(ArrayList<Object> row) {
+		int block = numRows / BLOCK_SIZE;
+		if (block == mins.size()) {
+			mins.add(new Object[colNames.size()]);
+			maxs.add(new Object[colNames.size()]);
+			nullCounts.add(new int[colNames.size()]);
+		}
+		for (int column = 0; column < colNames.size(); column++) {
+			widen(block, column, row.get(column));
+		}
+		numRows++;
+	}
+
+	/**
+	 * Records that the cell of column at position changed from before to
+	 * after.
+	 */
+	public void update(int position, int column, Object before, Object after) {
+		int block = position / BLOCK_SIZE;
+		if (before == null) {
+			nullCounts.get(block)[column]--;
+		}
+		widen(block, column, after);
+	}
+
+	public int getNumRows() {
+		return numRows;
+	}
+
+	public int getNumBlocks() {
+		return mins.size();
+	}
+
+	public int getBlockRows(int block) {
+		return Math.min(BLOCK_SIZE, numRows - block * BLOCK_SIZE);
+	}
+
+	/**
+	 * Returns the column of the zone map for every name, -1 for a name it
+	 * does not have.
+	 */
+	public int[] getColumns(ArrayList<String> names) {
+		int[] columns = new int[names.size()];
+		for (int i = 0; i < columns.length; i++) {
+			columns[i] = colNames.indexOf(names.get(i));
+		}
+		return columns;
+	}
+
+	/**
+	 * Null when every cell of the column in the block is null.
+	 */
+	public Object getMin(int block, int column) {
+		return mins.get(block)[column];
+	}
+
+	public Object getMax(int block, int column) {
+		return maxs.get(block)[column];
+	}
+
+	public int getNullCount(int block, int column) {
+		return nullCounts.get(block)[column];
+	}
+
+	public static File getFile(File tableFile) {
+		return new File(tableFile.getPath() + zoneString);
+	}
+
+	/**
+	 * Removes the zone map of tableFile, before the table file changes.
+	 */
+	public static void delete(File tableFile) {
+		getFile(tableFile).delete();
+	}
+
+	/**
+	 * Writes the zone map of the rows tableFile was just written with.
+	 */
+	public static void write(ZoneMap zones, File tableFile) throws SQLException {
+		try {
+			CheckedOutputStream checked = new CheckedOutputStream(
+					new BufferedOutputStream(new FileOutputStream(getFile(tableFile)), bufferSize), new CRC32());
+			DataOutputStream data = new DataOutputStream(checked);
+			try {
+				data.writeInt(magic);
+				data.writeLong(tableFile.length());
+				data.writeLong(tableFile.lastModified());
+				zones.writeTo(data);
+				data.flush();
+				data.writeLong(checked.getChecksum().getValue());
+			} finally {
+				data.close();
+			}
+		} catch (IOException e) {
+			SQLExceptions.canNotWriteFile();
+		}
+	}
+
+	/**
+	 * Returns the zone map of tableFile, null when it has none that can be
+	 * trusted.
+	 */
+	public static ZoneMap read(File tableFile) {
+		File source = getFile(tableFile);
+		if (!source.isFile()) {
+			return null;
+		}
+		try {
+			CheckedInputStream checked = new CheckedInputStream(
+					new BufferedInputStream(new FileInputStream(source), bufferSize), new CRC32());
+			DataInputStream data = new DataInputStream(checked);
+			try {
+				if (data.readInt() != magic || data.readLong() != tableFile.length()
+						|| data.readLong() != tableFile.lastModified()) {
+					return null;
+				}
+				ZoneMap zones = readFrom(data);
+				long checksum = checked.getChecksum().getValue();
+				return data.readLong() == checksum ? zones : null;
+			} finally {
+				data.close();
+			}
+		} catch (IOException e) {
+			return null;
+		} catch (SQLException e) {
+			return null;
+		}
+	}
+
+	private void writeTo(DataOutputStream out) throws IOException {
+		out.writeInt(colNames.size());
+		for (int column = 0; column < colNames.size(); column++) {
+			out.writeUTF(colNames.get(column));
+			out.writeInt(colTypes.get(column));
+		}
+		out.writeInt(numRows);
+		for (int block = 0; block < mins.size(); block++) {
+			for (int column = 0; column < colNames.size(); column++) {
+				IndexFile.writeKey(out, mins.get(block)[column], colTypes.get(column));
+				IndexFile.writeKey(out, maxs.get(block)[column], colTypes.get(column));
+				out.writeInt(nullCounts.get(block)[column]);
+			}
+		}
+	}
+
+	private static ZoneMap readFrom(DataInputStream in) throws IOException, SQLException {
+		int numCols = in.readInt();
+		ArrayList<String> colNames = new ArrayList<String>();
+		ArrayList<Integer> colTypes = new ArrayList<Integer>();
+		for (int column = 0; column < numCols; column++) {
+			colNames.add(in.readUTF());
+			colTypes.add(in.readInt());
+		}
+		ZoneMap zones = new ZoneMap(colNames, colTypes);
+		zones.numRows = in.readInt();
+		if (zones.numRows < 0) {
+			throw new IOException("Damaged zone map.");
+		}
+		int numBlocks = (zones.numRows + BLOCK_SIZE - 1) / BLOCK_SIZE;
+		for (int block = 0; block < numBlocks; block++) {
+			Object[] min = new Object[numCols];
+			Object[] max = new Object[numCols];
+			int[] nulls = new int[numCols];
+			for (int column = 0; column < numCols; column++) {
+				min[column] = IndexFile.readKey(in, colTypes.get(column));
+				max[column] = IndexFile.readKey(in, colTypes.get(column));
+				nulls[column] = in.readInt();
+			}
+			zones.mins.add(min);
+			zones.maxs.add(max);
+			zones.nullCounts.add(nulls);
+		}
+		return zones;
+	}
+
+	private void widen(int block, int column, Object value) {
+		if (value == null) {
+			nullCounts.get(block)[column]++;
+			return;
+		}
+		Object[] min = mins.get(block);
+		Object[] max = maxs.get(block);
+		Comparator<Object> comparator = comparators.get(column);
+		if (min[column] == null || comparator.compare(value, min[column]) < 0) {
+			min[column] = value;
+		}
+		if (max[column] == null || comparator.compare(value, max[column]) > 0) {
+			max[column] = value;
+		}
+	}
+}
@@ -32,9 +32,11 @@ public class Connection implements java.sql.Connection {
 
 	/// for security issues :D connection can not be initialized without driver
 	/// :D
-	public Connection(Driver parent, String dbPath, String dbName, String random, String protocol) throws SQLException {
+	public Connection(Driver parent, String dbPath, String dbName, String random, String protocol,
+			Properties info) throws SQLException {
 		// this.driverParent = parent;
 		core.makeDir(dbPath, dbName, random, protocol);
+		core.configure(info);
 		statements = new ArrayList<>();
 		logtoFile("Connection is done.");
 	}
@@ -60,6 +62,7 @@ public class Connection implements java.sql.Connection {
 		for (int i = 0; i < statements.size(); i++) {
 			statements.get(i).close();
 		}
+		core.close();
 		closed = true;
 		logtoFile("Statement is closed.");
 	}
@@ -27,7 +27,8 @@ public class Driver implements java.sql.Driver {
 		/// url is wrong
 		if (urlNames.size() != 3 || !urlNames.get(0).toLowerCase().equals("jdbc")
 				|| !(urlNames.get(1).equals("xmldb") || urlNames.get(1).equals("jsondb")
-					|| urlNames.get(1).equals("pbdb") || urlNames.get(1).equals("altdb"))
+					|| urlNames.get(1).equals("pbdb") || urlNames.get(1).equals("coldb")
+					|| urlNames.get(1).equals("altdb"))
 				|| !urlNames.get(2).equals("//localhost")) {
 			return false;
 		} else {
@@ -51,7 +52,7 @@ public class Driver implements java.sql.Driver {
 		// checking the database and creating it
 		if (acceptsURL(url)) {
 			cutPath(info.get("path").toString());
-			return (new jDBC.Connection(this, dbPath, dbName, random, protocol));
+			return (new jDBC.Connection(this, dbPath, dbName, random, protocol, info));
 		}
 		return null;
 	}
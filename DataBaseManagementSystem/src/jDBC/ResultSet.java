@@ -123,6 +123,9 @@ public class ResultSet implements java.sql.ResultSet {
 
 	@Override
 	public void close() throws SQLException {
+		if (data != null) {
+			data.close();
+		}
 		data = null;
 		closed = true;
 	}
@@ -1,16 +1,19 @@
 package jDBC;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.List;
 
 public class ResultSetMetaData implements java.sql.ResultSetMetaData {
 
-	private ArrayList<ArrayList<Object>> table;
+	private List<ArrayList<Object>> table;
 	private ArrayList<String> colNames;
 	private ArrayList<Integer> colTypes;
 	private String tableName;
 
-	public ResultSetMetaData(ArrayList<ArrayList<Object>> table, ArrayList<String> colNames,
+	public ResultSetMetaData(List<ArrayList<Object>> table, ArrayList<String> colNames,
 			ArrayList<Integer> colTypes, String tableName) {
 		this.table = table;
 		this.colNames = new ArrayList<>(colNames);
@@ -19,10 +22,20 @@ public class ResultSetMetaData implements java.sql.ResultSetMetaData {
 		this.tableName = tableName;
 	}
 
-	public ArrayList<ArrayList<Object>> getTable() {
+	public List<ArrayList<Object>> getTable() {
 		return table;
 	}
 
+	// deletes the temporary files of rows that are read from disk
+	public void close() {
+		if (table instanceof Closeable) {
+			try {
+				((Closeable) table).close();
+			} catch (IOException e) {
+			}
+		}
+	}
+
 	public String getColumnName(int arg0) throws SQLException {
 		if (arg0 < 0 || arg0 > colNames.size())
 			throw new RuntimeException("Invalid index");
@@ -131,4 +144,4 @@ public class ResultSetMetaData implements java.sql.ResultSetMetaData {
 		throw new java.lang.UnsupportedOperationException();
 	}
 
-}
\ No newline at end of file
+}
\ No newline at end of file
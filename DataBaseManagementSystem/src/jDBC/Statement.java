@@ -38,6 +38,8 @@ public class Statement implements java.sql.Statement {
 	private ResultSet currentSet;
 	/// update count of last execution
 	private int currentCount = -1;
+	/// most rows a query returns, 0 for no limit
+	private int maxRows = 0;
 
 	public Statement(jDBC.Connection parent, Controller core) {
 		this.parent_connection = parent;
@@ -92,10 +94,18 @@ public class Statement implements java.sql.Statement {
 	public void close() throws SQLException {
 		batchList = null;
 		core = null;
-		if(currentSet != null) currentSet.close();
+		closeCurrentSet();
 		closed = true;
 	}
 
+	// executing again closes the result of the last query
+	private void closeCurrentSet() throws SQLException {
+		if (currentSet != null) {
+			currentSet.close();
+		}
+		currentSet = null;
+	}
+
 	/*
 	 * boolean execute(String sql) throws SQLException Executes the given SQL
 	 * statement, which may return multiple results. In some (uncommon)
@@ -225,7 +235,8 @@ public class Statement implements java.sql.Statement {
 		if (!core.getFirstIdentifier(sql).equals(CommandsTypes.SELECT)
 				&& !core.getFirstIdentifier(sql).equals(CommandsTypes.UNION))
 			SQLExceptions.wrongCommand();
-		currentSet = turnArrayToResultset(core.excuteSelectSql(sql));
+		closeCurrentSet();
+		currentSet = turnArrayToResultset(core.excuteSelectSql(sql, maxRows));
 		currentCount = -1;
 		return new ResultSet(currentSet);
 	}
@@ -255,8 +266,8 @@ public class Statement implements java.sql.Statement {
 		CommandsTypes fi = core.getFirstIdentifier(sql);
 		if (fi.equals(CommandsTypes.SELECT) || fi.equals(CommandsTypes.UNION))
 			throw new SQLException("this function is not require to return data");
+		closeCurrentSet();
 		currentCount = core.excuteUpdateSql(sql);
-		currentSet = null;
 		return currentCount;
 	}
 
@@ -383,7 +394,8 @@ public class Statement implements java.sql.Statement {
 
 	@Override
 	public int getMaxRows() throws SQLException {
-		throw new SQLFeatureNotSupportedException();
+		checkDatabaseAndClosing();
+		return maxRows;
 	}
 
 	@Override
@@ -458,7 +470,11 @@ public class Statement implements java.sql.Statement {
 
 	@Override
 	public void setMaxRows(int max) throws SQLException {
-		throw new SQLFeatureNotSupportedException();
+		checkDatabaseAndClosing();
+		if (max < 0) {
+			throw new SQLException("Maximum number of rows can't be negative");
+		}
+		maxRows = max;
 	}
 
 	@Override
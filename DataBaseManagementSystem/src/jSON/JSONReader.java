@@ -1,93 +1,251 @@
 package jSON;
 
+import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
 import java.util.ArrayList;
 
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
-
-import dataTypesController.DataTypeController;
 import fileManipulator.IFileReader;
+import fileManipulator.IFilter;
+import fileManipulator.IRowSink;
+import fileManipulator.Projection;
+import fileManipulator.RowFilter;
+import jSON.JSONTokenizer.Token;
 import accessories.SQLExceptions;
 import accessories.StaticData.AttributeWords;
 import accessories.TableValues;
 
+/**
+ * Reads the Details, ColumnTypes, ColumnNames and Data members with a
+ * streaming tokenizer, converting every row as soon as it is read. Members
+ * may come in any order, rows that come before ColumnTypes and ColumnNames
+ * are kept as text until the columns are known. Cells of columns that are
+ * not wanted are skipped without being converted, and so are the other
+ * cells of rows that fail the filter.
+ */
 public class JSONReader implements IFileReader {
 
 	private static JSONReader instance;
 
 	private JSONReader() {
-		
+
 	}
 
 	public static JSONReader getInstance() {
 		if (instance == null) {
-			instance = new JSONReader();			
+			instance = new JSONReader();
 		}
 		return instance;
 	}
 
-	private ArrayList<String> getColumnNames(JSONArray array) {
-        ArrayList<String> arrayList = new ArrayList<>();
-        for (int i = 0; i < array.size(); i++) {
-            arrayList.add(array.get(i).toString());
-        }
-        return arrayList;
-    }
-
-    private ArrayList<Integer> getColumnTypes(JSONArray array) {
-        ArrayList<Integer> arrayList = new ArrayList<>();
-        for (int i = 0; i < array.size(); i++) {
-            arrayList.add(Integer.parseInt(array.get(i).toString()));
-        }
-        return arrayList;
-    }
-
-    private ArrayList<ArrayList<Object>> getTableData(
-            JSONArray tableDataJson, int numRows, int numCol, ArrayList<Integer> colTypes) throws SQLException {
-        ArrayList<ArrayList<Object>> tableDataList = new ArrayList<>();
-        ArrayList<Object> rowDataList;
-        for (int i = 0; i < numRows; i++) {
-            rowDataList = new ArrayList<>();
-            JSONArray rowDataJson = (JSONArray) tableDataJson.get(i);
-            for (int j = 0; j < numCol; j++) {
-            	Integer type = colTypes.get(j);
-                rowDataList.add(DataTypeController.convertData(type, rowDataJson.get(j).toString()));
-            }
-            tableDataList.add(rowDataList);
-        }
-        return tableDataList;
-    }
-
-    public TableValues read(File source) throws SQLException {
-        JSONParser jsonParser = new JSONParser();
-        Object object = null;
-        try {
-            object = jsonParser.parse(new FileReader(source));
-        } catch (IOException e) {
-        	SQLExceptions.fileNotFound();
-        } catch (org.json.simple.parser.ParseException e) {
-        	SQLExceptions.canNotParseFile();
-		}
-        JSONObject jsonObject = (JSONObject) object;
-        ArrayList<String> colNames = new ArrayList<String>(
-                getColumnNames((JSONArray) jsonObject.get(AttributeWords.ColumnNames.name())));
-        ArrayList<Integer> colTypes = new ArrayList<Integer>(
-                getColumnTypes((JSONArray) jsonObject.get(AttributeWords.ColumnTypes.name())));
-        JSONObject details = (JSONObject) jsonObject.get(AttributeWords.Details.name());
-        String numCols = details.get(AttributeWords.NumberOfColumns.name()).toString();
-        String numRows = details.get(AttributeWords.NumberOfRows.name()).toString();
-        String tableName = new String(details.get(AttributeWords.TableName.name()).toString());
-        ArrayList<ArrayList<Object>> raws = new ArrayList<>(getTableData(
-                (JSONArray) jsonObject.get(AttributeWords.Data.name()),
-                Integer.parseInt(numRows), Integer.parseInt(numCols), colTypes));
-        TableValues rawData = new TableValues(tableName, colTypes, colNames, raws,
-                Integer.parseInt(numCols), Integer.parseInt(numRows));
-        return rawData;
-    }
+	public TableValues read(File source) throws SQLException {
+		return read(source, null, null);
+	}
+
+	public TableValues read(File source, ArrayList<String> columns, IFilter filter) throws SQLException {
+		return read(source, columns, filter, null);
+	}
+
+	public TableValues read(File source, ArrayList<String> columns, IFilter filter, IRowSink sink)
+			throws SQLException {
+		TableValues rawData = null;
+		try {
+			Reader reader = new BufferedReader(new InputStreamReader(new FileInputStream(source), StandardCharsets.UTF_8));
+			try {
+				rawData = read(new JSONTokenizer(reader), columns, filter, sink);
+			} finally {
+				reader.close();
+			}
+		} catch (FileNotFoundException e) {
+			SQLExceptions.fileNotFound();
+		} catch (IOException e) {
+			SQLExceptions.canNotReadFile();
+		}
+		return rawData;
+	}
+
+	private TableValues read(JSONTokenizer tokenizer, ArrayList<String> columns, IFilter filter, IRowSink sink)
+			throws SQLException {
+		String tableName = null;
+		int numCols = -1;
+		ArrayList<String> colNames = null;
+		ArrayList<Integer> colTypes = null;
+		ArrayList<ArrayList<Object>> raws = null;
+		ArrayList<String[]> pendingRows = null;
+		tokenizer.expect(Token.BEGIN_OBJECT);
+		while (tokenizer.peek() != Token.END_OBJECT) {
+			String key = tokenizer.nextString();
+			if (key.equals(AttributeWords.Details.name())) {
+				String[] details = getDetails(tokenizer);
+				tableName = details[0];
+				numCols = Integer.parseInt(details[1]);
+			} else if (key.equals(AttributeWords.ColumnTypes.name())) {
+				colTypes = getColumnTypes(tokenizer);
+			} else if (key.equals(AttributeWords.ColumnNames.name())) {
+				colNames = getColumnNames(tokenizer);
+			} else if (key.equals(AttributeWords.Data.name())) {
+				if (colTypes == null || colNames == null) {
+					pendingRows = getRawData(tokenizer);
+				} else {
+					int[] projection = Projection.getColumns(colNames, columns);
+					raws = getTableData(tokenizer, colNames.size(), projection, Projection.select(colTypes, projection),
+							RowFilter.create(filter, Projection.select(colNames, projection)), sink);
+				}
+			} else {
+				tokenizer.skipValue();
+			}
+		}
+		if (tableName == null || colNames == null || colTypes == null) {
+			SQLExceptions.canNotParseFile();
+		}
+		int[] projection = Projection.getColumns(colNames, columns);
+		int numFileCols = colNames.size();
+		if (columns != null) {
+			colNames = Projection.select(colNames, projection);
+			colTypes = Projection.select(colTypes, projection);
+			numCols = projection.length;
+		}
+		if (pendingRows != null) {
+			raws = convert(pendingRows, numFileCols, projection, colTypes, RowFilter.create(filter, colNames), sink);
+		} else if (raws == null) {
+			raws = new ArrayList<>();
+		}
+		return new TableValues(tableName, colTypes, colNames, raws, numCols, raws.size());
+	}
+
+	private String[] getDetails(JSONTokenizer tokenizer) throws SQLException {
+		String[] details = new String[2];
+		tokenizer.expect(Token.BEGIN_OBJECT);
+		while (tokenizer.peek() != Token.END_OBJECT) {
+			String key = tokenizer.nextString();
+			if (key.equals(AttributeWords.TableName.name())) {
+				details[0] = getValue(tokenizer);
+			} else if (key.equals(AttributeWords.NumberOfColumns.name())) {
+				details[1] = getValue(tokenizer);
+			} else {
+				tokenizer.skipValue();
+			}
+		}
+		tokenizer.next();
+		if (details[0] == null || details[1] == null) {
+			SQLExceptions.canNotParseFile();
+		}
+		return details;
+	}
+
+	private ArrayList<String> getColumnNames(JSONTokenizer tokenizer) throws SQLException {
+		ArrayList<String> arrayList = new ArrayList<>();
+		tokenizer.expect(Token.BEGIN_ARRAY);
+		while (tokenizer.peek() != Token.END_ARRAY) {
+			arrayList.add(getValue(tokenizer));
+		}
+		tokenizer.next();
+		return arrayList;
+	}
+
+	private ArrayList<Integer> getColumnTypes(JSONTokenizer tokenizer) throws SQLException {
+		ArrayList<Integer> arrayList = new ArrayList<>();
+		tokenizer.expect(Token.BEGIN_ARRAY);
+		while (tokenizer.peek() != Token.END_ARRAY) {
+			arrayList.add(Integer.parseInt(getValue(tokenizer)));
+		}
+		tokenizer.next();
+		return arrayList;
+	}
+
+	/**
+	 * outputTypes and rowFilter are in output order. Cells are kept as text
+	 * until the row ends so a row that fails the filter has only its filter
+	 * columns converted.
+	 */
+	private ArrayList<ArrayList<Object>> getTableData(JSONTokenizer tokenizer, int numCol, int[] projection,
+			ArrayList<Integer> outputTypes, RowFilter rowFilter, IRowSink sink) throws SQLException {
+		ArrayList<ArrayList<Object>> tableDataList = new ArrayList<>();
+		int[] outputs = Projection.getOutputs(numCol, projection);
+		String[] fields = new String[projection.length];
+		tokenizer.expect(Token.BEGIN_ARRAY);
+		while (tokenizer.peek() != Token.END_ARRAY) {
+			tokenizer.expect(Token.BEGIN_ARRAY);
+			for (int j = 0; j < numCol; j++) {
+				if (outputs[j] == -1) {
+					tokenizer.skipValue();
+				} else {
+					fields[outputs[j]] = getValue(tokenizer);
+				}
+			}
+			tokenizer.expect(Token.END_ARRAY);
+			addRow(tableDataList, sink, RowFilter.convert(rowFilter, fields, outputTypes));
+		}
+		tokenizer.next();
+		return tableDataList;
+	}
+
+	private ArrayList<String[]> getRawData(JSONTokenizer tokenizer) throws SQLException {
+		ArrayList<String[]> rows = new ArrayList<>();
+		tokenizer.expect(Token.BEGIN_ARRAY);
+		while (tokenizer.peek() != Token.END_ARRAY) {
+			ArrayList<String> row = getColumnNames(tokenizer);
+			rows.add(row.toArray(new String[row.size()]));
+		}
+		tokenizer.next();
+		return rows;
+	}
+
+	/**
+	 * outputTypes and rowFilter are in output order.
+	 */
+	private ArrayList<ArrayList<Object>> convert(ArrayList<String[]> rows, int numCol, int[] projection,
+			ArrayList<Integer> outputTypes, RowFilter rowFilter, IRowSink sink) throws SQLException {
+		ArrayList<ArrayList<Object>> tableDataList = new ArrayList<>(sink == null ? rows.size() : 0);
+		String[] fields = new String[projection.length];
+		for (String[] row : rows) {
+			if (row.length != numCol) {
+				SQLExceptions.canNotParseFile();
+			}
+			for (int i = 0; i < projection.length; i++) {
+				fields[i] = row[projection[i]];
+			}
+			addRow(tableDataList, sink, RowFilter.convert(rowFilter, fields, outputTypes));
+		}
+		return tableDataList;
+	}
+
+	/**
+	 * Skips a null row, which failed the filter.
+	 */
+	private void addRow(ArrayList<ArrayList<Object>> rows, IRowSink sink, ArrayList<Object> row)
+			throws SQLException {
+		if (row == null) {
+			return;
+		}
+		if (sink == null) {
+			rows.add(row);
+		} else {
+			sink.add(row);
+		}
+	}
+
+	/**
+	 * Cells are written as strings, numbers and a null literal are accepted
+	 * for files written by other tools.
+	 */
+	private String getValue(JSONTokenizer tokenizer) throws SQLException {
+		switch (tokenizer.next()) {
+		case STRING:
+		case NUMBER:
+			return tokenizer.getText();
+		case LITERAL:
+			return tokenizer.getText().equals("null") ? AttributeWords.Null.name() : tokenizer.getText();
+		default:
+			SQLExceptions.canNotParseFile();
+		}
+		return null;
+	}
 
 }
@@ -0,0 +1,217 @@
+package jSON;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.SQLException;
+
+import accessories.SQLExceptions;
+
+/**
+ * Pull tokenizer over a character stream. Commas and colons are consumed
+ * between tokens, so the caller only sees brackets, strings, numbers and the
+ * literals true, false and null.
+ */
+public class JSONTokenizer {
+
+	public static enum Token {BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, STRING, NUMBER, LITERAL, END_DOCUMENT};
+
+	private Reader reader;
+	private char[] buffer;
+	private int position;
+	private int limit;
+	private StringBuilder text;
+	private Token peeked;
+
+	public JSONTokenizer(Reader reader) {
+		this.reader = reader;
+		buffer = new char[1 << 16];
+		position = 0;
+		limit = 0;
+		text = new StringBuilder();
+		peeked = null;
+	}
+
+	public Token peek() throws SQLException {
+		if (peeked == null) {
+			peeked = read();
+		}
+		return peeked;
+	}
+
+	public Token next() throws SQLException {
+		Token token = peek();
+		peeked = null;
+		return token;
+	}
+
+	/**
+	 * Text of the last string, number or literal token.
+	 */
+	public String getText() {
+		return text.toString();
+	}
+
+	public void expect(Token expected) throws SQLException {
+		if (next() != expected) {
+			SQLExceptions.canNotParseFile();
+		}
+	}
+
+	public String nextString() throws SQLException {
+		expect(Token.STRING);
+		return getText();
+	}
+
+	/**
+	 * Skips the next value with everything nested in it.
+	 */
+	public void skipValue() throws SQLException {
+		int depth = 0;
+		do {
+			switch (next()) {
+			case BEGIN_OBJECT:
+			case BEGIN_ARRAY:
+				depth++;
+				break;
+			case END_OBJECT:
+			case END_ARRAY:
+				depth--;
+				break;
+			case END_DOCUMENT:
+				SQLExceptions.canNotParseFile();
+				break;
+			default:
+				break;
+			}
+		} while (depth > 0);
+	}
+
+	private Token read() throws SQLException {
+		int c = skipSeparators();
+		switch (c) {
+		case -1:
+			return Token.END_DOCUMENT;
+		case '{':
+			return Token.BEGIN_OBJECT;
+		case '}':
+			return Token.END_OBJECT;
+		case '[':
+			return Token.BEGIN_ARRAY;
+		case ']':
+			return Token.END_ARRAY;
+		case '"':
+			readString();
+			return Token.STRING;
+		default:
+			text.setLength(0);
+			text.append((char) c);
+			while ((c = peekChar()) != -1 && isLiteralChar((char) c)) {
+				text.append((char) c);
+				position++;
+			}
+			char first = text.charAt(0);
+			if (first == '-' || (first >= '0' && first <= '9')) {
+				return Token.NUMBER;
+			}
+			String literal = getText();
+			if (!literal.equals("true") && !literal.equals("false") && !literal.equals("null")) {
+				SQLExceptions.canNotParseFile();
+			}
+			return Token.LITERAL;
+		}
+	}
+
+	private void readString() throws SQLException {
+		text.setLength(0);
+		while (true) {
+			int c = nextChar();
+			if (c == -1) {
+				SQLExceptions.canNotParseFile();
+			} else if (c == '"') {
+				return;
+			} else if (c == '\\') {
+				readEscape();
+			} else {
+				text.append((char) c);
+			}
+		}
+	}
+
+	private void readEscape() throws SQLException {
+		int c = nextChar();
+		switch (c) {
+		case 'b':
+			text.append('\b');
+			break;
+		case 'f':
+			text.append('\f');
+			break;
+		case 'n':
+			text.append('\n');
+			break;
+		case 'r':
+			text.append('\r');
+			break;
+		case 't':
+			text.append('\t');
+			break;
+		case 'u':
+			int code = 0;
+			for (int i = 0; i < 4; i++) {
+				int digit = Character.digit(nextChar(), 16);
+				if (digit == -1) {
+					SQLExceptions.canNotParseFile();
+				}
+				code = (code << 4) | digit;
+			}
+			text.append((char) code);
+			break;
+		case -1:
+			SQLExceptions.canNotParseFile();
+			break;
+		default:
+			text.append((char) c);
+			break;
+		}
+	}
+
+	private boolean isLiteralChar(char c) {
+		return Character.isLetterOrDigit(c) || c == '-' || c == '+' || c == '.';
+	}
+
+	private int skipSeparators() throws SQLException {
+		int c;
+		do {
+			c = nextChar();
+		} while (c == ',' || c == ':' || c == ' ' || c == '\n' || c == '\r' || c == '\t');
+		return c;
+	}
+
+	private int peekChar() throws SQLException {
+		if (position == limit && !fill()) {
+			return -1;
+		}
+		return buffer[position];
+	}
+
+	private int nextChar() throws SQLException {
+		if (position == limit && !fill()) {
+			return -1;
+		}
+		return buffer[position++];
+	}
+
+	private boolean fill() throws SQLException {
+		try {
+			limit = reader.read(buffer, 0, buffer.length);
+		} catch (IOException e) {
+			SQLExceptions.canNotReadFile();
+		}
+		position = 0;
+		if (limit <= 0) {
+			limit = 0;
+			return false;
+		}
+		return true;
+	}
+}
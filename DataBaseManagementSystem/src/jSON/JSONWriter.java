@@ -1,94 +1,168 @@
 package jSON;
 
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
 import java.util.ArrayList;
 
-import org.json.simple.JSONObject;
-
 import fileManipulator.IFileWriter;
 import accessories.SQLExceptions;
 import accessories.StaticData.AttributeWords;
 import accessories.TableValues;
 
+/**
+ * Writes Details, ColumnTypes and ColumnNames ahead of Data so that a
+ * reader knows the types before the first row, then streams the rows.
+ */
 public class JSONWriter implements IFileWriter{
 
 	private static JSONWriter instance;
-	
+
 	private JSONWriter(){
 	}
-	
+
 	public static JSONWriter getInstance(){
 		if(instance == null) {
-			instance = new JSONWriter();			
+			instance = new JSONWriter();
 		}
 		return instance;
 	}
 
-
-	@SuppressWarnings("unchecked")
 	@Override
-    public void write(TableValues data, File fileToUpdate)
-            throws SQLException {
-        int numCols = data.getNumCols();
-        int numRows = data.getNumRows();
-        ArrayList<String> colNames = data.getcolNames();
-        ArrayList<Integer> colTypes = data.getColTypes();
-        JSONObject table = new JSONObject();
-        JSONObject details = new JSONObject();
-        details.put(AttributeWords.TableName.name(), data.getTableName());
-        details.put(AttributeWords.NumberOfColumns.name(), String.valueOf(numCols));
-        details.put(AttributeWords.NumberOfRows.name(), String.valueOf(numRows));
-        table.put(AttributeWords.Details.name(), details);
-        table.put(AttributeWords.ColumnTypes.name(), fillTypes(colTypes));
-        table.put(AttributeWords.ColumnNames.name(), fillNames(colNames));
-        table.put(AttributeWords.Data, fillRows(data.getRows(), numRows, numCols));
-        try {
-			FileWriter write = new FileWriter(fileToUpdate);
-			write.write(table.toJSONString());
-			write.close();
+	public void write(TableValues data, File fileToUpdate)
+			throws SQLException {
+		try {
+			Writer write = new BufferedWriter(new OutputStreamWriter(
+					new FileOutputStream(fileToUpdate), StandardCharsets.UTF_8), 1 << 16);
+			try {
+				write(data, write);
+			} finally {
+				write.close();
+			}
+		} catch (FileNotFoundException e) {
+			SQLExceptions.fileNotFound();
 		} catch (IOException e) {
 			SQLExceptions.canNotWriteFile();
 		}
-    }
-    
-    @SuppressWarnings("unchecked")
-	protected org.json.simple.JSONArray fillNames(
-            ArrayList<String> colNames) {
-        org.json.simple.JSONArray jO = new org.json.simple.JSONArray();
-        for (int i = 0; i < colNames.size(); i++) {
-            jO.add(colNames.get(i));
-        }
-        return jO;
-    }
-    
-    @SuppressWarnings("unchecked")
-	private org.json.simple.JSONArray fillTypes(
-            ArrayList<Integer> colTypes) {
-        org.json.simple.JSONArray jO = new org.json.simple.JSONArray();
-        for (int i = 0; i < colTypes.size(); i++) {
-            jO.add(colTypes.get(i));
-        }
-        return jO;
-    }
-    
-    @SuppressWarnings("unchecked")
-	private org.json.simple.JSONArray fillRows(
-            ArrayList<ArrayList<Object>> rows, int numRows, int numCol) {
-        org.json.simple.JSONArray tableDataJson = new org.json.simple.JSONArray();
-        for (int i = 0; i < numRows; i++) {
-        	org.json.simple.JSONArray rowDataJson = new org.json.simple.JSONArray();
-            for (int j = 0; j < numCol; j++) {
-            	if (rows.get(i).get(j) == null) {
-            		rowDataJson.add(AttributeWords.Null.name());            		
-            	} else {
-            		rowDataJson.add(rows.get(i).get(j).toString());            		
-            	}
-            }
-            tableDataJson.add(rowDataJson);
-        }
-        return tableDataJson;
-    }
+	}
+
+	private void write(TableValues data, Writer write) throws IOException {
+		int numCols = data.getNumCols();
+		int numRows = data.getNumRows();
+		write.write('{');
+		writeKey(write, AttributeWords.Details.name());
+		write.write('{');
+		writeKey(write, AttributeWords.TableName.name());
+		writeString(write, data.getTableName());
+		write.write(',');
+		writeKey(write, AttributeWords.NumberOfColumns.name());
+		writeString(write, String.valueOf(numCols));
+		write.write(',');
+		writeKey(write, AttributeWords.NumberOfRows.name());
+		writeString(write, String.valueOf(numRows));
+		write.write("},");
+		writeKey(write, AttributeWords.ColumnTypes.name());
+		fillTypes(write, data.getColTypes());
+		write.write(',');
+		writeKey(write, AttributeWords.ColumnNames.name());
+		fillNames(write, data.getcolNames());
+		write.write(',');
+		writeKey(write, AttributeWords.Data.name());
+		fillRows(write, data.getRows(), numRows, numCols);
+		write.write('}');
+	}
+
+	private void fillNames(Writer write, ArrayList<String> colNames) throws IOException {
+		write.write('[');
+		for (int i = 0; i < colNames.size(); i++) {
+			if (i != 0) {
+				write.write(',');
+			}
+			writeString(write, colNames.get(i));
+		}
+		write.write(']');
+	}
+
+	private void fillTypes(Writer write, ArrayList<Integer> colTypes) throws IOException {
+		write.write('[');
+		for (int i = 0; i < colTypes.size(); i++) {
+			if (i != 0) {
+				write.write(',');
+			}
+			write.write(colTypes.get(i).toString());
+		}
+		write.write(']');
+	}
+
+	private void fillRows(Writer write, ArrayList<ArrayList<Object>> rows, int numRows, int numCol)
+			throws IOException {
+		write.write('[');
+		for (int i = 0; i < numRows; i++) {
+			if (i != 0) {
+				write.write(',');
+			}
+			write.write('[');
+			ArrayList<Object> row = rows.get(i);
+			for (int j = 0; j < numCol; j++) {
+				if (j != 0) {
+					write.write(',');
+				}
+				Object value = row.get(j);
+				writeString(write, value == null ? AttributeWords.Null.name() : value.toString());
+			}
+			write.write(']');
+		}
+		write.write(']');
+	}
+
+	private void writeKey(Writer write, String key) throws IOException {
+		writeString(write, key);
+		write.write(':');
+	}
+
+	private void writeString(Writer write, String string) throws IOException {
+		write.write('"');
+		for (int i = 0; i < string.length(); i++) {
+			char c = string.charAt(i);
+			switch (c) {
+			case '"':
+				write.write("\\\"");
+				break;
+			case '\\':
+				write.write("\\\\");
+				break;
+			case '/':
+				write.write("\\/");
+				break;
+			case '\b':
+				write.write("\\b");
+				break;
+			case '\f':
+				write.write("\\f");
+				break;
+			case '\n':
+				write.write("\\n");
+				break;
+			case '\r':
+				write.write("\\r");
+				break;
+			case '\t':
+				write.write("\\t");
+				break;
+			default:
+				if (c < 0x20 || (c >= 0x7f && c <= 0x9f) || (c >= 0x2000 && c <= 0x20ff)) {
+					write.write(String.format("\\u%04X", (int) c));
+				} else {
+					write.write(c);
+				}
+			}
+		}
+		write.write('"');
+	}
 }
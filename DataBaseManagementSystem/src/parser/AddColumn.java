@@ -3,6 +3,7 @@ package parser;
 import java.sql.SQLException;
 import java.util.ArrayList;
 
+import accessories.SQLExceptions;
 import parser.helper.GetNameType;
 import command.ICommand;
 
@@ -25,6 +26,10 @@ public class AddColumn {
 	public ICommand check(ArrayList<String> parts) throws SQLException{
 		clear();
 		addColumnCommand.setNameType(GetNameType.getInstance().getNameType(parts));
+		// constraints are only given when the table is created
+		if (addColumnCommand.getNameType().getConstraint() != null) {
+			SQLExceptions.throwUnknownCommand();
+		}
 		return addColumnCommand;
 	}
 
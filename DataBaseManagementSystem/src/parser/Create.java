@@ -41,6 +41,9 @@ public class Create {
 		case TABLE:
 			createCommand = CreateTable.getInstance().check(parts);		
 			break;
+		case INDEX:
+			createCommand = CreateIndex.getInstance().check(parts);
+			break;
 		}
 	}
 	
@@ -0,0 +1,91 @@
+package parser;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+
+import parser.helper.ArrayListNeededMethods;
+import parser.helper.GetBetweenParentheses;
+import parser.helper.SqlNameConstrains;
+import parser.helper.StringNeededMethods;
+import accessories.SQLExceptions;
+import command.ICommand;
+import index.IndexFile;
+
+public class CreateIndex {
+
+	private static CreateIndex instance;
+	private ICommand command;
+
+	private CreateIndex() {
+
+	}
+
+	public static CreateIndex getInstance() {
+		if (instance == null) {
+			instance = new CreateIndex();
+		}
+		return instance;
+	}
+
+	public ICommand check(ArrayList<String> parts) throws SQLException {
+		clear();
+		ArrayListNeededMethods.checkNonEmptiness(parts);
+		SqlNameConstrains.getInstance().checkName(ArrayListNeededMethods.getFirst(parts));
+		command.setIndexName(ArrayListNeededMethods.popFirst(parts));
+		ArrayListNeededMethods.checkNonEmptiness(parts);
+		StringNeededMethods.checkOnString(ArrayListNeededMethods.popFirst(parts));
+		ArrayListNeededMethods.checkNonEmptiness(parts);
+		SqlNameConstrains.getInstance().checkName(ArrayListNeededMethods.getFirst(parts));
+		command.setTableName(ArrayListNeededMethods.popFirst(parts));
+		getColumnName(parts);
+		getIndexMethod(parts);
+		return command;
+	}
+
+	private void clear() {
+		command = new command.CreateIndex();
+	}
+
+	/**
+	 * USING names the index method, the default one is used without it. A
+	 * Bloom filter may be followed by its false positive rate between
+	 * parentheses.
+	 */
+	private void getIndexMethod(ArrayList<String> parts) throws SQLException {
+		if (parts.isEmpty() || !StringNeededMethods.checkUsing(ArrayListNeededMethods.getFirst(parts))) {
+			return;
+		}
+		ArrayListNeededMethods.removeFirst(parts);
+		ArrayListNeededMethods.checkNonEmptiness(parts);
+		command.setIndexMethod(ArrayListNeededMethods.popFirst(parts));
+		if (!parts.isEmpty() && StringNeededMethods.checkOpenParentheses(ArrayListNeededMethods.getFirst(parts))) {
+			getFalsePositiveRate(parts);
+		}
+	}
+
+	private void getFalsePositiveRate(ArrayList<String> parts) throws SQLException {
+		ArrayList<String> betweenParentheses = GetBetweenParentheses.getInstance().getBetweenParentheses(parts);
+		if (betweenParentheses.size() != 1 || !command.getIndexMethod().equals(IndexFile.BLOOM)) {
+			SQLExceptions.throwUnknownCommand();
+		}
+		double falsePositiveRate = 0;
+		try {
+			falsePositiveRate = Double.parseDouble(betweenParentheses.get(0));
+		} catch (NumberFormatException e) {
+			SQLExceptions.invalidFalsePositiveRate();
+		}
+		if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+			SQLExceptions.invalidFalsePositiveRate();
+		}
+		command.setFalsePositiveRate(falsePositiveRate);
+	}
+
+	private void getColumnName(ArrayList<String> parts) throws SQLException {
+		ArrayList<String> betweenParentheses = GetBetweenParentheses.getInstance().getBetweenParentheses(parts);
+		if (betweenParentheses.size() != 1) {
+			SQLExceptions.throwUnknownCommand();
+		}
+		SqlNameConstrains.getInstance().checkName(betweenParentheses.get(0));
+		command.setColumnName(betweenParentheses.get(0));
+	}
+}
@@ -9,7 +9,9 @@ import parser.helper.GetBetweenParentheses;
 import parser.helper.GetNameType;
 import parser.helper.SplitByComma;
 import parser.helper.SqlNameConstrains;
+import accessories.IndexDefinition;
 import accessories.NameType;
+import accessories.SQLExceptions;
 import command.ICommand;
 
 public class CreateTable {
@@ -48,8 +50,16 @@ public class CreateTable {
 	private void getNameTypes(ArrayList<String> parts) throws SQLException {
 		ArrayList<String> betweenParentheses = GetBetweenParentheses.getInstance().getBetweenParentheses(parts);
 		ArrayList<ArrayList<String>> nameTypeStrings = SplitByComma.getInstance().splitByComma(betweenParentheses);
+		boolean primaryKey = false;
 		for (ArrayList<String> nameType : nameTypeStrings) {
-			nameTypes.add(GetNameType.getInstance().getNameType(nameType));
+			NameType constructed = GetNameType.getInstance().getNameType(nameType);
+			if (IndexDefinition.PRIMARY_KEY.equals(constructed.getConstraint())) {
+				if (primaryKey) {
+					SQLExceptions.multiplePrimaryKeys();
+				}
+				primaryKey = true;
+			}
+			nameTypes.add(constructed);
 		}
 	}
 	
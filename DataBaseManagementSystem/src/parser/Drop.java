@@ -41,6 +41,9 @@ public class Drop {
 		case TABLE:
 			dropCommand = DropTable.getInstance().check(parts);		
 			break;
+		case INDEX:
+			dropCommand = DropIndex.getInstance().check(parts);
+			break;
 		}
 	}
 
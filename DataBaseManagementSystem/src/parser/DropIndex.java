@@ -0,0 +1,43 @@
+package parser;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+
+import parser.helper.ArrayListNeededMethods;
+import parser.helper.SqlNameConstrains;
+import parser.helper.StringNeededMethods;
+import command.ICommand;
+
+public class DropIndex {
+
+	private static DropIndex instance;
+	private ICommand command;
+
+	private DropIndex() {
+
+	}
+
+	public static DropIndex getInstance() {
+		if (instance == null) {
+			instance = new DropIndex();
+		}
+		return instance;
+	}
+
+	public ICommand check(ArrayList<String> parts) throws SQLException {
+		clear();
+		ArrayListNeededMethods.checkNonEmptiness(parts);
+		SqlNameConstrains.getInstance().checkName(ArrayListNeededMethods.getFirst(parts));
+		command.setIndexName(ArrayListNeededMethods.popFirst(parts));
+		ArrayListNeededMethods.checkNonEmptiness(parts);
+		StringNeededMethods.checkOnString(ArrayListNeededMethods.popFirst(parts));
+		ArrayListNeededMethods.checkNonEmptiness(parts);
+		SqlNameConstrains.getInstance().checkName(ArrayListNeededMethods.getFirst(parts));
+		command.setTableName(ArrayListNeededMethods.popFirst(parts));
+		return command;
+	}
+
+	private void clear() {
+		command = new command.DropIndex();
+	}
+}
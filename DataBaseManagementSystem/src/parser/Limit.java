@@ -0,0 +1,50 @@
+package parser;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+
+import parser.helper.ArrayListNeededMethods;
+import parser.helper.StringNeededMethods;
+import accessories.SQLExceptions;
+
+import command.ICommand;
+
+public class Limit {
+
+	private static Limit instance;
+
+	private Limit() {
+		
+	}
+	
+	public static Limit getInstance() {
+		if (instance == null) {
+			instance = new Limit();
+		}
+		return instance; 
+	}
+
+	// LIMIT n [OFFSET m], the LIMIT word is already removed
+	public void limit(ICommand command, ArrayList<String> parts) throws SQLException {
+		ArrayListNeededMethods.checkNonEmptiness(parts);
+		command.setLimit(getNumber(ArrayListNeededMethods.popFirst(parts)));
+		if (!parts.isEmpty() && StringNeededMethods.checkOffset(ArrayListNeededMethods.getFirst(parts))) {
+			ArrayListNeededMethods.removeFirst(parts);
+			ArrayListNeededMethods.checkNonEmptiness(parts);
+			command.setOffset(getNumber(ArrayListNeededMethods.popFirst(parts)));
+		}
+	}
+	
+	private int getNumber(String part) throws SQLException {
+		int number = -1;
+		try {
+			number = Integer.parseInt(part);
+		} catch (NumberFormatException e) {
+			SQLExceptions.invalidLimit();
+		}
+		if (number < 0) {
+			SQLExceptions.invalidLimit();
+		}
+		return number;
+	}
+}
@@ -44,6 +44,9 @@ public class Select {
 			selectCommand.setForOrdering(OrderBy.getInstance().order(parts));
 			CheckRepeatedColumnNames.getInstance().check(selectCommand.getOrderNames());
 		}
+		if (checkLimitExistance(parts)) {
+			Limit.getInstance().limit(selectCommand, parts);
+		}
 		return selectCommand;
 	}
 
@@ -84,6 +87,19 @@ public class Select {
 		return isWhere;
 	}
 	
+	private boolean checkLimitExistance(ArrayList<String> parts) throws SQLException {
+		boolean isLimit = false;
+		try {
+			ArrayListNeededMethods.checkEmptiness(parts);
+		} catch (Exception e) {
+			if(StringNeededMethods.checkLimit(ArrayListNeededMethods.getFirst(parts))) {
+				ArrayListNeededMethods.removeFirst(parts);
+				isLimit = true;
+			}
+		}
+		return isLimit;
+	}
+	
 	private boolean checkOrderExistance(ArrayList<String> parts) throws SQLException {
 		boolean isOrder = false;
 		try {
@@ -121,8 +121,8 @@ public class Statements {
 	private void checkUnionCommand() throws SQLException {
 		try {
 			ArrayListNeededMethods.checkNonEmptiness(parts);
-			if (commandType.equals(StaticData.CommandsTypes.SELECT) && !toBeExecuted.isOrdered() 
-			 && StringNeededMethods.checkUnion(ArrayListNeededMethods.popFirst(parts))) {
+			if (commandType.equals(StaticData.CommandsTypes.SELECT) && !toBeExecuted.isOrdered()
+			 && !toBeExecuted.isLimited() && StringNeededMethods.checkUnion(ArrayListNeededMethods.popFirst(parts))) {
 				toBeExecuted = Union.getInstance().checkParts(toBeExecuted, parts);
 			}
 		} catch (SQLException e) {
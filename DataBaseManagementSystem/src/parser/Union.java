@@ -34,6 +34,7 @@ public class Union {
 		}
 		unionCommand.setSelectTwo(getSecondSelect(parts));
 		unionCommand.getSelectTwo().setCommandType(StaticData.CommandsTypes.SELECT);
+		moveLimit();
 		checkColumnNamesSize();
 		return unionCommand;
 	}
@@ -49,6 +50,17 @@ public class Union {
 		return Select.getInstance().check(parts);
 	}
 	
+	// like the ORDER BY, a LIMIT after the second select limits the whole union
+	private void moveLimit() {
+		ICommand selectTwo = unionCommand.getSelectTwo();
+		if (selectTwo.isLimited()) {
+			unionCommand.setLimit(selectTwo.getLimit());
+			unionCommand.setOffset(selectTwo.getOffset());
+			selectTwo.setLimit(-1);
+			selectTwo.setOffset(0);
+		}
+	}
+	
 	private void checkColumnNamesSize() throws SQLException {
 		if (!(unionCommand.getSelectOne().isAllSelected() || unionCommand.getSelectTwo().isAllSelected())) {
 			if (ArrayListNeededMethods.getSize(unionCommand.getSelectOne().getColumnNames())
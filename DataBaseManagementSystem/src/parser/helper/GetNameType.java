@@ -3,6 +3,7 @@ package parser.helper;
 import java.sql.SQLException;
 import java.util.ArrayList;
 
+import accessories.IndexDefinition;
 import accessories.NameType;
 import accessories.SQLExceptions;
 import accessories.StaticData;
@@ -23,14 +24,32 @@ public class GetNameType {
 	}
 	
 	public NameType getNameType(ArrayList<String> nameType) throws SQLException {
-		if (ArrayListNeededMethods.getSize(nameType) != 2) {
+		if (ArrayListNeededMethods.getSize(nameType) < 2) {
 			SQLExceptions.throwUnknownCommand();
 		}
 		String name = ArrayListNeededMethods.popFirst(nameType);
 		SqlNameConstrains.getInstance().checkName(name);
 		NameType constructNameType = new NameType(name,
 				StaticData.getDataType(ArrayListNeededMethods.popFirst(nameType)));
+		if (!nameType.isEmpty()) {
+			constructNameType.setConstraint(getConstraint(nameType));
+		}
 		return constructNameType;
 	}
+
+	/**
+	 * A column is followed by at most one of PRIMARY KEY and UNIQUE.
+	 */
+	private String getConstraint(ArrayList<String> constraint) throws SQLException {
+		String first = ArrayListNeededMethods.popFirst(constraint);
+		if (StringNeededMethods.checkUnique(first) && constraint.isEmpty()) {
+			return IndexDefinition.UNIQUE;
+		}
+		if (!StringNeededMethods.checkPrimary(first) || ArrayListNeededMethods.getSize(constraint) != 1) {
+			SQLExceptions.throwUnknownCommand();
+		}
+		StringNeededMethods.checkKeyString(ArrayListNeededMethods.popFirst(constraint));
+		return IndexDefinition.PRIMARY_KEY;
+	}
 	
 }
@@ -27,7 +27,7 @@ public class GetStrings {
 				singleQuote = !singleQuote;
 			} else if (!singleQuote && StringNeededMethods.checkDoubleQuotes(part)) {
 				doubleQuote = !doubleQuote;
-			} else if (!singleQuote && !doubleQuote && checkCertainWords(part)) {
+			} else if (!singleQuote && !doubleQuote && checkCertainWords(parts, countParts)) {
 				break;
 			}
 			countParts ++;
@@ -37,8 +37,12 @@ public class GetStrings {
 		return whereStrings;
 	}
 	
-	private boolean checkCertainWords(String part) {
+	// LIMIT only ends the strings when a number follows it, so a column may be named limit
+	private boolean checkCertainWords(ArrayList<String> parts, int index) {
+		String part = parts.get(index);
 		return StringNeededMethods.checkOrder(part) || StringNeededMethods.checkWhere(part) 
-			|| StringNeededMethods.checkFrom(part) || StringNeededMethods.checkUnion(part);
+			|| StringNeededMethods.checkFrom(part) || StringNeededMethods.checkUnion(part)
+			|| (StringNeededMethods.checkLimit(part) && index + 1 < parts.size()
+				&& StringNeededMethods.checkNumber(parts.get(index + 1)));
 	}
 }
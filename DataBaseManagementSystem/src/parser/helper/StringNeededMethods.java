@@ -100,6 +100,54 @@ public class StringNeededMethods {
 		}
 	}
 	
+	public static boolean checkLimit(String part) {
+		if(part.equalsIgnoreCase("Limit")) {
+			return true;
+		} else {
+			return false;
+		}
+	}
+	
+	public static boolean checkNumber(String part) {
+		if(part.matches("-?[0-9]+")) {
+			return true;
+		} else {
+			return false;
+		}
+	}
+	
+	public static boolean checkOffset(String part) {
+		if(part.equalsIgnoreCase("Offset")) {
+			return true;
+		} else {
+			return false;
+		}
+	}
+	
+	public static boolean checkUsing(String part) {
+		if(part.equalsIgnoreCase("Using")) {
+			return true;
+		} else {
+			return false;
+		}
+	}
+	
+	public static boolean checkPrimary(String part) {
+		if(part.equalsIgnoreCase("Primary")) {
+			return true;
+		} else {
+			return false;
+		}
+	}
+	
+	public static boolean checkUnique(String part) {
+		if(part.equalsIgnoreCase("Unique")) {
+			return true;
+		} else {
+			return false;
+		}
+	}
+	
 	public static boolean checkDistinct(String part) {
 		if(part.equalsIgnoreCase("Distinct")) {
 			return true;
@@ -128,6 +176,14 @@ public class StringNeededMethods {
 		check2Strings(part, "Column");
 	}
 	
+	public static void checkOnString(String part) throws SQLException {
+		check2Strings(part, "On");
+	}
+
+	public static void checkKeyString(String part) throws SQLException {
+		check2Strings(part, "Key");
+	}
+
 	public static void checkIntoString(String part) throws SQLException {
 		check2Strings(part, "Into");
 	}
@@ -2,11 +2,15 @@ package protocolBuffer;
 
 import java.io.File;
 import java.sql.SQLException;
+import java.util.ArrayList;
 
 import fileManipulator.FileManipulation;
 import fileManipulator.IFile;
 import fileManipulator.IFileReader;
 import fileManipulator.IFileWriter;
+import fileManipulator.IFilter;
+import fileManipulator.IRowSink;
+import accessories.IndexDefinition;
 import accessories.TableValues;
 
 public class PBFile extends FileManipulation implements IFile {
@@ -34,7 +38,7 @@ public class PBFile extends FileManipulation implements IFile {
 	@Override
 	public void setPath (String directoryPath,
 			String dataBaseName, String random) throws SQLException {
-		super.setPath(directoryPath, dataBaseName, random);
+		super.setPath(directoryPath, dataBaseName, random, PBString, PBExtension);
 	}
 	
 	
@@ -71,6 +75,90 @@ public class PBFile extends FileManipulation implements IFile {
 		return super.GetTableFileToView(databaseName + PBString, tableName, PBExtension);
 	}
 
+	@Override
+	public File GetDataBaseFolder(String databaseName) throws SQLException {
+		return super.GetDataBaseFolder(databaseName + PBString);
+	}
+
+	@Override
+	public ArrayList<String> GetDataBaseNames() throws SQLException {
+		return super.GetDataBaseNames(PBString);
+	}
+
+	@Override
+	public ArrayList<File> GetTableSegmentsToView(String databaseName, String tableName)
+			throws SQLException {
+		return super.GetTableSegmentsToView(databaseName + PBString, tableName, PBExtension);
+	}
+
+	@Override
+	public File createTableSegmentFile(String databaseName, String tableName)
+			throws SQLException {
+		return super.createTableSegmentFile(databaseName + PBString, tableName, PBExtension);
+	}
+
+	@Override
+	public void deleteTableSegments(String databaseName, String tableName)
+			throws SQLException {
+		super.deleteTableSegments(databaseName + PBString, tableName, PBExtension);
+	}
+
+	@Override
+	public ArrayList<IndexDefinition> GetTableIndexes(String databaseName, String tableName)
+			throws SQLException {
+		return super.GetTableIndexes(databaseName + PBString, tableName);
+	}
+
+	@Override
+	public File GetTableIndexFile(String databaseName, String tableName, String indexName)
+			throws SQLException {
+		return super.GetTableIndexFile(databaseName + PBString, tableName, indexName);
+	}
+
+	@Override
+	public void addTableIndex(String databaseName, String tableName, IndexDefinition index)
+			throws SQLException {
+		super.addTableIndex(databaseName + PBString, tableName, index);
+	}
+
+	@Override
+	public void removeTableIndex(String databaseName, String tableName, String indexName)
+			throws SQLException {
+		super.removeTableIndex(databaseName + PBString, tableName, indexName);
+	}
+
+	@Override
+	public File createTemporaryFile() throws SQLException {
+		return super.createTemporaryFile();
+	}
+
+	@Override
+	public boolean hasTable(String databaseName, String tableName) {
+		return super.hasTable(databaseName + PBString, tableName);
+	}
+
+	@Override
+	public TableValues GetTableSchema(String databaseName, String tableName)
+			throws SQLException {
+		return super.GetTableSchema(databaseName + PBString, tableName);
+	}
+
+	@Override
+	public void updateCatalog(String databaseName, TableValues table)
+			throws SQLException {
+		super.updateCatalog(databaseName + PBString, table);
+	}
+
+	@Override
+	public void saveCatalog() throws SQLException {
+		super.saveCatalog();
+	}
+
+	@Override
+	public void refreshCatalog(String databaseName) throws SQLException {
+		super.refreshCatalog(databaseName + PBString);
+	}
+
 	@Override
 	public File GetDTDFileToUpdate(String databaseName, String tableName)
 			throws SQLException {
@@ -88,11 +176,37 @@ public class PBFile extends FileManipulation implements IFile {
 		writer.write(source, fileToUpdate);
 	}
 
+	@Override
+	public boolean canAppend(File tableFile) throws SQLException {
+		return PBReader.getInstance().isAppendable(tableFile);
+	}
+
+	@Override
+	public byte[] encodeRows(TableValues data) throws SQLException {
+		return PBWriter.getInstance().encodeRows(data);
+	}
+
+	@Override
+	public boolean isOutdated(File tableFile) throws SQLException {
+		return PBReader.getInstance().isOutdated(tableFile);
+	}
+
 	@Override
 	public TableValues read(File source) throws SQLException {
 		return reader.read(source);
 	}
 
+	@Override
+	public TableValues read(File source, ArrayList<String> columns, IFilter filter) throws SQLException {
+		return reader.read(source, columns, filter);
+	}
+
+	@Override
+	public TableValues read(File source, ArrayList<String> columns, IFilter filter, IRowSink sink)
+			throws SQLException {
+		return reader.read(source, columns, filter, sink);
+	}
+
 	@Override
 	public File createTableFile(String databaseName, String tableName)
 			throws SQLException {
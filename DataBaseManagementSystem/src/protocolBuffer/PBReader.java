@@ -1,9 +1,11 @@
 package protocolBuffer;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
@@ -13,10 +15,14 @@ import protocolBuffer.TableProtos.Table.Row;
 import accessories.SQLExceptions;
 import accessories.TableValues;
 
+import com.google.protobuf.CodedInputStream;
 import com.google.protobuf.ProtocolStringList;
 
-import dataTypesController.DataTypeController;
 import fileManipulator.IFileReader;
+import fileManipulator.IFilter;
+import fileManipulator.IRowSink;
+import fileManipulator.Projection;
+import fileManipulator.RowFilter;
 
 public class PBReader implements IFileReader {
 	
@@ -35,38 +41,150 @@ public class PBReader implements IFileReader {
 
 	@Override
 	public TableValues read(File source) throws SQLException {
-		Table table = null;
+		return read(source, null, null);
+	}
+
+	@Override
+	public TableValues read(File source, ArrayList<String> columns, IFilter filter) throws SQLException {
+		return read(source, columns, filter, null);
+	}
+
+	@Override
+	public TableValues read(File source, ArrayList<String> columns, IFilter filter, IRowSink sink)
+			throws SQLException {
+		TableValues tableValues = null;
 		try {
-			table = Table.parseFrom(new FileInputStream(source));
+			InputStream input = new BufferedInputStream(new FileInputStream(source), 1 << 16);
+			try {
+				input.mark(1);
+				if (input.read() == PBWriter.MARKER) {
+					tableValues = readRows(input, columns, filter, sink);
+				} else {
+					input.reset();
+					tableValues = readTable(Table.parseFrom(input), columns, filter, sink);
+				}
+			} finally {
+				input.close();
+			}
 		} catch (FileNotFoundException e) {
 			SQLExceptions.fileNotFound();
 		} catch (IOException e) {
 			SQLExceptions.canNotParseFile();
 		}
+		return tableValues;
+	}
+
+	/**
+	 * Tells whether rows can be added at the end of the file, which needs the
+	 * current layout.
+	 */
+	public boolean isAppendable(File source) throws SQLException {
+		return getVersion(source) == PBWriter.VERSION;
+	}
+
+	/**
+	 * Tells whether the file is in an older layout and should be rewritten.
+	 */
+	public boolean isOutdated(File source) throws SQLException {
+		return getVersion(source) != PBWriter.VERSION;
+	}
+
+	private int getVersion(File source) throws SQLException {
+		int version = 1;
+		try {
+			InputStream input = new FileInputStream(source);
+			try {
+				if (input.read() == PBWriter.MARKER) {
+					version = input.read();
+				}
+			} finally {
+				input.close();
+			}
+		} catch (FileNotFoundException e) {
+			SQLExceptions.fileNotFound();
+		} catch (IOException e) {
+			SQLExceptions.canNotReadFile();
+		}
+		return version;
+	}
+
+	private TableValues readTable(Table table, ArrayList<String> columns, IFilter filter, IRowSink sink)
+			throws SQLException {
 		ArrayList<String> colNames = new ArrayList<String>(getColNames(table.getColumnNamesList()));
 		ArrayList<Integer> colTypes = new ArrayList<Integer>(getColTypes(table.getColumnTypesList()));
-		ArrayList<ArrayList<Object>> rows = new ArrayList<ArrayList<Object>>(getRows(table.getRowsList(), colTypes));
-		return new TableValues(table.getTableName(), colTypes,
-			colNames, rows, table.getColumnsNumber(), table.getRowsNumber());
+		int[] projection = Projection.getColumns(colNames, columns);
+		colNames = Projection.select(colNames, projection);
+		colTypes = Projection.select(colTypes, projection);
+		RowFilter rowFilter = RowFilter.create(filter, colNames);
+		ArrayList<ArrayList<Object>> rows = new ArrayList<ArrayList<Object>>();
+		for (Row row : table.getRowsList()) {
+			addRow(rows, sink, getRow(row, colTypes, projection, rowFilter));
+		}
+		return new TableValues(table.getTableName(), colTypes, colNames, rows, projection.length,
+			filter == null && sink == null ? table.getRowsNumber() : rows.size());
+	}
+
+	private TableValues readRows(InputStream input, ArrayList<String> columns, IFilter filter, IRowSink sink)
+			throws IOException, SQLException {
+		if (input.read() != PBWriter.VERSION) {
+			SQLExceptions.canNotParseFile();
+		}
+		return readTypedRows(CodedInputStream.newInstance(input), columns, filter, sink);
 	}
 	
-	private ArrayList<ArrayList<Object>> getRows(List<Row> rows, ArrayList<Integer> colTypes) throws SQLException {
-		ArrayList<ArrayList<Object>> rowsObjects = new ArrayList<ArrayList<Object>>();
-		for (Row row : rows) {
-			rowsObjects.add(getRow(row, colTypes));
+	private TableValues readTypedRows(CodedInputStream input, ArrayList<String> columns, IFilter filter,
+			IRowSink sink) throws IOException, SQLException {
+		input.setSizeLimit(Integer.MAX_VALUE);
+		int limit = input.pushLimit(input.readRawVarint32());
+		Table header = Table.parseFrom(input);
+		input.popLimit(limit);
+		ArrayList<String> colNames = new ArrayList<String>(getColNames(header.getColumnNamesList()));
+		ArrayList<Integer> colTypes = new ArrayList<Integer>(getColTypes(header.getColumnTypesList()));
+		int[] projection = Projection.getColumns(colNames, columns);
+		ArrayList<ArrayList<Object>> rows = new ArrayList<ArrayList<Object>>(getCapacity(header, sink));
+		TypedRowCodec codec = new TypedRowCodec(colTypes);
+		colNames = Projection.select(colNames, projection);
+		colTypes = Projection.select(colTypes, projection);
+		codec.setProjection(projection);
+		codec.setFilter(RowFilter.create(filter, colNames));
+		while (!input.isAtEnd()) {
+			addRow(rows, sink, codec.readDelimited(input));
+			input.resetSizeCounter();
+		}
+		return new TableValues(header.getTableName(), colTypes, colNames, rows, projection.length, rows.size());
+	}
+
+	private int getCapacity(Table header, IRowSink sink) {
+		return sink == null ? Math.max(0, Math.min(header.getRowsNumber(), 1 << 20)) : 0;
+	}
+
+	/**
+	 * Skips a null row, which failed the filter.
+	 */
+	private void addRow(ArrayList<ArrayList<Object>> rows, IRowSink sink, ArrayList<Object> row)
+			throws SQLException {
+		if (row == null) {
+			return;
+		}
+		if (sink == null) {
+			rows.add(row);
+		} else {
+			sink.add(row);
 		}
-		return rowsObjects;
 	}
 
-	private ArrayList<Object> getRow(Row row, ArrayList<Integer> colTypes) throws SQLException {
-		ArrayList<String> strings = getColNames(row.getColumnValueList());
-		ArrayList<Object> objects = new ArrayList<Object>();
-		for (int i = 0; i < strings.size(); i ++) {
-			Integer type = colTypes.get(i);
-			String string = strings.get(i);
-			objects.add(DataTypeController.convertData(type, string));
+	/**
+	 * colTypes and rowFilter are in output order, returns null when the row
+	 * fails the filter.
+	 */
+	private ArrayList<Object> getRow(Row row, ArrayList<Integer> colTypes, int[] projection, RowFilter rowFilter)
+			throws SQLException {
+		ProtocolStringList strings = row.getColumnValueList();
+		String[] fields = new String[projection.length];
+		for (int i = 0; i < projection.length; i++) {
+			fields[i] = strings.get(projection[i]);
 		}
-		return objects;
+		return RowFilter.convert(rowFilter, fields, colTypes);
 	}
 	
 	private ArrayList<String> getColNames(ProtocolStringList protoColNames) {
@@ -1,21 +1,33 @@
 package protocolBuffer;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.sql.SQLException;
 import java.util.ArrayList;
 
 import protocolBuffer.TableProtos.Table;
-import protocolBuffer.TableProtos.Table.Row;
 import accessories.SQLExceptions;
-import accessories.StaticData.AttributeWords;
 import accessories.TableValues;
 import fileManipulator.IFileWriter;
 
+import com.google.protobuf.CodedOutputStream;
+
+/**
+ * Writes the v2 layout: a zero byte, the version, a length delimited Table
+ * holding the table name and columns, then one length delimited TypedRow
+ * per row, so rows can be read one at a time and new rows added at the end.
+ * A v1 file is a single Table message and never starts with a zero byte.
+ */
 public class PBWriter implements IFileWriter {
 
+	static final int MARKER = 0;
+	static final int VERSION = 2;
+
 	private static PBWriter instance;
 
 	private PBWriter() {
@@ -38,11 +50,13 @@ public class PBWriter implements IFileWriter {
 		
 		addColumnNames(table, data.getcolNames());
 		addColumnTypes(table, data.getColTypes());
-		addRows(table, data.getRows());
 
 	    try {
-			FileOutputStream write = new FileOutputStream(fileToUpdate);
-			table.build().writeTo(write);
+			OutputStream write = new BufferedOutputStream(new FileOutputStream(fileToUpdate), 1 << 16);
+			write.write(MARKER);
+			write.write(VERSION);
+			table.build().writeDelimitedTo(write);
+			addRows(write, data);
 			write.close();
 		} catch (FileNotFoundException e) {
 			SQLExceptions.fileNotFound();
@@ -51,6 +65,20 @@ public class PBWriter implements IFileWriter {
 		}
 		
 	}
+
+	/**
+	 * Encodes rows the way they follow the header, to be added at the end of
+	 * a v2 file.
+	 */
+	public byte[] encodeRows(TableValues data) throws SQLException {
+		ByteArrayOutputStream rows = new ByteArrayOutputStream();
+		try {
+			addRows(rows, data);
+		} catch (IOException e) {
+			SQLExceptions.canNotWriteFile();
+		}
+		return rows.toByteArray();
+	}
 	
 	private void addColumnNames(Table.Builder table, ArrayList<String> colNames) {
 		for (String string : colNames) {
@@ -64,22 +92,12 @@ public class PBWriter implements IFileWriter {
 		}
 	}
 	
-	private void addRows(Table.Builder table, ArrayList<ArrayList<Object>> rows) {
-		for (ArrayList<Object> arrayList : rows) {
-			table.addRows(getRow(arrayList));			
-		}
-	}
-	
-	
-	private Row getRow(ArrayList<Object> row) {
-		Row.Builder protoRow = Row.newBuilder();
-		for (Object object : row) {
-			if (object == null) {
-				protoRow.addColumnValue(AttributeWords.Null.name());
-			} else {
-				protoRow.addColumnValue(object.toString());				
-			}
+	private void addRows(OutputStream write, TableValues data) throws IOException, SQLException {
+		TypedRowCodec codec = new TypedRowCodec(data.getColTypes());
+		CodedOutputStream coded = CodedOutputStream.newInstance(write);
+		for (ArrayList<Object> row : data.getRows()) {
+			codec.writeDelimited(coded, row);
 		}
-		return protoRow.build();
+		coded.flush();
 	}
 }
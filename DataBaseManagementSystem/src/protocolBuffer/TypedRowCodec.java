@@ -0,0 +1,344 @@
+package protocolBuffer;
+
+import java.io.IOException;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import accessories.SQLExceptions;
+import fileManipulator.RowFilter;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+
+/**
+ * Encodes and decodes the TypedRow message of Table.proto by hand, the
+ * generated TableProtos predates it. Values of the non null cells are
+ * grouped by type in column order: packed sint32 for INT, packed float for
+ * FLOAT, packed int32 epoch days for DATE and a string per VARCHAR, and
+ * bit i of presence is set when column i is not null. Rows can be read
+ * back with only some of the columns, strings of the others are skipped
+ * and their numbers are not boxed.
+ */
+class TypedRowCodec {
+
+	private static final int PRESENCE = 1;
+	private static final int INTS = 2;
+	private static final int FLOATS = 3;
+	private static final int DATES = 4;
+	private static final int STRINGS = 5;
+
+	private int[] types;
+	private int[] ints;
+	private float[] floats;
+	private int[] dates;
+	private String[] strings;
+	private int numInts, numFloats, numDates, numStrings;
+	private int[] outputs;
+	private int[] columns;
+	private int numOutputs;
+	private int[] stringColumns;
+	private int[] slots;
+	private RowFilter rowFilter;
+
+	TypedRowCodec(List<Integer> colTypes) throws SQLException {
+		types = new int[colTypes.size()];
+		for (int i = 0; i < types.length; i++) {
+			types[i] = colTypes.get(i);
+			switch (types[i]) {
+			case Types.INTEGER:
+			case Types.FLOAT:
+			case Types.DATE:
+			case Types.VARCHAR:
+				break;
+			default:
+				SQLExceptions.unsupportedDataType();
+			}
+		}
+		ints = new int[types.length];
+		floats = new float[types.length];
+		dates = new int[types.length];
+		strings = new String[types.length];
+		outputs = new int[types.length];
+		for (int i = 0; i < types.length; i++) {
+			outputs[i] = i;
+		}
+		columns = outputs.clone();
+		numOutputs = types.length;
+		stringColumns = new int[types.length];
+		slots = new int[types.length];
+	}
+
+	/**
+	 * Rows read afterwards hold the given columns in that order.
+	 */
+	void setProjection(int[] columns) {
+		for (int i = 0; i < types.length; i++) {
+			outputs[i] = -1;
+		}
+		for (int i = 0; i < columns.length; i++) {
+			outputs[columns[i]] = i;
+		}
+		this.columns = columns.clone();
+		numOutputs = columns.length;
+	}
+
+	/**
+	 * Rows read afterwards that fail the filter are returned as null, the
+	 * filter is over the projected columns.
+	 */
+	void setFilter(RowFilter rowFilter) {
+		this.rowFilter = rowFilter;
+	}
+
+	/**
+	 * Writes the row as a length delimited TypedRow.
+	 */
+	void writeDelimited(CodedOutputStream out, ArrayList<Object> row) throws IOException {
+		byte[] presence = new byte[(types.length + 7) / 8];
+		numInts = numFloats = numDates = numStrings = 0;
+		int intsSize = 0;
+		int datesSize = 0;
+		int size = 0;
+		for (int i = 0; i < types.length; i++) {
+			Object value = row.get(i);
+			if (value == null) {
+				continue;
+			}
+			presence[i >> 3] |= 1 << (i & 7);
+			switch (types[i]) {
+			case Types.INTEGER:
+				ints[numInts] = (Integer) value;
+				intsSize += CodedOutputStream.computeSInt32SizeNoTag(ints[numInts++]);
+				break;
+			case Types.FLOAT:
+				floats[numFloats++] = (Float) value;
+				break;
+			case Types.DATE:
+				dates[numDates] = (int) ((Date) value).toLocalDate().toEpochDay();
+				datesSize += CodedOutputStream.computeInt32SizeNoTag(dates[numDates++]);
+				break;
+			default:
+				strings[numStrings] = value.toString();
+				size += CodedOutputStream.computeStringSize(STRINGS, strings[numStrings++]);
+				break;
+			}
+		}
+		size += CodedOutputStream.computeByteArraySize(PRESENCE, presence);
+		size += getPackedSize(INTS, numInts, intsSize);
+		size += getPackedSize(FLOATS, numFloats, 4 * numFloats);
+		size += getPackedSize(DATES, numDates, datesSize);
+		out.writeUInt32NoTag(size);
+		out.writeByteArray(PRESENCE, presence);
+		if (numInts > 0) {
+			writePackedHeader(out, INTS, intsSize);
+			for (int i = 0; i < numInts; i++) {
+				out.writeSInt32NoTag(ints[i]);
+			}
+		}
+		if (numFloats > 0) {
+			writePackedHeader(out, FLOATS, 4 * numFloats);
+			for (int i = 0; i < numFloats; i++) {
+				out.writeFloatNoTag(floats[i]);
+			}
+		}
+		if (numDates > 0) {
+			writePackedHeader(out, DATES, datesSize);
+			for (int i = 0; i < numDates; i++) {
+				out.writeInt32NoTag(dates[i]);
+			}
+		}
+		for (int i = 0; i < numStrings; i++) {
+			out.writeString(STRINGS, strings[i]);
+		}
+	}
+
+	/**
+	 * Reads a length delimited TypedRow, null when it fails the filter.
+	 */
+	ArrayList<Object> readDelimited(CodedInputStream in) throws IOException, SQLException {
+		int limit = in.pushLimit(in.readRawVarint32());
+		byte[] presence = new byte[0];
+		numInts = numFloats = numDates = numStrings = 0;
+		Arrays.fill(stringColumns, -1);
+		int tag;
+		while ((tag = in.readTag()) != 0) {
+			boolean packed = WireFormat.getTagWireType(tag) == WireFormat.WIRETYPE_LENGTH_DELIMITED;
+			switch (WireFormat.getTagFieldNumber(tag)) {
+			case PRESENCE:
+				presence = in.readByteArray();
+				findStringColumns(presence);
+				break;
+			case INTS:
+				int intsLimit = packed ? in.pushLimit(in.readRawVarint32()) : -1;
+				while (!packed || in.getBytesUntilLimit() > 0) {
+					ints[checkCount(numInts)] = in.readSInt32();
+					numInts++;
+					if (!packed) {
+						break;
+					}
+				}
+				popLimit(in, intsLimit);
+				break;
+			case FLOATS:
+				int floatsLimit = packed ? in.pushLimit(in.readRawVarint32()) : -1;
+				while (!packed || in.getBytesUntilLimit() > 0) {
+					floats[checkCount(numFloats)] = in.readFloat();
+					numFloats++;
+					if (!packed) {
+						break;
+					}
+				}
+				popLimit(in, floatsLimit);
+				break;
+			case DATES:
+				int datesLimit = packed ? in.pushLimit(in.readRawVarint32()) : -1;
+				while (!packed || in.getBytesUntilLimit() > 0) {
+					dates[checkCount(numDates)] = in.readInt32();
+					numDates++;
+					if (!packed) {
+						break;
+					}
+				}
+				popLimit(in, datesLimit);
+				break;
+			case STRINGS:
+				checkCount(numStrings);
+				if (stringColumns[numStrings] != -1 && outputs[stringColumns[numStrings]] == -1) {
+					in.skipField(tag);
+				} else {
+					strings[numStrings] = in.readString();
+				}
+				numStrings++;
+				break;
+			default:
+				in.skipField(tag);
+				break;
+			}
+		}
+		in.popLimit(limit);
+		return getRow(presence);
+	}
+
+	/**
+	 * Strings come in the order of the present VARCHAR columns, the column of
+	 * every string is known as soon as the presence bits are. Strings read
+	 * before them are always kept.
+	 */
+	private void findStringColumns(byte[] presence) {
+		int next = 0;
+		for (int i = 0; i < types.length; i++) {
+			if (types[i] == Types.VARCHAR && isPresent(presence, i)) {
+				stringColumns[next++] = i;
+			}
+		}
+		for (; next < types.length; next++) {
+			stringColumns[next] = -1;
+		}
+	}
+
+	private boolean isPresent(byte[] presence, int column) {
+		return (column >> 3) < presence.length && (presence[column >> 3] & (1 << (column & 7))) != 0;
+	}
+
+	/**
+	 * Only the filter columns of a row that fails the filter are boxed.
+	 */
+	private ArrayList<Object> getRow(byte[] presence) throws SQLException {
+		int nextInt = 0, nextFloat = 0, nextDate = 0, nextString = 0;
+		for (int i = 0; i < types.length; i++) {
+			if (!isPresent(presence, i)) {
+				slots[i] = -1;
+				continue;
+			}
+			switch (types[i]) {
+			case Types.INTEGER:
+				checkValue(nextInt, numInts);
+				slots[i] = nextInt++;
+				break;
+			case Types.FLOAT:
+				checkValue(nextFloat, numFloats);
+				slots[i] = nextFloat++;
+				break;
+			case Types.DATE:
+				checkValue(nextDate, numDates);
+				slots[i] = nextDate++;
+				break;
+			default:
+				checkValue(nextString, numStrings);
+				slots[i] = nextString++;
+				break;
+			}
+		}
+		Object[] cells = new Object[numOutputs];
+		if (rowFilter != null) {
+			for (int cell : rowFilter.getCells()) {
+				cells[cell] = getValue(columns[cell]);
+			}
+			if (!rowFilter.test(cells)) {
+				return null;
+			}
+		}
+		ArrayList<Object> row = new ArrayList<Object>(numOutputs);
+		for (int j = 0; j < numOutputs; j++) {
+			if (rowFilter == null || !rowFilter.isTested(j)) {
+				cells[j] = getValue(columns[j]);
+			}
+			row.add(cells[j]);
+		}
+		return row;
+	}
+
+	private Object getValue(int column) {
+		int slot = slots[column];
+		if (slot == -1) {
+			return null;
+		}
+		switch (types[column]) {
+		case Types.INTEGER:
+			return Integer.valueOf(ints[slot]);
+		case Types.FLOAT:
+			return Float.valueOf(floats[slot]);
+		case Types.DATE:
+			return Date.valueOf(LocalDate.ofEpochDay(dates[slot]));
+		default:
+			return strings[slot];
+		}
+	}
+
+	private void checkValue(int next, int count) throws SQLException {
+		if (next >= count) {
+			SQLExceptions.canNotParseFile();
+		}
+	}
+
+	private int checkCount(int count) throws SQLException {
+		if (count >= types.length) {
+			SQLExceptions.canNotParseFile();
+		}
+		return count;
+	}
+
+	private void popLimit(CodedInputStream in, int limit) {
+		if (limit != -1) {
+			in.popLimit(limit);
+		}
+	}
+
+	private static int getPackedSize(int field, int count, int dataSize) {
+		if (count == 0) {
+			return 0;
+		}
+		return CodedOutputStream.computeTagSize(field) + CodedOutputStream.computeUInt32SizeNoTag(dataSize) + dataSize;
+	}
+
+	private static void writePackedHeader(CodedOutputStream out, int field, int dataSize) throws IOException {
+		out.writeTag(field, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+		out.writeUInt32NoTag(dataSize);
+	}
+}
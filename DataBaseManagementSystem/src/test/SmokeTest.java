@@ -1,13 +1,18 @@
 package test;
+import dBMS.TableCache;
 import jDBC.ResultSet;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.sql.Connection;
 import java.sql.Driver;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Properties;
+import javax.xml.parsers.DocumentBuilderFactory;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -63,6 +68,113 @@ public class SmokeTest {
         return connection;
     }
 
+    // a database directory that no earlier run left behind
+    private File createDirectory() {
+        File dbDir;
+        do {
+            dbDir = new File(tmp + File.separator + "jdbc" + File.separator + Math.round((((float) Math.random()) * 100000)));
+        } while (dbDir.exists());
+        return dbDir;
+    }
+
+    private Connection openDatabase(String protocol, File dbDir, String databaseName, Properties info)
+            throws SQLException {
+        Driver driver = (Driver) TestRunner.getImplementationInstance();
+        info.put("path", dbDir.getAbsoluteFile());
+        Connection connection = driver.connect("jdbc:" + protocol + "://localhost", info);
+        Statement statement = connection.createStatement();
+        statement.execute("CREATE DATABASE " + databaseName + " ;");
+        statement.execute("USE " + databaseName + " ;");
+        statement.close();
+        return connection;
+    }
+
+    private Connection reopenDatabase(String protocol, File dbDir, String databaseName, Properties info)
+            throws SQLException {
+        Driver driver = (Driver) TestRunner.getImplementationInstance();
+        info.put("path", dbDir.getAbsoluteFile());
+        Connection connection = driver.connect("jdbc:" + protocol + "://localhost", info);
+        Statement statement = connection.createStatement();
+        statement.execute("USE " + databaseName + " ;");
+        statement.close();
+        return connection;
+    }
+
+    // every row of the result as its values separated by commas
+    private ArrayList<String> selectRows(Statement statement, String query) throws SQLException {
+        java.sql.ResultSet result = statement.executeQuery(query);
+        int columns = result.getMetaData().getColumnCount();
+        ArrayList<String> rows = new ArrayList<String>();
+        while (result.next()) {
+            StringBuilder row = new StringBuilder();
+            for (int i = 1; i <= columns; i++) {
+                row.append(i == 1 ? "" : ", ").append(result.getObject(i));
+            }
+            rows.add(row.toString());
+        }
+        return rows;
+    }
+
+    // the files under directory whose names contain part
+    private ArrayList<File> findFiles(File directory, String part) {
+        ArrayList<File> found = new ArrayList<File>();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.isDirectory()) {
+                    found.addAll(findFiles(file, part));
+                } else if (file.getName().contains(part)) {
+                    found.add(file);
+                }
+            }
+        }
+        return found;
+    }
+
+    private void copyDirectory(File source, File target) throws IOException {
+        target.mkdirs();
+        for (File file : source.listFiles()) {
+            File copy = new File(target, file.getName());
+            if (file.isDirectory()) {
+                copyDirectory(file, copy);
+            } else {
+                Files.copy(file.toPath(), copy.toPath());
+            }
+        }
+    }
+
+    // the text of every XML table file under dbDir, which must be well formed
+    private String parseXMLTables(File dbDir) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+        StringBuilder text = new StringBuilder();
+        for (File file : findFiles(dbDir, ".xml")) {
+            if (file.getName().endsWith(".xml")) {
+                text.append(factory.newDocumentBuilder().parse(file).getDocumentElement().getTextContent());
+            }
+        }
+        return text.toString();
+    }
+
+    // the statement has to fail
+    private void assertRejected(Statement statement, String sql) {
+        try {
+            statement.execute(sql);
+            Assert.fail("Executed " + sql);
+        } catch (SQLException e) {
+        }
+    }
+
+    // removes the catalog files of all the protocols
+    private void deleteCatalog(File dbDir) {
+        File[] files = dbDir.listFiles();
+        for (File file : files) {
+            if (file.isFile() && file.getName().startsWith("catalog")) {
+                Assert.assertTrue("Catalog not deleted", file.delete());
+            }
+        }
+    }
+
   @Test
   public void testCreateAndOpenAndDropDatabase() throws SQLException {
       File dummy = null;
@@ -616,4 +728,1351 @@ public class SmokeTest {
       connection.close();
   }
 
+  @Test
+  public void testCacheEvictionWritesBack() throws SQLException {
+      File dbDir = createDirectory();
+      TableCache cache = TableCache.getInstance();
+      long byteBudget = cache.getByteBudget();
+      try {
+          cache.setByteBudget(4 * 1024);
+          Connection connection = openDatabase(protocol, dbDir, "TestDB_Cache", new Properties());
+          Statement statement = connection.createStatement();
+          statement.execute("CREATE TABLE table_name14(column_name1 int, column_name2 varchar)");
+          statement.execute("CREATE TABLE table_name15(column_name1 int, column_name2 varchar)");
+          for (int i = 0; i < 100; i++) {
+              statement.executeUpdate("INSERT INTO table_name14 VALUES (" + i + ", 'first" + i + "')");
+              statement.executeUpdate("INSERT INTO table_name15 VALUES (" + i + ", 'second" + i + "')");
+          }
+          int count1 = statement.executeUpdate("UPDATE table_name14 SET column_name2='updated' WHERE column_name1 < 10");
+          Assert.assertEquals("Updated returned wrong number", 10, count1);
+          int count2 = statement.executeUpdate("DELETE FROM table_name15 WHERE column_name1 >= 90");
+          Assert.assertEquals("Delete returned wrong number", 10, count2);
+          Assert.assertEquals("Wrong number of rows", 100, selectRows(statement, "SELECT * FROM table_name14").size());
+          Assert.assertEquals("Wrong number of rows", 90, selectRows(statement, "SELECT * FROM table_name15").size());
+          statement.close();
+          connection.close();
+
+          connection = reopenDatabase(protocol, dbDir, "TestDB_Cache", new Properties());
+          statement = connection.createStatement();
+          Assert.assertEquals("Evicted update was lost", 10,
+                  selectRows(statement, "SELECT column_name1 FROM table_name14 WHERE column_name2 = 'updated'").size());
+          Assert.assertEquals("Evicted rows were lost", Arrays.asList("99, first99"),
+                  selectRows(statement, "SELECT * FROM table_name14 WHERE column_name1 > 98"));
+          Assert.assertEquals("Evicted delete was lost", Arrays.asList("89, second89"),
+                  selectRows(statement, "SELECT * FROM table_name15 WHERE column_name1 > 88"));
+          statement.close();
+          connection.close();
+      } catch (Throwable e) {
+          TestRunner.fail("Failed to write back evicted tables", e);
+      } finally {
+          cache.setByteBudget(byteBudget);
+      }
+  }
+
+  @Test
+  public void testInsertAppendsSegments() throws SQLException {
+      File dbDir = createDirectory();
+      TableCache cache = TableCache.getInstance();
+      long byteBudget = cache.getByteBudget();
+      try {
+          Connection connection = openDatabase(protocol, dbDir, "TestDB_Append", new Properties());
+          Statement statement = connection.createStatement();
+          statement.execute("CREATE TABLE table_name16(column_name1 int, column_name2 varchar)");
+          for (int i = 0; i < 200; i++) {
+              statement.executeUpdate("INSERT INTO table_name16 VALUES (" + i + ", 'value" + i + "')");
+          }
+          statement.close();
+          connection.close();
+          int segments = findFiles(dbDir, ".seg").size();
+
+          cache.setByteBudget(16 * 1024);
+          connection = reopenDatabase(protocol, dbDir, "TestDB_Append", new Properties());
+          statement = connection.createStatement();
+          for (int i = 200; i < 203; i++) {
+              int count = statement.executeUpdate("INSERT INTO table_name16 VALUES (" + i + ", 'value" + i + "')");
+              Assert.assertEquals("Insert returned wrong number", 1, count);
+          }
+          Assert.assertTrue("Rows were not appended as segments", findFiles(dbDir, ".seg").size() > segments);
+          Assert.assertEquals("Wrong appended rows", Arrays.asList("202, value202", "201, value201"),
+                  selectRows(statement, "SELECT * FROM table_name16 WHERE column_name1 > 200 ORDER BY column_name1 DESC"));
+          statement.close();
+          connection.close();
+
+          connection = reopenDatabase(protocol, dbDir, "TestDB_Append", new Properties());
+          statement = connection.createStatement();
+          Assert.assertEquals("Wrong number of rows", 203, selectRows(statement, "SELECT * FROM table_name16").size());
+          Assert.assertEquals("Wrong appended rows", Arrays.asList("199, value199", "200, value200"),
+                  selectRows(statement, "SELECT * FROM table_name16 WHERE column_name1 > 198 AND column_name1 < 201"));
+          int count = statement.executeUpdate("UPDATE table_name16 SET column_name2='updated' WHERE column_name1 >= 200");
+          Assert.assertEquals("Updated returned wrong number", 3, count);
+          statement.close();
+          connection.close();
+
+          connection = reopenDatabase(protocol, dbDir, "TestDB_Append", new Properties());
+          statement = connection.createStatement();
+          Assert.assertEquals("Rewritten table lost rows", 3,
+                  selectRows(statement, "SELECT * FROM table_name16 WHERE column_name2 = 'updated'").size());
+          Assert.assertEquals("Wrong number of rows", 203, selectRows(statement, "SELECT * FROM table_name16").size());
+          statement.close();
+          connection.close();
+      } catch (Throwable e) {
+          TestRunner.fail("Failed to append rows to table", e);
+      } finally {
+          cache.setByteBudget(byteBudget);
+      }
+  }
+
+  @Test
+  public void testColumnarTable() throws SQLException {
+      File dbDir = createDirectory();
+      try {
+          Connection connection = openDatabase("coldb", dbDir, "TestDB_Columnar", new Properties());
+          Statement statement = connection.createStatement();
+          statement.execute("CREATE TABLE table_name17(column_name1 varchar, column_name2 int, column_name3 date, column_name4 float)");
+          statement.executeUpdate("INSERT INTO table_name17 VALUES ('value1', 3, '2011-01-25', 1.5)");
+          statement.executeUpdate("INSERT INTO table_name17(column_name2, column_name4) VALUES (-7, 2.25)");
+          statement.executeUpdate("INSERT INTO table_name17(column_name1, column_name3) VALUES ('value3', '1993-10-03')");
+          statement.close();
+          connection.close();
+          Assert.assertFalse("No columnar table file", findFiles(dbDir, ".col").isEmpty());
+
+          connection = reopenDatabase("coldb", dbDir, "TestDB_Columnar", new Properties());
+          statement = connection.createStatement();
+          Assert.assertEquals("Wrong rows read back",
+                  Arrays.asList("value1, 3, 2011-01-25, 1.5", "null, -7, null, 2.25", "value3, null, 1993-10-03, null"),
+                  selectRows(statement, "SELECT * FROM table_name17"));
+          Assert.assertEquals("Wrong projected rows", Arrays.asList("2.25, -7"),
+                  selectRows(statement, "SELECT column_name4, column_name2 FROM table_name17 WHERE column_name2 = -7"));
+          statement.executeUpdate("DELETE FROM table_name17 WHERE column_name2 = 3");
+          statement.executeUpdate("ALTER TABLE table_name17 ADD column_name5 int");
+          statement.close();
+          connection.close();
+
+          connection = reopenDatabase("coldb", dbDir, "TestDB_Columnar", new Properties());
+          statement = connection.createStatement();
+          Assert.assertEquals("Wrong rows after rewrite",
+                  Arrays.asList("null, -7, null, 2.25, null", "value3, null, 1993-10-03, null, null"),
+                  selectRows(statement, "SELECT * FROM table_name17"));
+          statement.close();
+          connection.close();
+      } catch (Throwable e) {
+          TestRunner.fail("Failed to store table in columnar format", e);
+      }
+  }
+
+  @Test
+  public void testRecoveryFromLog() throws SQLException {
+      File dbDir = createDirectory();
+      File crashDir = createDirectory();
+      try {
+          Connection connection = openDatabase(protocol, dbDir, "TestDB_Log", new Properties());
+          Statement statement = connection.createStatement();
+          statement.execute("CREATE TABLE table_name18(column_name1 int, column_name2 varchar)");
+          for (int i = 0; i < 10; i++) {
+              statement.executeUpdate("INSERT INTO table_name18 VALUES (" + i + ", 'value" + i + "')");
+          }
+          statement.executeUpdate("UPDATE table_name18 SET column_name2='updated' WHERE column_name1 > 6");
+          statement.executeUpdate("DELETE FROM table_name18 WHERE column_name1 < 3");
+          statement.executeUpdate("INSERT INTO table_name18 VALUES (100, 'last')");
+          // the files as a crash would leave them, with the changes only in the log
+          synchronized (TableCache.getInstance()) {
+              copyDirectory(dbDir, crashDir);
+          }
+          statement.close();
+          connection.close();
+
+          connection = reopenDatabase(protocol, crashDir, "TestDB_Log", new Properties());
+          statement = connection.createStatement();
+          Assert.assertEquals("Logged changes were not recovered",
+                  Arrays.asList("3, value3", "4, value4", "5, value5", "6, value6", "7, updated", "8, updated",
+                          "9, updated", "100, last"),
+                  selectRows(statement, "SELECT * FROM table_name18 ORDER BY column_name1"));
+          statement.executeUpdate("INSERT INTO table_name18 VALUES (101, 'after')");
+          statement.close();
+          connection.close();
+
+          connection = reopenDatabase(protocol, crashDir, "TestDB_Log", new Properties());
+          statement = connection.createStatement();
+          Assert.assertEquals("Wrong number of rows", 9, selectRows(statement, "SELECT * FROM table_name18").size());
+          statement.close();
+          connection.close();
+      } catch (Throwable e) {
+          TestRunner.fail("Failed to recover from the log", e);
+      }
+  }
+
+  @Test
+  public void testCheckpointFailureReported() throws SQLException {
+      File dbDir = createDirectory();
+      try {
+          Connection connection = openDatabase(protocol, dbDir, "TestDB_Checkpoint", new Properties());
+          Statement statement = connection.createStatement();
+          statement.execute("CREATE TABLE table_name19(column_name1 int)");
+          statement.executeUpdate("INSERT INTO table_name19 VALUES (1)");
+          File tableDir = null;
+          for (File file : findFiles(dbDir, "")) {
+              if (file.getParentFile().getName().equalsIgnoreCase("table_name19")) {
+                  tableDir = file.getParentFile();
+              }
+          }
+          Assert.assertNotNull("No table folder", tableDir);
+          // a file in place of the table folder makes the background checkpoint fail
+          File moved = new File(tableDir.getPath() + ".moved");
+          Assert.assertTrue("Failed to move table folder", tableDir.renameTo(moved));
+          Assert.assertTrue("Failed to block table folder", tableDir.createNewFile());
+          Thread.sleep(7000);
+          try {
+              statement.executeUpdate("INSERT INTO table_name19 VALUES (2)");
+              Assert.fail("Failed checkpoint was not reported");
+          } catch (SQLException e) {
+          }
+          Assert.assertTrue("Failed to unblock table folder", tableDir.delete() && moved.renameTo(tableDir));
+          statement.executeUpdate("INSERT INTO table_name19 VALUES (3)");
+          statement.close();
+          connection.close();
+
+          connection = reopenDatabase(protocol, dbDir, "TestDB_Checkpoint", new Properties());
+          statement = connection.createStatement();
+          Assert.assertEquals("Rows were lost", Arrays.asList("1", "2", "3"),
+                  selectRows(statement, "SELECT * FROM table_name19 ORDER BY column_name1"));
+          statement.close();
+          connection.close();
+      } catch (Throwable e) {
+          TestRunner.fail("Failed to report a failed checkpoint", e);
+      }
+  }
+
+  @Test
+  public void testXMLTableReadBack() throws SQLException {
+      File dbDir = createDirectory();
+      String[] values = {"a&b", "<tag>", "say\"hi\"", "&amp;", "]]>", "x,y"};
+      try {
+          Connection connection = openDatabase("xmldb", dbDir, "TestDB_XML", new Properties());
+          Statement statement = connection.createStatement();
+          statement.execute("CREATE TABLE table_name20(column_name1 int, column_name2 varchar, column_name3 float)");
+          for (int i = 0; i < values.length; i++) {
+              statement.executeUpdate("INSERT INTO table_name20 VALUES (" + i + ", '" + values[i] + "', " + i + ".5)");
+          }
+          statement.executeUpdate("INSERT INTO table_name20(column_name1) VALUES (" + values.length + ")");
+          statement.close();
+          connection.close();
+
+          connection = reopenDatabase("xmldb", dbDir, "TestDB_XML", new Properties());
+          statement = connection.createStatement();
+          ArrayList<String> rows = selectRows(statement, "SELECT * FROM table_name20 ORDER BY column_name1");
+          Assert.assertEquals("Wrong number of rows", values.length + 1, rows.size());
+          for (int i = 0; i < values.length; i++) {
+              Assert.assertEquals("Wrong row read back", i + ", " + values[i] + ", " + i + ".5", rows.get(i));
+          }
+          Assert.assertEquals("Wrong row read back", values.length + ", null, null", rows.get(values.length));
+          Assert.assertEquals("Wrong selected rows", Arrays.asList("1"),
+                  selectRows(statement, "SELECT column_name1 FROM table_name20 WHERE column_name2 = '<tag>'"));
+          statement.close();
+          connection.close();
+      } catch (Throwable e) {
+          TestRunner.fail("Failed to read XML table", e);
+      }
+  }
+
+  @Test
+  public void testXMLTableWritten() throws SQLException {
+      File dbDir = createDirectory();
+      try {
+          Connection connection = openDatabase("xmldb", dbDir, "TestDB_XMLWrite", new Properties());
+          Statement statement = connection.createStatement();
+          statement.execute("CREATE TABLE table_name21(column_name1 int, column_name2 varchar, column_name3 date)");
+          for (int i = 0; i < 3000; i++) {
+              statement.executeUpdate("INSERT INTO table_name21 VALUES (" + i + ", '<row" + i + ">', '2011-01-25')");
+          }
+          statement.close();
+          connection.close();
+          Assert.assertTrue("Value missing from XML file", parseXMLTables(dbDir).contains("<row2999>"));
+
+          connection = reopenDatabase("xmldb", dbDir, "TestDB_XMLWrite", new Properties());
+          statement = connection.createStatement();
+          int count = statement.executeUpdate("UPDATE table_name21 SET column_name2='a&b' WHERE column_name1 = 7");
+          Assert.assertEquals("Updated returned wrong number", 1, count);
+          statement.close();
+          connection.close();
+          String text = parseXMLTables(dbDir);
+          Assert.assertTrue("Updated value missing from XML file", text.contains("a&b"));
+          Assert.assertFalse("Old value still in XML file", text.contains("<row7>"));
+
+          connection = reopenDatabase("xmldb", dbDir, "TestDB_XMLWrite", new Properties());
+          statement = connection.createStatement();
+          Assert.assertEquals("Wrong rows read back", Arrays.asList("6, <row6>, 2011-01-25", "7, a&b, 2011-01-25"),
+                  selectRows(statement, "SELECT * FROM table_name21 WHERE column_name1 > 5 AND column_name1 < 8"));
+          Assert.assertEquals("Wrong number of rows", 3000, selectRows(statement, "SELECT column_name1 FROM table_name21").size());
+          statement.close();
+          connection.close();
+      } catch (Throwable e) {
+          TestRunner.fail("Failed to write XML table", e);
+      }
+  }
+
+  @Test
+  public void testJSONTableReadBack() throws SQLException {
+      File dbDir = createDirectory();
+      String[] values = {"say\"hi\"", "back\\slash", "{[x]}", "a:b,c", "\\u0041", "true"};
+      try {
+          Connection connection = openDatabase("jsondb", dbDir, "TestDB_JSON", new Properties());
+          Statement statement = connection.createStatement();
+          statement.execute("CREATE TABLE table_name22(column_name1 int, column_name2 varchar, column_name3 float, column_name4 date)");
+          for (int i = 0; i < values.length; i++) {
+              statement.executeUpdate("INSERT INTO table_name22 VALUES (" + i + ", '" + values[i] + "', -" + i + ".25, '2016-12-0" + (i + 1) + "')");
+          }
+          statement.executeUpdate("INSERT INTO table_name22(column_name1) VALUES (" + values.length + ")");
+          statement.close();
+          connection.close();
+
+          connection = reopenDatabase("jsondb", dbDir, "TestDB_JSON", new Properties());
+          statement = connection.createStatement();
+          ArrayList<String> rows = selectRows(statement, "SELECT * FROM table_name22 ORDER BY column_name1");
+          Assert.assertEquals("Wrong number of rows", values.length + 1, rows.size());
+          for (int i = 0; i < values.length; i++) {
+              Assert.assertEquals("Wrong row read back", i + ", " + values[i] + ", -" + i + ".25, 2016-12-0" + (i + 1),
+                      rows.get(i));
+          }
+          Assert.assertEquals("Wrong row read back", values.length + ", null, null, null", rows.get(values.length));
+          Assert.assertEquals("Wrong selected rows", Arrays.asList("3"),
+                  selectRows(statement, "SELECT column_name1 FROM table_name22 WHERE column_name2 = 'a:b,c'"));
+          statement.close();
+          connection.close();
+      } catch (Throwable e) {
+          TestRunner.fail("Failed to read JSON table", e);
+      }
+  }
+
+  @Test
+  public void testProtocolBufferRowsAppended() throws SQLException {
+      File dbDir = createDirectory();
+      try {
+          Connection connection = openDatabase("pbdb", dbDir, "TestDB_PB", new Properties());
+          Statement statement = connection.createStatement();
+          statement.execute("CREATE TABLE table_name23(column_name1 int, column_name2 varchar)");
+          for (int i = 0; i < 2000; i++) {
+              statement.executeUpdate("INSERT INTO table_name23 VALUES (" + i + ", 'value" + i + "')");
+          }
+          statement.close();
+          connection.close();
+          File tableFile = null;
+          for (File file : findFiles(dbDir, ".proto")) {
+              if (file.getName().endsWith(".proto")) {
+                  tableFile = file;
+              }
+          }
+          Assert.assertNotNull("No table file", tableFile);
+          long length = tableFile.length();
+
+          connection = reopenDatabase("pbdb", dbDir, "TestDB_PB", new Properties());
+          statement = connection.createStatement();
+          for (int i = 2000; i < 2010; i++) {
+              statement.executeUpdate("INSERT INTO table_name23 VALUES (" + i + ", 'value" + i + "')");
+          }
+          statement.executeUpdate("INSERT INTO table_name23(column_name1) VALUES (2010)");
+          statement.close();
+          connection.close();
+          Assert.assertTrue("Rows were not added to the table file", findFiles(dbDir, ".seg").isEmpty());
+          Assert.assertTrue("Table file did not grow", tableFile.length() > length);
+
+          connection = reopenDatabase("pbdb", dbDir, "TestDB_PB", new Properties());
+          statement = connection.createStatement();
+          Assert.assertEquals("Wrong number of rows", 2011, selectRows(statement, "SELECT * FROM table_name23").size());
+          Assert.assertEquals("Wrong rows read back", Arrays.asList("0, value0", "1999, value1999", "2009, value2009", "2010, null"),
+                  selectRows(statement, "SELECT * FROM table_name23 WHERE column_name1 = 0 OR column_name1 = 1999 "
+                          + "OR column_name1 > 2008"));
+          statement.close();
+          connection.close();
+      } catch (Throwable e) {
+          TestRunner.fail("Failed to append rows to protocol buffer table", e);
+      }
+  }
+
+  @Test
+  public void testProtocolBufferTypedValues() throws SQLException {
+      File dbDir = createDirectory();
+      try {
+          Connection connection = openDatabase("pbdb", dbDir, "TestDB_PBTypes", new Properties());
+          Statement statement = connection.createStatement();
+          statement.execute("CREATE TABLE table_name24(column_name1 int, column_name2 float, column_name3 date, column_name4 varchar)");
+          statement.executeUpdate("INSERT INTO table_name24 VALUES (2147483647, -0.125, '1970-01-01', '12')");
+          statement.executeUpdate("INSERT INTO table_name24 VALUES (-2147483648, 3.5E10, '2099-12-31', '')");
+          statement.executeUpdate("INSERT INTO table_name24(column_name4) VALUES ('only')");
+          statement.close();
+          connection.close();
+
+          connection = reopenDatabase("pbdb", dbDir, "TestDB_PBTypes", new Properties());
+          statement = connection.createStatement();
+          ResultSet result = (ResultSet) statement.executeQuery("SELECT * FROM table_name24");
+          Assert.assertTrue("Missing row", result.next());
+          Assert.assertEquals("Wrong int", Integer.MAX_VALUE, result.getInt("column_name1"));
+          Assert.assertEquals("Wrong float", -0.125f, result.getFloat("column_name2"), 0);
+          Assert.assertEquals("Wrong date", "1970-01-01", result.getDate("column_name3").toString());
+          Assert.assertEquals("Wrong varchar", "12", result.getString("column_name4"));
+          Assert.assertTrue("Missing row", result.next());
+          Assert.assertEquals("Wrong int", Integer.MIN_VALUE, result.getInt("column_name1"));
+          Assert.assertEquals("Wrong float", 3.5E10f, result.getFloat("column_name2"), 0);
+          Assert.assertEquals("Wrong date", "2099-12-31", result.getDate("column_name3").toString());
+          Assert.assertTrue("Missing row", result.next());
+          Assert.assertNull("Null int read as a value", result.getObject("column_name1"));
+          Assert.assertNull("Null date read as a value", result.getDate("column_name3"));
+          Assert.assertFalse("Extra row", result.next());
+          statement.close();
+          connection.close();
+      } catch (Throwable e) {
+          TestRunner.fail("Failed to read typed protocol buffer values", e);
+      }
+  }
+
+  @Test
+  public void testCatalogAfterReopen() throws SQLException {
+      File dbDir = createDirectory();
+      try {
+          Connection connection = openDatabase(protocol, dbDir, "TestDB_Catalog", new Properties());
+          Statement statement = connection.createStatement();
+          statement.execute("CREATE TABLE table_name25(column_name1 int, column_name2 varchar)");
+          statement.execute("CREATE TABLE table_name26(column_name1 int)");
+          statement.executeUpdate("INSERT INTO table_name25 VALUES (1, 'value1')");
+          statement.execute("ALTER TABLE table_name25 ADD column_name3 date");
+          statement.execute("DROP TABLE table_name26");
+          statement.close();
+          connection.close();
+
+          connection = reopenDatabase(protocol, dbDir, "TestDB_Catalog", new Properties());
+          statement = connection.createStatement();
+          ResultSet result = (ResultSet) statement.executeQuery("SELECT * FROM table_name25");
+          Assert.assertEquals("Wrong number of columns", 3, result.getMetaData().getColumnCount());
+          Assert.assertEquals("Wrong column name", "column_name3", result.getMetaData().getColumnName(3).toLowerCase());
+          try {
+              statement.executeQuery("SELECT * FROM table_name26");
+              Assert.fail("Selected from dropped table");
+          } catch (SQLException e) {
+          }
+          statement.close();
+          connection.close();
+
+          // a lost catalog is rebuilt from the table folders
+          ArrayList<File> catalogs = findFiles(dbDir, "catalog");
+          Assert.assertFalse("No catalog file", catalogs.isEmpty());
+          for (File catalog : catalogs) {
+              Assert.assertTrue("Failed to delete catalog", catalog.delete());
+          }
+          connection = reopenDatabase(protocol, dbDir, "TestDB_Catalog", new Properties());
+          statement = connection.createStatement();
+          Assert.assertEquals("Wrong rows after catalog was rebuilt", Arrays.asList("1, value1, null"),
+                  selectRows(statement, "SELECT * FROM table_name25"));
+          statement.execute("CREATE TABLE table_name26(column_name1 int)");
+          statement.close();
+          connection.close();
+      } catch (Throwable e) {
+          TestRunner.fail("Failed to keep the catalog", e);
+      }
+  }
+
+  @Test
+  public void testHashDistinctAndUnion() throws SQLException {
+      Connection connection = createUseDatabase("TestDB_Distinct");
+      try {
+          Statement statement = connection.createStatement();
+          statement.execute("CREATE TABLE table_name27(column_name1 int, column_name2 varchar)");
+          for (int i = 0; i < 300; i++) {
+              statement.executeUpdate("INSERT INTO table_name27 VALUES (" + (i % 7) + ", 'value" + (i % 3) + "')");
+          }
+          statement.executeUpdate("INSERT INTO table_name27(column_name2) VALUES ('value0')");
+          Assert.assertEquals("Wrong number of distinct rows", 8,
+                  selectRows(statement, "SELECT DISTINCT column_name1 FROM table_name27").size());
+          Assert.assertEquals("Wrong number of distinct rows", 22,
+                  selectRows(statement, "SELECT DISTINCT column_name1, column_name2 FROM table_name27").size());
+          Assert.assertEquals("Wrong distinct rows", Arrays.asList("value0", "value1", "value2"),
+                  selectRows(statement, "SELECT DISTINCT column_name2 FROM table_name27 ORDER BY column_name2"));
+          Assert.assertEquals("Wrong number of union rows", 8, selectRows(statement,
+                  "SELECT column_name1 FROM table_name27 WHERE column_name1 < 4 UNION SELECT column_name1 FROM table_name27").size());
+          Assert.assertEquals("Wrong number of union all rows", 602, selectRows(statement,
+                  "SELECT column_name1 FROM table_name27 UNION ALL SELECT column_name1 FROM table_name27").size());
+          statement.close();
+      } catch (Throwable e) {
+          TestRunner.fail("Failed to select distinct rows", e);
+      }
+      connection.close();
+  }
+
+  @Test
+  public void testLongVarchar() throws SQLException {
+      File dbDir = createDirectory();
+      File crashDir = createDirectory();
+      StringBuilder builder = new StringBuilder();
+      for (int i = 0; i < 70000; i++) {
+          builder.append((char) ('a' + i % 26));
+      }
+      String longValue = builder.toString();
+      try {
+          Connection connection = openDatabase(protocol, dbDir, "TestDB_Long", new Properties());
+          Statement statement = connection.createStatement();
+          statement.execute("CREATE TABLE table_name28(column_name1 int, column_name2 varchar)");
+          statement.executeUpdate("INSERT INTO table_name28 VALUES (1, '" + longValue + "')");
+          statement.executeUpdate("INSERT INTO table_name28 VALUES (2, 'short')");
+          int count = statement.executeUpdate("UPDATE table_name28 SET column_name2='" + longValue + "z' WHERE column_name1 = 2");
+          Assert.assertEquals("Updated returned wrong number", 1, count);
+          synchronized (TableCache.getInstance()) {
+              copyDirectory(dbDir, crashDir);
+          }
+          Assert.assertEquals("Wrong number of distinct rows", 2,
+                  selectRows(statement, "SELECT DISTINCT column_name2 FROM table_name28").size());
+          statement.close();
+          connection.close();
+
+          for (File directory : new File[] {dbDir, crashDir}) {
+              connection = reopenDatabase(protocol, directory, "TestDB_Long", new Properties());
+              statement = connection.createStatement();
+              Assert.assertEquals("Wrong long values read back", Arrays.asList("1, " + longValue, "2, " + longValue + "z"),
+                      selectRows(statement, "SELECT * FROM table_name28 ORDER BY column_name1"));
+              statement.close();
+              connection.close();
+          }
+      } catch (Throwable e) {
+          TestRunner.fail("Failed to store long varchar", e);
+      }
+  }
+
+  @Test
+  public void testOrderByKeysAndStability() throws SQLException {
+      Connection connection = createUseDatabase("TestDB_Sort");
+      try {
+          Statement statement = connection.createStatement();
+          statement.execute("CREATE TABLE table_name29(column_name1 int, column_name2 varchar, column_name3 int)");
+          String[] rows = {"2, 'b', 0", "1, 'c', 1", "2, 'a', 2", "3, 'a', 3", "1, 'c', 4", "2, 'a', 5"};
+          for (String row : rows) {
+              statement.executeUpdate("INSERT INTO table_name29 VALUES (" + row + ")");
+          }
+          statement.executeUpdate("INSERT INTO table_name29(column_name2, column_name3) VALUES ('a', 6)");
+          Assert.assertEquals("Wrong order of rows",
+                  Arrays.asList("3, a, 3", "2, a, 2", "2, a, 5", "2, b, 0", "1, c, 1", "1, c, 4", "null, a, 6"),
+                  selectRows(statement, "SELECT * FROM table_name29 ORDER BY column_name1 DESC, column_name2"));
+          Assert.assertEquals("Equal keys changed order",
+                  Arrays.asList("a, 2", "a, 3", "a, 5", "a, 6", "b, 0", "c, 1", "c, 4"),
+                  selectRows(statement, "SELECT column_name2, column_name3 FROM table_name29 ORDER BY column_name2"));
+          for (int i = 0; i < 2000; i++) {
+              statement.executeUpdate("INSERT INTO table_name29 VALUES (" + ((i * 7919) % 2000) + ", 'x', " + i + ")");
+          }
+          ArrayList<String> sorted = selectRows(statement,
+                  "SELECT column_name1 FROM table_name29 WHERE column_name2 = 'x' ORDER BY column_name1 DESC");
+          Assert.assertEquals("Wrong number of rows", 2000, sorted.size());
+          for (int i = 0; i < sorted.size(); i++) {
+              Assert.assertEquals("Wrong order of rows", String.valueOf(1999 - i), sorted.get(i));
+          }
+          statement.close();
+      } catch (Throwable e) {
+          TestRunner.fail("Failed to order rows", e);
+      }
+      connection.close();
+  }
+
+  @Test
+  public void testExternalSort() throws SQLException {
+      File dbDir = createDirectory();
+      Properties info = new Properties();
+      info.put("sortRunSize", "16");
+      try {
+          Connection connection = openDatabase(protocol, dbDir, "TestDB_ExternalSort", info);
+          Statement statement = connection.createStatement();
+          statement.execute("CREATE TABLE table_name30(column_name1 int, column_name2 varchar)");
+          for (int i = 0; i < 500; i++) {
+              statement.executeUpdate("INSERT INTO table_name30 VALUES (" + ((i * 37) % 500) + ", 'value" + (i % 10) + "')");
+          }
+          ArrayList<String> sorted = selectRows(statement, "SELECT column_name1 FROM table_name30 ORDER BY column_name1 DESC");
+          Assert.assertEquals("Wrong number of rows", 500, sorted.size());
+          for (int i = 0; i < sorted.size(); i++) {
+              Assert.assertEquals("Wrong order of rows", String.valueOf(499 - i), sorted.get(i));
+          }
+          statement.close();
+          connection.close();
+
+          // the table is read from its files and streamed into the runs
+          connection = reopenDatabase(protocol, dbDir, "TestDB_ExternalSort", info);
+          statement = connection.createStatement();
+          Assert.assertEquals("Wrong sorted rows", Arrays.asList("value9, 3", "value9, 13", "value9, 23"),
+                  selectRows(statement, "SELECT column_name2, column_name1 FROM table_name30 WHERE column_name1 < 40 "
+                          + "ORDER BY column_name2 DESC, column_name1 LIMIT 3"));
+          sorted = selectRows(statement, "SELECT * FROM table_name30 ORDER BY column_name2, column_name1 DESC");
+          Assert.assertEquals("Wrong number of rows", 500, sorted.size());
+          Assert.assertEquals("Wrong first row", "490, value0", sorted.get(0));
+          Assert.assertEquals("Wrong last row", "3, value9", sorted.get(499));
+          statement.close();
+          connection.close();
+      } catch (Throwable e) {
+          TestRunner.fail("Failed to sort rows in runs", e);
+      }
+      info.put("sortRunSize", "0");
+      try {
+          reopenDatabase(protocol, dbDir, "TestDB_ExternalSort", info);
+          Assert.fail("Connected with an invalid sortRunSize");
+      } catch (SQLException e) {
+      }
+  }
+
+  @Test
+  public void testLimitOffset() throws SQLException {
+      Connection connection = createUseDatabase("TestDB_Limit");
+      try {
+          Statement statement = connection.createStatement();
+          statement.execute("CREATE TABLE table_name31(column_name1 int, column_name2 varchar)");
+          for (int i = 0; i < 100; i++) {
+              statement.executeUpdate("INSERT INTO table_name31 VALUES (" + ((i * 31) % 100) + ", 'value" + (i % 4) + "')");
+          }
+          Assert.assertEquals("Wrong number of rows", 10, selectRows(statement, "SELECT * FROM table_name31 LIMIT 10").size());
+          Assert.assertEquals("Wrong number of rows", 0, selectRows(statement, "SELECT * FROM table_name31 LIMIT 0").size());
+          Assert.assertEquals("Wrong number of rows", 5,
+                  selectRows(statement, "SELECT * FROM table_name31 LIMIT 10 OFFSET 95").size());
+          Assert.assertEquals("Wrong top rows", Arrays.asList("97", "96", "95"),
+                  selectRows(statement, "SELECT column_name1 FROM table_name31 ORDER BY column_name1 DESC LIMIT 3 OFFSET 2"));
+          Assert.assertEquals("Wrong top rows", Arrays.asList("value2, 6", "value2, 10"), selectRows(statement,
+                  "SELECT column_name2, column_name1 FROM table_name31 WHERE column_name1 > 5 "
+                          + "ORDER BY column_name2 DESC, column_name1 LIMIT 2 OFFSET 23"));
+          Assert.assertEquals("Wrong number of rows", 0, selectRows(statement,
+                  "SELECT * FROM table_name31 ORDER BY column_name1 LIMIT 5 OFFSET 100").size());
+          Assert.assertEquals("Wrong number of union rows", 3, selectRows(statement,
+                  "SELECT column_name2 FROM table_name31 UNION SELECT column_name2 FROM table_name31 LIMIT 3").size());
+          try {
+              statement.executeQuery("SELECT * FROM table_name31 LIMIT -1");
+              Assert.fail("Selected with a negative limit");
+          } catch (SQLException e) {
+          }
+
+          // limit and offset are only keywords where LIMIT may stand
+          statement.execute("CREATE TABLE limit(offset int, limit varchar)");
+          statement.executeUpdate("INSERT INTO limit VALUES (2, 'two')");
+          statement.executeUpdate("INSERT INTO limit VALUES (1, 'one')");
+          statement.executeUpdate("INSERT INTO limit VALUES (3, 'three')");
+          Assert.assertEquals("Wrong rows", Arrays.asList("2, two"), selectRows(statement,
+                  "SELECT offset, limit FROM limit WHERE limit > 'one' ORDER BY offset LIMIT 1"));
+          Assert.assertEquals("Wrong rows", Arrays.asList("two, 2", "three, 3"), selectRows(statement,
+                  "SELECT limit, offset FROM limit ORDER BY offset LIMIT 2 OFFSET 1"));
+          statement.close();
+      } catch (Throwable e) {
+          TestRunner.fail("Failed to limit rows", e);
+      }
+      connection.close();
+  }
+
+  @Test
+  public void testCompiledConditions() throws SQLException {
+      Connection connection = createUseDatabase("TestDB_Where");
+      try {
+          Statement statement = connection.createStatement();
+          statement.execute("CREATE TABLE table_name32(column_name1 int, column_name2 varchar, column_name3 float, column_name4 date)");
+          for (int i = 0; i < 50; i++) {
+              statement.executeUpdate("INSERT INTO table_name32 VALUES (" + i + ", 'value" + (i % 5) + "', " + (i * 0.5)
+                      + ", '2011-01-" + (10 + i % 20) + "')");
+          }
+          statement.executeUpdate("INSERT INTO table_name32(column_name2) VALUES ('value9')");
+          // a null is smaller than any value
+          String[] conditions = {"column_name1 > 10 AND column_name1 <= 20", "column_name1 < 5 OR column_name1 >= 45",
+                  "NOT column_name1 = 3", "NOT (column_name1 < 10 OR column_name1 > 40)",
+                  "(column_name1 < 10 OR column_name1 > 40) AND column_name2 = 'value1'",
+                  "column_name2 != 'value2' AND NOT column_name3 > 10.0",
+                  "column_name4 >= '2011-01-25' AND (column_name2 = 'value0' OR column_name2 = 'value4')",
+                  "NOT (column_name1 = 1) AND NOT (column_name2 = 'value1' OR column_name2 = 'value2')",
+                  "column_name3 = 2.5", "column_name1 != 7"};
+          int[] counts = {10, 11, 50, 31, 4, 18, 4, 31, 1, 50};
+          for (int i = 0; i < conditions.length; i++) {
+              Assert.assertEquals("Wrong number of rows for " + conditions[i], counts[i],
+                      selectRows(statement, "SELECT column_name1 FROM table_name32 WHERE " + conditions[i]).size());
+          }
+          int count = statement.executeUpdate("UPDATE table_name32 SET column_name2='matched' WHERE " + conditions[4]);
+          Assert.assertEquals("Updated returned wrong number", 4, count);
+          count = statement.executeUpdate("DELETE FROM table_name32 WHERE " + conditions[3]);
+          Assert.assertEquals("Delete returned wrong number", 31, count);
+          Assert.assertEquals("Wrong rows left", Arrays.asList("1", "6", "41", "46"),
+                  selectRows(statement, "SELECT column_name1 FROM table_name32 WHERE column_name2 = 'matched' ORDER BY column_name1"));
+          statement.close();
+      } catch (Throwable e) {
+          TestRunner.fail("Failed to select with compound conditions", e);
+      }
+      connection.close();
+  }
+
+  @Test
+  public void testFilteredUpdateAndDelete() throws SQLException {
+      File dbDir = createDirectory();
+      try {
+          Connection connection = openDatabase(protocol, dbDir, "TestDB_Selection", new Properties());
+          Statement statement = connection.createStatement();
+          statement.execute("CREATE TABLE table_name33(column_name1 int, column_name2 varchar)");
+          for (int i = 0; i < 200; i++) {
+              statement.executeUpdate("INSERT INTO table_name33 VALUES (" + i + ", 'value" + i + "')");
+          }
+          int count1 = statement.executeUpdate(
+                  "UPDATE table_name33 SET column_name2='updated' WHERE column_name1 >= 60 AND column_name1 < 130");
+          Assert.assertEquals("Updated returned wrong number", 70, count1);
+          int count2 = statement.executeUpdate("DELETE FROM table_name33 WHERE column_name1 < 64 OR column_name1 >= 190");
+          Assert.assertEquals("Delete returned wrong number", 74, count2);
+          int count3 = statement.executeUpdate("DELETE FROM table_name33 WHERE column_name1 > 1000");
+          Assert.assertEquals("Delete returned wrong number", 0, count3);
+          statement.close();
+          connection.close();
+
+          connection = reopenDatabase(protocol, dbDir, "TestDB_Selection", new Properties());
+          statement = connection.createStatement();
+          Assert.assertEquals("Wrong number of rows", 126, selectRows(statement, "SELECT * FROM table_name33").size());
+          Assert.assertEquals("Wrong number of updated rows", 66,
+                  selectRows(statement, "SELECT * FROM table_name33 WHERE column_name2 = 'updated'").size());
+          Assert.assertEquals("Wrong rows", Arrays.asList("64, updated", "129, updated", "130, value130", "189, value189"),
+                  selectRows(statement, "SELECT * FROM table_name33 WHERE column_name1 = 64 OR column_name1 = 129 "
+                          + "OR column_name1 = 130 OR column_name1 = 189 OR column_name1 = 63 OR column_name1 = 190"));
+          statement.close();
+          connection.close();
+      } catch (Throwable e) {
+          TestRunner.fail("Failed to update and delete selected rows", e);
+      }
+  }
+
+  @Test
+  public void testProjectedColumns() throws SQLException {
+      File dbDir = createDirectory();
+      try {
+          Connection connection = openDatabase(protocol, dbDir, "TestDB_Projection", new Properties());
+          Statement statement = connection.createStatement();
+          statement.execute("CREATE TABLE table_name34(column_name1 int, column_name2 varchar, column_name3 float, column_name4 date)");
+          for (int i = 0; i < 20; i++) {
+              statement.executeUpdate("INSERT INTO table_name34 VALUES (" + i + ", 'value" + i + "', " + i + ".5, '2011-01-" + (10 + i) + "')");
+          }
+          statement.close();
+          connection.close();
+
+          connection = reopenDatabase(protocol, dbDir, "TestDB_Projection", new Properties());
+          statement = connection.createStatement();
+          ResultSet result = (ResultSet) statement.executeQuery(
+                  "SELECT column_name4, column_name2 FROM table_name34 WHERE column_name3 > 17.5");
+          Assert.assertEquals("Wrong number of columns", 2, result.getMetaData().getColumnCount());
+          Assert.assertEquals("Wrong column order", "column_name4", result.getMetaData().getColumnName(1).toLowerCase());
+          Assert.assertEquals("Wrong projected rows", Arrays.asList("2011-01-28, value18", "2011-01-29, value19"),
+                  selectRows(statement, "SELECT column_name4, column_name2 FROM table_name34 WHERE column_name3 > 17.5"));
+          statement.close();
+          connection.close();
+
+          connection = reopenDatabase(protocol, dbDir, "TestDB_Projection", new Properties());
+          statement = connection.createStatement();
+          statement.execute("ALTER TABLE table_name34 ADD column_name5 int");
+          statement.close();
+          connection.close();
+          connection = reopenDatabase(protocol, dbDir, "TestDB_Projection", new Properties());
+          statement = connection.createStatement();
+          Assert.assertEquals("Wrong projected rows", Arrays.asList("null, 0"),
+                  selectRows(statement, "SELECT column_name5, column_name1 FROM table_name34 WHERE column_name2 = 'value0'"));
+          statement.close();
+          connection.close();
+      } catch (Throwable e) {
+          TestRunner.fail("Failed to select projected columns", e);
+      }
+  }
+
+  @Test
+  public void testConditionPushedToReaders() throws SQLException {
+      File dbDir = createDirectory();
+      String[] conditions = {"column_name1 >= 250", "column_name2 = 'value7'", "column_name3 < 1.0",
+              "column_name2 > 'value8' AND column_name1 < 100", "NOT column_name3 >= 0.5", "column_name1 = 1000"};
+      try {
+          Connection connection = openDatabase(protocol, dbDir, "TestDB_Pushdown", new Properties());
+          Statement statement = connection.createStatement();
+          statement.execute("CREATE TABLE table_name35(column_name1 int, column_name2 varchar, column_name3 float)");
+          for (int i = 0; i < 300; i++) {
+              statement.executeUpdate("INSERT INTO table_name35 VALUES (" + i + ", 'value" + (i % 10) + "', " + (i * 0.25) + ")");
+          }
+          statement.executeUpdate("INSERT INTO table_name35(column_name2) VALUES ('value7')");
+          statement.close();
+          connection.close();
+
+          // read while filtering in the readers, then again from the cache
+          connection = reopenDatabase(protocol, dbDir, "TestDB_Pushdown", new Properties());
+          statement = connection.createStatement();
+          ArrayList<ArrayList<String>> pushed = new ArrayList<ArrayList<String>>();
+          for (String condition : conditions) {
+              pushed.add(selectRows(statement, "SELECT * FROM table_name35 WHERE " + condition));
+          }
+          statement.executeUpdate("UPDATE table_name35 SET column_name1=1000 WHERE column_name1 = 1000");
+          for (int i = 0; i < conditions.length; i++) {
+              Assert.assertEquals("Different rows for " + conditions[i],
+                      selectRows(statement, "SELECT * FROM table_name35 WHERE " + conditions[i]), pushed.get(i));
+          }
+          Assert.assertEquals("Wrong number of rows", 50, pushed.get(0).size());
+          Assert.assertEquals("Wrong number of rows", 31, pushed.get(1).size());
+          Assert.assertEquals("Wrong rows", Arrays.asList("0, value0, 0.0", "1, value1, 0.25", "2, value2, 0.5",
+                  "3, value3, 0.75", "null, value7, null"), pushed.get(2));
+          Assert.assertEquals("Wrong number of rows", 10, pushed.get(3).size());
+          Assert.assertEquals("Wrong number of rows", 0, pushed.get(5).size());
+          statement.close();
+          connection.close();
+      } catch (Throwable e) {
+          TestRunner.fail("Failed to filter rows while reading", e);
+      }
+  }
+
+  @Test
+  public void testVectorComparisons() throws SQLException {
+      Connection connection = createUseDatabase("TestDB_Vectors");
+      try {
+          Statement statement = connection.createStatement();
+          statement.execute("CREATE TABLE table_name36(column_name1 int, column_name2 float)");
+          int[] ints = new int[3002];
+          for (int i = 0; i < ints.length; i++) {
+              ints[i] = i == 3000 ? Integer.MIN_VALUE : i == 3001 ? Integer.MAX_VALUE : (i - 1500) * 1431655;
+              statement.executeUpdate("INSERT INTO table_name36 VALUES (" + ints[i] + ", " + (i - 1500) + ".5)");
+          }
+          int[] bounds = {Integer.MIN_VALUE, -2147483000, -1431655, 0, 1431655, 2147483000, Integer.MAX_VALUE};
+          for (int bound : bounds) {
+              int less = 0, equal = 0;
+              for (int value : ints) {
+                  less += value < bound ? 1 : 0;
+                  equal += value == bound ? 1 : 0;
+              }
+              Assert.assertEquals("Wrong rows below " + bound, less,
+                      selectRows(statement, "SELECT column_name1 FROM table_name36 WHERE column_name1 < " + bound).size());
+              Assert.assertEquals("Wrong rows equal to " + bound, equal,
+                      selectRows(statement, "SELECT column_name1 FROM table_name36 WHERE column_name1 = " + bound).size());
+              Assert.assertEquals("Wrong rows above " + bound, ints.length - less - equal,
+                      selectRows(statement, "SELECT column_name1 FROM table_name36 WHERE column_name1 > " + bound).size());
+          }
+          Assert.assertEquals("Wrong rows", 1500,
+                  selectRows(statement, "SELECT column_name2 FROM table_name36 WHERE column_name2 < 0.0").size());
+          Assert.assertEquals("Wrong rows", Arrays.asList("1501.5", "1500.5", "1499.5"),
+                  selectRows(statement, "SELECT column_name2 FROM table_name36 WHERE column_name2 > 1498.5 ORDER BY column_name2 DESC"));
+          statement.close();
+      } catch (Throwable e) {
+          TestRunner.fail("Failed to compare column vectors", e);
+      }
+      connection.close();
+  }
+
+  @Test
+  public void testParallelScan() throws SQLException {
+      File dbDir = createDirectory();
+      Properties info = new Properties();
+      info.put("parallelism", "4");
+      try {
+          Connection connection = openDatabase(protocol, dbDir, "TestDB_Parallel", info);
+          Statement statement = connection.createStatement();
+          statement.execute("CREATE TABLE table_name37(column_name1 int, column_name2 varchar)");
+          // more rows than two morsels, so that several workers take one
+          for (int i = 0; i < 34000; i++) {
+              statement.executeUpdate("INSERT INTO table_name37 VALUES (" + i + ", 'value" + (i % 7) + "')");
+          }
+          ArrayList<String> parallel = selectRows(statement,
+                  "SELECT column_name1 FROM table_name37 WHERE column_name2 = 'value3'");
+          Assert.assertEquals("Wrong number of rows", 4857, parallel.size());
+          for (int i = 0; i < parallel.size(); i++) {
+              Assert.assertEquals("Rows out of order", String.valueOf(i * 7 + 3), parallel.get(i));
+          }
+          Assert.assertEquals("Wrong updated rows", 17000,
+                  statement.executeUpdate("UPDATE table_name37 SET column_name2 = 'high' WHERE column_name1 >= 17000"));
+          Assert.assertEquals("Wrong deleted rows", 3400,
+                  statement.executeUpdate("DELETE FROM table_name37 WHERE column_name1 < 3400"));
+          statement.close();
+          connection.close();
+
+          // one worker finds the same rows in the same order
+          info.put("parallelism", "1");
+          connection = reopenDatabase(protocol, dbDir, "TestDB_Parallel", info);
+          statement = connection.createStatement();
+          ArrayList<String> serial = selectRows(statement,
+                  "SELECT column_name1 FROM table_name37 WHERE column_name2 = 'value3'");
+          Assert.assertEquals("Wrong number of rows", 1943, serial.size());
+          Assert.assertEquals("Wrong first row", "3405", serial.get(0));
+          Assert.assertEquals("Wrong last row", "16999", serial.get(serial.size() - 1));
+          Assert.assertEquals("Wrong number of rows", 17000,
+                  selectRows(statement, "SELECT column_name1 FROM table_name37 WHERE column_name2 = 'high'").size());
+          statement.close();
+          connection.close();
+      } catch (Throwable e) {
+          TestRunner.fail("Failed to scan rows in parallel", e);
+      }
+      info.put("parallelism", "0");
+      try {
+          reopenDatabase(protocol, dbDir, "TestDB_Parallel", info);
+          Assert.fail("Connected with an invalid parallelism");
+      } catch (SQLException e) {
+      }
+  }
+
+  @Test
+  public void testBPlusTreeIndex() throws SQLException {
+      File dbDir = createDirectory();
+      try {
+          Connection connection = openDatabase(protocol, dbDir, "TestDB_BTree", new Properties());
+          Statement statement = connection.createStatement();
+          statement.execute("CREATE TABLE table_name38(column_name1 int, column_name2 varchar, column_name3 date)");
+          for (int i = 0; i < 3000; i++) {
+              statement.executeUpdate("INSERT INTO table_name38 VALUES (" + ((i * 7) % 3000) + ", 'value" + (i % 100)
+                      + "', '2011-01-" + (10 + i % 20) + "')");
+          }
+          statement.execute("CREATE INDEX index_name1 ON table_name38 (column_name1)");
+          statement.execute("CREATE INDEX index_name2 ON table_name38 (column_name2)");
+          statement.execute("CREATE INDEX index_name3 ON table_name38 (column_name3)");
+          try {
+              statement.execute("CREATE INDEX index_name1 ON table_name38 (column_name2)");
+              Assert.fail("Created an index twice");
+          } catch (SQLException e) {
+          }
+          Assert.assertEquals("Wrong rows", Arrays.asList("42, value6"),
+                  selectRows(statement, "SELECT column_name1, column_name2 FROM table_name38 WHERE column_name1 = 42"));
+          Assert.assertEquals("Wrong number of rows", 30,
+                  selectRows(statement, "SELECT column_name1 FROM table_name38 WHERE column_name2 = 'value17'").size());
+          Assert.assertEquals("Wrong number of rows", 150,
+                  selectRows(statement, "SELECT column_name1 FROM table_name38 WHERE column_name3 = '2011-01-25'").size());
+          Assert.assertEquals("Wrong updated rows", 100,
+                  statement.executeUpdate("UPDATE table_name38 SET column_name1 = 5000 WHERE column_name1 >= 2900"));
+          Assert.assertEquals("Wrong deleted rows", 10,
+                  statement.executeUpdate("DELETE FROM table_name38 WHERE column_name1 < 10"));
+          statement.close();
+          connection.close();
+
+          Assert.assertEquals("Wrong index files", 3, findFiles(dbDir, ".idx").size());
+          connection = reopenDatabase(protocol, dbDir, "TestDB_BTree", new Properties());
+          statement = connection.createStatement();
+          Assert.assertEquals("Wrong number of rows", 100,
+                  selectRows(statement, "SELECT column_name1 FROM table_name38 WHERE column_name1 = 5000").size());
+          Assert.assertEquals("Wrong number of rows", 100,
+                  selectRows(statement, "SELECT column_name1 FROM table_name38 WHERE column_name1 > 2899").size());
+          Assert.assertEquals("Wrong number of rows", 2000,
+                  selectRows(statement, "SELECT column_name1 FROM table_name38 WHERE column_name1 >= 1000").size());
+          Assert.assertEquals("Wrong number of rows", 990,
+                  selectRows(statement, "SELECT column_name1 FROM table_name38 WHERE column_name1 < 1000").size());
+          statement.execute("DROP INDEX index_name1 ON table_name38");
+          Assert.assertEquals("Wrong number of rows", 990,
+                  selectRows(statement, "SELECT column_name1 FROM table_name38 WHERE column_name1 < 1000").size());
+
+          // index, on and key are only keywords where the syntax needs them
+          statement.execute("CREATE TABLE index(on int, key varchar)");
+          StringBuilder longKey = new StringBuilder();
+          for (int i = 0; i < 70000; i++) {
+              longKey.append((char) ('a' + i % 26));
+          }
+          statement.executeUpdate("INSERT INTO index VALUES (1, '" + longKey + "')");
+          statement.executeUpdate("INSERT INTO index VALUES (2, 'short')");
+          statement.execute("CREATE INDEX key ON index (key)");
+          statement.close();
+          connection.close();
+
+          connection = reopenDatabase(protocol, dbDir, "TestDB_BTree", new Properties());
+          statement = connection.createStatement();
+          Assert.assertEquals("Wrong rows", Arrays.asList("1"),
+                  selectRows(statement, "SELECT on FROM index WHERE key = '" + longKey + "'"));
+          Assert.assertEquals("Wrong rows", Arrays.asList("2"),
+                  selectRows(statement, "SELECT on FROM index WHERE key > '" + longKey + "'"));
+          statement.execute("DROP INDEX key ON index");
+          statement.close();
+          connection.close();
+          Assert.assertEquals("Wrong index files", 2, findFiles(dbDir, ".idx").size());
+      } catch (Throwable e) {
+          TestRunner.fail("Failed to use B+tree indexes", e);
+      }
+  }
+
+  @Test
+  public void testHashIndex() throws SQLException {
+      File dbDir = createDirectory();
+      try {
+          Connection connection = openDatabase(protocol, dbDir, "TestDB_Hash", new Properties());
+          Statement statement = connection.createStatement();
+          // using is only a keyword after the column of an index
+          statement.execute("CREATE TABLE table_name39(using int, column_name2 varchar)");
+          for (int i = 0; i < 3000; i++) {
+              statement.executeUpdate("INSERT INTO table_name39 VALUES (" + (i % 1000) + ", 'value" + i + "')");
+          }
+          statement.execute("CREATE INDEX index_name1 ON table_name39 (using) USING HASH");
+          statement.execute("CREATE INDEX index_name2 ON table_name39 (column_name2) USING HASH");
+          Assert.assertEquals("Wrong rows", Arrays.asList("value17", "value1017", "value2017"),
+                  selectRows(statement, "SELECT column_name2 FROM table_name39 WHERE using = 17"));
+          Assert.assertEquals("Wrong updated rows", 3,
+                  statement.executeUpdate("UPDATE table_name39 SET using = 5000 WHERE using = 17"));
+          Assert.assertEquals("Wrong deleted rows", 1,
+                  statement.executeUpdate("DELETE FROM table_name39 WHERE column_name2 = 'value1017'"));
+          Assert.assertEquals("Wrong number of rows", 0,
+                  selectRows(statement, "SELECT column_name2 FROM table_name39 WHERE using = 17").size());
+          statement.executeUpdate("INSERT INTO table_name39 VALUES (17, 'value3000')");
+          statement.close();
+          connection.close();
+
+          Assert.assertEquals("Wrong index files", 2, findFiles(dbDir, ".idx").size());
+          connection = reopenDatabase(protocol, dbDir, "TestDB_Hash", new Properties());
+          statement = connection.createStatement();
+          Assert.assertEquals("Wrong rows", Arrays.asList("value17", "value2017"),
+                  selectRows(statement, "SELECT column_name2 FROM table_name39 WHERE using = 5000"));
+          Assert.assertEquals("Wrong rows", Arrays.asList("value3000"),
+                  selectRows(statement, "SELECT column_name2 FROM table_name39 WHERE using = 17"));
+          Assert.assertEquals("Wrong rows", Arrays.asList("999"),
+                  selectRows(statement, "SELECT using FROM table_name39 WHERE column_name2 = 'value2999'"));
+          Assert.assertEquals("Wrong number of rows", 0,
+                  selectRows(statement, "SELECT using FROM table_name39 WHERE column_name2 = 'value1017'").size());
+          // a range is not answered by a hash index but still by a scan
+          Assert.assertEquals("Wrong number of rows", 2,
+                  selectRows(statement, "SELECT using FROM table_name39 WHERE using > 999").size());
+          statement.close();
+          connection.close();
+      } catch (Throwable e) {
+          TestRunner.fail("Failed to use hash indexes", e);
+      }
+  }
+
+  @Test
+  public void testPrimaryKeyAndUnique() throws SQLException {
+      File dbDir = createDirectory();
+      try {
+          Connection connection = openDatabase(protocol, dbDir, "TestDB_Constraints", new Properties());
+          Statement statement = connection.createStatement();
+          try {
+              statement.execute("CREATE TABLE table_name40(column_name1 int PRIMARY KEY, column_name2 int PRIMARY KEY)");
+              Assert.fail("Created a table with two primary keys");
+          } catch (SQLException e) {
+          }
+          // key, unique and primary are only keywords after a column type
+          statement.execute("CREATE TABLE table_name41(key int PRIMARY KEY, unique varchar UNIQUE, primary float)");
+          for (int i = 0; i < 100; i++) {
+              statement.executeUpdate("INSERT INTO table_name41 VALUES (" + i + ", 'value" + i + "', " + i + ".5)");
+          }
+          assertRejected(statement, "INSERT INTO table_name41 VALUES (5, 'value100', 1.5)");
+          assertRejected(statement, "INSERT INTO table_name41 VALUES (100, 'value5', 1.5)");
+          assertRejected(statement, "INSERT INTO table_name41(unique, primary) VALUES ('value100', 1.5)");
+          assertRejected(statement, "UPDATE table_name41 SET key = 6 WHERE key = 5");
+          assertRejected(statement, "UPDATE table_name41 SET unique = 'value100' WHERE key < 2");
+          assertRejected(statement, "DROP INDEX key_pkey ON table_name41");
+          // nulls do not repeat a unique value
+          statement.executeUpdate("INSERT INTO table_name41(key, primary) VALUES (100, 1.5)");
+          statement.executeUpdate("INSERT INTO table_name41(key, primary) VALUES (101, 1.5)");
+          Assert.assertEquals("Wrong updated rows", 1,
+                  statement.executeUpdate("UPDATE table_name41 SET unique = 'value5' WHERE key = 5"));
+          statement.close();
+          connection.close();
+
+          connection = reopenDatabase(protocol, dbDir, "TestDB_Constraints", new Properties());
+          statement = connection.createStatement();
+          assertRejected(statement, "INSERT INTO table_name41 VALUES (99, 'value200', 1.5)");
+          assertRejected(statement, "INSERT INTO table_name41 VALUES (200, 'value99', 1.5)");
+          assertRejected(statement, "UPDATE table_name41 SET unique = 'value1' WHERE key = 0");
+          Assert.assertEquals("Wrong updated rows", 1,
+                  statement.executeUpdate("UPDATE table_name41 SET key = 1000 WHERE unique = 'value7'"));
+          statement.executeUpdate("INSERT INTO table_name41 VALUES (7, 'value107', 7.5)");
+          Assert.assertEquals("Wrong rows", Arrays.asList("1000, value7", "7, value107"),
+                  selectRows(statement, "SELECT key, unique FROM table_name41 WHERE primary = 7.5"));
+          Assert.assertEquals("Wrong number of rows", 103,
+                  selectRows(statement, "SELECT key FROM table_name41").size());
+          statement.close();
+          connection.close();
+      } catch (Throwable e) {
+          TestRunner.fail("Failed to enforce PRIMARY KEY and UNIQUE", e);
+      }
+  }
+
+  @Test
+  public void testZoneMaps() throws SQLException {
+      File dbDir = createDirectory();
+      try {
+          Connection connection = openDatabase(protocol, dbDir, "TestDB_Zones", new Properties());
+          Statement statement = connection.createStatement();
+          statement.execute("CREATE TABLE table_name42(column_name1 int, column_name2 date)");
+          // rows in order of their dates, so that most blocks can be skipped
+          java.time.LocalDate first = java.time.LocalDate.of(2011, 1, 1);
+          for (int i = 0; i < 5000; i++) {
+              statement.executeUpdate("INSERT INTO table_name42 VALUES (" + i + ", '" + first.plusDays(i / 20) + "')");
+          }
+          statement.close();
+          connection.close();
+
+          Assert.assertFalse("No zone map written", findFiles(dbDir, ".zone").isEmpty());
+          connection = reopenDatabase(protocol, dbDir, "TestDB_Zones", new Properties());
+          statement = connection.createStatement();
+          Assert.assertEquals("Wrong number of rows", 20,
+                  selectRows(statement, "SELECT column_name1 FROM table_name42 WHERE column_name2 = '2011-09-07'").size());
+          Assert.assertEquals("Wrong number of rows", 60,
+                  selectRows(statement, "SELECT column_name1 FROM table_name42 WHERE column_name2 > '2011-09-04'").size());
+          Assert.assertEquals("Wrong number of rows", 100,
+                  selectRows(statement, "SELECT column_name1 FROM table_name42 WHERE column_name1 < 100").size());
+          Assert.assertEquals("Wrong number of rows", 0,
+                  selectRows(statement, "SELECT column_name1 FROM table_name42 WHERE column_name1 > 4999").size());
+          // an update widens the block of the first rows
+          Assert.assertEquals("Wrong updated rows", 1,
+                  statement.executeUpdate("UPDATE table_name42 SET column_name1 = 9000, column_name2 = '2012-01-01' "
+                          + "WHERE column_name1 = 3"));
+          Assert.assertEquals("Wrong rows", Arrays.asList("9000"),
+                  selectRows(statement, "SELECT column_name1 FROM table_name42 WHERE column_name2 > '2011-12-31'"));
+          Assert.assertEquals("Wrong rows", Arrays.asList("9000"),
+                  selectRows(statement, "SELECT column_name1 FROM table_name42 WHERE column_name1 > 4999"));
+          Assert.assertEquals("Wrong deleted rows", 19,
+                  statement.executeUpdate("DELETE FROM table_name42 WHERE column_name2 < '2011-01-02'"));
+          statement.close();
+          connection.close();
+
+          connection = reopenDatabase(protocol, dbDir, "TestDB_Zones", new Properties());
+          statement = connection.createStatement();
+          Assert.assertEquals("Wrong rows", Arrays.asList("9000, 2012-01-01"),
+                  selectRows(statement, "SELECT * FROM table_name42 WHERE column_name1 > 4999"));
+          Assert.assertEquals("Wrong number of rows", 80,
+                  selectRows(statement, "SELECT column_name1 FROM table_name42 WHERE column_name1 < 100").size());
+          Assert.assertEquals("Wrong number of rows", 4981,
+                  selectRows(statement, "SELECT column_name1 FROM table_name42 WHERE column_name2 > '2010-12-31'").size());
+          statement.close();
+          connection.close();
+      } catch (Throwable e) {
+          TestRunner.fail("Failed to skip blocks by their zone maps", e);
+      }
+  }
+
+  @Test
+  public void testBloomFilters() throws SQLException {
+      File dbDir = createDirectory();
+      TableCache cache = TableCache.getInstance();
+      long byteBudget = cache.getByteBudget();
+      try {
+          Connection connection = openDatabase(protocol, dbDir, "TestDB_Bloom", new Properties());
+          Statement statement = connection.createStatement();
+          statement.execute("CREATE TABLE table_name43(column_name1 int, column_name2 varchar)");
+          for (int i = 0; i < 200; i++) {
+              statement.executeUpdate("INSERT INTO table_name43 VALUES (" + i + ", 'value" + i + "')");
+          }
+          assertRejected(statement, "CREATE INDEX index_name1 ON table_name43 (column_name2) USING BLOOM (1.5)");
+          assertRejected(statement, "CREATE INDEX index_name1 ON table_name43 (column_name2) USING BTREE (0.01)");
+          statement.execute("CREATE INDEX index_name1 ON table_name43 (column_name2) USING BLOOM (0.01)");
+          statement.execute("CREATE INDEX index_name2 ON table_name43 (column_name1) USING BLOOM");
+          statement.close();
+          connection.close();
+          int filters = findFiles(dbDir, ".bloom").size();
+          Assert.assertTrue("No Bloom filter written", filters > 0);
+
+          // the new rows go to segments of their own, with their own filters
+          cache.setByteBudget(16 * 1024);
+          connection = reopenDatabase(protocol, dbDir, "TestDB_Bloom", new Properties());
+          statement = connection.createStatement();
+          for (int i = 200; i < 203; i++) {
+              statement.executeUpdate("INSERT INTO table_name43 VALUES (" + i + ", 'value" + i + "')");
+          }
+          statement.close();
+          connection.close();
+          Assert.assertFalse("Rows were not appended as segments", findFiles(dbDir, ".seg").isEmpty());
+          Assert.assertTrue("Segments have no Bloom filters", findFiles(dbDir, ".bloom").size() > filters);
+
+          connection = reopenDatabase(protocol, dbDir, "TestDB_Bloom", new Properties());
+          statement = connection.createStatement();
+          Assert.assertEquals("Wrong rows", Arrays.asList("17"),
+                  selectRows(statement, "SELECT column_name1 FROM table_name43 WHERE column_name2 = 'value17'"));
+          Assert.assertEquals("Wrong rows", Arrays.asList("201"),
+                  selectRows(statement, "SELECT column_name1 FROM table_name43 WHERE column_name2 = 'value201'"));
+          Assert.assertEquals("Wrong rows", Arrays.asList("value202"),
+                  selectRows(statement, "SELECT column_name2 FROM table_name43 WHERE column_name1 = 202"));
+          for (int i = 203; i < 300; i++) {
+              Assert.assertEquals("Found a missing row", 0, selectRows(statement,
+                      "SELECT column_name1 FROM table_name43 WHERE column_name2 = 'value" + i + "'").size());
+              Assert.assertEquals("Found a missing row", 0, selectRows(statement,
+                      "SELECT column_name1 FROM table_name43 WHERE column_name1 = " + i).size());
+          }
+          Assert.assertEquals("Wrong number of rows", 203,
+                  selectRows(statement, "SELECT column_name1 FROM table_name43").size());
+          statement.close();
+          connection.close();
+      } catch (Throwable e) {
+          TestRunner.fail("Failed to skip segments by their Bloom filters", e);
+      } finally {
+          cache.setByteBudget(byteBudget);
+      }
+  }
+
+  @Test
+  public void testColumnarReads() throws SQLException {
+      File dbDir = createDirectory();
+      try {
+          Connection connection = openDatabase("coldb", dbDir, "TestDB_ColumnarReads", new Properties());
+          Statement statement = connection.createStatement();
+          statement.execute("CREATE TABLE table_name44(column_name1 int, column_name2 varchar)");
+          StringBuilder padding = new StringBuilder();
+          for (int i = 0; i < 100; i++) {
+              padding.append((char) ('a' + i % 26));
+          }
+          for (int i = 0; i < 2000; i++) {
+              statement.executeUpdate("INSERT INTO table_name44 VALUES (" + i + ", '" + padding + i + "')");
+          }
+          StringBuilder longValue = new StringBuilder();
+          for (int i = 0; i < 40000; i++) {
+              longValue.append((char) ('a' + i % 26));
+          }
+          statement.executeUpdate("INSERT INTO table_name44 VALUES (2000, '" + longValue + "')");
+          statement.executeUpdate("INSERT INTO table_name44 VALUES (2001, 'last')");
+          statement.close();
+          connection.close();
+
+          // the values span many windows and one is longer than a window
+          connection = reopenDatabase("coldb", dbDir, "TestDB_ColumnarReads", new Properties());
+          statement = connection.createStatement();
+          Assert.assertEquals("Wrong rows", Arrays.asList(padding + "1999", longValue.toString(), "last"),
+                  selectRows(statement, "SELECT column_name2 FROM table_name44 WHERE column_name1 > 1998"));
+          Assert.assertEquals("Wrong rows", Arrays.asList("2001"),
+                  selectRows(statement, "SELECT column_name1 FROM table_name44 WHERE column_name2 = 'last'"));
+          Assert.assertEquals("Wrong number of rows", 2002,
+                  selectRows(statement, "SELECT * FROM table_name44").size());
+          // the file read above is replaced at once
+          Assert.assertEquals("Wrong deleted rows", 1,
+                  statement.executeUpdate("DELETE FROM table_name44 WHERE column_name1 = 2000"));
+          statement.close();
+          connection.close();
+
+          File tableFile = null;
+          for (File file : findFiles(dbDir, "_name44")) {
+              if (file.getName().endsWith(".col")) {
+                  tableFile = file;
+              }
+          }
+          java.io.RandomAccessFile truncated = new java.io.RandomAccessFile(tableFile, "rw");
+          truncated.setLength(tableFile.length() / 2);
+          truncated.close();
+          connection = reopenDatabase("coldb", dbDir, "TestDB_ColumnarReads", new Properties());
+          statement = connection.createStatement();
+          try {
+              selectRows(statement, "SELECT * FROM table_name44");
+              Assert.fail("Read a truncated table file");
+          } catch (SQLException e) {
+          }
+          statement.close();
+          connection.close();
+      } catch (Throwable e) {
+          TestRunner.fail("Failed to read columnar table files", e);
+      }
+  }
+
+  @Test
+  public void testConstraintsAfterCatalogRebuild() throws SQLException {
+      File dbDir = createDirectory();
+      try {
+          Connection connection = openDatabase(protocol, dbDir, "TestDB_Rebuild", new Properties());
+          Statement statement = connection.createStatement();
+          statement.execute("CREATE TABLE table_name45(column_name1 int PRIMARY KEY, column_name2 varchar UNIQUE)");
+          statement.executeUpdate("INSERT INTO table_name45 VALUES (1, 'value1')");
+          statement.close();
+          connection.close();
+
+          // the constraints come back from the headers of their index files
+          deleteCatalog(dbDir);
+          connection = reopenDatabase(protocol, dbDir, "TestDB_Rebuild", new Properties());
+          statement = connection.createStatement();
+          assertRejected(statement, "INSERT INTO table_name45 VALUES (1, 'value2')");
+          assertRejected(statement, "INSERT INTO table_name45 VALUES (2, 'value1')");
+          assertRejected(statement, "INSERT INTO table_name45(column_name2) VALUES ('value3')");
+          statement.executeUpdate("INSERT INTO table_name45 VALUES (2, 'value2')");
+          Assert.assertEquals("Wrong rows", Arrays.asList("1, value1", "2, value2"),
+                  selectRows(statement, "SELECT * FROM table_name45"));
+          statement.close();
+          connection.close();
+      } catch (Throwable e) {
+          TestRunner.fail("Failed to keep constraints when rebuilding the catalog", e);
+      }
+      // a damaged index file is not taken for a table without the constraint
+      try {
+          for (File indexFile : findFiles(dbDir, ".idx")) {
+              java.io.RandomAccessFile damaged = new java.io.RandomAccessFile(indexFile, "rw");
+              damaged.setLength(indexFile.length() - 1);
+              damaged.close();
+          }
+          deleteCatalog(dbDir);
+      } catch (IOException e) {
+          TestRunner.fail("Failed to damage the index files", e);
+      }
+      try {
+          reopenDatabase(protocol, dbDir, "TestDB_Rebuild", new Properties());
+          Assert.fail("Rebuilt the catalog without the constraints");
+      } catch (SQLException e) {
+      }
+  }
+
+  @Test
+  public void testIndexesAfterCatalogRebuild() throws SQLException {
+      File dbDir = createDirectory();
+      try {
+          Connection connection = openDatabase(protocol, dbDir, "TestDB_IndexRebuild", new Properties());
+          Statement statement = connection.createStatement();
+          statement.execute("CREATE TABLE table_name46(column_name1 int, column_name2 varchar)");
+          for (int i = 0; i < 100; i++) {
+              statement.executeUpdate("INSERT INTO table_name46 VALUES (" + i + ", 'value" + i + "')");
+          }
+          statement.execute("CREATE INDEX index_name1 ON table_name46 (column_name1)");
+          statement.execute("CREATE INDEX index_name2 ON table_name46 (column_name2) USING HASH");
+          statement.close();
+          connection.close();
+
+          deleteCatalog(dbDir);
+          connection = reopenDatabase(protocol, dbDir, "TestDB_IndexRebuild", new Properties());
+          statement = connection.createStatement();
+          assertRejected(statement, "CREATE INDEX index_name1 ON table_name46 (column_name2)");
+          Assert.assertEquals("Wrong rows", Arrays.asList("42"),
+                  selectRows(statement, "SELECT column_name1 FROM table_name46 WHERE column_name2 = 'value42'"));
+          Assert.assertEquals("Wrong number of rows", 10,
+                  selectRows(statement, "SELECT column_name1 FROM table_name46 WHERE column_name1 >= 90").size());
+          statement.execute("DROP INDEX index_name1 ON table_name46");
+          statement.close();
+          connection.close();
+
+          // a dropped index does not come back with the next rebuild
+          Assert.assertEquals("Wrong index files", 1, findFiles(dbDir, ".idx").size());
+          deleteCatalog(dbDir);
+          connection = reopenDatabase(protocol, dbDir, "TestDB_IndexRebuild", new Properties());
+          statement = connection.createStatement();
+          assertRejected(statement, "DROP INDEX index_name1 ON table_name46");
+          statement.execute("DROP INDEX index_name2 ON table_name46");
+          statement.execute("CREATE INDEX index_name1 ON table_name46 (column_name2)");
+          Assert.assertEquals("Wrong rows", Arrays.asList("7"),
+                  selectRows(statement, "SELECT column_name1 FROM table_name46 WHERE column_name2 = 'value7'"));
+          statement.close();
+          connection.close();
+      } catch (Throwable e) {
+          TestRunner.fail("Failed to keep indexes when rebuilding the catalog", e);
+      }
+  }
+
+  @Test
+  public void testBloomFiltersAfterCatalogRebuild() throws SQLException {
+      File dbDir = createDirectory();
+      TableCache cache = TableCache.getInstance();
+      long byteBudget = cache.getByteBudget();
+      try {
+          Connection connection = openDatabase(protocol, dbDir, "TestDB_BloomRebuild", new Properties());
+          Statement statement = connection.createStatement();
+          statement.execute("CREATE TABLE table_name47(column_name1 int, column_name2 varchar)");
+          for (int i = 0; i < 200; i++) {
+              statement.executeUpdate("INSERT INTO table_name47 VALUES (" + i + ", 'value" + i + "')");
+          }
+          statement.execute("CREATE INDEX index_name1 ON table_name47 (column_name2) USING BLOOM (0.05)");
+          statement.close();
+          connection.close();
+
+          // a catalog of any other version is rebuilt from the folders
+          for (File catalog : dbDir.listFiles()) {
+              if (catalog.isFile() && catalog.getName().startsWith("catalog")) {
+                  java.io.RandomAccessFile version = new java.io.RandomAccessFile(catalog, "rw");
+                  version.writeInt(2);
+                  version.close();
+              }
+          }
+          int filters = findFiles(dbDir, ".bloom").size();
+          cache.setByteBudget(16 * 1024);
+          connection = reopenDatabase(protocol, dbDir, "TestDB_BloomRebuild", new Properties());
+          statement = connection.createStatement();
+          assertRejected(statement, "CREATE INDEX index_name1 ON table_name47 (column_name1)");
+          for (int i = 200; i < 203; i++) {
+              statement.executeUpdate("INSERT INTO table_name47 VALUES (" + i + ", 'value" + i + "')");
+          }
+          statement.close();
+          connection.close();
+          Assert.assertTrue("Segments have no Bloom filters", findFiles(dbDir, ".bloom").size() > filters);
+
+          connection = reopenDatabase(protocol, dbDir, "TestDB_BloomRebuild", new Properties());
+          statement = connection.createStatement();
+          Assert.assertEquals("Wrong rows", Arrays.asList("202"),
+                  selectRows(statement, "SELECT column_name1 FROM table_name47 WHERE column_name2 = 'value202'"));
+          Assert.assertEquals("Found a missing row", 0,
+                  selectRows(statement, "SELECT column_name1 FROM table_name47 WHERE column_name2 = 'value203'").size());
+          statement.execute("DROP INDEX index_name1 ON table_name47");
+          statement.close();
+          connection.close();
+      } catch (Throwable e) {
+          TestRunner.fail("Failed to keep Bloom filters when rebuilding the catalog", e);
+      } finally {
+          cache.setByteBudget(byteBudget);
+      }
+  }
+
 }
\ No newline at end of file
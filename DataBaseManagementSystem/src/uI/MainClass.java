@@ -34,7 +34,7 @@ public class MainClass {
 						if(statement.getResultSet()!=null){
 							ResultSet resultset = (ResultSet) statement.getResultSet();
 							ResultSetMetaData meta = resultset.getMetaData();
-							ArrayList<ArrayList<Object>> table = meta.getTable();
+							ArrayList<ArrayList<Object>> table = new ArrayList<ArrayList<Object>>(meta.getTable());
 							TextOptimizer.getInstance().drawTable(meta.getColNames(), table);
 						}
 					} catch (Exception e) {
@@ -1,96 +1,182 @@
 package xML;
 
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashMap;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import accessories.SQLExceptions;
 import accessories.TableValues;
 import accessories.StaticData.AttributeWords;
-import dataTypesController.DataTypeController;
 import fileManipulator.IFileReader;
+import fileManipulator.IFilter;
+import fileManipulator.IRowSink;
+import fileManipulator.Projection;
+import fileManipulator.RowFilter;
 
+/**
+ * Reads a table with a StAX cursor, every Rows element is decoded straight
+ * into its row so no document tree is built. Elements of columns that are
+ * not wanted are skipped without reading their text, and a row that fails
+ * the filter has only its filter columns converted.
+ */
 public class XMLReader implements IFileReader{
 
 	private static XMLReader instance;
-	
+	private XMLInputFactory factory;
+
 	private XMLReader(){
-		
+		factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		factory.setProperty(XMLInputFactory.IS_COALESCING, true);
 	}
-	
+
 	public static XMLReader getInstance(){
 		if(instance == null) {
 			instance =  new XMLReader();
 		}
 		return instance;
 	}
-	
+
 	@Override
 	public TableValues read(File source) throws SQLException{
-		Document document = null;
+		return read(source, null, null);
+	}
+
+	@Override
+	public TableValues read(File source, ArrayList<String> columns, IFilter filter) throws SQLException{
+		return read(source, columns, filter, null);
+	}
+
+	@Override
+	public TableValues read(File source, ArrayList<String> columns, IFilter filter, IRowSink sink)
+			throws SQLException{
+		TableValues table = null;
 		try {
-			DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory
-					.newInstance();
-			DocumentBuilder documentBuilder = documentBuilderFactory
-					.newDocumentBuilder();
-			document = documentBuilder.parse(source.getPath());
-		} catch (ParserConfigurationException e) {
-			SQLExceptions.canNotReadFile();
-		} catch (SAXException e) {
+			InputStream input = new BufferedInputStream(new FileInputStream(source), 1 << 16);
+			try {
+				XMLStreamReader reader = factory.createXMLStreamReader(input);
+				try {
+					table = transform(reader, columns, filter, sink);
+				} finally {
+					reader.close();
+				}
+			} finally {
+				input.close();
+			}
+		} catch (XMLStreamException e) {
 			SQLExceptions.canNotReadFile();
 		} catch (IOException e) {
 			SQLExceptions.canNotReadFile();
 		}
-		return transform(document);
+		return table;
 	}
 
-	private TableValues transform(Document data) throws SQLException {
-		Element rootElement = ((Document) data).getDocumentElement();
-		String tableName = rootElement.getTagName();
-		int numCols = Integer.parseInt(rootElement.getAttribute(AttributeWords.NumberOfColumns.name()));
-		ArrayList<String> colNames = new ArrayList<String>(getColNames(numCols, rootElement));
-		ArrayList<Integer> colTypes = new ArrayList<Integer>(getColType(numCols, rootElement));
-		ArrayList<ArrayList<Object>> raws = new ArrayList<>();
-		NodeList nodeList = ((Document) data).getElementsByTagName(AttributeWords.Rows.name());
-		int numRows = nodeList.getLength();
-		for (int i = 0; i < numRows; i++) {
-			Element raw = (org.w3c.dom.Element) nodeList.item(i);
-			ArrayList<Object> rawItems = new ArrayList<>();
-			for (int j = 0; j < numCols; j++) {
-				String stringData = raw.getElementsByTagName(colNames.get(j)).item(0).getTextContent();
-				Integer type = colTypes.get(j);
-				rawItems.add(DataTypeController.convertData(type, stringData));
+	private TableValues transform(XMLStreamReader reader, ArrayList<String> columns, IFilter filter,
+			IRowSink sink) throws XMLStreamException, SQLException {
+		while (reader.next() != XMLStreamConstants.START_ELEMENT) {
+		}
+		String tableName = reader.getLocalName();
+		int numCols = Integer.parseInt(reader.getAttributeValue(null, AttributeWords.NumberOfColumns.name()));
+		ArrayList<String> allNames = getColNames(numCols, reader);
+		int[] projection = Projection.getColumns(allNames, columns);
+		ArrayList<String> colNames = Projection.select(allNames, projection);
+		ArrayList<Integer> colTypes = Projection.select(getColType(numCols, reader), projection);
+		numCols = projection.length;
+		HashMap<String, Integer> colIndices = new HashMap<String, Integer>();
+		for (int i = numCols - 1; i >= 0; i--) {
+			colIndices.put(colNames.get(i), i);
+		}
+		RowFilter rowFilter = RowFilter.create(filter, colNames);
+		ArrayList<ArrayList<Object>> raws = new ArrayList<>(sink == null ? getNumRows(reader) : 0);
+		while (reader.hasNext()) {
+			if (reader.next() == XMLStreamConstants.START_ELEMENT
+					&& reader.getLocalName().equals(AttributeWords.Rows.name())) {
+				ArrayList<Object> row = readRow(reader, colIndices, colTypes, rowFilter);
+				if (row == null) {
+					continue;
+				}
+				if (sink == null) {
+					raws.add(row);
+				} else {
+					sink.add(row);
+				}
 			}
-			raws.add(rawItems);
 		}
-		return new TableValues(tableName, colTypes, colNames, raws, numCols, numRows);
+		return new TableValues(tableName, colTypes, colNames, raws, numCols, raws.size());
 	}
 
-	private ArrayList<String> getColNames(int nomOfCols, Element rootElement) {
+	/**
+	 * Returns null when the row fails the filter, only the filter columns of
+	 * such a row are converted.
+	 */
+	private ArrayList<Object> readRow(XMLStreamReader reader, HashMap<String, Integer> colIndices,
+			ArrayList<Integer> colTypes, RowFilter rowFilter) throws XMLStreamException, SQLException {
+		String[] fields = new String[colTypes.size()];
+		while (reader.next() != XMLStreamConstants.END_ELEMENT || !reader.getLocalName().equals(AttributeWords.Rows.name())) {
+			if (reader.getEventType() == XMLStreamConstants.START_ELEMENT) {
+				Integer col = colIndices.get(reader.getLocalName());
+				if (col == null || fields[col] != null) {
+					skipElement(reader);
+				} else {
+					fields[col] = reader.getElementText();
+				}
+			}
+		}
+		for (int j = 0; j < fields.length; j++) {
+			if (fields[j] == null) {
+				SQLExceptions.canNotReadFile();
+			}
+		}
+		return RowFilter.convert(rowFilter, fields, colTypes);
+	}
+
+	private void skipElement(XMLStreamReader reader) throws XMLStreamException {
+		int depth = 1;
+		while (depth > 0) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				depth++;
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				depth--;
+			}
+		}
+	}
+
+	private int getNumRows(XMLStreamReader reader) {
+		try {
+			int numRows = Integer.parseInt(reader.getAttributeValue(null, AttributeWords.NumberOfRows.name()));
+			return Math.max(0, Math.min(numRows, 1 << 20));
+		} catch (NumberFormatException e) {
+			return 10;
+		}
+	}
+
+	private ArrayList<String> getColNames(int nomOfCols, XMLStreamReader reader) {
 		ArrayList<String> colNames = new ArrayList<>();
 		for (int i = 0; i < nomOfCols; i++) {
-			colNames.add(rootElement.getAttribute(AttributeWords.Column.name() + (i + 1)));
+			colNames.add(reader.getAttributeValue(null, AttributeWords.Column.name() + (i + 1)));
 		}
 		return colNames;
 	}
 
-	private ArrayList<Integer> getColType(int nomOfCols, Element rootElement) {
+	private ArrayList<Integer> getColType(int nomOfCols, XMLStreamReader reader) {
 		ArrayList<Integer> colTypes = new ArrayList<>();
 		for (int i = 0; i < nomOfCols; i++) {
-			int type = Integer.valueOf(rootElement.getAttribute(AttributeWords.Column.name() + (i + 1) + AttributeWords.Type.name()));
+			int type = Integer.valueOf(reader.getAttributeValue(null, AttributeWords.Column.name() + (i + 1) + AttributeWords.Type.name()));
 			colTypes.add(type);
 		}
 		return colTypes;
 	}
-	
+
 }
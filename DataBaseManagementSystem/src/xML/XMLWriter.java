@@ -1,100 +1,120 @@
 package xML;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.sql.SQLException;
 import java.util.ArrayList;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerConfigurationException;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
-
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 
 import fileManipulator.IFileWriter;
 import accessories.SQLExceptions;
 import accessories.StaticData.AttributeWords;
 import accessories.TableValues;
 
+/**
+ * Writes a table row by row with a StAX writer, the root element carries
+ * the column attributes and every row is a Rows element with one child per
+ * column. Indentation is off unless it is turned on with setIndent.
+ */
 public class XMLWriter implements IFileWriter {
 
 	private static XMLWriter instance;
+	private static String encoding = "UTF-8";
+	private XMLOutputFactory factory;
+	private boolean indent;
 
 	private XMLWriter() {
-
+		factory = XMLOutputFactory.newInstance();
+		indent = false;
 	}
 
 	public static XMLWriter getInstance() {
 		if (instance == null) {
-			instance = new XMLWriter();	
+			instance = new XMLWriter();
 		}
 		return instance;
 	}
-	
+
+	public void setIndent(boolean indent) {
+		this.indent = indent;
+	}
+
+	public boolean isIndent() {
+		return indent;
+	}
+
 	@Override
 	public void write(TableValues data, File fileToUpdate) throws SQLException {
+		try {
+			OutputStream output = new BufferedOutputStream(new FileOutputStream(fileToUpdate), 1 << 16);
+			try {
+				XMLStreamWriter writer = factory.createXMLStreamWriter(output, encoding);
+				write(data, writer);
+				writer.close();
+			} finally {
+				output.close();
+			}
+		} catch (FileNotFoundException e) {
+			SQLExceptions.fileNotFound();
+		} catch (XMLStreamException e) {
+			SQLExceptions.canNotWriteFile();
+		} catch (IOException e) {
+			SQLExceptions.canNotWriteFile();
+		}
+	}
+
+	private void write(TableValues data, XMLStreamWriter writer) throws XMLStreamException {
 		int numCols = data.getNumCols();
 		int numRows = data.getNumRows();
 		ArrayList<String> colNames = data.getcolNames();
 		ArrayList<Integer> colTypes = data.getColTypes();
-		DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-		DocumentBuilder documentBuilder = null;
-		try {
-			documentBuilder = documentBuilderFactory.newDocumentBuilder();
-		} catch (ParserConfigurationException e) {
-			SQLExceptions.canNotParseFile();
-		}
-		Document document = documentBuilder.newDocument();
-		Element rootElement = document.createElement(data.getTableName());
-		rootElement.setAttribute(AttributeWords.NumberOfColumns.name(), String.valueOf(numCols));
-		rootElement.setAttribute(AttributeWords.NumberOfRows.name(), String.valueOf(numRows));
+		writer.writeStartDocument(encoding, "1.0");
+		newLine(writer, 0);
+		writer.writeDTD("<!DOCTYPE " + data.getTableName() + " SYSTEM \"" + data.getTableName() + ".dtd\">");
+		newLine(writer, 0);
+		writer.writeStartElement(data.getTableName());
+		writer.writeAttribute(AttributeWords.NumberOfColumns.name(), String.valueOf(numCols));
+		writer.writeAttribute(AttributeWords.NumberOfRows.name(), String.valueOf(numRows));
 		for (int i = 0; i < numCols; i++) {
-			rootElement.setAttribute(AttributeWords.Column.name() + (i + 1), colNames.get(i));
+			writer.writeAttribute(AttributeWords.Column.name() + (i + 1), colNames.get(i));
 		}
 		for (int i = 0; i < numCols; i++) {
-			rootElement.setAttribute(AttributeWords.Column.name() + (i + 1) + AttributeWords.Type.name(), colTypes.get(i).toString());
+			writer.writeAttribute(AttributeWords.Column.name() + (i + 1) + AttributeWords.Type.name(), colTypes.get(i).toString());
 		}
 		for (int i = 0; i < numRows; i++) {
-			Element row = document.createElement(AttributeWords.Rows.name());
-			row.setAttribute(AttributeWords.RowNumber.name(), String.valueOf(i));
+			newLine(writer, 1);
+			writer.writeStartElement(AttributeWords.Rows.name());
+			writer.writeAttribute(AttributeWords.RowNumber.name(), String.valueOf(i));
 			for (int j = 0; j < numCols; j++) {
-				Element field = document.createElement(colNames.get(j));
-				if (data.getValue(i, j) == null) {
-					field.appendChild(document.createTextNode(AttributeWords.Null.name()));
-				} else {
-					field.appendChild(document.createTextNode(data.getValue(i, j).toString()));					
-				}
-				row.appendChild((Element) field);
+				newLine(writer, 2);
+				writer.writeStartElement(colNames.get(j));
+				Object value = data.getValue(i, j);
+				writer.writeCharacters(value == null ? AttributeWords.Null.name() : value.toString());
+				writer.writeEndElement();
 			}
-			rootElement.appendChild(row);
+			newLine(writer, 1);
+			writer.writeEndElement();
 		}
-		document.appendChild(rootElement);
-		transform(fileToUpdate, document, data.getTableName());
+		newLine(writer, 0);
+		writer.writeEndElement();
+		writer.writeEndDocument();
 	}
 
-	private void transform(File fileToUpdate, Document document, String tableName) throws SQLException {
-		DOMSource domSource = new DOMSource(((Document) document));
-		StreamResult streamSource = new StreamResult(fileToUpdate);
-		TransformerFactory transformerFactory = TransformerFactory.newInstance();
-		Transformer transformer = null;
-		try {
-			transformer = transformerFactory.newTransformer();
-		} catch (TransformerConfigurationException e) {
-			SQLExceptions.canNotParseFile();
+	private void newLine(XMLStreamWriter writer, int depth) throws XMLStreamException {
+		if (!indent) {
+			return;
 		}
-		transformer.setOutputProperty(OutputKeys.INDENT, AttributeWords.yes.name());
-		transformer.setOutputProperty(OutputKeys.DOCTYPE_SYSTEM, tableName + ".dtd");
-		try {
-			transformer.transform(domSource, streamSource);
-		} catch (TransformerException e) {
-			SQLExceptions.canNotParseFile();
+		StringBuilder whiteSpace = new StringBuilder("\n");
+		for (int i = 0; i < depth; i++) {
+			whiteSpace.append("    ");
 		}
+		writer.writeCharacters(whiteSpace.toString());
 	}
 }